@@ -156,7 +156,7 @@ const PanelGrid = ({ onPanelClick, panels: propPanels }) => {
                 <span className="panel-tile-status">{getHealthIcon(panel.status || 'OFFLINE')}</span>
               </div>
               <div className="panel-tile-power">
-                {Math.round(panel.capacity || 0)}W
+                {panel.capacity || 0} kW
               </div>
               <div className="panel-tile-plant">
                 {panel.plantName || 'Unknown'}
@@ -194,7 +194,7 @@ const PanelGrid = ({ onPanelClick, panels: propPanels }) => {
               
               <div className="panel-detail-item">
                 <label>Capacity</label>
-                <div>{selectedPanel.capacity || 0}W</div>
+                <div>{selectedPanel.capacity || 0} kW</div>
               </div>
               
               <div className="panel-detail-item">
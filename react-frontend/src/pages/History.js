@@ -12,6 +12,8 @@ const History = () => {
     faultType: '',
     severity: ''
   });
+  // Listings omit the long text fields; recommendations are fetched per row on demand
+  const [recommendations, setRecommendations] = useState({});
   const [pagination, setPagination] = useState({
     page: 0,
     size: 20,
@@ -78,6 +80,15 @@ const History = () => {
     fetchHistory(newPage, pagination.size, filters);
   };
 
+  const loadRecommendation = async (id) => {
+    try {
+      const detail = await solarPanelAPI.getPredictionById(id);
+      setRecommendations(prev => ({ ...prev, [id]: detail.maintenanceRecommendation || 'N/A' }));
+    } catch (err) {
+      setError(err.message);
+    }
+  };
+
   const clearFilters = () => {
     const clearedFilters = { faultType: '', severity: '' };
     setFilters(clearedFilters);
@@ -236,9 +247,17 @@ const History = () => {
                             textOverflow: 'ellipsis',
                             whiteSpace: 'nowrap'
                           }}
-                          title={prediction.maintenanceRecommendation}
+                          title={recommendations[prediction.id]}
                         >
-                          {prediction.maintenanceRecommendation || 'N/A'}
+                          {recommendations[prediction.id] || (
+                            <button
+                              className="btn btn-secondary"
+                              onClick={() => loadRecommendation(prediction.id)}
+                              style={{ fontSize: '11px', padding: '2px 8px' }}
+                            >
+                              Show
+                            </button>
+                          )}
                         </div>
                       </td>
                     </tr>
@@ -215,16 +215,17 @@ const PanelManagement = () => {
                 />
               </div>
               <div className="form-group">
-                <label className="form-label">Capacity (W) *</label>
+                <label className="form-label">Capacity (kW) *</label>
                 <input
                   type="number"
                   name="capacity"
                   value={formData.capacity}
                   onChange={handleInputChange}
                   className="form-control"
-                  placeholder="e.g., 350"
-                  step="0.01"
-                  min="0"
+                  placeholder="e.g., 0.35"
+                  step="0.001"
+                  min="0.001"
+                  max="50"
                   required
                 />
               </div>
@@ -303,7 +304,7 @@ const PanelManagement = () => {
                   <th>Panel ID</th>
                   <th>Plant</th>
                   <th>Installation Date</th>
-                  <th>Capacity (W)</th>
+                  <th>Capacity (kW)</th>
                   <th>Status</th>
                   <th>Technician</th>
                   <th>Actions</th>
@@ -315,7 +316,7 @@ const PanelManagement = () => {
                     <td><strong>{panel.panelId}</strong></td>
                     <td>{panel.plantName}</td>
                     <td>{new Date(panel.installationDate).toLocaleDateString()}</td>
-                    <td>{panel.capacity.toLocaleString()} W</td>
+                    <td>{panel.capacity.toLocaleString()} kW</td>
                     <td>
                       <span className={`badge ${getStatusBadgeClass(panel.status)}`}>
                         {panel.status}
@@ -55,7 +55,7 @@ const Panels = () => {
     active: panels.filter(p => p.status === 'ACTIVE').length,
     maintenance: panels.filter(p => p.status === 'MAINTENANCE').length,
     offline: panels.filter(p => p.status === 'OFFLINE').length,
-    totalCapacity: panels.reduce((sum, p) => sum + (p.capacity || 0), 0) / 1000 // Convert to kW
+    totalCapacity: panels.reduce((sum, p) => sum + (p.capacity || 0), 0) // Panel capacity is in kW
   };
 
   // Filter panels based on selected status
@@ -254,7 +254,7 @@ const Panels = () => {
                 </div>
                 <div className="metric-item">
                   <span>Capacity</span>
-                  <span>{selectedPanel.capacity || 0}W</span>
+                  <span>{selectedPanel.capacity || 0} kW</span>
                 </div>
                 <div className="metric-item">
                   <span>Installation Date</span>
@@ -337,15 +337,17 @@ const Panels = () => {
               </div>
 
               <div className="form-group">
-                <label htmlFor="capacity">Capacity (W) *</label>
+                <label htmlFor="capacity">Capacity (kW) *</label>
                 <input
                   type="number"
                   id="capacity"
                   name="capacity"
                   value={formData.capacity}
                   onChange={handleInputChange}
-                  placeholder="e.g., 250"
-                  min="1"
+                  placeholder="e.g., 0.25"
+                  step="0.001"
+                  min="0.001"
+                  max="50"
                   required
                 />
               </div>
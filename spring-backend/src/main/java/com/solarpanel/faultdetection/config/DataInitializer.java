@@ -1,15 +1,22 @@
 package com.solarpanel.faultdetection.config;
 
+import com.solarpanel.faultdetection.dto.SolarPanelRequest;
 import com.solarpanel.faultdetection.entity.SolarPlant;
 import com.solarpanel.faultdetection.entity.User;
 import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
 import com.solarpanel.faultdetection.repository.UserRepository;
+import com.solarpanel.faultdetection.service.SolarPanelService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -22,13 +29,32 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private SolarPlantRepository solarPlantRepository;
     
+    @Autowired
+    private SolarPanelRepository solarPanelRepository;
+    
+    @Autowired
+    private SolarPanelService solarPanelService;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
     @Override
     public void run(String... args) throws Exception {
         initializeDefaultUsers();
-        initializeDefaultPlants();
+        // The count checks read the plants just written, so they must not go to a lagging replica
+        inReadWriteTransaction(this::initializeDefaultPlants);
+        inReadWriteTransaction(this::initializeDefaultPanels);
+    }
+    
+    private void inReadWriteTransaction(Runnable initializer) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> initializer.run());
+        } catch (RuntimeException e) {
+            logger.warn("Default data initialization rolled back: {}", e.getMessage());
+        }
     }
     
     private void initializeDefaultUsers() {
@@ -196,4 +222,24 @@ public class DataInitializer implements CommandLineRunner {
             logger.warn("Could not initialize solar plants: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    private void initializeDefaultPanels() {
+        logger.info("Initializing default solar panels...");
+        
+        try {
+            // The panel IDs used by sensor_simulator.py; ingestion rejects readings for unknown panels
+            if (solarPanelRepository.count() == 0 && solarPlantRepository.count() > 0) {
+                Long plantId = solarPlantRepository.findAll().get(0).getId();
+                for (String panelId : new String[]{"P001", "P002", "P003", "P004", "P005"}) {
+                    solarPanelService.createPanel(
+                        new SolarPanelRequest(panelId, plantId, LocalDate.of(2024, 1, 1), 0.4, null, null));
+                }
+                logger.info("Default solar panels initialization completed");
+            } else {
+                logger.info("Solar panels already exist, skipping initialization");
+            }
+        } catch (Exception e) {
+            logger.warn("Could not initialize solar panels: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.solarpanel.faultdetection.config;
+
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.service.PanelRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts panel capacities stored in watts to kW, the unit solar_panels.capacity is documented and validated in.
+ *
+ * The panel forms used to submit watts; no single panel is rated above SolarPanel.MAX_CAPACITY_KW, so any larger
+ * value is watts. Runs at startup, is idempotent, and reloads the panel registry when it changed anything.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class PanelCapacityMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(PanelCapacityMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PanelRegistry panelRegistry;
+
+    public PanelCapacityMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                  PanelRegistry panelRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.panelRegistry = panelRegistry;
+    }
+
+    @PostConstruct
+    public void migrateOnStartup() {
+        migrate();
+    }
+
+    /**
+     * Returns the number of panels converted
+     */
+    public int migrate() {
+        int converted = jdbcTemplate.update("UPDATE solar_panels SET capacity = capacity / 1000 WHERE capacity > ?",
+            SolarPanel.MAX_CAPACITY_KW);
+        if (converted > 0) {
+            logger.info("Converted the capacity of {} panels from W to kW", converted);
+            // The update bypasses Hibernate, so cached panels and panel listings would not see it
+            entityManagerFactory.getCache().evict(SolarPanel.class);
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+            panelRegistry.reload();
+        }
+        return converted;
+    }
+}
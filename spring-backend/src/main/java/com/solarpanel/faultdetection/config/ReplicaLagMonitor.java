@@ -0,0 +1,109 @@
+package com.solarpanel.faultdetection.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Measures replica lag with a heartbeat row: each check stamps the current time on the primary and reads
+ * the stamp back from the replica, so the difference is how far replication trails the primary regardless
+ * of database vendor. The replica is only used while the lag is within max-lag-ms; an unreachable replica
+ * or a missing heartbeat counts as lagging.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String HEARTBEAT_TABLE = "replication_heartbeat";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+
+    private volatile boolean replicaAvailable;
+    private volatile long lagMs = -1;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, long maxLagMs) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.maxLagMs = maxLagMs;
+    }
+
+    public void bindMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("datasource.replica.lag", this, ReplicaLagMonitor::getLagMs)
+            .baseUnit("milliseconds")
+            .description("Replication lag measured by the heartbeat row; -1 when unknown")
+            .register(meterRegistry);
+        Gauge.builder("datasource.replica.available", this, m -> m.isReplicaAvailable() ? 1 : 0)
+            .description("1 while read-only transactions are routed to the replica")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        long now = System.currentTimeMillis();
+        try {
+            writeHeartbeat(now);
+        } catch (RuntimeException e) {
+            // Without a fresh heartbeat the lag cannot be judged; reads stay on the primary
+            logger.warn("Could not write replication heartbeat: {}", e.getMessage());
+            update(false, -1);
+            return;
+        }
+
+        try {
+            List<Long> beats = replica.queryForList("SELECT beat_millis FROM " + HEARTBEAT_TABLE + " WHERE id = 1",
+                Long.class);
+            if (beats.isEmpty()) {
+                update(false, -1);
+                return;
+            }
+            long lag = Math.max(0, now - beats.get(0));
+            update(lag <= maxLagMs, lag);
+        } catch (RuntimeException e) {
+            logger.debug("Replica heartbeat check failed", e);
+            update(false, -1);
+        }
+    }
+
+    private void writeHeartbeat(long now) {
+        int updated;
+        try {
+            updated = primary.update("UPDATE " + HEARTBEAT_TABLE + " SET beat_millis = ? WHERE id = 1", now);
+        } catch (RuntimeException e) {
+            primary.execute("CREATE TABLE IF NOT EXISTS " + HEARTBEAT_TABLE
+                + " (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+            updated = 0;
+        }
+        if (updated == 0) {
+            primary.update("INSERT INTO " + HEARTBEAT_TABLE + " (id, beat_millis) VALUES (1, ?)", now);
+        }
+    }
+
+    private void update(boolean available, long lag) {
+        if (available != replicaAvailable) {
+            if (available) {
+                logger.info("Replica caught up (lag {} ms); routing read-only transactions to it", lag);
+            } else {
+                logger.warn("Replica unavailable or lagging (lag {} ms, limit {} ms); reads fall back to primary",
+                    lag, maxLagMs);
+            }
+        }
+        lagMs = lag;
+        replicaAvailable = available;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+}
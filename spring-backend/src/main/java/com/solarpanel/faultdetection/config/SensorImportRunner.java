@@ -0,0 +1,69 @@
+package com.solarpanel.faultdetection.config;
+
+import com.solarpanel.faultdetection.dto.ImportJobStatus;
+import com.solarpanel.faultdetection.dto.SensorImportRequest;
+import com.solarpanel.faultdetection.service.SensorImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Command line bulk import, for example:
+ * java -jar fault-detection.jar --spring.main.web-application-type=none --import.file=data/solar_panel_data.csv
+ *     --import.panel-id=P001 --import.start-time=2023-01-01T00:00:00 --import.interval-seconds=60
+ */
+@Component
+@ConditionalOnProperty(name = "import.file")
+public class SensorImportRunner implements CommandLineRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SensorImportRunner.class);
+    
+    @Autowired
+    private SensorImportService importService;
+    
+    @Autowired
+    private ApplicationContext applicationContext;
+    
+    @Value("${import.file}")
+    private String file;
+    
+    @Value("${import.panel-id:#{null}}")
+    private String panelId;
+    
+    @Value("${import.start-time:#{null}}")
+    private LocalDateTime startTime;
+    
+    @Value("${import.interval-seconds:60}")
+    private long intervalSeconds;
+    
+    @Value("${import.score:false}")
+    private boolean score;
+    
+    @Value("${import.exit-on-complete:true}")
+    private boolean exitOnComplete;
+    
+    @Override
+    public void run(String... args) {
+        logger.info("Running command line sensor import of {}", file);
+        
+        SensorImportRequest request = new SensorImportRequest(file, panelId, startTime, intervalSeconds, score);
+        ImportJobStatus status = importService.runImport(request);
+        
+        logger.info("Import {} {}: {} rows inserted, {} rejected, {} rows/s", status.getJobId(), status.getState(),
+                status.getRowsInserted(), status.getRowsRejected(), status.getRowsPerSecond());
+        status.getErrorSamples().forEach(error -> logger.warn("Rejected {}", error));
+        
+        if (exitOnComplete) {
+            int exitCode = "COMPLETED".equals(status.getState()) ? 0 : 1;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.solarpanel.faultdetection.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Moves sensor_data from the legacy panel_id string column to panel_ref (solar_panels.id).
+ *
+ * Runs at startup, after Hibernate has added panel_ref, and only while the old panel_id column still exists.
+ * It first makes panel_id nullable so new readings, which no longer write it, can be inserted, then fills
+ * panel_ref in id ranges of batch-size rows, each range in its own statement so locks stay short. The highest id
+ * covered is recorded in sensor_panel_ref_migration after every range, so an interrupted run resumes where it
+ * stopped and later startups only look at rows above it. Rows whose panel no longer exists keep a null panel_ref,
+ * are reported and are not retried (delete the recorded row to retry them); the panel_id column is left for an
+ * operator to drop once nothing is unmapped.
+ *
+ * There is no foreign key from panel_ref to solar_panels.id: deleting a panel keeps its readings, which still
+ * group by the old panel_ref for archiving and export.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "migration.sensor-panel-ref.enabled", havingValue = "true", matchIfMissing = true)
+public class SensorPanelRefMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorPanelRefMigration.class);
+
+    static final String STATE_TABLE = "sensor_panel_ref_migration";
+
+    private static final String BACKFILL_SQL = "UPDATE sensor_data SET panel_ref = "
+        + "(SELECT p.id FROM solar_panels p WHERE p.panel_id = sensor_data.panel_id) "
+        + "WHERE panel_ref IS NULL AND id >= ? AND id < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public SensorPanelRefMigration(JdbcTemplate jdbcTemplate,
+                                   @Value("${migration.sensor-panel-ref.batch-size:10000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("migration.sensor-panel-ref.batch-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void migrateOnStartup() {
+        migrate();
+    }
+
+    /**
+     * Returns the number of rows left without a panel_ref, or -1 when there is no legacy column
+     */
+    public long migrate() {
+        LegacyColumn legacy = findLegacyColumn();
+        if (legacy == null) {
+            return -1;
+        }
+        if (!legacy.nullable()) {
+            jdbcTemplate.execute(relaxNotNullSql(legacy));
+            logger.info("sensor_data.panel_id is now nullable");
+        }
+
+        long backfilledTo = backfilledTo();
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(id) FROM sensor_data WHERE panel_ref IS NULL AND id > ?",
+            Long.class, backfilledTo);
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM sensor_data WHERE panel_ref IS NULL AND id > ?",
+            Long.class, backfilledTo);
+        if (min != null) {
+            long started = System.currentTimeMillis();
+            long updated = 0;
+            for (long from = min; from <= max; from += batchSize) {
+                updated += jdbcTemplate.update(BACKFILL_SQL, from, from + batchSize);
+                recordBackfilledTo(Math.min(from + batchSize - 1, max));
+            }
+            logger.info("Backfilled sensor_data.panel_ref for ids {} to {} ({} rows) in {} ms",
+                min, max, updated, System.currentTimeMillis() - started);
+        }
+
+        Long unmapped = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sensor_data WHERE panel_ref IS NULL", Long.class);
+        if (unmapped != null && unmapped > 0) {
+            logger.warn("{} sensor_data rows reference panel IDs that are not in solar_panels and have no panel_ref",
+                unmapped);
+        } else {
+            logger.info("All sensor_data rows have a panel_ref; the legacy panel_id column can be dropped");
+        }
+        return unmapped != null ? unmapped : 0;
+    }
+
+    private long backfilledTo() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + STATE_TABLE
+            + " (id INT PRIMARY KEY, backfilled_to BIGINT NOT NULL)");
+        List<Long> marks = jdbcTemplate.queryForList("SELECT backfilled_to FROM " + STATE_TABLE + " WHERE id = 1",
+            Long.class);
+        return marks.isEmpty() ? 0 : marks.get(0);
+    }
+
+    private void recordBackfilledTo(long id) {
+        if (jdbcTemplate.update("UPDATE " + STATE_TABLE + " SET backfilled_to = ? WHERE id = 1", id) == 0) {
+            jdbcTemplate.update("INSERT INTO " + STATE_TABLE + " (id, backfilled_to) VALUES (1, ?)", id);
+        }
+    }
+
+    private LegacyColumn findLegacyColumn() {
+        return jdbcTemplate.execute((ConnectionCallback<LegacyColumn>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upperCase = metaData.storesUpperCaseIdentifiers();
+            String table = upperCase ? "SENSOR_DATA" : "sensor_data";
+            String column = upperCase ? "PANEL_ID" : "panel_id";
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+                if (!columns.next()) {
+                    return null;
+                }
+                return new LegacyColumn(metaData.getDatabaseProductName(),
+                    columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls, columns.getInt("COLUMN_SIZE"));
+            }
+        });
+    }
+
+    private static String relaxNotNullSql(LegacyColumn legacy) {
+        String product = legacy.databaseProduct().toLowerCase(Locale.ROOT);
+        if (product.contains("mysql") || product.contains("mariadb")) {
+            return "ALTER TABLE sensor_data MODIFY panel_id VARCHAR(" + legacy.size() + ") NULL";
+        }
+        if (product.contains("h2")) {
+            return "ALTER TABLE sensor_data ALTER COLUMN panel_id SET NULL";
+        }
+        return "ALTER TABLE sensor_data ALTER COLUMN panel_id DROP NOT NULL";
+    }
+
+    private record LegacyColumn(String databaseProduct, boolean nullable, int size) {
+    }
+}
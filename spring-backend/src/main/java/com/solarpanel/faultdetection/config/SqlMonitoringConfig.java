@@ -0,0 +1,68 @@
+package com.solarpanel.faultdetection.config;
+
+import com.solarpanel.faultdetection.monitoring.SlowQueriesEndpoint;
+import com.solarpanel.faultdetection.monitoring.SlowQueryRegistry;
+import com.solarpanel.faultdetection.monitoring.SqlStatementMonitor;
+import com.solarpanel.faultdetection.monitoring.SqlStatsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a datasource-proxy that counts statements per request and records
+ * slow ones, instead of logging every statement with show-sql. On by default; sql.monitoring.enabled=false
+ * removes the proxy entirely.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.monitoring.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitoringConfig {
+
+    // Static so the post-processor and its monitor exist before the DataSource bean is created
+    @Bean
+    public static SqlStatementMonitor sqlStatementMonitor(
+            @Value("${sql.monitoring.slow-threshold-ms:200}") long slowThresholdMs,
+            @Value("${sql.monitoring.max-shapes:500}") int maxShapes) {
+        return new SqlStatementMonitor(new SlowQueryRegistry(maxShapes), slowThresholdMs);
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlMonitoringDataSourcePostProcessor(ObjectProvider<SqlStatementMonitor> monitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Only the outermost application DataSource; with the replica split that is the routing proxy
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(monitor.getObject())
+                        .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(SqlStatementMonitor monitor,
+                                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        meterRegistry.ifAvailable(monitor::bindMetrics);
+        FilterRegistrationBean<SqlStatsFilter> registration =
+            new FilterRegistrationBean<>(new SqlStatsFilter(monitor, meterRegistry.getIfAvailable()));
+        // Ahead of the security filters, so user lookups during authentication are counted too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public SlowQueriesEndpoint slowQueriesEndpoint(SqlStatementMonitor monitor) {
+        return new SlowQueriesEndpoint(monitor);
+    }
+}
@@ -1,8 +1,12 @@
 package com.solarpanel.faultdetection.controller;
 
+import com.solarpanel.faultdetection.dto.AnalyticsCacheStatsResponse;
 import com.solarpanel.faultdetection.dto.AnalyticsSummaryResponse;
 import com.solarpanel.faultdetection.dto.AnalyticsTrendsResponse;
+import com.solarpanel.faultdetection.dto.TopPanelsResponse;
 import com.solarpanel.faultdetection.service.AnalyticsService;
+import com.solarpanel.faultdetection.service.AnalyticsTrendCache;
+import com.solarpanel.faultdetection.service.PanelFaultRanking;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +28,12 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
     
+    @Autowired
+    private PanelFaultRanking panelFaultRanking;
+    
+    @Autowired
+    private AnalyticsTrendCache trendCache;
+    
     /**
      * Get comprehensive analytics summary
      */
@@ -48,7 +58,7 @@ public class AnalyticsController {
     }
     
     /**
-     * Get analytics trends for specified date range
+     * Get analytics trends for specified date range, in hour, day or week buckets, optionally for one plant or panel
      */
     @GetMapping("/trends")
     public ResponseEntity<?> getAnalyticsTrends(
@@ -56,17 +66,21 @@ public class AnalyticsController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) 
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(defaultValue = "30") int days) {
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) Long plantId,
+            @RequestParam(required = false) String panelId) {
         
-        logger.info("Received analytics trends request - startDate: {}, endDate: {}, days: {}", 
-                   startDate, endDate, days);
+        logger.info("Received analytics trends request - startDate: {}, endDate: {}, days: {}, bucket: {}", 
+                   startDate, endDate, days, bucket);
         
         try {
             AnalyticsTrendsResponse trends;
+            AnalyticsService.TrendBucket trendBucket = AnalyticsService.TrendBucket.fromParam(bucket);
             
             // Use date range if both dates provided, otherwise use days parameter
             if (startDate != null && endDate != null) {
-                trends = analyticsService.getAnalyticsTrends(startDate, endDate);
+                trends = analyticsService.getAnalyticsTrends(startDate, endDate, trendBucket, plantId, panelId);
                 logger.info("Generated trends for date range: {} to {}", startDate, endDate);
             } else {
                 // Validate days parameter
@@ -77,7 +91,7 @@ public class AnalyticsController {
                     ));
                 }
                 
-                trends = analyticsService.getAnalyticsTrends(days);
+                trends = analyticsService.getAnalyticsTrends(days, trendBucket, plantId, panelId);
                 logger.info("Generated trends for last {} days", days);
             }
             
@@ -131,6 +145,41 @@ public class AnalyticsController {
         }
     }
     
+    /**
+     * Panels with the most faults in the last hour, day or week, optionally per fault type and/or plant
+     */
+    @GetMapping("/top-panels")
+    public ResponseEntity<?> getTopPanels(
+            @RequestParam(defaultValue = "week") String window,
+            @RequestParam(required = false) String faultType,
+            @RequestParam(required = false) Long plantId,
+            @RequestParam(defaultValue = "50") int limit) {
+        logger.info("Received top panels request - window: {}, faultType: {}, plantId: {}, limit: {}",
+                   window, faultType, plantId, limit);
+        
+        try {
+            TopPanelsResponse topPanels = panelFaultRanking.topPanels(
+                PanelFaultRanking.Window.fromParam(window), faultType, plantId, limit);
+            return ResponseEntity.ok(topPanels);
+            
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request parameters: {}", e.getMessage());
+            
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid request parameters",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Hit rate and size of the per-day trend cache
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<AnalyticsCacheStatsResponse> getCacheStats() {
+        return ResponseEntity.ok(trendCache.stats());
+    }
+    
     /**
      * Get analytics health check
      */
@@ -4,8 +4,10 @@ import com.solarpanel.faultdetection.dto.DashboardStatsResponse;
 import com.solarpanel.faultdetection.service.DashboardService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/dashboard")
@@ -13,13 +15,23 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 @CrossOrigin(origins = "*")
 public class DashboardController {
-    
+
     private final DashboardService dashboardService;
-    
+
+    /**
+     * Served from the in-memory snapshot; polls with a matching If-None-Match or If-Modified-Since get a 304
+     */
     @GetMapping("/stats")
-    public ResponseEntity<DashboardStatsResponse> getDashboardStats() {
+    public ResponseEntity<DashboardStatsResponse> getDashboardStats(WebRequest request) {
         log.info("REST request to get dashboard statistics");
-        DashboardStatsResponse stats = dashboardService.getDashboardStats();
-        return ResponseEntity.ok(stats);
+        DashboardService.Snapshot snapshot = dashboardService.getSnapshot();
+        if (request.checkNotModified(snapshot.etag(), snapshot.lastModified().toEpochMilli())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag())
+                .lastModified(snapshot.lastModified())
+                .body(snapshot.stats());
     }
 }
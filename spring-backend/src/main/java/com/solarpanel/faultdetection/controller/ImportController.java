@@ -0,0 +1,49 @@
+package com.solarpanel.faultdetection.controller;
+
+import com.solarpanel.faultdetection.dto.ImportJobStatus;
+import com.solarpanel.faultdetection.dto.SensorImportRequest;
+import com.solarpanel.faultdetection.service.SensorImportService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/import")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class ImportController {
+    
+    private final SensorImportService importService;
+    
+    /**
+     * Start a background import of a sensor CSV under import.base-directory
+     */
+    @PostMapping("/sensor-data")
+    public ResponseEntity<ImportJobStatus> startSensorImport(@Valid @RequestBody SensorImportRequest request) {
+        log.info("REST request to import sensor data from: {}", request.getPath());
+        ImportJobStatus status = importService.startImport(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+    
+    @GetMapping
+    public ResponseEntity<List<ImportJobStatus>> getImportJobs() {
+        log.info("REST request to get import jobs");
+        return ResponseEntity.ok(importService.getJobs());
+    }
+    
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJobStatus> getImportJob(@PathVariable String jobId) {
+        log.info("REST request to get import job: {}", jobId);
+        return importService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
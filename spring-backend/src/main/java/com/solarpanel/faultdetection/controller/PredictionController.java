@@ -1,5 +1,7 @@
 package com.solarpanel.faultdetection.controller;
 
+import com.solarpanel.faultdetection.dto.PredictionFilter;
+import com.solarpanel.faultdetection.dto.PredictionHistoryPage;
 import com.solarpanel.faultdetection.dto.PredictionResponse;
 import com.solarpanel.faultdetection.dto.SensorDataRequest;
 import com.solarpanel.faultdetection.service.PredictionService;
@@ -7,12 +9,13 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +28,8 @@ public class PredictionController {
     
     private static final Logger logger = LoggerFactory.getLogger(PredictionController.class);
     
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
+    
     @Autowired
     private PredictionService predictionService;
     
@@ -67,52 +72,51 @@ public class PredictionController {
     }
     
     /**
-     * Get all prediction history
+     * Get prediction history, newest first, with combinable filters.
+     * Pass the returned nextCursor to fetch the following page; page-numbered requests are still
+     * supported for existing clients but cost an OFFSET scan and a count.
+     * Always answers with a PredictionHistoryPage object, also for faultType and severity filters, which
+     * used to return a bare array; without page there is no totalElements unless includeTotal is set.
      */
     @GetMapping("/history")
     public ResponseEntity<?> getPredictionHistory(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             @RequestParam(required = false) String faultType,
-            @RequestParam(required = false) String severity) {
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) Double minConfidence,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String panelId,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        logger.info("Received history request - page: {}, size: {}, cursor: {}, faultType: {}, severity: {}, panelId: {}", 
+                   page, size, cursor, faultType, severity, panelId);
+        
+        if (size <= 0 || size > MAX_HISTORY_PAGE_SIZE || (page != null && page < 0)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid page request",
+                "message", "Page must be >= 0 and size between 1 and " + MAX_HISTORY_PAGE_SIZE
+            ));
+        }
         
-        logger.info("Received history request - page: {}, size: {}, faultType: {}, severity: {}", 
-                   page, size, faultType, severity);
+        PredictionFilter filter = new PredictionFilter(trimToNull(faultType), trimToNull(severity),
+                minConfidence, from, to, trimToNull(panelId));
         
         try {
-            List<PredictionResponse> predictions;
+            PredictionHistoryPage history = page != null && cursor == null
+                    ? predictionService.getPredictionHistoryPage(filter, page, size)
+                    : predictionService.getPredictionHistory(filter, trimToNull(cursor), size, includeTotal);
             
-            // Filter by fault type if specified
-            if (faultType != null && !faultType.trim().isEmpty()) {
-                predictions = predictionService.getPredictionsByFaultType(faultType.trim());
-            }
-            // Filter by severity if specified
-            else if (severity != null && !severity.trim().isEmpty()) {
-                predictions = predictionService.getPredictionsBySeverity(severity.trim());
-            }
-            // Get paginated results if no filters
-            else if (page >= 0 && size > 0) {
-                Page<PredictionResponse> paginatedResults = predictionService.getPaginatedPredictions(page, size);
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("content", paginatedResults.getContent());
-                response.put("totalElements", paginatedResults.getTotalElements());
-                response.put("totalPages", paginatedResults.getTotalPages());
-                response.put("currentPage", page);
-                response.put("size", size);
-                response.put("hasNext", paginatedResults.hasNext());
-                response.put("hasPrevious", paginatedResults.hasPrevious());
-                
-                return ResponseEntity.ok(response);
-            }
-            // Get all results
-            else {
-                predictions = predictionService.getAllPredictions();
-            }
-            
-            logger.info("Retrieved {} prediction records", predictions.size());
-            return ResponseEntity.ok(predictions);
+            logger.info("Retrieved {} prediction records", history.getContent().size());
+            return ResponseEntity.ok(history);
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid page request",
+                "message", e.getMessage()
+            ));
         } catch (Exception e) {
             logger.error("Error retrieving prediction history: {}", e.getMessage(), e);
             
@@ -124,14 +128,21 @@ public class PredictionController {
     }
     
     /**
-     * Get recent predictions (last 24 hours)
+     * Get recent predictions (last 24 hours), newest first, at most limit of them
      */
     @GetMapping("/history/recent")
-    public ResponseEntity<?> getRecentPredictions() {
-        logger.info("Received recent predictions request");
+    public ResponseEntity<?> getRecentPredictions(@RequestParam(defaultValue = "100") int limit) {
+        logger.info("Received recent predictions request - limit: {}", limit);
+        
+        if (limit <= 0 || limit > MAX_HISTORY_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid limit",
+                "message", "Limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE
+            ));
+        }
         
         try {
-            List<PredictionResponse> predictions = predictionService.getRecentPredictions();
+            List<PredictionResponse> predictions = predictionService.getRecentPredictions(limit);
             logger.info("Retrieved {} recent prediction records", predictions.size());
             
             return ResponseEntity.ok(predictions);
@@ -215,4 +226,8 @@ public class PredictionController {
         
         return ResponseEntity.ok(health);
     }
-}
\ No newline at end of file
+    
+    private static String trimToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+}
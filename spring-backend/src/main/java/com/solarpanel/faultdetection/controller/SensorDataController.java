@@ -1,15 +1,35 @@
 package com.solarpanel.faultdetection.controller;
 
+import com.solarpanel.faultdetection.dto.DegradationTrendResponse;
+import com.solarpanel.faultdetection.dto.PanelPerformanceResponse;
+import com.solarpanel.faultdetection.dto.PlantPeerStatsResponse;
+import com.solarpanel.faultdetection.dto.PowerForecastResponse;
 import com.solarpanel.faultdetection.dto.PredictionResponse;
 import com.solarpanel.faultdetection.dto.SensorDataDTO;
+import com.solarpanel.faultdetection.dto.SensorQuantileResponse;
+import com.solarpanel.faultdetection.dto.TelemetryAggregateResponse;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.service.DegradationTrendService;
+import com.solarpanel.faultdetection.service.PanelRegistry;
+import com.solarpanel.faultdetection.service.PerformanceRatioService;
+import com.solarpanel.faultdetection.service.PlantPeerAggregator;
+import com.solarpanel.faultdetection.service.PowerForecastService;
+import com.solarpanel.faultdetection.service.SensorArchiveService;
 import com.solarpanel.faultdetection.service.SensorDataService;
+import com.solarpanel.faultdetection.service.SensorQuantileService;
+import com.solarpanel.faultdetection.storage.SensorSegmentStore;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/sensor-data")
 @RequiredArgsConstructor
@@ -18,6 +38,14 @@ import org.springframework.web.bind.annotation.*;
 public class SensorDataController {
     
     private final SensorDataService sensorDataService;
+    private final SensorSegmentStore segmentStore;
+    private final SensorArchiveService sensorArchiveService;
+    private final SensorQuantileService quantileService;
+    private final PerformanceRatioService performanceRatioService;
+    private final DegradationTrendService degradationTrendService;
+    private final PanelRegistry panelRegistry;
+    private final PlantPeerAggregator peerAggregator;
+    private final PowerForecastService powerForecastService;
     
     @PostMapping
     public ResponseEntity<PredictionResponse> receiveSensorData(@Valid @RequestBody SensorDataDTO sensorData) {
@@ -26,9 +54,132 @@ public class SensorDataController {
         try {
             PredictionResponse response = sensorDataService.processSensorData(sensorData);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException e) {
+            // Unknown panel: answered as a bad request by the global handler
+            throw e;
         } catch (Exception e) {
             log.error("Error processing sensor data", e);
             throw new RuntimeException("Failed to process sensor data: " + e.getMessage());
         }
     }
+    
+    @GetMapping("/aggregate")
+    public ResponseEntity<?> aggregateSensorData(
+            @RequestParam(required = false) String panelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        log.info("Received telemetry aggregate request - panel: {}, from {} to {}", panelId, start, end);
+        
+        if (!segmentStore.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "error", "Telemetry store disabled",
+                "message", "Set telemetry.store.enabled=true to enable the columnar telemetry store"
+            ));
+        }
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start cannot be after end");
+        }
+        
+        TelemetryAggregateResponse aggregate = segmentStore.aggregate(panelId, start, end);
+        return ResponseEntity.ok(aggregate);
+    }
+    
+    /**
+     * p50/p95/p99 of voltage, temperature and power for a panel, a plant, or the whole fleet when neither is given
+     */
+    @GetMapping("/quantiles")
+    public ResponseEntity<SensorQuantileResponse> getQuantiles(
+            @RequestParam(required = false) String panelId,
+            @RequestParam(required = false) Long plantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        log.info("REST request to get sensor quantiles - panel: {}, plant: {}, from {} to {}", panelId, plantId, start, end);
+        return ResponseEntity.ok(quantileService.quantiles(panelId, plantId, start, end));
+    }
+    
+    /**
+     * Running performance ratio of every rated panel, lowest first
+     */
+    @GetMapping("/performance")
+    public ResponseEntity<List<PanelPerformanceResponse>> getPerformance(
+            @RequestParam(defaultValue = "false") boolean underperformingOnly) {
+        log.info("REST request to get panel performance ratios - underperforming only: {}", underperformingOnly);
+        return ResponseEntity.ok(performanceRatioService.getPerformances(underperformingOnly));
+    }
+    
+    @GetMapping("/performance/{panelId}")
+    public ResponseEntity<?> getPanelPerformance(@PathVariable String panelId) {
+        log.info("REST request to get performance ratio of panel: {}", panelId);
+        
+        PanelRegistry.PanelInfo panel = panelRegistry.find(panelId)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown panel ID: " + panelId));
+        return performanceRatioService.getPerformance(panel.id())
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "No rated readings",
+                "message", "No readings of panel " + panelId + " above the minimum irradiance yet"
+            )));
+    }
+    
+    /**
+     * Estimated degradation in %/year with a 95% band, from the panel's performance ratio over time
+     */
+    @GetMapping("/degradation/{panelId}")
+    public ResponseEntity<DegradationTrendResponse> getPanelDegradation(@PathVariable String panelId) {
+        log.info("REST request to get degradation trend of panel: {}", panelId);
+        return ResponseEntity.ok(degradationTrendService.getPanelTrend(panelId));
+    }
+    
+    @GetMapping("/degradation/plant/{plantId}")
+    public ResponseEntity<DegradationTrendResponse> getPlantDegradation(@PathVariable Long plantId) {
+        log.info("REST request to get degradation trend of plant: {}", plantId);
+        return ResponseEntity.ok(degradationTrendService.getPlantTrend(plantId));
+    }
+    
+    /**
+     * Irradiance of the plant's current bucket, its baseline and each panel's deviation from the plant mean
+     */
+    @GetMapping("/peers/plant/{plantId}")
+    public ResponseEntity<PlantPeerStatsResponse> getPlantPeers(@PathVariable Long plantId) {
+        log.info("REST request to get peer statistics of plant: {}", plantId);
+        return ResponseEntity.ok(peerAggregator.getPlantStats(plantId));
+    }
+    
+    /**
+     * Forecast against actual hourly mean power over the last day, then the forecast for the next hours
+     */
+    @GetMapping("/forecast/{panelId}")
+    public ResponseEntity<PowerForecastResponse> getPanelForecast(
+            @PathVariable String panelId,
+            @RequestParam(defaultValue = "24") int hours) {
+        log.info("REST request to get power forecast of panel: {} for {} hours", panelId, hours);
+        return ResponseEntity.ok(powerForecastService.getPanelForecast(panelId, hours));
+    }
+    
+    @GetMapping("/forecast/plant/{plantId}")
+    public ResponseEntity<PowerForecastResponse> getPlantForecast(
+            @PathVariable Long plantId,
+            @RequestParam(defaultValue = "24") int hours) {
+        log.info("REST request to get power forecast of plant: {} for {} hours", plantId, hours);
+        return ResponseEntity.ok(powerForecastService.getPlantForecast(plantId, hours));
+    }
+    
+    @GetMapping("/panel/{panelId}")
+    public ResponseEntity<List<SensorData>> getPanelReadings(
+            @PathVariable String panelId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        log.info("REST request to get readings for panel: {} from {} to {}", panelId, start, end);
+        
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start cannot be after end");
+        }
+        return ResponseEntity.ok(sensorArchiveService.findByPanelIdAndTimestampBetween(panelId, start, end));
+    }
+    
+    @GetMapping("/archive/stats")
+    public ResponseEntity<Map<String, Object>> getArchiveStats() {
+        log.info("REST request to get sensor archive stats");
+        return ResponseEntity.ok(sensorArchiveService.getArchiveStats());
+    }
 }
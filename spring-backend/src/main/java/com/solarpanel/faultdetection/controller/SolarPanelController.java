@@ -1,17 +1,23 @@
 package com.solarpanel.faultdetection.controller;
 
+import com.solarpanel.faultdetection.dto.PanelProvisioningResult;
+import com.solarpanel.faultdetection.dto.PanelProvisioningRow;
 import com.solarpanel.faultdetection.dto.SolarPanelRequest;
 import com.solarpanel.faultdetection.dto.SolarPanelResponse;
+import com.solarpanel.faultdetection.service.PanelProvisioningService;
 import com.solarpanel.faultdetection.service.SolarPanelService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/panels")
@@ -20,7 +26,10 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class SolarPanelController {
     
+    private static final int MAX_PAGE_SIZE = 500;
+    
     private final SolarPanelService panelService;
+    private final PanelProvisioningService provisioningService;
     
     @PostMapping
     public ResponseEntity<SolarPanelResponse> createPanel(@Valid @RequestBody SolarPanelRequest request) {
@@ -29,18 +38,63 @@ public class SolarPanelController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    /**
+     * Provision many panels for a plant in one request; rejected rows are listed in the result
+     */
+    @PostMapping(value = "/plant/{plantId}/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> provisionPanels(@PathVariable Long plantId,
+                                             @RequestBody List<PanelProvisioningRow> rows) {
+        log.info("REST request to provision {} panels for plant: {}", rows.size(), plantId);
+        try {
+            return ResponseEntity.ok(provisioningService.provision(plantId, rows));
+        } catch (IllegalArgumentException e) {
+            return invalidProvisioning(e);
+        }
+    }
+    
+    @PostMapping(value = "/plant/{plantId}/bulk", consumes = "text/csv")
+    public ResponseEntity<?> provisionPanelsFromCsv(@PathVariable Long plantId, @RequestBody String csv) {
+        log.info("REST request to provision panels from CSV for plant: {}", plantId);
+        try {
+            PanelProvisioningResult result = provisioningService.provisionCsv(plantId, csv);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return invalidProvisioning(e);
+        }
+    }
+    
+    /**
+     * All panels, or one page of them when page is given; the total is returned in X-Total-Count
+     */
     @GetMapping
-    public ResponseEntity<List<SolarPanelResponse>> getAllPanels() {
-        log.info("REST request to get all solar panels");
-        List<SolarPanelResponse> panels = panelService.getAllPanels();
-        return ResponseEntity.ok(panels);
+    public ResponseEntity<?> getAllPanels(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "50") int size) {
+        log.info("REST request to get solar panels - page: {}, size: {}", page, size);
+        if (page == null) {
+            List<SolarPanelResponse> panels = panelService.getAllPanels();
+            return ResponseEntity.ok(panels);
+        }
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            return invalidPage();
+        }
+        return pageResponse(panelService.getPanels(page, size));
     }
     
     @GetMapping("/plant/{plantId}")
-    public ResponseEntity<List<SolarPanelResponse>> getPanelsByPlant(@PathVariable Long plantId) {
-        log.info("REST request to get panels for plant: {}", plantId);
-        List<SolarPanelResponse> panels = panelService.getPanelsByPlant(plantId);
-        return ResponseEntity.ok(panels);
+    public ResponseEntity<?> getPanelsByPlant(
+            @PathVariable Long plantId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "50") int size) {
+        log.info("REST request to get panels for plant: {} - page: {}, size: {}", plantId, page, size);
+        if (page == null) {
+            List<SolarPanelResponse> panels = panelService.getPanelsByPlant(plantId);
+            return ResponseEntity.ok(panels);
+        }
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            return invalidPage();
+        }
+        return pageResponse(panelService.getPanelsByPlant(plantId, page, size));
     }
     
     @GetMapping("/{id}")
@@ -65,4 +119,24 @@ public class SolarPanelController {
         panelService.deletePanel(id);
         return ResponseEntity.noContent().build();
     }
+    
+    private ResponseEntity<?> pageResponse(Page<SolarPanelResponse> panels) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(panels.getTotalElements()))
+                .body(panels.getContent());
+    }
+    
+    private ResponseEntity<?> invalidProvisioning(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "error", "Invalid provisioning request",
+            "message", e.getMessage()
+        ));
+    }
+    
+    private ResponseEntity<?> invalidPage() {
+        return ResponseEntity.badRequest().body(Map.of(
+            "error", "Invalid page request",
+            "message", "Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE
+        ));
+    }
 }
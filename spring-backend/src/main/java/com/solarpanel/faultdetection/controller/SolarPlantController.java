@@ -6,12 +6,14 @@ import com.solarpanel.faultdetection.service.SolarPlantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/plants")
@@ -20,6 +22,8 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class SolarPlantController {
     
+    private static final int MAX_PAGE_SIZE = 500;
+    
     private final SolarPlantService plantService;
     
     @PostMapping
@@ -29,11 +33,28 @@ public class SolarPlantController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    /**
+     * All plants, or one page of them when page is given; the total is returned in X-Total-Count
+     */
     @GetMapping
-    public ResponseEntity<List<SolarPlantResponse>> getAllPlants() {
-        log.info("REST request to get all solar plants");
-        List<SolarPlantResponse> plants = plantService.getAllPlants();
-        return ResponseEntity.ok(plants);
+    public ResponseEntity<?> getAllPlants(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "50") int size) {
+        log.info("REST request to get solar plants - page: {}, size: {}", page, size);
+        if (page == null) {
+            List<SolarPlantResponse> plants = plantService.getAllPlants();
+            return ResponseEntity.ok(plants);
+        }
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid page request",
+                "message", "Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE
+            ));
+        }
+        Page<SolarPlantResponse> plants = plantService.getPlants(page, size);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(plants.getTotalElements()))
+                .body(plants.getContent());
     }
     
     @GetMapping("/{id}")
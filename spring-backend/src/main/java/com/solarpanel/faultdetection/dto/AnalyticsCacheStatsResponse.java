@@ -0,0 +1,19 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsCacheStatsResponse {
+    private Integer partitions;  // cached (day, granularity, filter) partitions
+    private Long cachedRows;     // aggregate rows held, each partition counting one more
+    private Long maxRows;
+    private Long hits;           // day partitions served from the cache
+    private Long misses;         // day partitions loaded from the database
+    private Double hitRate;
+    private Long queries;
+    private Long evictions;
+}
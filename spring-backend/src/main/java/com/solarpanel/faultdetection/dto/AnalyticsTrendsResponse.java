@@ -8,6 +8,7 @@ public class AnalyticsTrendsResponse {
     private LocalDate startDate;
     private LocalDate endDate;
     private Integer totalDays;
+    private String bucket; // "HOUR", "DAY" or "WEEK"
     private List<TrendDataPoint> dailyTrends;
     private Long totalPredictionsInPeriod;
     private String mostActiveFaultType;
@@ -50,6 +51,14 @@ public class AnalyticsTrendsResponse {
         this.totalDays = totalDays;
     }
     
+    public String getBucket() {
+        return bucket;
+    }
+    
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+    
     public List<TrendDataPoint> getDailyTrends() {
         return dailyTrends;
     }
@@ -89,6 +98,7 @@ public class AnalyticsTrendsResponse {
                 "startDate=" + startDate +
                 ", endDate=" + endDate +
                 ", totalDays=" + totalDays +
+                ", bucket='" + bucket + '\'' +
                 ", totalPredictionsInPeriod=" + totalPredictionsInPeriod +
                 ", mostActiveFaultType='" + mostActiveFaultType + '\'' +
                 ", trendDirection='" + trendDirection + '\'' +
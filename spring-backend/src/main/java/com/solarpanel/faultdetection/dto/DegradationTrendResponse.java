@@ -0,0 +1,22 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DegradationTrendResponse {
+    private String panelId;
+    private Long plantId;
+    private Integer panels;
+    private Long samples;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Double ratePercentPerYear; // negative when output is declining
+    private Double confidenceLow;      // 95% band of the rate
+    private Double confidenceHigh;
+}
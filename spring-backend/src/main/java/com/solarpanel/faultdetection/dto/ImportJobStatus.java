@@ -0,0 +1,27 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobStatus {
+    private String jobId;
+    private String file;
+    private String state;
+    private Double progressPercent;
+    private Long rowsRead;
+    private Long rowsInserted;
+    private Long rowsRejected;
+    private Long rowsScored;
+    private Double rowsPerSecond;
+    private List<String> errorSamples;
+    private String failureMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
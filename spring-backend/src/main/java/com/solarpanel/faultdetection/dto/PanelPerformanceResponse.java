@@ -0,0 +1,22 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PanelPerformanceResponse {
+    private String panelId;
+    private Long samples;
+    private Double averagePerformanceRatio;
+    private Double recentPerformanceRatio;
+    private Double lastPerformanceRatio;
+    private Double lastExpectedPower;
+    private Double lastActualPower;
+    private boolean underperforming;
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,30 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PanelProvisioningResult {
+    private Long plantId;
+    private Integer rowsReceived;
+    private Integer rowsInserted;
+    private Integer rowsRejected;
+    private Long durationMs;
+    // Capped; rowsRejected has the full count
+    private List<RowError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // 1-based position in a JSON request, line number in a CSV upload
+        private Integer row;
+        private String panelId;
+        private String message;
+    }
+}
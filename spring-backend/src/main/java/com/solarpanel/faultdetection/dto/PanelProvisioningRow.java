@@ -0,0 +1,23 @@
+package com.solarpanel.faultdetection.dto;
+
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One panel in a bulk provisioning request; the plant comes from the request path.
+ * Rows are validated individually so one bad row does not reject the whole request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PanelProvisioningRow {
+    private String panelId;
+    private LocalDate installationDate;
+    private Double capacity;  // kW
+    private SolarPanel.PanelStatus status;
+    private Long assignedTechnicianId;
+}
@@ -0,0 +1,22 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlantPeerStatsResponse {
+    private Long plantId;
+    private LocalDateTime bucketStart;
+    private Integer panelsReporting;
+    private Double meanIrradiance;
+    private Double stdDevIrradiance;
+    private Double baselineIrradiance;
+    private Double plantDip;                     // how far the plant mean is below its baseline, 0.4 = 40%
+    private Map<String, Double> panelDeviations; // irradiance relative to the plant mean, -0.6 = 60% below
+}
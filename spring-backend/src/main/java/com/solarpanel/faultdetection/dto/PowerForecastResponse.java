@@ -0,0 +1,32 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PowerForecastResponse {
+    private String panelId;
+    private Long plantId;
+    private Integer panels;
+    private LocalDateTime lastObservedHour;
+    private Double meanAbsoluteError;  // of one-step forecasts of the hourly mean power, W
+    private Boolean deviating;         // recent hours below the forecast band
+    private List<HourlyForecast> hours;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HourlyForecast {
+        private LocalDateTime hour;
+        private Double forecast;
+        private Double actual;   // null for future or missing hours
+        private Double lower;
+        private Double upper;
+    }
+}
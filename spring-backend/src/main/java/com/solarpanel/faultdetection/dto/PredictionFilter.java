@@ -0,0 +1,22 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Combinable prediction history filters; null fields are ignored
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionFilter {
+    private String faultType;
+    private String severity;
+    private Double minConfidence;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String panelId;
+}
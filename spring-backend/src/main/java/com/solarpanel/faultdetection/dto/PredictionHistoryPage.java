@@ -0,0 +1,27 @@
+package com.solarpanel.faultdetection.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of prediction history. Keyset pages carry nextCursor; page-numbered requests
+ * also fill currentPage and totalPages. totalElements is only present when counted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PredictionHistoryPage {
+    private List<PredictionResponse> content;
+    private Integer size;
+    private Boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+    private Integer currentPage;
+    private Integer totalPages;
+    private Boolean hasPrevious;
+}
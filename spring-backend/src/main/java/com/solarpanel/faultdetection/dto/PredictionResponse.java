@@ -6,6 +6,7 @@ import java.util.Map;
 public class PredictionResponse {
     
     private Long id;
+    private String panelId;
     private String predictedFault;
     private String confidence;
     private Double confidenceScore;
@@ -31,6 +32,18 @@ public class PredictionResponse {
         this.timestamp = LocalDateTime.now();
     }
     
+    // Listing projection: the TEXT columns (description, maintenance recommendation) are left for detail views
+    public PredictionResponse(Long id, String panelId, String predictedFault, String confidence,
+                              Double confidenceScore, String severity, LocalDateTime timestamp) {
+        this.id = id;
+        this.panelId = panelId;
+        this.predictedFault = predictedFault;
+        this.confidence = confidence;
+        this.confidenceScore = confidenceScore;
+        this.severity = severity;
+        this.timestamp = timestamp;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -40,6 +53,14 @@ public class PredictionResponse {
         this.id = id;
     }
     
+    public String getPanelId() {
+        return panelId;
+    }
+    
+    public void setPanelId(String panelId) {
+        this.panelId = panelId;
+    }
+    
     public String getPredictedFault() {
         return predictedFault;
     }
@@ -116,6 +137,7 @@ public class PredictionResponse {
     public String toString() {
         return "PredictionResponse{" +
                 "id=" + id +
+                ", panelId='" + panelId + '\'' +
                 ", predictedFault='" + predictedFault + '\'' +
                 ", confidence='" + confidence + '\'' +
                 ", confidenceScore=" + confidenceScore +
@@ -0,0 +1,31 @@
+package com.solarpanel.faultdetection.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bulk import of a historical sensor CSV. Files without panel_id or timestamp columns use the given
+ * panel and timestamps spaced intervalSeconds apart from startTime.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorImportRequest {
+    
+    @NotBlank(message = "File path is required")
+    private String path;
+    
+    private String panelId;
+    
+    private LocalDateTime startTime;
+    
+    @Positive(message = "Interval must be positive")
+    private Long intervalSeconds = 60L;
+    
+    private boolean score;
+}
@@ -0,0 +1,33 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorQuantileResponse {
+    private String panelId;
+    private Long plantId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Long count;
+    private Integer bucketsMerged;
+    private MetricQuantiles voltage;
+    private MetricQuantiles temperature;
+    private MetricQuantiles power;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MetricQuantiles {
+        private Double min;
+        private Double p50;
+        private Double p95;
+        private Double p99;
+        private Double max;
+    }
+}
@@ -1,6 +1,7 @@
 package com.solarpanel.faultdetection.dto;
 
 import com.solarpanel.faultdetection.entity.SolarPanel;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -26,6 +27,7 @@ public class SolarPanelRequest {
     
     @NotNull(message = "Capacity is required")
     @Positive(message = "Capacity must be positive")
+    @Max(value = SolarPanel.MAX_CAPACITY_KW, message = "Capacity is in kW and cannot exceed " + SolarPanel.MAX_CAPACITY_KW)
     private Double capacity;
     
     private SolarPanel.PanelStatus status;
@@ -0,0 +1,32 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetryAggregateResponse {
+    private String panelId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private Long count;
+    private Integer segmentsScanned;
+    private MetricStats voltage;
+    private MetricStats current;
+    private MetricStats temperature;
+    private MetricStats irradiance;
+    private MetricStats power;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MetricStats {
+        private Double min;
+        private Double max;
+        private Double average;
+    }
+}
@@ -0,0 +1,30 @@
+package com.solarpanel.faultdetection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopPanelsResponse {
+    private String window;
+    private String faultType;
+    private Long plantId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long totalFaults;
+    private List<PanelFaultCount> panels;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PanelFaultCount {
+        private String panelId;
+        private Long faultCount;
+        private Long maxOvercount; // faultCount - maxOvercount is a guaranteed lower bound
+    }
+}
@@ -1,11 +1,13 @@
 package com.solarpanel.faultdetection.dto;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 public class TrendDataPoint {
     
     private LocalDate date;
+    private LocalDateTime bucketStart; // start of the hour, day or week this point covers
     private Long totalCount;
     private Map<String, Long> faultTypeCounts;
     private Map<String, Long> severityCounts;
@@ -38,6 +40,14 @@ public class TrendDataPoint {
         this.date = date;
     }
     
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+    
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
     public Long getTotalCount() {
         return totalCount;
     }
@@ -66,6 +76,7 @@ public class TrendDataPoint {
     public String toString() {
         return "TrendDataPoint{" +
                 "date=" + date +
+                ", bucketStart=" + bucketStart +
                 ", totalCount=" + totalCount +
                 ", faultTypeCounts=" + faultTypeCounts +
                 ", severityCounts=" + severityCounts +
@@ -0,0 +1,50 @@
+package com.solarpanel.faultdetection.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Least-squares running sums of a panel's performance ratio over time (x in years since 2020-01-01)
+ */
+@Entity
+@Table(name = "panel_degradation_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PanelDegradationStats {
+    
+    @Id
+    @Column(name = "panel_ref")
+    private Long panelRef;
+    
+    @Column(nullable = false)
+    private Long sampleCount;
+    
+    @Column(nullable = false)
+    private Double sumX;
+    
+    @Column(nullable = false)
+    private Double sumY;
+    
+    @Column(nullable = false)
+    private Double sumXx;
+    
+    @Column(nullable = false)
+    private Double sumXy;
+    
+    @Column(nullable = false)
+    private Double sumYy;
+    
+    @Column(nullable = false)
+    private LocalDateTime firstReadingAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime lastReadingAt;
+    
+    @Version
+    private Long version;
+}
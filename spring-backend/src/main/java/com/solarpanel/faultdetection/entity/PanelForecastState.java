@@ -0,0 +1,39 @@
+package com.solarpanel.faultdetection.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized Holt-Winters model of a panel's hourly mean power, advanced as hourly rollups complete
+ */
+@Entity
+@Table(name = "panel_forecast_states")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PanelForecastState {
+    
+    @Id
+    @Column(name = "panel_ref")
+    private Long panelRef;
+    
+    @Column(nullable = false)
+    private LocalDateTime lastObservedHour;
+    
+    @Lob
+    @Column(nullable = false, length = 1024)
+    private byte[] state;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
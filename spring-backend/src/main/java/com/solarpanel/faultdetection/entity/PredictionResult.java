@@ -4,13 +4,19 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "prediction_results")
+@Table(name = "prediction_results", indexes = {
+    @Index(name = "idx_prediction_created_id", columnList = "created_at, id"),
+    @Index(name = "idx_prediction_panel_created", columnList = "panel_id, created_at")
+})
 public class PredictionResult {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Column(name = "panel_id", length = 50)
+    private String panelId;
+    
     @Column(name = "voltage", nullable = false)
     private Double voltage;
     
@@ -82,6 +88,14 @@ public class PredictionResult {
         this.id = id;
     }
     
+    public String getPanelId() {
+        return panelId;
+    }
+    
+    public void setPanelId(String panelId) {
+        this.panelId = panelId;
+    }
+    
     public Double getVoltage() {
         return voltage;
     }
@@ -182,6 +196,7 @@ public class PredictionResult {
     public String toString() {
         return "PredictionResult{" +
                 "id=" + id +
+                ", panelId='" + panelId + '\'' +
                 ", voltage=" + voltage +
                 ", current=" + current +
                 ", temperature=" + temperature +
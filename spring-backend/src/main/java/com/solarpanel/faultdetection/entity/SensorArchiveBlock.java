@@ -0,0 +1,54 @@
+package com.solarpanel.faultdetection.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Gorilla-compressed block of archived sensor readings for one panel
+ */
+@Entity
+@Table(name = "sensor_archive_blocks", indexes = {
+    @Index(name = "idx_archive_panel_time", columnList = "panelId, startTime, endTime")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorArchiveBlock {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String panelId;
+    
+    @Column(nullable = false)
+    private LocalDateTime startTime;
+    
+    @Column(nullable = false)
+    private LocalDateTime endTime;
+    
+    @Column(nullable = false)
+    private Integer pointCount;
+    
+    @Column(nullable = false)
+    private Integer payloadBytes;
+    
+    @Lob
+    @Column(nullable = false, length = 16777215)
+    private byte[] payload;
+    
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        if (archivedAt == null) {
+            archivedAt = LocalDateTime.now();
+        }
+    }
+}
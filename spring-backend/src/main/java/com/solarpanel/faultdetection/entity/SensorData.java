@@ -7,8 +7,15 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
+/**
+ * One sensor reading. The panel is stored as its solar_panels id (panel_ref) rather than the external panel ID
+ * string, which keeps rows and the per-panel index small; panelId is resolved through PanelRegistry by the
+ * services that read or write readings and is not persisted.
+ */
 @Entity
-@Table(name = "sensor_data")
+@Table(name = "sensor_data", indexes = {
+    @Index(name = "idx_sensor_panel_ref_time", columnList = "panel_ref, timestamp")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,7 +25,11 @@ public class SensorData {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false)
+    // Nullable for rows from before this column existed; see SensorPanelRefMigration
+    @Column(name = "panel_ref")
+    private Long panelRef;
+    
+    @Transient
     private String panelId;
     
     @Column(nullable = false)
@@ -0,0 +1,60 @@
+package com.solarpanel.faultdetection.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized t-digests of one panel's readings in one hour, merged at query time for percentiles
+ */
+@Entity
+@Table(name = "sensor_quantile_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_quantile_panel_bucket", columnNames = {"panel_ref", "bucket_start"})
+}, indexes = {
+    @Index(name = "idx_quantile_bucket", columnList = "bucket_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorQuantileRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "panel_ref", nullable = false)
+    private Long panelRef;
+    
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+    
+    @Column(nullable = false)
+    private Long sampleCount;
+    
+    @Lob
+    @Column(nullable = false, length = 65535)
+    private byte[] voltageDigest;
+    
+    @Lob
+    @Column(nullable = false, length = 65535)
+    private byte[] temperatureDigest;
+    
+    @Lob
+    @Column(nullable = false, length = 65535)
+    private byte[] powerDigest;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Version
+    private Long version;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
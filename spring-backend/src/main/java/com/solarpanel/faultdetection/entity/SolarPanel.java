@@ -4,16 +4,25 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "solar_panels")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class SolarPanel {
     
+    /**
+     * Upper bound of a single panel's rated capacity in kW; a larger value was almost certainly entered in watts
+     */
+    public static final int MAX_CAPACITY_KW = 50;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -28,6 +37,7 @@ public class SolarPanel {
     @Column(nullable = false)
     private LocalDate installationDate;
     
+    // Rated capacity in kW (0.4 for a 400 W panel)
     @Column(nullable = false)
     private Double capacity;
     
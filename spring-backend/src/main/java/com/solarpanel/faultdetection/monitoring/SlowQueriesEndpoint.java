@@ -0,0 +1,38 @@
+package com.solarpanel.faultdetection.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * /actuator/slowqueries lists the slowest query shapes seen since startup (or the last reset)
+ */
+@Endpoint(id = "slowqueries")
+public class SlowQueriesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SqlStatementMonitor monitor;
+
+    public SlowQueriesEndpoint(SqlStatementMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowQueries(@Nullable Integer limit) {
+        SlowQueryRegistry registry = monitor.getSlowQueries();
+        return Map.of(
+            "thresholdMs", monitor.getSlowThresholdMs(),
+            "shapes", registry.size(),
+            "queries", registry.top(limit != null ? limit : DEFAULT_LIMIT)
+        );
+    }
+
+    @DeleteOperation
+    public void reset() {
+        monitor.getSlowQueries().clear();
+    }
+}
@@ -0,0 +1,99 @@
+package com.solarpanel.faultdetection.monitoring;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Slow statements grouped by query shape: the SQL with literals replaced by ? and IN lists collapsed, so the
+ * same query with different arguments is counted once. At most maxShapes shapes are kept; when full, the
+ * shape with the lowest worst-case time makes room for a new one.
+ */
+public class SlowQueryRegistry {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final int maxShapes;
+
+    public SlowQueryRegistry(int maxShapes) {
+        if (maxShapes <= 0) {
+            throw new IllegalArgumentException("Slow query shape limit must be positive");
+        }
+        this.maxShapes = maxShapes;
+    }
+
+    public void record(String sql, long elapsedMs) {
+        String shape = normalize(sql);
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            synchronized (this) {
+                if (!shapes.containsKey(shape) && shapes.size() >= maxShapes) {
+                    evictFastest();
+                }
+                stats = shapes.computeIfAbsent(shape, k -> new ShapeStats());
+            }
+        }
+        stats.record(elapsedMs);
+    }
+
+    /**
+     * The slowest shapes by worst-case time, at most limit of them
+     */
+    public List<SlowQuery> top(int limit) {
+        return shapes.entrySet().stream()
+            .map(e -> e.getValue().snapshot(e.getKey()))
+            .sorted(Comparator.comparingLong(SlowQuery::maxMs).reversed())
+            .limit(Math.max(0, limit))
+            .toList();
+    }
+
+    public int size() {
+        return shapes.size();
+    }
+
+    public void clear() {
+        shapes.clear();
+    }
+
+    private void evictFastest() {
+        shapes.entrySet().stream()
+            .min(Comparator.comparingLong(e -> e.getValue().maxMs.get()))
+            .ifPresent(e -> shapes.remove(e.getKey()));
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    public record SlowQuery(String sql, long count, long totalMs, long maxMs, long meanMs) {
+    }
+
+    private static final class ShapeStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMs = new LongAdder();
+        private final AtomicLong maxMs = new AtomicLong();
+
+        void record(long elapsedMs) {
+            count.increment();
+            totalMs.add(elapsedMs);
+            maxMs.accumulateAndGet(elapsedMs, Math::max);
+        }
+
+        SlowQuery snapshot(String sql) {
+            long n = count.sum();
+            long total = totalMs.sum();
+            return new SlowQuery(sql, n, total, maxMs.get(), n == 0 ? 0 : total / n);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.solarpanel.faultdetection.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.List;
+
+/**
+ * Listener on the proxied DataSource. Every statement executed on a thread that has begun request tracking
+ * adds to that request's count and JDBC time, and the running totals are kept in the sqlStatements and
+ * sqlTimeMs MDC keys so the request's own log lines carry them. Statements at or above the slow threshold
+ * are logged and recorded by shape whether or not a request is being tracked. Executing a batch counts as
+ * one statement. Statements are timed with System.nanoTime, since most take well under a millisecond.
+ */
+public class SqlStatementMonitor implements QueryExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementMonitor.class);
+
+    static final String MDC_STATEMENTS = "sqlStatements";
+    static final String MDC_TIME = "sqlTimeMs";
+
+    private final ThreadLocal<RequestStats> current = new ThreadLocal<>();
+    // Start of the statement executing on each thread, in System.nanoTime
+    private final ThreadLocal<long[]> startedAt = ThreadLocal.withInitial(() -> new long[1]);
+    private final SlowQueryRegistry slowQueries;
+    private final long slowThresholdMs;
+
+    private volatile Counter slowCounter;
+
+    public SqlStatementMonitor(SlowQueryRegistry slowQueries, long slowThresholdMs) {
+        this.slowQueries = slowQueries;
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    public void bindMetrics(MeterRegistry meterRegistry) {
+        slowCounter = Counter.builder("jdbc.statements.slow")
+            .description("Statements that took at least the slow-query threshold")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Start counting statements on the current thread
+     */
+    public RequestStats begin() {
+        RequestStats stats = new RequestStats();
+        current.set(stats);
+        putMdc(stats);
+        return stats;
+    }
+
+    public void end() {
+        current.remove();
+        MDC.remove(MDC_STATEMENTS);
+        MDC.remove(MDC_TIME);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        startedAt.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedNanos = System.nanoTime() - startedAt.get()[0];
+        long elapsedMs = elapsedNanos / 1_000_000;
+        RequestStats stats = current.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.jdbcTimeNanos += elapsedNanos;
+            putMdc(stats);
+        }
+
+        if (elapsedMs >= slowThresholdMs) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                slowQueries.record(queryInfo.getQuery(), elapsedMs);
+            }
+            Counter counter = slowCounter;
+            if (counter != null) {
+                counter.increment();
+            }
+            if (logger.isWarnEnabled() && !queryInfoList.isEmpty()) {
+                logger.warn("Slow SQL ({} ms{}): {}", elapsedMs, execInfo.isBatch() ? ", batch" : "",
+                    SlowQueryRegistry.normalize(queryInfoList.get(0).getQuery()));
+            }
+        }
+    }
+
+    private static void putMdc(RequestStats stats) {
+        MDC.put(MDC_STATEMENTS, String.valueOf(stats.statements));
+        MDC.put(MDC_TIME, String.valueOf(stats.getJdbcTimeMs()));
+    }
+
+    public long getSlowThresholdMs() {
+        return slowThresholdMs;
+    }
+
+    public SlowQueryRegistry getSlowQueries() {
+        return slowQueries;
+    }
+
+    /**
+     * Statement count and JDBC time for one request; only touched by the thread serving it
+     */
+    public static final class RequestStats {
+        private int statements;
+        private long jdbcTimeNanos;
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getJdbcTimeNanos() {
+            return jdbcTimeNanos;
+        }
+
+        /**
+         * JDBC time in milliseconds, to the microsecond
+         */
+        public double getJdbcTimeMs() {
+            return jdbcTimeNanos / 1_000 / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.solarpanel.faultdetection.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL statements issued while serving each request: the count and JDBC time go to the
+ * http.server.requests.sql.* meters, tagged like http.server.requests, and to the sqlStatements and
+ * sqlTimeMs MDC keys, which hold the running totals while the request is served. Work handed to other
+ * threads, such as streamed exports, is not attributed to the request.
+ */
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    private final SqlStatementMonitor monitor;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatsFilter(SqlStatementMonitor monitor, MeterRegistry meterRegistry) {
+        this.monitor = monitor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementMonitor.RequestStats stats = monitor.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            try {
+                record(request, stats);
+            } finally {
+                monitor.end();
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementMonitor.RequestStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        if (meterRegistry != null) {
+            DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements issued per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+            Timer.builder("http.server.requests.sql.time")
+                .description("JDBC execution time per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getJdbcTimeNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        logger.debug("{} {} issued {} SQL statements in {} ms", request.getMethod(), uri,
+            stats.getStatements(), stats.getJdbcTimeMs());
+    }
+}
@@ -1,21 +1,46 @@
 package com.solarpanel.faultdetection.repository;
 
+import com.solarpanel.faultdetection.dto.AlertResponse;
 import com.solarpanel.faultdetection.entity.Alert;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AlertRepository extends JpaRepository<Alert, Long> {
-    List<Alert> findByPanelId(String panelId);
-    List<Alert> findByAcknowledged(Boolean acknowledged);
-    List<Alert> findBySeverity(String severity);
-    List<Alert> findByStatus(Alert.AlertStatus status);
-    List<Alert> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
-    List<Alert> findTop50ByOrderByCreatedAtDesc();
+    // Listing queries select straight into the response DTO: no managed entities, no dirty-checking snapshots
+    
+    @Query(SELECT_RESPONSE + "ORDER BY a.createdAt DESC")
+    List<AlertResponse> findRecentResponses(Limit limit);
+    
+    @Query(SELECT_RESPONSE + "WHERE a.status = :status")
+    List<AlertResponse> findResponsesByStatus(@Param("status") Alert.AlertStatus status);
+    
+    @Query(SELECT_RESPONSE + "WHERE a.acknowledged = :acknowledged")
+    List<AlertResponse> findResponsesByAcknowledged(@Param("acknowledged") Boolean acknowledged);
+    
+    @Query(SELECT_RESPONSE + "WHERE a.panelId = :panelId")
+    List<AlertResponse> findResponsesByPanelId(@Param("panelId") String panelId);
+    
+    @Query(SELECT_RESPONSE + "WHERE a.severity = :severity")
+    List<AlertResponse> findResponsesBySeverity(@Param("severity") String severity);
+    
     long countByAcknowledged(Boolean acknowledged);
     long countBySeverity(String severity);
     long countByStatus(Alert.AlertStatus status);
+    
+    /**
+     * Alert counts grouped by status, severity and fault type: [status, severity, faultType, count]
+     */
+    @Query("SELECT a.status, a.severity, a.faultType, COUNT(a) FROM Alert a GROUP BY a.status, a.severity, a.faultType")
+    List<Object[]> countGroupedByStatusSeverityAndFaultType();
+    
+    String SELECT_RESPONSE = "SELECT new com.solarpanel.faultdetection.dto.AlertResponse(" +
+           "a.id, a.panelId, a.faultType, a.severity, a.message, a.confidence, a.confidenceScore, " +
+           "CAST(a.status AS String), a.createdAt, a.resolvedAt, a.acknowledged, a.acknowledgedAt, " +
+           "a.acknowledgedBy, a.assignedTechnicianId, a.technicianNotes) FROM Alert a ";
 }
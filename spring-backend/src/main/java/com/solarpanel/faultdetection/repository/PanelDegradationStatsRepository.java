@@ -0,0 +1,9 @@
+package com.solarpanel.faultdetection.repository;
+
+import com.solarpanel.faultdetection.entity.PanelDegradationStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PanelDegradationStatsRepository extends JpaRepository<PanelDegradationStats, Long> {
+}
@@ -1,6 +1,8 @@
 package com.solarpanel.faultdetection.repository;
 
+import com.solarpanel.faultdetection.dto.PredictionResponse;
 import com.solarpanel.faultdetection.entity.PredictionResult;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,65 +17,107 @@ import java.util.List;
 public interface PredictionResultRepository extends JpaRepository<PredictionResult, Long> {
     
     /**
-     * Find all predictions ordered by creation date (most recent first)
+     * Count predictions by fault type
      */
-    List<PredictionResult> findAllByOrderByCreatedAtDesc();
+    @Query("SELECT p.predictedFault, COUNT(p) FROM PredictionResult p GROUP BY p.predictedFault")
+    List<Object[]> countByFaultType();
     
     /**
-     * Find predictions by fault type
+     * Count predictions by severity
      */
-    List<PredictionResult> findByPredictedFaultOrderByCreatedAtDesc(String predictedFault);
+    @Query("SELECT p.severity, COUNT(p) FROM PredictionResult p GROUP BY p.severity")
+    List<Object[]> countBySeverity();
     
     /**
-     * Find predictions by severity level
+     * Prediction counts per (day, fault type, severity) in [from, to); rows are day, fault, severity, count
      */
-    List<PredictionResult> findBySeverityOrderByCreatedAtDesc(String severity);
+    @Query("SELECT cast(p.createdAt as LocalDate), p.predictedFault, p.severity, COUNT(p) " +
+           "FROM PredictionResult p WHERE p.createdAt >= :from AND p.createdAt < :to AND " + TREND_FILTER +
+           " GROUP BY cast(p.createdAt as LocalDate), p.predictedFault, p.severity")
+    List<Object[]> countTrendsByDay(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("plantId") Long plantId,
+            @Param("panelId") String panelId);
     
     /**
-     * Find predictions within a date range
+     * Prediction counts per (day, hour, fault type, severity) in [from, to); rows are day, hour, fault, severity, count
      */
-    List<PredictionResult> findByCreatedAtBetweenOrderByCreatedAtDesc(
-            LocalDateTime startDate, LocalDateTime endDate);
+    @Query("SELECT cast(p.createdAt as LocalDate), hour(p.createdAt), p.predictedFault, p.severity, COUNT(p) " +
+           "FROM PredictionResult p WHERE p.createdAt >= :from AND p.createdAt < :to AND " + TREND_FILTER +
+           " GROUP BY cast(p.createdAt as LocalDate), hour(p.createdAt), p.predictedFault, p.severity")
+    List<Object[]> countTrendsByHour(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("plantId") Long plantId,
+            @Param("panelId") String panelId);
     
     /**
-     * Find predictions with confidence score above threshold
+     * Summaries of recent predictions (last N hours), newest first, at most limit rows
      */
-    @Query("SELECT p FROM PredictionResult p WHERE p.confidenceScore >= :threshold ORDER BY p.createdAt DESC")
-    List<PredictionResult> findByConfidenceScoreGreaterThanEqual(@Param("threshold") Double threshold);
+    @Query(SELECT_SUMMARY + "WHERE p.createdAt >= :since ORDER BY p.createdAt DESC, p.id DESC")
+    List<PredictionResponse> findRecentSummaries(@Param("since") LocalDateTime since, Limit limit);
     
     /**
-     * Get paginated results ordered by creation date
+     * Keyset page of prediction summaries matching the filters, newest first. Pass a null cursor for the first
+     * page; the pageable only limits the result, no count query is issued.
      */
-    Page<PredictionResult> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    @Query(SELECT_SUMMARY + "WHERE " +
+           FILTER_CONDITIONS + " AND " +
+           "(:cursorCreatedAt IS NULL OR p.createdAt < :cursorCreatedAt OR " +
+           "(p.createdAt = :cursorCreatedAt AND p.id < :cursorId)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PredictionResponse> findPageAfter(
+            @Param("faultType") String faultType,
+            @Param("severity") String severity,
+            @Param("minConfidence") Double minConfidence,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("panelId") String panelId,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
     
     /**
-     * Count predictions by fault type
+     * Offset page of prediction summaries matching the filters, for page-numbered clients
      */
-    @Query("SELECT p.predictedFault, COUNT(p) FROM PredictionResult p GROUP BY p.predictedFault")
-    List<Object[]> countByFaultType();
+    @Query(value = SELECT_SUMMARY + "WHERE " + FILTER_CONDITIONS +
+                   " ORDER BY p.createdAt DESC, p.id DESC",
+           countQuery = "SELECT COUNT(p) FROM PredictionResult p WHERE " + FILTER_CONDITIONS)
+    Page<PredictionResponse> findPageByFilter(
+            @Param("faultType") String faultType,
+            @Param("severity") String severity,
+            @Param("minConfidence") Double minConfidence,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("panelId") String panelId,
+            Pageable pageable);
     
     /**
-     * Count predictions by severity
+     * Count predictions matching the filters
      */
-    @Query("SELECT p.severity, COUNT(p) FROM PredictionResult p GROUP BY p.severity")
-    List<Object[]> countBySeverity();
+    @Query("SELECT COUNT(p) FROM PredictionResult p WHERE " + FILTER_CONDITIONS)
+    long countByFilter(
+            @Param("faultType") String faultType,
+            @Param("severity") String severity,
+            @Param("minConfidence") Double minConfidence,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("panelId") String panelId);
     
-    /**
-     * Find recent predictions (last N hours)
-     */
-    @Query("SELECT p FROM PredictionResult p WHERE p.createdAt >= :since ORDER BY p.createdAt DESC")
-    List<PredictionResult> findRecentPredictions(@Param("since") LocalDateTime since);
+    String SELECT_SUMMARY = "SELECT new com.solarpanel.faultdetection.dto.PredictionResponse(" +
+           "p.id, p.panelId, p.predictedFault, p.confidence, p.confidenceScore, p.severity, p.createdAt) " +
+           "FROM PredictionResult p ";
     
-    /**
-     * Find predictions by multiple criteria
-     */
-    @Query("SELECT p FROM PredictionResult p WHERE " +
+    String FILTER_CONDITIONS =
            "(:faultType IS NULL OR p.predictedFault = :faultType) AND " +
            "(:severity IS NULL OR p.severity = :severity) AND " +
-           "(:minConfidence IS NULL OR p.confidenceScore >= :minConfidence) " +
-           "ORDER BY p.createdAt DESC")
-    List<PredictionResult> findByCriteria(
-            @Param("faultType") String faultType,
-            @Param("severity") String severity,
-            @Param("minConfidence") Double minConfidence);
-}
\ No newline at end of file
+           "(:minConfidence IS NULL OR p.confidenceScore >= :minConfidence) AND " +
+           "(:from IS NULL OR p.createdAt >= :from) AND " +
+           "(:to IS NULL OR p.createdAt < :to) AND " +
+           "(:panelId IS NULL OR p.panelId = :panelId)";
+    
+    String TREND_FILTER =
+           "(:panelId IS NULL OR p.panelId = :panelId) AND " +
+           "(:plantId IS NULL OR p.panelId IN (SELECT sp.panelId FROM SolarPanel sp WHERE sp.plant.id = :plantId))";
+}
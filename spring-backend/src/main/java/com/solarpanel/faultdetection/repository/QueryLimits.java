@@ -0,0 +1,17 @@
+package com.solarpanel.faultdetection.repository;
+
+/**
+ * Shared settings for repository methods that read many rows.
+ *
+ * List finders reachable from a request are bounded: they take a Limit or a Pageable
+ * (findRecentSummaries, findPageAfter, findPageByFilter). The few stream* methods, which read through
+ * a cursor with STREAM_FETCH_SIZE rows per round trip, serve jobs that fold every row of a range into
+ * an aggregate.
+ */
+public final class QueryLimits {
+
+    public static final String STREAM_FETCH_SIZE = "1000";
+
+    private QueryLimits() {
+    }
+}
@@ -0,0 +1,29 @@
+package com.solarpanel.faultdetection.repository;
+
+import com.solarpanel.faultdetection.entity.SensorArchiveBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SensorArchiveBlockRepository extends JpaRepository<SensorArchiveBlock, Long> {
+    
+    /**
+     * Find archived blocks of a panel overlapping the given time range
+     */
+    @Query("SELECT b FROM SensorArchiveBlock b WHERE b.panelId = :panelId " +
+           "AND b.startTime <= :end AND b.endTime >= :start ORDER BY b.startTime")
+    List<SensorArchiveBlock> findOverlapping(@Param("panelId") String panelId,
+                                             @Param("start") LocalDateTime start,
+                                             @Param("end") LocalDateTime end);
+    
+    @Query("SELECT COALESCE(SUM(b.pointCount), 0) FROM SensorArchiveBlock b")
+    long sumPointCount();
+    
+    @Query("SELECT COALESCE(SUM(b.payloadBytes), 0) FROM SensorArchiveBlock b")
+    long sumPayloadBytes();
+}
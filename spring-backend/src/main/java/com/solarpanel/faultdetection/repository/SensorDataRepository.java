@@ -1,15 +1,24 @@
 package com.solarpanel.faultdetection.repository;
 
 import com.solarpanel.faultdetection.entity.SensorData;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Readings are keyed by panel_ref (solar_panels.id); callers resolve external panel IDs through PanelRegistry
+ */
 @Repository
 public interface SensorDataRepository extends JpaRepository<SensorData, Long> {
-    List<SensorData> findByPanelId(String panelId);
-    List<SensorData> findByPanelIdAndTimestampBetween(String panelId, LocalDateTime start, LocalDateTime end);
-    List<SensorData> findTop10ByPanelIdOrderByTimestampDesc(String panelId);
+    List<SensorData> findByPanelRefAndTimestampBetween(Long panelRef, LocalDateTime start, LocalDateTime end);
+    List<SensorData> findTop10ByPanelRefOrderByTimestampDesc(Long panelRef);
+    List<SensorData> findByPanelRefAndTimestampBeforeOrderByTimestampAsc(Long panelRef, LocalDateTime cutoff, Pageable pageable);
+    
+    @Query("SELECT DISTINCT s.panelRef FROM SensorData s WHERE s.timestamp < :cutoff AND s.panelRef IS NOT NULL")
+    List<Long> findPanelRefsWithReadingsBefore(@Param("cutoff") LocalDateTime cutoff);
 }
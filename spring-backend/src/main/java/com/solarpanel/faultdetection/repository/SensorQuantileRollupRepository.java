@@ -0,0 +1,50 @@
+package com.solarpanel.faultdetection.repository;
+
+import com.solarpanel.faultdetection.entity.SensorQuantileRollup;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.solarpanel.faultdetection.repository.QueryLimits.STREAM_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface SensorQuantileRollupRepository extends JpaRepository<SensorQuantileRollup, Long> {
+    
+    Optional<SensorQuantileRollup> findByPanelRefAndBucketStart(Long panelRef, LocalDateTime bucketStart);
+    
+    /**
+     * Rollups of the given panels with a bucket starting in [start, end)
+     */
+    @Query("SELECT r FROM SensorQuantileRollup r WHERE r.panelRef IN :panelRefs " +
+           "AND r.bucketStart >= :start AND r.bucketStart < :end")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<SensorQuantileRollup> streamByPanelRefs(@Param("panelRefs") Collection<Long> panelRefs,
+                                                   @Param("start") LocalDateTime start,
+                                                   @Param("end") LocalDateTime end);
+    
+    /**
+     * Rollups of every panel with a bucket starting in [start, end)
+     */
+    @Query("SELECT r FROM SensorQuantileRollup r WHERE r.bucketStart >= :start AND r.bucketStart < :end")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<SensorQuantileRollup> streamAll(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    /**
+     * Panel ref, bucket start and power digest of every rollup with a bucket starting in [start, end), in
+     * panel and time order; leaves the voltage and temperature digests unread
+     */
+    @Query("SELECT r.panelRef, r.bucketStart, r.powerDigest FROM SensorQuantileRollup r " +
+           "WHERE r.bucketStart >= :start AND r.bucketStart < :end ORDER BY r.panelRef, r.bucketStart")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Object[]> streamPowerDigests(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
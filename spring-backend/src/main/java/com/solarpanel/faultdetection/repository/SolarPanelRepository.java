@@ -1,17 +1,72 @@
 package com.solarpanel.faultdetection.repository;
 
+import com.solarpanel.faultdetection.dto.SolarPanelResponse;
 import com.solarpanel.faultdetection.entity.SolarPanel;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
+/**
+ * Panel lookups are served from the second-level and query caches; Hibernate invalidates
+ * the cached results whenever a panel is inserted, updated or deleted through JPA.
+ */
 @Repository
 public interface SolarPanelRepository extends JpaRepository<SolarPanel, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<SolarPanel> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<SolarPanel> findByPanelId(String panelId);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<SolarPanel> findByPlantId(Long plantId);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByPanelId(String panelId);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     long countByPlantId(Long plantId);
+
     long countByStatus(SolarPanel.PanelStatus status);
+
+    /**
+     * Panel counts grouped by status: [status, count]
+     */
+    @Query("SELECT p.status, COUNT(p) FROM SolarPanel p GROUP BY p.status")
+    List<Object[]> countGroupedByStatus();
+
+    // Listing projections join the plant name in the same query instead of initialising each panel's plant
+
+    @Query(SELECT_RESPONSE + "ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<SolarPanelResponse> findAllResponses();
+
+    @Query(SELECT_RESPONSE + "WHERE pl.id = :plantId ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<SolarPanelResponse> findResponsesByPlantId(@Param("plantId") Long plantId);
+
+    @Query(value = SELECT_RESPONSE + "ORDER BY p.id",
+           countQuery = "SELECT COUNT(p) FROM SolarPanel p")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Page<SolarPanelResponse> findResponses(Pageable pageable);
+
+    @Query(value = SELECT_RESPONSE + "WHERE pl.id = :plantId ORDER BY p.id",
+           countQuery = "SELECT COUNT(p) FROM SolarPanel p WHERE p.plant.id = :plantId")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Page<SolarPanelResponse> findResponsesByPlantId(@Param("plantId") Long plantId, Pageable pageable);
+
+    String SELECT_RESPONSE = "SELECT new com.solarpanel.faultdetection.dto.SolarPanelResponse(" +
+            "p.id, p.panelId, pl.id, pl.name, p.installationDate, p.capacity, p.status, p.assignedTechnicianId) " +
+            "FROM SolarPanel p JOIN p.plant pl ";
 }
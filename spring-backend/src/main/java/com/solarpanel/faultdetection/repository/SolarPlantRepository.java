@@ -1,13 +1,50 @@
 package com.solarpanel.faultdetection.repository;
 
+import com.solarpanel.faultdetection.dto.SolarPlantResponse;
 import com.solarpanel.faultdetection.entity.SolarPlant;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface SolarPlantRepository extends JpaRepository<SolarPlant, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<SolarPlant> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<SolarPlant> findByName(String name);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByName(String name);
+
+    // Listing projections count panels in the same query instead of one count per plant
+
+    @Query(SELECT_RESPONSE + GROUP_BY + "ORDER BY pl.id")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<SolarPlantResponse> findAllResponses();
+
+    @Query(value = SELECT_RESPONSE + GROUP_BY + "ORDER BY pl.id",
+           countQuery = "SELECT COUNT(pl) FROM SolarPlant pl")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Page<SolarPlantResponse> findResponses(Pageable pageable);
+
+    @Query(SELECT_RESPONSE + "WHERE pl.id = :id " + GROUP_BY)
+    Optional<SolarPlantResponse> findResponseById(@Param("id") Long id);
+
+    String SELECT_RESPONSE = "SELECT new com.solarpanel.faultdetection.dto.SolarPlantResponse(" +
+            "pl.id, pl.name, pl.location, pl.capacityKW, pl.createdAt, COUNT(p.id)) " +
+            "FROM SolarPlant pl LEFT JOIN pl.panels p ";
+
+    String GROUP_BY = "GROUP BY pl.id, pl.name, pl.location, pl.capacityKW, pl.createdAt ";
 }
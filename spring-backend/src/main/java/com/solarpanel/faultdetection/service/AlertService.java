@@ -5,12 +5,12 @@ import com.solarpanel.faultdetection.entity.Alert;
 import com.solarpanel.faultdetection.repository.AlertRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,17 +22,13 @@ public class AlertService {
     @Transactional(readOnly = true)
     public List<AlertResponse> getAllAlerts() {
         log.info("Fetching all alerts");
-        return alertRepository.findTop50ByOrderByCreatedAtDesc().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return alertRepository.findRecentResponses(Limit.of(50));
     }
     
     @Transactional(readOnly = true)
     public List<AlertResponse> getAlertsByStatus(Alert.AlertStatus status) {
         log.info("Fetching alerts by status: {}", status);
-        return alertRepository.findByStatus(status).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return alertRepository.findResponsesByStatus(status);
     }
     
     @Transactional
@@ -89,25 +85,19 @@ public class AlertService {
     @Transactional(readOnly = true)
     public List<AlertResponse> getUnacknowledgedAlerts() {
         log.info("Fetching unacknowledged alerts");
-        return alertRepository.findByAcknowledged(false).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return alertRepository.findResponsesByAcknowledged(false);
     }
     
     @Transactional(readOnly = true)
     public List<AlertResponse> getAlertsByPanel(String panelId) {
         log.info("Fetching alerts for panel: {}", panelId);
-        return alertRepository.findByPanelId(panelId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return alertRepository.findResponsesByPanelId(panelId);
     }
     
     @Transactional(readOnly = true)
     public List<AlertResponse> getAlertsBySeverity(String severity) {
         log.info("Fetching alerts by severity: {}", severity);
-        return alertRepository.findBySeverity(severity).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return alertRepository.findResponsesBySeverity(severity);
     }
     
     @Transactional
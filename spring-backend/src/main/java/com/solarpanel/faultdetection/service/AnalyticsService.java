@@ -3,18 +3,17 @@ package com.solarpanel.faultdetection.service;
 import com.solarpanel.faultdetection.dto.AnalyticsSummaryResponse;
 import com.solarpanel.faultdetection.dto.AnalyticsTrendsResponse;
 import com.solarpanel.faultdetection.dto.TrendDataPoint;
-import com.solarpanel.faultdetection.entity.PredictionResult;
-import com.solarpanel.faultdetection.repository.PredictionResultRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -22,24 +21,26 @@ public class AnalyticsService {
     
     private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
     
+    private static final int MAX_HOURLY_TREND_DAYS = 31;
+    
+    @Autowired
+    private PredictionCounters predictionCounters;
+    
     @Autowired
-    private PredictionResultRepository predictionRepository;
+    private AnalyticsTrendCache trendCache;
     
     /**
-     * Get comprehensive analytics summary
+     * Get comprehensive analytics summary, from the live counters without touching the database
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AnalyticsSummaryResponse getAnalyticsSummary() {
         logger.info("Generating analytics summary");
         
         try {
-            // Get total predictions count
-            long totalPredictions = predictionRepository.count();
-            
-            // Get fault type counts
-            Map<String, Long> faultTypeCounts = getFaultTypeCounts();
-            
-            // Get severity counts
-            Map<String, Long> severityCounts = getSeverityCounts();
+            PredictionCounters.Snapshot counts = predictionCounters.snapshot();
+            long totalPredictions = counts.total();
+            Map<String, Long> faultTypeCounts = counts.faultTypeCounts();
+            Map<String, Long> severityCounts = counts.severityCounts();
             
             // Calculate percentages
             Map<String, Double> faultTypePercentages = calculatePercentages(faultTypeCounts, totalPredictions);
@@ -71,52 +72,97 @@ public class AnalyticsService {
     }
     
     /**
-     * Get trends data for specified date range
+     * Trend buckets; weeks are counted from the start date
+     */
+    public enum TrendBucket {
+        HOUR, DAY, WEEK;
+        
+        public static TrendBucket fromParam(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown trend bucket: " + name);
+            }
+        }
+    }
+    
+    /**
+     * Get daily trends data for specified date range
      */
     public AnalyticsTrendsResponse getAnalyticsTrends(LocalDate startDate, LocalDate endDate) {
-        logger.info("Generating analytics trends from {} to {}", startDate, endDate);
+        return getAnalyticsTrends(startDate, endDate, TrendBucket.DAY, null, null);
+    }
+    
+    /**
+     * Get trends for the date range in hour, day or week buckets, optionally for one plant or panel.
+     * Counts are grouped per (day or hour, fault type, severity) in the database, so only aggregate rows are read.
+     */
+    public AnalyticsTrendsResponse getAnalyticsTrends(LocalDate startDate, LocalDate endDate, TrendBucket bucket,
+                                                      Long plantId, String panelId) {
+        logger.info("Generating {} analytics trends from {} to {} (plant: {}, panel: {})",
+                   bucket, startDate, endDate, plantId, panelId);
+        
+        // Validate date range
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (bucket == TrendBucket.HOUR && days > MAX_HOURLY_TREND_DAYS) {
+            throw new IllegalArgumentException("Hourly trends cover at most " + MAX_HOURLY_TREND_DAYS + " days");
+        }
         
         try {
-            // Validate date range
-            if (startDate.isAfter(endDate)) {
-                throw new IllegalArgumentException("Start date cannot be after end date");
-            }
+            LocalDateTime from = startDate.atStartOfDay();
+            LocalDateTime to = endDate.plusDays(1).atStartOfDay();
             
-            // Get predictions in date range
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-            
-            List<PredictionResult> predictions = predictionRepository
-                .findByCreatedAtBetweenOrderByCreatedAtDesc(startDateTime, endDateTime);
-            
-            // Group predictions by date
-            Map<LocalDate, List<PredictionResult>> predictionsByDate = predictions.stream()
-                .collect(Collectors.groupingBy(p -> p.getCreatedAt().toLocalDate()));
+            // Every bucket in the range, including empty ones
+            Map<LocalDateTime, TrendDataPoint> points = new LinkedHashMap<>();
+            for (LocalDateTime at = from; at.isBefore(to); at = next(at, bucket)) {
+                TrendDataPoint point = new TrendDataPoint(at.toLocalDate(), 0L, new HashMap<>(), new HashMap<>());
+                point.setBucketStart(at);
+                points.put(at, point);
+            }
             
-            // Create trend data points
-            List<TrendDataPoint> dailyTrends = new ArrayList<>();
+            Map<String, Long> periodFaultCounts = new HashMap<>();
+            long totalPredictionsInPeriod = 0;
             
-            LocalDate currentDate = startDate;
-            while (!currentDate.isAfter(endDate)) {
-                List<PredictionResult> dayPredictions = predictionsByDate.getOrDefault(currentDate, Collections.emptyList());
+            // Served per day from the cache; only days not cached yet are queried
+            List<Object[]> rows = trendCache.countTrends(startDate, endDate, bucket == TrendBucket.HOUR, plantId, panelId);
+            // Hourly rows carry the hour as an extra column before fault and severity
+            int offset = bucket == TrendBucket.HOUR ? 1 : 0;
+            for (Object[] row : rows) {
+                LocalDateTime at = ((LocalDate) row[0]).atStartOfDay();
+                if (bucket == TrendBucket.HOUR) {
+                    at = at.plusHours(((Number) row[1]).longValue());
+                } else if (bucket == TrendBucket.WEEK) {
+                    at = from.plusWeeks(ChronoUnit.DAYS.between(startDate, at.toLocalDate()) / 7);
+                }
+                String faultType = (String) row[1 + offset];
+                String severity = (String) row[2 + offset];
+                long count = ((Number) row[3 + offset]).longValue();
                 
-                TrendDataPoint dataPoint = createTrendDataPoint(currentDate, dayPredictions);
-                dailyTrends.add(dataPoint);
-                
-                currentDate = currentDate.plusDays(1);
+                TrendDataPoint point = points.get(at);
+                point.setTotalCount(point.getTotalCount() + count);
+                point.getFaultTypeCounts().merge(faultType, count, Long::sum);
+                point.getSeverityCounts().merge(severity, count, Long::sum);
+                periodFaultCounts.merge(faultType, count, Long::sum);
+                totalPredictionsInPeriod += count;
             }
             
+            List<TrendDataPoint> trends = new ArrayList<>(points.values());
+            
             // Create response
-            AnalyticsTrendsResponse response = new AnalyticsTrendsResponse(startDate, endDate, dailyTrends);
+            AnalyticsTrendsResponse response = new AnalyticsTrendsResponse(startDate, endDate, trends);
+            response.setTotalDays((int) days);
+            response.setBucket(bucket.name());
             
             // Calculate derived metrics
-            long totalPredictionsInPeriod = predictions.size();
             response.setTotalPredictionsInPeriod(totalPredictionsInPeriod);
-            response.setMostActiveFaultType(getMostActiveFaultType(predictions));
-            response.setTrendDirection(calculateTrendDirection(dailyTrends));
+            response.setMostActiveFaultType(getMostCommonValue(periodFaultCounts));
+            response.setTrendDirection(calculateTrendDirection(trends));
             
-            logger.info("Analytics trends generated: {} days, {} total predictions", 
-                       dailyTrends.size(), totalPredictionsInPeriod);
+            logger.info("Analytics trends generated: {} buckets from {} aggregate rows, {} total predictions", 
+                       trends.size(), rows.size(), totalPredictionsInPeriod);
             
             return response;
             
@@ -127,45 +173,28 @@ public class AnalyticsService {
     }
     
     /**
-     * Get trends for last N days
+     * Get daily trends for last N days
      */
     public AnalyticsTrendsResponse getAnalyticsTrends(int days) {
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(days - 1);
-        
-        return getAnalyticsTrends(startDate, endDate);
+        return getAnalyticsTrends(days, TrendBucket.DAY, null, null);
     }
     
     /**
-     * Get fault type counts from database
+     * Get trends for last N days
      */
-    private Map<String, Long> getFaultTypeCounts() {
-        List<Object[]> results = predictionRepository.countByFaultType();
-        
-        Map<String, Long> counts = new HashMap<>();
-        for (Object[] result : results) {
-            String faultType = (String) result[0];
-            Long count = (Long) result[1];
-            counts.put(faultType, count);
-        }
+    public AnalyticsTrendsResponse getAnalyticsTrends(int days, TrendBucket bucket, Long plantId, String panelId) {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(days - 1);
         
-        return counts;
+        return getAnalyticsTrends(startDate, endDate, bucket, plantId, panelId);
     }
     
-    /**
-     * Get severity counts from database
-     */
-    private Map<String, Long> getSeverityCounts() {
-        List<Object[]> results = predictionRepository.countBySeverity();
-        
-        Map<String, Long> counts = new HashMap<>();
-        for (Object[] result : results) {
-            String severity = (String) result[0];
-            Long count = (Long) result[1];
-            counts.put(severity, count);
-        }
-        
-        return counts;
+    private static LocalDateTime next(LocalDateTime bucketStart, TrendBucket bucket) {
+        return switch (bucket) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+        };
     }
     
     /**
@@ -195,42 +224,6 @@ public class AnalyticsService {
             .orElse("Unknown");
     }
     
-    /**
-     * Create trend data point for a specific date
-     */
-    private TrendDataPoint createTrendDataPoint(LocalDate date, List<PredictionResult> predictions) {
-        long totalCount = predictions.size();
-        
-        // Count by fault type
-        Map<String, Long> faultTypeCounts = predictions.stream()
-            .collect(Collectors.groupingBy(
-                PredictionResult::getPredictedFault,
-                Collectors.counting()
-            ));
-        
-        // Count by severity
-        Map<String, Long> severityCounts = predictions.stream()
-            .collect(Collectors.groupingBy(
-                PredictionResult::getSeverity,
-                Collectors.counting()
-            ));
-        
-        return new TrendDataPoint(date, totalCount, faultTypeCounts, severityCounts);
-    }
-    
-    /**
-     * Get most active fault type from predictions list
-     */
-    private String getMostActiveFaultType(List<PredictionResult> predictions) {
-        Map<String, Long> faultCounts = predictions.stream()
-            .collect(Collectors.groupingBy(
-                PredictionResult::getPredictedFault,
-                Collectors.counting()
-            ));
-        
-        return getMostCommonValue(faultCounts);
-    }
-    
     /**
      * Calculate trend direction based on daily trends
      */
@@ -0,0 +1,211 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.AnalyticsCacheStatsResponse;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import com.solarpanel.faultdetection.storage.PredictionPersistedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trend aggregate rows cached per day, so repeated trend requests only query the days not cached yet.
+ *
+ * A request for a date range is split into one partition per day, keyed by day, hourly or daily rows and
+ * the plant and panel filters. Missing days are loaded with one query over their span. A day that ended more
+ * than close-grace-minutes ago is closed: its rows no longer change and are kept for closed-day-ttl-ms (the
+ * backstop for panels moving between plants). Every {@link PredictionPersistedEvent} bumps the version of its
+ * day, which invalidates that day's partitions, normally today's and rarely a closed day's; open days also
+ * expire after open-day-ttl-ms to pick up other instances' writes. Partitions are evicted least recently used
+ * once the cached rows (each partition counting one more) exceed max-rows, which bounds memory.
+ */
+@Service
+@Slf4j
+public class AnalyticsTrendCache {
+
+    private final PredictionResultRepository predictionRepository;
+    private final long maxRows;
+    private final long openTtlMs;
+    private final long closedTtlMs;
+    private final long closeGraceMinutes;
+    // Access order, eldest first; guarded by this
+    private final LinkedHashMap<PartitionKey, Partition> partitions = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedRows;
+    private final Map<LocalDate, DayVersion> dayVersions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AnalyticsTrendCache(PredictionResultRepository predictionRepository,
+                               @Value("${analytics.cache.max-rows:200000}") long maxRows,
+                               @Value("${analytics.cache.open-day-ttl-ms:30000}") long openTtlMs,
+                               @Value("${analytics.cache.closed-day-ttl-ms:86400000}") long closedTtlMs,
+                               @Value("${analytics.cache.close-grace-minutes:5}") long closeGraceMinutes) {
+        if (maxRows < 0) {
+            throw new IllegalArgumentException("analytics.cache.max-rows cannot be negative");
+        }
+        this.predictionRepository = predictionRepository;
+        this.maxRows = maxRows;
+        this.openTtlMs = openTtlMs;
+        this.closedTtlMs = closedTtlMs;
+        this.closeGraceMinutes = closeGraceMinutes;
+    }
+
+    private record PartitionKey(LocalDate day, boolean hourly, Long plantId, String panelId) {
+    }
+
+    private record Partition(List<Object[]> rows, long version, long loadedAt, boolean closed) {
+        long weight() {
+            return rows.size() + 1L;
+        }
+    }
+
+    private record DayVersion(long version, long changedAt) {
+    }
+
+    @EventListener
+    public void onPredictionPersisted(PredictionPersistedEvent event) {
+        LocalDateTime createdAt = event.prediction().getCreatedAt();
+        invalidate(createdAt != null ? createdAt.toLocalDate() : LocalDate.now());
+    }
+
+    /**
+     * Mark every partition of the day stale; O(1), the stale partitions are replaced on their next request
+     */
+    void invalidate(LocalDate day) {
+        long now = System.currentTimeMillis();
+        dayVersions.merge(day, new DayVersion(1, now), (old, next) -> new DayVersion(old.version() + 1, now));
+    }
+
+    /**
+     * Rows of {@link PredictionResultRepository#countTrendsByDay} or, when hourly,
+     * {@link PredictionResultRepository#countTrendsByHour} for the days from start to end inclusive
+     */
+    public List<Object[]> countTrends(LocalDate start, LocalDate end, boolean hourly, Long plantId, String panelId) {
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>();
+        List<LocalDate> missing = new ArrayList<>();
+        synchronized (this) {
+            for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+                Partition partition = partitions.get(new PartitionKey(day, hourly, plantId, panelId));
+                if (partition != null && isValid(partition, day, now)) {
+                    rows.addAll(partition.rows());
+                    hits.increment();
+                } else {
+                    missing.add(day);
+                    misses.increment();
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return rows;
+        }
+
+        // Versions and closed state as of before the query, so a write during the query leaves its day stale
+        Map<LocalDate, Long> versions = new HashMap<>();
+        for (LocalDate day : missing) {
+            versions.put(day, version(day));
+        }
+        LocalDateTime closedBefore = LocalDateTime.now().minusMinutes(closeGraceMinutes);
+        LocalDateTime from = missing.get(0).atStartOfDay();
+        LocalDateTime to = missing.get(missing.size() - 1).plusDays(1).atStartOfDay();
+        List<Object[]> loaded = hourly
+            ? predictionRepository.countTrendsByHour(from, to, plantId, panelId)
+            : predictionRepository.countTrendsByDay(from, to, plantId, panelId);
+        queries.increment();
+
+        Map<LocalDate, List<Object[]>> byDay = new HashMap<>();
+        for (Object[] row : loaded) {
+            byDay.computeIfAbsent((LocalDate) row[0], day -> new ArrayList<>()).add(row);
+        }
+        synchronized (this) {
+            for (LocalDate day : missing) {
+                List<Object[]> dayRows = byDay.getOrDefault(day, List.of());
+                rows.addAll(dayRows);
+                boolean closed = !day.plusDays(1).atStartOfDay().isAfter(closedBefore);
+                put(new PartitionKey(day, hourly, plantId, panelId),
+                    new Partition(List.copyOf(dayRows), versions.get(day), now, closed));
+            }
+            evict();
+        }
+        return rows;
+    }
+
+    private boolean isValid(Partition partition, LocalDate day, long now) {
+        long ttl = partition.closed() ? closedTtlMs : openTtlMs;
+        return partition.version() == version(day) && now - partition.loadedAt() < ttl;
+    }
+
+    private long version(LocalDate day) {
+        DayVersion version = dayVersions.get(day);
+        return version != null ? version.version() : 0;
+    }
+
+    private void put(PartitionKey key, Partition partition) {
+        Partition previous = partitions.put(key, partition);
+        if (previous != null) {
+            cachedRows -= previous.weight();
+        }
+        cachedRows += partition.weight();
+    }
+
+    private void evict() {
+        Iterator<Partition> eldest = partitions.values().iterator();
+        while (cachedRows > maxRows && eldest.hasNext()) {
+            cachedRows -= eldest.next().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Drop expired partitions, and versions of days whose last write is older than any partition can live:
+     * a partition loaded before that write has expired, so the day can safely start again from version 0
+     */
+    @Scheduled(fixedDelay = 3_600_000L, initialDelay = 3_600_000L)
+    public void prune() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<Map.Entry<PartitionKey, Partition>> entries = partitions.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<PartitionKey, Partition> entry = entries.next();
+                if (!isValid(entry.getValue(), entry.getKey().day(), now)) {
+                    cachedRows -= entry.getValue().weight();
+                    entries.remove();
+                }
+            }
+        }
+        long maxAge = Math.max(openTtlMs, closedTtlMs);
+        dayVersions.values().removeIf(version -> now - version.changedAt() > maxAge);
+    }
+
+    public AnalyticsCacheStatsResponse stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        AnalyticsCacheStatsResponse stats = new AnalyticsCacheStatsResponse();
+        synchronized (this) {
+            stats.setPartitions(partitions.size());
+            stats.setCachedRows(cachedRows);
+        }
+        stats.setMaxRows(maxRows);
+        stats.setHits(hitCount);
+        stats.setMisses(missCount);
+        stats.setHitRate(hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : null);
+        stats.setQueries(queries.sum());
+        stats.setEvictions(evictions.sum());
+        return stats;
+    }
+}
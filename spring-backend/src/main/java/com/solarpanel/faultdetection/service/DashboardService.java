@@ -6,60 +6,125 @@ import com.solarpanel.faultdetection.entity.SolarPanel;
 import com.solarpanel.faultdetection.repository.AlertRepository;
 import com.solarpanel.faultdetection.repository.SolarPanelRepository;
 import com.solarpanel.faultdetection.repository.SolarPlantRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
+/**
+ * Dashboard statistics, recomputed in the background and served from an immutable in-memory snapshot.
+ *
+ * A refresh runs three aggregate queries (plant count, panels by status, alerts by status, severity and fault
+ * type), so its cost does not depend on how often the dashboard is polled. The snapshot keeps its ETag and
+ * Last-Modified time until the numbers actually change, which lets polling clients revalidate with a 304.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DashboardService {
-    
+
     private final SolarPlantRepository plantRepository;
     private final SolarPanelRepository panelRepository;
     private final AlertRepository alertRepository;
-    
-    @Transactional(readOnly = true)
+    private final TransactionTemplate transactionTemplate;
+    private volatile Snapshot snapshot;
+
+    public DashboardService(SolarPlantRepository plantRepository, SolarPanelRepository panelRepository,
+                            AlertRepository alertRepository, PlatformTransactionManager transactionManager) {
+        this.plantRepository = plantRepository;
+        this.panelRepository = panelRepository;
+        this.alertRepository = alertRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Stats with their ETag and the time they last changed; the stats object is shared and must not be modified
+     */
+    public record Snapshot(DashboardStatsResponse stats, String etag, Instant lastModified) {
+    }
+
     public DashboardStatsResponse getDashboardStats() {
-        log.info("Fetching dashboard statistics");
-        
+        return getSnapshot().stats();
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    @Scheduled(initialDelayString = "${dashboard.snapshot.refresh-interval-ms:10000}",
+               fixedDelayString = "${dashboard.snapshot.refresh-interval-ms:10000}")
+    public synchronized Snapshot refresh() {
+        DashboardStatsResponse stats = transactionTemplate.execute(status -> computeStats());
+        String etag = '"' + DigestUtils.md5DigestAsHex(stats.toString().getBytes(StandardCharsets.UTF_8)) + '"';
+        Snapshot current = snapshot;
+        if (current == null || !current.etag().equals(etag)) {
+            current = new Snapshot(stats, etag, Instant.now());
+            snapshot = current;
+            log.debug("Dashboard snapshot updated, ETag {}", etag);
+        }
+        return current;
+    }
+
+    private DashboardStatsResponse computeStats() {
         DashboardStatsResponse stats = new DashboardStatsResponse();
-        
+
         // Plant and Panel statistics
+        Map<SolarPanel.PanelStatus, Long> panelsByStatus = new EnumMap<>(SolarPanel.PanelStatus.class);
+        long totalPanels = 0;
+        for (Object[] row : panelRepository.countGroupedByStatus()) {
+            long count = (Long) row[1];
+            totalPanels += count;
+            if (row[0] != null) {
+                panelsByStatus.put((SolarPanel.PanelStatus) row[0], count);
+            }
+        }
         stats.setTotalPlants(plantRepository.count());
-        stats.setTotalPanels(panelRepository.count());
-        stats.setActivePanels(panelRepository.countByStatus(SolarPanel.PanelStatus.ACTIVE));
-        stats.setMaintenancePanels(panelRepository.countByStatus(SolarPanel.PanelStatus.MAINTENANCE));
-        stats.setOfflinePanels(panelRepository.countByStatus(SolarPanel.PanelStatus.OFFLINE));
-        
-        // Alert statistics
-        List<Alert> allAlerts = alertRepository.findAll();
-        stats.setTotalAlerts((long) allAlerts.size());
-        stats.setOpenAlerts(alertRepository.countByStatus(Alert.AlertStatus.OPEN));
-        stats.setCriticalAlerts(alertRepository.countBySeverity("CRITICAL"));
-        stats.setHighAlerts(alertRepository.countBySeverity("HIGH"));
-        stats.setMediumAlerts(alertRepository.countBySeverity("MEDIUM"));
-        stats.setLowAlerts(alertRepository.countBySeverity("LOW"));
-        
-        // Fault distribution
-        Map<String, Long> faultDistribution = allAlerts.stream()
-                .collect(Collectors.groupingBy(Alert::getFaultType, Collectors.counting()));
-        stats.setFaultDistribution(faultDistribution);
-        
-        // Alerts by status
-        Map<String, Long> alertsByStatus = new HashMap<>();
-        alertsByStatus.put("OPEN", alertRepository.countByStatus(Alert.AlertStatus.OPEN));
-        alertsByStatus.put("IN_PROGRESS", alertRepository.countByStatus(Alert.AlertStatus.IN_PROGRESS));
-        alertsByStatus.put("RESOLVED", alertRepository.countByStatus(Alert.AlertStatus.RESOLVED));
-        stats.setAlertsByStatus(alertsByStatus);
-        
-        log.info("Dashboard statistics fetched successfully");
+        stats.setTotalPanels(totalPanels);
+        stats.setActivePanels(panelsByStatus.getOrDefault(SolarPanel.PanelStatus.ACTIVE, 0L));
+        stats.setMaintenancePanels(panelsByStatus.getOrDefault(SolarPanel.PanelStatus.MAINTENANCE, 0L));
+        stats.setOfflinePanels(panelsByStatus.getOrDefault(SolarPanel.PanelStatus.OFFLINE, 0L));
+
+        // Alert statistics, all from one grouped query; sorted maps keep the ETag stable for equal content
+        Map<String, Long> alertsByStatus = new TreeMap<>();
+        for (Alert.AlertStatus status : Alert.AlertStatus.values()) {
+            alertsByStatus.put(status.name(), 0L);
+        }
+        Map<String, Long> bySeverity = new TreeMap<>();
+        Map<String, Long> faultDistribution = new TreeMap<>();
+        long totalAlerts = 0;
+        List<Object[]> rows = alertRepository.countGroupedByStatusSeverityAndFaultType();
+        for (Object[] row : rows) {
+            long count = (Long) row[3];
+            totalAlerts += count;
+            if (row[0] != null) {
+                alertsByStatus.merge(((Alert.AlertStatus) row[0]).name(), count, Long::sum);
+            }
+            if (row[1] != null) {
+                bySeverity.merge((String) row[1], count, Long::sum);
+            }
+            if (row[2] != null) {
+                faultDistribution.merge((String) row[2], count, Long::sum);
+            }
+        }
+        stats.setTotalAlerts(totalAlerts);
+        stats.setOpenAlerts(alertsByStatus.get(Alert.AlertStatus.OPEN.name()));
+        stats.setCriticalAlerts(bySeverity.getOrDefault("CRITICAL", 0L));
+        stats.setHighAlerts(bySeverity.getOrDefault("HIGH", 0L));
+        stats.setMediumAlerts(bySeverity.getOrDefault("MEDIUM", 0L));
+        stats.setLowAlerts(bySeverity.getOrDefault("LOW", 0L));
+        stats.setFaultDistribution(Collections.unmodifiableMap(faultDistribution));
+        stats.setAlertsByStatus(Collections.unmodifiableMap(alertsByStatus));
         return stats;
     }
 }
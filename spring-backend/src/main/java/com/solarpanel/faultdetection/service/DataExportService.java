@@ -0,0 +1,288 @@
+package com.solarpanel.faultdetection.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams prediction results, sensor readings and alerts for a time range as CSV or NDJSON.
+ *
+ * Rows are read through a forward-only, read-only JDBC cursor and written straight to the output
+ * stream, so memory use does not depend on the export size. With MySQL, positive fetch sizes only
+ * stream when the connection has useCursorFetch=true.
+ */
+@Service
+@Slf4j
+public class DataExportService {
+
+    public enum Dataset {
+        PREDICTIONS("prediction_results", "created_at",
+            "id, panel_id, voltage, current, temperature, irradiance, power, predicted_fault, confidence, "
+            + "confidence_score, severity, created_at"),
+        // Readings store panel_ref; the external panel ID is joined back in (null for deleted panels)
+        SENSOR_DATA("sensor_data", "sensor_data s LEFT JOIN solar_panels p ON p.id = s.panel_ref", "s.timestamp", "s.id",
+            "s.id, p.panel_id, s.voltage, s.current, s.temperature, s.irradiance, s.power, s.timestamp"),
+        ALERTS("alerts", "created_at",
+            "id, panel_id, fault_type, severity, message, confidence, confidence_score, status, created_at, "
+            + "acknowledged, acknowledged_at, resolved_at, assigned_technician_id");
+
+        private final String table;
+        private final String source;
+        private final String timeColumn;
+        private final String idColumn;
+        private final String columns;
+
+        Dataset(String table, String timeColumn, String columns) {
+            this(table, table, timeColumn, "id", columns);
+        }
+
+        Dataset(String table, String source, String timeColumn, String idColumn, String columns) {
+            this.table = table;
+            this.source = source;
+            this.timeColumn = timeColumn;
+            this.idColumn = idColumn;
+            this.columns = columns;
+        }
+
+        public String getFileName() {
+            return table;
+        }
+
+        String selectSql() {
+            return "SELECT " + columns + " FROM " + source + " WHERE " + timeColumn + " >= ? AND "
+                + timeColumn + " < ? ORDER BY " + timeColumn + ", " + idColumn;
+        }
+
+        public static Dataset fromPath(String name) {
+            for (Dataset dataset : values()) {
+                if (dataset.name().replace('_', '-').equalsIgnoreCase(name)) {
+                    return dataset;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export dataset: " + name);
+        }
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromParam(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export format: " + name);
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public DataExportService(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Write every row of the dataset in [from, to) to the output stream; returns the row count
+     */
+    public long export(Dataset dataset, LocalDateTime from, LocalDateTime to, Format format,
+                       boolean gzip, OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+
+        long rows;
+        try {
+            rows = format == Format.CSV
+                ? streamRows(dataset, from, to, new CsvRowWriter(target))
+                : streamRows(dataset, from, to, new NdjsonRowWriter(objectMapper, target));
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-download
+            throw e.getCause();
+        }
+
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        target.flush();
+        log.info("Exported {} {} rows as {} in {} ms", rows, dataset, format, System.currentTimeMillis() - startTime);
+        return rows;
+    }
+
+    private long streamRows(Dataset dataset, LocalDateTime from, LocalDateTime to, RowWriter writer) throws IOException {
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(dataset.selectSql(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setTimestamp(1, Timestamp.valueOf(from));
+            statement.setTimestamp(2, Timestamp.valueOf(to));
+            return statement;
+        }, (ResultSet resultSet) -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            String[] labels = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+            }
+
+            try {
+                writer.start(labels);
+                while (resultSet.next()) {
+                    writer.row(labels, resultSet);
+                    count[0]++;
+                }
+                writer.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        return count[0];
+    }
+
+    private static Object readValue(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value;
+    }
+
+    private interface RowWriter {
+        void start(String[] labels) throws IOException;
+
+        void row(String[] labels, ResultSet resultSet) throws IOException, SQLException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * RFC 4180 CSV with a header row
+     */
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void start(String[] labels) throws IOException {
+            writer.write(String.join(",", labels));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void row(String[] labels, ResultSet resultSet) throws IOException, SQLException {
+            for (int i = 0; i < labels.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = readValue(resultSet, i + 1);
+                if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String field) throws IOException {
+            boolean quote = field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+                || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(field);
+                return;
+            }
+            writer.write('"');
+            writer.write(field.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * One JSON object per line
+     */
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            // The servlet container owns the response stream
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start(String[] labels) {
+        }
+
+        @Override
+        public void row(String[] labels, ResultSet resultSet) throws IOException, SQLException {
+            generator.writeStartObject();
+            for (int i = 0; i < labels.length; i++) {
+                generator.writeFieldName(labels[i]);
+                Object value = readValue(resultSet, i + 1);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    generator.writeObject(value);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
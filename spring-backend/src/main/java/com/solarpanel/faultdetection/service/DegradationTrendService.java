@@ -0,0 +1,267 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.DegradationTrendResponse;
+import com.solarpanel.faultdetection.entity.PanelDegradationStats;
+import com.solarpanel.faultdetection.repository.PanelDegradationStatsRepository;
+import com.solarpanel.faultdetection.storage.RunningRegression;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-term degradation rate of each panel, from a least-squares line through its performance ratio over time.
+ *
+ * Every rated reading, live once committed or back-filled by the sensor import, adds one point (years since
+ * 2020, PR) to the panel's running sums in O(1); history is never rescanned. The sums are loaded at startup and a periodic flush adds what was collected since the last
+ * flush to panel_degradation_stats, so other instances' points merge in rather than overwrite. The rate is the
+ * fitted slope relative to the fitted PR at the panel's first reading, in %/year, with a 95% band from the
+ * slope's standard error. Plant rates are the inverse-variance weighted mean of their panels' rates.
+ */
+@Service
+@Slf4j
+public class DegradationTrendService {
+
+    static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final double SECONDS_PER_YEAR = 365.25 * 24 * 3600;
+    private static final double Z_95 = 1.96;
+
+    private final PanelDegradationStatsRepository statsRepository;
+    private final PanelRegistry panelRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final double minSpanYears;
+    private final Map<Long, PanelTrend> trends = new ConcurrentHashMap<>();
+
+    public DegradationTrendService(PanelDegradationStatsRepository statsRepository,
+                                   PanelRegistry panelRegistry,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${degradation.min-span-days:30}") int minSpanDays) {
+        this.statsRepository = statsRepository;
+        this.panelRegistry = panelRegistry;
+        // Read-write, so startup and flushes see the primary's sums rather than a lagging replica
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minSpanYears = minSpanDays * 86400 / SECONDS_PER_YEAR;
+    }
+
+    /**
+     * Sums as of the last flush plus the points collected since; guarded by its own monitor
+     */
+    private static final class PanelTrend {
+        private RunningRegression stored = new RunningRegression();
+        private RunningRegression pending = new RunningRegression();
+        private LocalDateTime first;
+        private LocalDateTime last;
+
+        synchronized void add(double x, double y, LocalDateTime at) {
+            pending.add(x, y);
+            first = earliest(first, at);
+            last = latest(last, at);
+        }
+
+        synchronized RunningRegression total() {
+            RunningRegression total = stored.copy();
+            total.add(pending);
+            return total;
+        }
+    }
+
+    private record Estimate(LocalDateTime from, LocalDateTime to, double rate, double standardError) {
+    }
+
+    @PostConstruct
+    public void load() {
+        List<PanelDegradationStats> rows = transactionTemplate.execute(status -> statsRepository.findAll());
+        for (PanelDegradationStats row : rows) {
+            PanelTrend trend = trends.computeIfAbsent(row.getPanelRef(), ref -> new PanelTrend());
+            synchronized (trend) {
+                trend.stored = sums(row);
+                trend.first = row.getFirstReadingAt();
+                trend.last = row.getLastReadingAt();
+            }
+        }
+        log.info("Degradation trends loaded for {} panels", rows.size());
+    }
+
+    /**
+     * Add one rated reading of a panel
+     */
+    public void record(Long panelRef, LocalDateTime at, double performanceRatio) {
+        if (panelRef == null || at == null || !Double.isFinite(performanceRatio)) {
+            return;
+        }
+        trends.computeIfAbsent(panelRef, ref -> new PanelTrend()).add(years(at), performanceRatio, at);
+    }
+
+    @PreDestroy
+    @Scheduled(initialDelayString = "${degradation.flush-interval-ms:300000}",
+               fixedDelayString = "${degradation.flush-interval-ms:300000}")
+    public synchronized void flush() {
+        for (Map.Entry<Long, PanelTrend> entry : trends.entrySet()) {
+            PanelTrend trend = entry.getValue();
+            RunningRegression delta;
+            LocalDateTime first;
+            LocalDateTime last;
+            synchronized (trend) {
+                if (trend.pending.getCount() == 0) {
+                    continue;
+                }
+                delta = trend.pending;
+                trend.pending = new RunningRegression();
+                first = trend.first;
+                last = trend.last;
+            }
+            try {
+                PanelDegradationStats row = transactionTemplate.execute(
+                    status -> persist(entry.getKey(), delta, first, last));
+                synchronized (trend) {
+                    trend.stored = sums(row);
+                    trend.first = earliest(trend.first, row.getFirstReadingAt());
+                    trend.last = latest(trend.last, row.getLastReadingAt());
+                }
+            } catch (RuntimeException e) {
+                // Usually a concurrent flush of the same panel by another instance; retried on the next flush
+                log.warn("Could not flush degradation sums of panel {}: {}", entry.getKey(), e.getMessage());
+                synchronized (trend) {
+                    trend.pending.add(delta);
+                }
+            }
+        }
+    }
+
+    private PanelDegradationStats persist(Long panelRef, RunningRegression delta, LocalDateTime first,
+                                          LocalDateTime last) {
+        PanelDegradationStats row = statsRepository.findById(panelRef).orElse(null);
+        if (row == null) {
+            row = new PanelDegradationStats(panelRef, 0L, 0.0, 0.0, 0.0, 0.0, 0.0, first, last, null);
+        }
+        RunningRegression sums = sums(row);
+        sums.add(delta);
+        row.setSampleCount(sums.getCount());
+        row.setSumX(sums.getSumX());
+        row.setSumY(sums.getSumY());
+        row.setSumXx(sums.getSumXX());
+        row.setSumXy(sums.getSumXY());
+        row.setSumYy(sums.getSumYY());
+        row.setFirstReadingAt(earliest(first, row.getFirstReadingAt()));
+        row.setLastReadingAt(latest(last, row.getLastReadingAt()));
+        return statsRepository.save(row);
+    }
+
+    public DegradationTrendResponse getPanelTrend(String panelId) {
+        PanelRegistry.PanelInfo panel = panelRegistry.find(panelId)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown panel ID: " + panelId));
+        DegradationTrendResponse response = new DegradationTrendResponse();
+        response.setPanelId(panelId);
+        response.setPlantId(panel.plantId());
+        response.setPanels(1);
+        PanelTrend trend = trends.get(panel.id());
+        if (trend == null) {
+            response.setSamples(0L);
+            return response;
+        }
+        RunningRegression total;
+        LocalDateTime first;
+        LocalDateTime last;
+        synchronized (trend) {
+            total = trend.total();
+            first = trend.first;
+            last = trend.last;
+        }
+        response.setSamples(total.getCount());
+        response.setFrom(first);
+        response.setTo(last);
+        Estimate estimate = estimate(total, first, last);
+        if (estimate != null) {
+            setRate(response, estimate.rate(), estimate.standardError());
+        }
+        return response;
+    }
+
+    public DegradationTrendResponse getPlantTrend(Long plantId) {
+        DegradationTrendResponse response = new DegradationTrendResponse();
+        response.setPlantId(plantId);
+        long samples = 0;
+        int panels = 0;
+        double weightSum = 0;
+        double weightedRate = 0;
+        for (Long panelRef : panelRegistry.idsOfPlant(plantId)) {
+            PanelTrend trend = trends.get(panelRef);
+            if (trend == null) {
+                continue;
+            }
+            Estimate estimate;
+            synchronized (trend) {
+                RunningRegression total = trend.total();
+                samples += total.getCount();
+                estimate = estimate(total, trend.first, trend.last);
+            }
+            if (estimate == null) {
+                continue;
+            }
+            panels++;
+            response.setFrom(response.getFrom() == null || estimate.from().isBefore(response.getFrom())
+                ? estimate.from() : response.getFrom());
+            response.setTo(response.getTo() == null || estimate.to().isAfter(response.getTo())
+                ? estimate.to() : response.getTo());
+            // A perfectly linear panel would otherwise take all the weight
+            double variance = Math.max(estimate.standardError() * estimate.standardError(), 1e-12);
+            weightSum += 1 / variance;
+            weightedRate += estimate.rate() / variance;
+        }
+        response.setSamples(samples);
+        response.setPanels(panels);
+        if (panels > 0) {
+            setRate(response, weightedRate / weightSum, Math.sqrt(1 / weightSum));
+        }
+        return response;
+    }
+
+    /**
+     * Rate and standard error in %/year, or null until the points span long enough for a slope
+     */
+    private Estimate estimate(RunningRegression sums, LocalDateTime first, LocalDateTime last) {
+        if (sums.getCount() < 3 || first == null || years(last) - years(first) < minSpanYears) {
+            return null;
+        }
+        double baseline = sums.predict(years(first));
+        double slope = sums.slope();
+        double standardError = sums.slopeStandardError();
+        if (!(baseline > 0) || Double.isNaN(slope) || Double.isNaN(standardError)) {
+            return null;
+        }
+        return new Estimate(first, last, slope / baseline * 100, standardError / baseline * 100);
+    }
+
+    private static void setRate(DegradationTrendResponse response, double rate, double standardError) {
+        response.setRatePercentPerYear(rate);
+        response.setConfidenceLow(rate - Z_95 * standardError);
+        response.setConfidenceHigh(rate + Z_95 * standardError);
+    }
+
+    private static RunningRegression sums(PanelDegradationStats row) {
+        return new RunningRegression(row.getSampleCount(), row.getSumX(), row.getSumY(), row.getSumXx(),
+            row.getSumXy(), row.getSumYy());
+    }
+
+    private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isBefore(a)) ? b : a;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
+    static double years(LocalDateTime time) {
+        return Duration.between(EPOCH, time).getSeconds() / SECONDS_PER_YEAR;
+    }
+}
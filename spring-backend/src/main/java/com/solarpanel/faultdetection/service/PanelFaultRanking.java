@@ -0,0 +1,154 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.TopPanelsResponse;
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.storage.PredictionPersistedEvent;
+import com.solarpanel.faultdetection.storage.SpaceSaving;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Panels with the most faults over the last hour, day or week, overall, per fault type and per plant.
+ *
+ * Fed from {@link PredictionPersistedEvent}: every non-NORMAL prediction (the same flow that raises alerts)
+ * is offered to a Space-Saving summary of its hour for each of four scopes: all faults, its fault type, its
+ * plant, and its plant and fault type. A query merges the hourly summaries of the window. Each summary tracks
+ * at most capacity panels, so memory depends on the number of plants and fault types, not on fleet size.
+ *
+ * Counts are per instance and start empty after a restart; the ranking of the top panels is exact as long
+ * as each of them has more than total / capacity faults in the window.
+ */
+@Service
+public class PanelFaultRanking {
+
+    private static final String ANY = "*";
+
+    private final PanelRegistry panelRegistry;
+    private final int capacity;
+    // Epoch hour -> scope -> summary
+    private final Map<Long, Map<String, SpaceSaving>> hours = new ConcurrentHashMap<>();
+
+    public PanelFaultRanking(PanelRegistry panelRegistry,
+                             @Value("${analytics.top-panels.capacity:1000}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("analytics.top-panels.capacity must be positive");
+        }
+        this.panelRegistry = panelRegistry;
+        this.capacity = capacity;
+    }
+
+    public enum Window {
+        HOUR(1), DAY(24), WEEK(24 * 7);
+
+        private final int hours;
+
+        Window(int hours) {
+            this.hours = hours;
+        }
+
+        public static Window fromParam(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown window: " + value);
+            }
+        }
+    }
+
+    @EventListener
+    public void onPredictionPersisted(PredictionPersistedEvent event) {
+        PredictionResult prediction = event.prediction();
+        // Discounted as a plant-wide weather dip, so no alert was raised either
+        if ("None".equals(prediction.getSeverity())) {
+            return;
+        }
+        record(prediction.getPanelId(), prediction.getPredictedFault(),
+            prediction.getCreatedAt() != null ? prediction.getCreatedAt() : LocalDateTime.now());
+    }
+
+    void record(String panelId, String faultType, LocalDateTime at) {
+        if (panelId == null || faultType == null || "NORMAL".equals(faultType)) {
+            return;
+        }
+        long hour = epochHour(at);
+        if (hour <= epochHour(LocalDateTime.now()) - Window.WEEK.hours) {
+            return;
+        }
+        String plant = panelRegistry.find(panelId).map(info -> String.valueOf(info.plantId())).orElse(null);
+        Map<String, SpaceSaving> scopes = hours.computeIfAbsent(hour, h -> new ConcurrentHashMap<>());
+        offer(scopes, scope(ANY, ANY), panelId);
+        offer(scopes, scope(ANY, faultType), panelId);
+        if (plant != null) {
+            offer(scopes, scope(plant, ANY), panelId);
+            offer(scopes, scope(plant, faultType), panelId);
+        }
+    }
+
+    private void offer(Map<String, SpaceSaving> scopes, String scope, String panelId) {
+        SpaceSaving summary = scopes.computeIfAbsent(scope, s -> new SpaceSaving(capacity));
+        synchronized (summary) {
+            summary.offer(panelId);
+        }
+    }
+
+    /**
+     * The limit panels with the most faults in the window, optionally of one fault type and/or one plant
+     */
+    public TopPanelsResponse topPanels(Window window, String faultType, Long plantId, int limit) {
+        if (limit < 1 || limit > capacity) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + capacity);
+        }
+        String scope = scope(plantId != null ? String.valueOf(plantId) : ANY,
+            faultType != null ? faultType.trim().toUpperCase(Locale.ROOT) : ANY);
+        long current = epochHour(LocalDateTime.now());
+
+        SpaceSaving merged = new SpaceSaving(capacity);
+        for (long hour = current - window.hours + 1; hour <= current; hour++) {
+            Map<String, SpaceSaving> scopes = hours.get(hour);
+            SpaceSaving summary = scopes != null ? scopes.get(scope) : null;
+            if (summary != null) {
+                synchronized (summary) {
+                    merged.merge(summary);
+                }
+            }
+        }
+
+        TopPanelsResponse response = new TopPanelsResponse();
+        response.setWindow(window.name());
+        response.setFaultType(faultType != null ? faultType.trim().toUpperCase(Locale.ROOT) : null);
+        response.setPlantId(plantId);
+        response.setFrom(hourStart(current - window.hours + 1));
+        response.setTo(hourStart(current + 1));
+        response.setTotalFaults(merged.total());
+        response.setPanels(merged.top(limit).stream()
+            .map(counter -> new TopPanelsResponse.PanelFaultCount(counter.key(), counter.count(), counter.error()))
+            .toList());
+        return response;
+    }
+
+    @Scheduled(fixedDelay = 3_600_000L, initialDelay = 3_600_000L)
+    public void prune() {
+        long oldest = epochHour(LocalDateTime.now()) - Window.WEEK.hours;
+        hours.keySet().removeIf(hour -> hour <= oldest);
+    }
+
+    private static String scope(String plant, String faultType) {
+        return plant + "|" + faultType;
+    }
+
+    private static long epochHour(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static LocalDateTime hourStart(long epochHour) {
+        return LocalDateTime.ofEpochSecond(epochHour * 3600, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,299 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PanelProvisioningResult;
+import com.solarpanel.faultdetection.dto.PanelProvisioningRow;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk panel provisioning for one plant.
+ *
+ * Rows are validated up front, then processed in chunks: one IN query finds panel IDs that already exist,
+ * and the remaining rows are inserted with a single JDBC batch in their own transaction. If a batch fails
+ * (for example a panel created concurrently), that chunk is retried row by row so only the offending rows
+ * are rejected. Every rejected row is reported with its row number and reason.
+ */
+@Service
+@Slf4j
+public class PanelProvisioningService {
+
+    private static final String INSERT_SQL = "INSERT INTO solar_panels (panel_id, plant_id, installation_date, "
+            + "capacity, status, assigned_technician_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_PANEL_ID_LENGTH = 255;
+
+    private final SolarPlantRepository plantRepository;
+    private final PanelRegistry panelRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int chunkSize;
+    private final int maxRows;
+
+    public PanelProvisioningService(SolarPlantRepository plantRepository,
+                                    PanelRegistry panelRegistry,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    EntityManagerFactory entityManagerFactory,
+                                    @Value("${provisioning.chunk-size:1000}") int chunkSize,
+                                    @Value("${provisioning.max-rows:100000}") int maxRows) {
+        if (chunkSize <= 0 || maxRows <= 0) {
+            throw new IllegalArgumentException("Provisioning chunk size and row limit must be positive");
+        }
+        this.plantRepository = plantRepository;
+        this.panelRegistry = panelRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    public PanelProvisioningResult provision(Long plantId, List<PanelProvisioningRow> rows) {
+        List<NumberedRow> numbered = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            PanelProvisioningRow row = rows.get(i);
+            numbered.add(new NumberedRow(i + 1, row != null ? row : new PanelProvisioningRow()));
+        }
+        return provisionRows(plantId, numbered, new Report(rows.size()));
+    }
+
+    /**
+     * CSV with a header row naming panel_id, installation_date (yyyy-MM-dd) and capacity (kW), plus optional
+     * status and assigned_technician_id, in any order. Row numbers in the report are line numbers.
+     */
+    public PanelProvisioningResult provisionCsv(Long plantId, String csv) {
+        String[] lines = csv.split("\r?\n");
+        if (lines.length == 0 || lines[0].isBlank()) {
+            throw new IllegalArgumentException("CSV header row is required");
+        }
+        Map<String, Integer> columns = parseHeader(lines[0]);
+
+        Report report = new Report(0);
+        List<NumberedRow> rows = new ArrayList<>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                continue;
+            }
+            report.received++;
+            int lineNumber = i + 1;
+            String[] fields = lines[i].split(",", -1);
+            try {
+                rows.add(new NumberedRow(lineNumber, parseRow(fields, columns)));
+            } catch (RuntimeException e) {
+                String panelId = field(fields, columns.get("panelid"));
+                report.reject(lineNumber, panelId, "Unparseable row: " + e.getMessage());
+            }
+        }
+        return provisionRows(plantId, rows, report);
+    }
+
+    private PanelProvisioningResult provisionRows(Long plantId, List<NumberedRow> rows, Report report) {
+        if (report.received > maxRows) {
+            throw new IllegalArgumentException("At most " + maxRows + " panels can be provisioned per request");
+        }
+        // In a read-write transaction, so a plant created moments ago is found even while a replica lags
+        if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> plantRepository.existsById(plantId)))) {
+            throw new RuntimeException("Plant not found with ID: " + plantId);
+        }
+        long started = System.nanoTime();
+        log.info("Provisioning {} panels for plant ID: {}", report.received, plantId);
+
+        List<NumberedRow> valid = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (NumberedRow numbered : rows) {
+            String error = validate(numbered.row());
+            if (error == null && !seen.add(numbered.row().getPanelId())) {
+                error = "Duplicate panel ID in request";
+            }
+            if (error != null) {
+                report.reject(numbered.number(), numbered.row().getPanelId(), error);
+            } else {
+                valid.add(numbered);
+            }
+        }
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<NumberedRow> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            Set<String> existing = findExistingPanelIds(chunk);
+            List<NumberedRow> toInsert = new ArrayList<>(chunk.size());
+            for (NumberedRow numbered : chunk) {
+                if (existing.contains(numbered.row().getPanelId())) {
+                    report.reject(numbered.number(), numbered.row().getPanelId(), "Panel ID already exists");
+                } else {
+                    toInsert.add(numbered);
+                }
+            }
+            insertChunk(plantId, toInsert, report);
+        }
+
+        if (report.inserted > 0) {
+            // The inserts bypass Hibernate, so cached panel listings and counts would not see them
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+            panelRegistry.reloadPlant(plantId);
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Provisioned {} panels for plant ID {} in {} ms ({} rejected)",
+                report.inserted, plantId, durationMs, report.rejected);
+        return new PanelProvisioningResult(plantId, report.received, report.inserted, report.rejected,
+                durationMs, report.errors);
+    }
+
+    // Plain JDBC: binding a thousand-parameter IN list through JPQL costs more than the query itself
+    private Set<String> findExistingPanelIds(List<NumberedRow> chunk) {
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        Object[] panelIds = chunk.stream().map(r -> r.row().getPanelId()).toArray();
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT panel_id FROM solar_panels WHERE panel_id IN (" + placeholders + ")", String.class, panelIds));
+    }
+
+    private void insertChunk(Long plantId, List<NumberedRow> rows, Report report) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(plantId, rows));
+            report.inserted += rows.size();
+        } catch (RuntimeException e) {
+            log.warn("Provisioning batch of {} panels failed, retrying one by one: {}", rows.size(), e.getMessage());
+            for (NumberedRow numbered : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(plantId, List.of(numbered)));
+                    report.inserted++;
+                } catch (RuntimeException rowFailure) {
+                    report.reject(numbered.number(), numbered.row().getPanelId(),
+                            NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                }
+            }
+        }
+    }
+
+    private void insertBatch(Long plantId, List<NumberedRow> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                PanelProvisioningRow row = rows.get(i).row();
+                statement.setString(1, row.getPanelId());
+                statement.setLong(2, plantId);
+                statement.setDate(3, Date.valueOf(row.getInstallationDate()));
+                statement.setDouble(4, row.getCapacity());
+                statement.setString(5, (row.getStatus() != null ? row.getStatus() : SolarPanel.PanelStatus.ACTIVE).name());
+                if (row.getAssignedTechnicianId() == null) {
+                    statement.setNull(6, Types.BIGINT);
+                } else {
+                    statement.setLong(6, row.getAssignedTechnicianId());
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    // Same rules as SolarPanelRequest's bean validation
+    private static String validate(PanelProvisioningRow row) {
+        if (row.getPanelId() == null || row.getPanelId().isBlank()) {
+            return "Panel ID is required";
+        }
+        if (row.getPanelId().length() > MAX_PANEL_ID_LENGTH) {
+            return "Panel ID is longer than " + MAX_PANEL_ID_LENGTH + " characters";
+        }
+        if (row.getInstallationDate() == null) {
+            return "Installation date is required";
+        }
+        if (row.getCapacity() == null) {
+            return "Capacity is required";
+        }
+        if (!(row.getCapacity() > 0)) {
+            return "Capacity must be positive";
+        }
+        if (row.getCapacity() > SolarPanel.MAX_CAPACITY_KW) {
+            return "Capacity is in kW and cannot exceed " + SolarPanel.MAX_CAPACITY_KW;
+        }
+        return null;
+    }
+
+    private static Map<String, Integer> parseHeader(String header) {
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("panelid", "installationdate", "capacity")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header must include panel_id, installation_date and capacity");
+            }
+        }
+        return columns;
+    }
+
+    private static PanelProvisioningRow parseRow(String[] fields, Map<String, Integer> columns) {
+        PanelProvisioningRow row = new PanelProvisioningRow();
+        row.setPanelId(field(fields, columns.get("panelid")));
+        String date = field(fields, columns.get("installationdate"));
+        row.setInstallationDate(date != null ? LocalDate.parse(date) : null);
+        String capacity = field(fields, columns.get("capacity"));
+        row.setCapacity(capacity != null ? Double.valueOf(capacity) : null);
+        String status = field(fields, columns.get("status"));
+        row.setStatus(status != null ? SolarPanel.PanelStatus.valueOf(status.toUpperCase(Locale.ROOT)) : null);
+        String technician = field(fields, columns.get("assignedtechnicianid"));
+        row.setAssignedTechnicianId(technician != null ? Long.valueOf(technician) : null);
+        return row;
+    }
+
+    private static String field(String[] fields, Integer index) {
+        if (index == null || index >= fields.length) {
+            return null;
+        }
+        String value = fields[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private record NumberedRow(int number, PanelProvisioningRow row) {
+    }
+
+    private static final class Report {
+        private int received;
+        private int inserted;
+        private int rejected;
+        private final List<PanelProvisioningResult.RowError> errors = new ArrayList<>();
+
+        Report(int received) {
+            this.received = received;
+        }
+
+        void reject(int row, String panelId, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new PanelProvisioningResult.RowError(row, panelId, message));
+            }
+        }
+    }
+}
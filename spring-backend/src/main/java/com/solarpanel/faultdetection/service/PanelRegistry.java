@@ -0,0 +1,167 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.SolarPanelResponse;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of all panels by external panel ID, so ingestion can resolve a reading's panel without
+ * a database lookup. Reads are plain ConcurrentHashMap gets and never block. It is also the dictionary between
+ * external panel IDs and the solar_panels ids that sensor_data stores (panel_ref).
+ *
+ * Loaded before the web server starts and kept in sync by the panel and plant services; changes made inside
+ * a transaction are applied only once it commits. A periodic reload picks up changes made by other
+ * instances or directly in the database. Writers are serialized so a reload cannot undo a newer change.
+ */
+@Service
+@Slf4j
+public class PanelRegistry {
+
+    private final SolarPanelRepository panelRepository;
+    private final Map<String, PanelInfo> byPanelId = new ConcurrentHashMap<>();
+    private final Map<Long, String> panelIdById = new ConcurrentHashMap<>();
+
+    public PanelRegistry(SolarPanelRepository panelRepository) {
+        this.panelRepository = panelRepository;
+    }
+
+    public record PanelInfo(Long id, String panelId, Long plantId, SolarPanel.PanelStatus status,
+                            Double capacity, Long assignedTechnicianId) {
+
+        static PanelInfo of(SolarPanel panel) {
+            return new PanelInfo(panel.getId(), panel.getPanelId(), panel.getPlant().getId(), panel.getStatus(),
+                panel.getCapacity(), panel.getAssignedTechnicianId());
+        }
+
+        static PanelInfo of(SolarPanelResponse panel) {
+            return new PanelInfo(panel.getId(), panel.getPanelId(), panel.getPlantId(), panel.getStatus(),
+                panel.getCapacity(), panel.getAssignedTechnicianId());
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        reload();
+        log.info("Panel registry loaded with {} panels", byPanelId.size());
+    }
+
+    @Scheduled(initialDelayString = "${panel.registry.refresh-interval-ms:300000}",
+               fixedDelayString = "${panel.registry.refresh-interval-ms:300000}")
+    public synchronized void reload() {
+        List<SolarPanelResponse> panels = panelRepository.findAllResponses();
+        Set<Long> loaded = new HashSet<>(panels.size() * 2);
+        for (SolarPanelResponse panel : panels) {
+            put(PanelInfo.of(panel));
+            loaded.add(panel.getId());
+        }
+        for (Long id : Set.copyOf(panelIdById.keySet())) {
+            if (!loaded.contains(id)) {
+                remove(id);
+            }
+        }
+    }
+
+    public Optional<PanelInfo> find(String panelId) {
+        return panelId == null ? Optional.empty() : Optional.ofNullable(byPanelId.get(panelId));
+    }
+
+    /**
+     * External panel ID for a solar_panels id; empty once the panel has been deleted
+     */
+    public Optional<String> panelIdOf(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(panelIdById.get(id));
+    }
+
+    /**
+     * solar_panels ids of all panels of a plant
+     */
+    public List<Long> idsOfPlant(Long plantId) {
+        return byPanelId.values().stream()
+            .filter(info -> plantId.equals(info.plantId()))
+            .map(PanelInfo::id)
+            .toList();
+    }
+
+    public boolean contains(String panelId) {
+        return panelId != null && byPanelId.containsKey(panelId);
+    }
+
+    public int size() {
+        return byPanelId.size();
+    }
+
+    public void register(SolarPanel panel) {
+        PanelInfo info = PanelInfo.of(panel);
+        afterCommit(() -> put(info));
+    }
+
+    public void unregister(Long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    /**
+     * Re-read one plant's panels, after changes that bypassed the service (bulk inserts)
+     */
+    public void reloadPlant(Long plantId) {
+        afterCommit(() -> {
+            // Read under the monitor, as reload() does, so a panel deleted meanwhile is not put back
+            synchronized (this) {
+                panelRepository.findResponsesByPlantId(plantId).forEach(panel -> put(PanelInfo.of(panel)));
+            }
+        });
+    }
+
+    public void unregisterPlant(Long plantId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                byPanelId.values().stream()
+                    .filter(info -> plantId.equals(info.plantId()))
+                    .map(PanelInfo::id)
+                    .toList()
+                    .forEach(this::remove);
+            }
+        });
+    }
+
+    private synchronized void put(PanelInfo info) {
+        // A renamed panel keeps its id; drop the old external ID
+        String previous = panelIdById.put(info.id(), info.panelId());
+        if (previous != null && !previous.equals(info.panelId())) {
+            byPanelId.remove(previous);
+        }
+        byPanelId.put(info.panelId(), info);
+    }
+
+    private synchronized void remove(Long id) {
+        String panelId = panelIdById.remove(id);
+        if (panelId != null) {
+            byPanelId.remove(panelId);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
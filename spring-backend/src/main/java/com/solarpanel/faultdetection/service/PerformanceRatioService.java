@@ -0,0 +1,188 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PanelPerformanceResponse;
+import com.solarpanel.faultdetection.entity.Alert;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.storage.WriteBehindWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Temperature-corrected performance ratio (PR) of every reading, and running PR averages per panel.
+ *
+ * Expected power is the panel's rated capacity scaled by irradiance over 1000 W/m2 (STC) and corrected for
+ * cell temperature with a linear power coefficient; PR is actual over expected power. Readings below a
+ * minimum irradiance are skipped, since PR is dominated by noise at dawn and dusk. Each panel keeps a
+ * lifetime mean and an exponentially weighted recent PR. When the recent PR drops below the threshold an
+ * UNDERPERFORMANCE alert is raised once, without an ML call; the flag clears when it recovers above the
+ * threshold plus a margin. Only committed readings are recorded, so the alert is queued directly. State is in
+ * memory and per instance.
+ */
+@Service
+@Slf4j
+public class PerformanceRatioService {
+
+    public static final String UNDERPERFORMANCE = "UNDERPERFORMANCE";
+    private static final double STC_IRRADIANCE = 1000.0;
+    private static final double STC_TEMPERATURE = 25.0;
+    private static final double RECOVERY_MARGIN = 0.05;
+
+    private final WriteBehindWriter writeBehindWriter;
+    private final double temperatureCoefficient;
+    private final double minIrradiance;
+    private final double threshold;
+    private final double smoothing;
+    private final int minSamples;
+    private final Map<Long, PanelPerformance> panels = new ConcurrentHashMap<>();
+
+    public PerformanceRatioService(WriteBehindWriter writeBehindWriter,
+                                   @Value("${performance.temperature-coefficient:-0.004}") double temperatureCoefficient,
+                                   @Value("${performance.min-irradiance:200}") double minIrradiance,
+                                   @Value("${performance.underperformance-threshold:0.75}") double threshold,
+                                   @Value("${performance.smoothing:0.05}") double smoothing,
+                                   @Value("${performance.min-samples:20}") int minSamples) {
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("performance.smoothing must be in (0, 1]");
+        }
+        this.writeBehindWriter = writeBehindWriter;
+        this.temperatureCoefficient = temperatureCoefficient;
+        this.minIrradiance = minIrradiance;
+        this.threshold = threshold;
+        this.smoothing = smoothing;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Running performance of one panel; guarded by its own monitor
+     */
+    private static final class PanelPerformance {
+        private final String panelId;
+        private long samples;
+        private double sum;
+        private double recent;
+        private double lastRatio;
+        private double lastExpected;
+        private double lastActual;
+        private boolean underperforming;
+        private LocalDateTime lastUpdated;
+
+        PanelPerformance(String panelId) {
+            this.panelId = panelId;
+        }
+
+        synchronized PanelPerformanceResponse toResponse() {
+            return new PanelPerformanceResponse(panelId, samples, samples > 0 ? sum / samples : null,
+                samples > 0 ? recent : null, samples > 0 ? lastRatio : null, samples > 0 ? lastExpected : null,
+                samples > 0 ? lastActual : null, underperforming, lastUpdated);
+        }
+    }
+
+    /**
+     * Expected power in W of a panel of the given rated capacity in kW at the measured irradiance and temperature
+     */
+    public double expectedPower(double capacity, double irradiance, double temperature) {
+        double ratedWatts = capacity * 1000;
+        double temperatureFactor = 1 + temperatureCoefficient * (temperature - STC_TEMPERATURE);
+        return ratedWatts * irradiance / STC_IRRADIANCE * Math.max(temperatureFactor, 0);
+    }
+
+    /**
+     * PR of a reading without recording it; empty when the reading cannot be rated
+     */
+    public Optional<Double> ratio(PanelRegistry.PanelInfo panel, double irradiance, double temperature, double power) {
+        double expected = ratedExpectedPower(panel, irradiance, temperature);
+        return expected > 0 ? Optional.of(power / expected) : Optional.empty();
+    }
+
+    /**
+     * Expected power of a reading that can be rated, 0 otherwise
+     */
+    private double ratedExpectedPower(PanelRegistry.PanelInfo panel, double irradiance, double temperature) {
+        if (panel.capacity() == null || panel.capacity() <= 0 || irradiance < minIrradiance) {
+            return 0;
+        }
+        return expectedPower(panel.capacity(), irradiance, temperature);
+    }
+
+    /**
+     * Score one committed reading; returns its PR, or empty when the reading cannot be rated
+     */
+    public Optional<Double> record(PanelRegistry.PanelInfo panel, SensorData reading) {
+        double expected = ratedExpectedPower(panel, reading.getIrradiance(), reading.getTemperature());
+        if (expected <= 0) {
+            return Optional.empty();
+        }
+        double ratio = reading.getPower() / expected;
+
+        PanelPerformance performance = panels.computeIfAbsent(panel.id(), id -> new PanelPerformance(panel.panelId()));
+        boolean raise = false;
+        double recent;
+        synchronized (performance) {
+            performance.samples++;
+            performance.sum += ratio;
+            performance.recent = performance.samples == 1 ? ratio
+                : performance.recent + smoothing * (ratio - performance.recent);
+            performance.lastRatio = ratio;
+            performance.lastExpected = expected;
+            performance.lastActual = reading.getPower();
+            performance.lastUpdated = reading.getTimestamp();
+            recent = performance.recent;
+            if (!performance.underperforming && performance.samples >= minSamples && recent < threshold) {
+                performance.underperforming = true;
+                raise = true;
+            } else if (performance.underperforming && recent >= threshold + RECOVERY_MARGIN) {
+                performance.underperforming = false;
+                log.info("Panel {} recovered, recent performance ratio {}", panel.panelId(), percent(recent));
+            }
+        }
+        if (raise) {
+            raiseAlert(panel, recent);
+        }
+        return Optional.of(ratio);
+    }
+
+    private void raiseAlert(PanelRegistry.PanelInfo panel, double recent) {
+        log.info("Panel {} underperforming, recent performance ratio {}", panel.panelId(), percent(recent));
+        Alert alert = new Alert();
+        alert.setPanelId(panel.panelId());
+        alert.setFaultType(UNDERPERFORMANCE);
+        alert.setSeverity(recent < threshold * 0.66 ? "HIGH" : "MEDIUM");
+        alert.setMessage("Panel producing " + percent(recent) + " of its expected power for the measured irradiance "
+            + "and temperature. Inspection recommended.");
+        alert.setConfidence("High");
+        alert.setCreatedAt(LocalDateTime.now());
+        alert.setAcknowledged(false);
+        alert.setAssignedTechnicianId(panel.assignedTechnicianId());
+        writeBehindWriter.submit(alert)
+            .thenAccept(saved -> log.debug("Alert created with ID: {}", saved.getId()));
+    }
+
+    public Optional<PanelPerformanceResponse> getPerformance(Long panelRef) {
+        PanelPerformance performance = panels.get(panelRef);
+        return performance == null ? Optional.empty() : Optional.of(performance.toResponse());
+    }
+
+    /**
+     * All panels with a rating, lowest recent PR first
+     */
+    public List<PanelPerformanceResponse> getPerformances(boolean underperformingOnly) {
+        return panels.values().stream()
+            .map(PanelPerformance::toResponse)
+            .filter(response -> response.getSamples() > 0)
+            .filter(response -> !underperformingOnly || response.isUnderperforming())
+            .sorted(Comparator.comparing(PanelPerformanceResponse::getRecentPerformanceRatio))
+            .toList();
+    }
+
+    private static String percent(double ratio) {
+        return Math.round(ratio * 100) + "%";
+    }
+}
@@ -0,0 +1,217 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PlantPeerStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling irradiance statistics per plant over aligned time buckets, to tell a cloud from shading on one panel.
+ *
+ * Readings are grouped into buckets of bucket-seconds per plant, keeping each panel's latest irradiance in the
+ * current and the previous bucket. A reading is compared with its peers (the plant's other panels in the same
+ * bucket, or the previous one for panels that have not reported yet) and the plant mean with a smoothed
+ * baseline of earlier buckets. When the whole plant dips below its baseline and the panel is in line with its
+ * peers, the reading is a weather event rather than a panel fault. Memory is one entry per panel; state is
+ * per instance, which is fine while a plant's panels report to the same instance. Ingestion compares a reading
+ * with peek and adds it with observe once its transaction commits.
+ */
+@Service
+public class PlantPeerAggregator {
+
+    private final PanelRegistry panelRegistry;
+    private final long bucketSeconds;
+    private final double dipThreshold;
+    private final double deviationThreshold;
+    private final int minPeers;
+    private final double baselineSmoothing;
+    private final Map<Long, PlantWindow> plants = new ConcurrentHashMap<>();
+
+    public PlantPeerAggregator(PanelRegistry panelRegistry,
+                               @Value("${peers.bucket-seconds:300}") long bucketSeconds,
+                               @Value("${peers.plant-dip-threshold:0.3}") double dipThreshold,
+                               @Value("${peers.panel-deviation-threshold:0.25}") double deviationThreshold,
+                               @Value("${peers.min-peers:2}") int minPeers,
+                               @Value("${peers.baseline-smoothing:0.2}") double baselineSmoothing) {
+        if (bucketSeconds <= 0) {
+            throw new IllegalArgumentException("peers.bucket-seconds must be positive");
+        }
+        this.panelRegistry = panelRegistry;
+        this.bucketSeconds = bucketSeconds;
+        this.dipThreshold = dipThreshold;
+        this.deviationThreshold = deviationThreshold;
+        this.minPeers = minPeers;
+        this.baselineSmoothing = baselineSmoothing;
+    }
+
+    /**
+     * How a reading compares with its plant: deviation is the panel's irradiance relative to the peer mean
+     * (-0.6 is 60% below its peers), plantDip how far the plant mean is below its baseline (0.4 is 40% below)
+     */
+    public record PeerContext(int peers, double deviation, double plantDip, boolean weatherEvent) {
+    }
+
+    /**
+     * Latest bucket and the one before, per panel ref; guarded by its own monitor
+     */
+    private static final class PlantWindow {
+        private long bucket = Long.MIN_VALUE;
+        private Map<Long, Double> current = new HashMap<>();
+        private Map<Long, Double> previous = new HashMap<>();
+        private double baseline = Double.NaN;
+    }
+
+    /**
+     * Compare a reading with its plant as {@link #observe} would, without adding it; for readings whose
+     * transaction has not committed yet
+     */
+    public Optional<PeerContext> peek(PanelRegistry.PanelInfo panel, LocalDateTime at, double irradiance) {
+        if (panel.plantId() == null || at == null) {
+            return Optional.empty();
+        }
+        long bucket = at.toEpochSecond(ZoneOffset.UTC) / bucketSeconds;
+        PlantWindow window = plants.get(panel.plantId());
+        if (window == null) {
+            return Optional.of(compare(panel.id(), irradiance, Map.of(), Map.of(), Double.NaN));
+        }
+        synchronized (window) {
+            if (bucket > window.bucket) {
+                // The window as observe would roll it
+                double baseline = window.current.isEmpty() ? window.baseline
+                    : smoothed(window.baseline, mean(window.current));
+                Map<Long, Double> previous = bucket == window.bucket + 1 ? window.current : Map.of();
+                return Optional.of(compare(panel.id(), irradiance, Map.of(), previous, baseline));
+            }
+            if (bucket == window.bucket) {
+                return Optional.of(compare(panel.id(), irradiance, window.current, window.previous, window.baseline));
+            }
+            if (bucket == window.bucket - 1) {
+                return Optional.of(compare(panel.id(), irradiance, window.previous, Map.of(), window.baseline));
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Add one reading and compare it with the plant; empty for readings older than the previous bucket
+     */
+    public Optional<PeerContext> observe(PanelRegistry.PanelInfo panel, LocalDateTime at, double irradiance) {
+        if (panel.plantId() == null || at == null) {
+            return Optional.empty();
+        }
+        long bucket = at.toEpochSecond(ZoneOffset.UTC) / bucketSeconds;
+        PlantWindow window = plants.computeIfAbsent(panel.plantId(), id -> new PlantWindow());
+        synchronized (window) {
+            if (bucket > window.bucket) {
+                roll(window, bucket);
+            }
+            if (bucket == window.bucket) {
+                window.current.put(panel.id(), irradiance);
+                return Optional.of(compare(panel.id(), irradiance, window.current, window.previous, window.baseline));
+            }
+            if (bucket == window.bucket - 1) {
+                window.previous.put(panel.id(), irradiance);
+                return Optional.of(compare(panel.id(), irradiance, window.previous, Map.of(), window.baseline));
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Compare a reading with the other panels of its bucket; panels missing from it count with their reading
+     * in the fallback bucket (the previous one, while the reading is in the current bucket)
+     */
+    private PeerContext compare(Long panelRef, double irradiance, Map<Long, Double> bucket,
+                                Map<Long, Double> fallback, double baseline) {
+        double peerSum = 0;
+        int peers = 0;
+        for (Map.Entry<Long, Double> entry : bucket.entrySet()) {
+            if (!entry.getKey().equals(panelRef)) {
+                peerSum += entry.getValue();
+                peers++;
+            }
+        }
+        // Panels that have not reported in this bucket yet count with their previous reading
+        for (Map.Entry<Long, Double> entry : fallback.entrySet()) {
+            if (!entry.getKey().equals(panelRef) && !bucket.containsKey(entry.getKey())) {
+                peerSum += entry.getValue();
+                peers++;
+            }
+        }
+        if (peers < minPeers) {
+            return new PeerContext(peers, 0, 0, false);
+        }
+        double peerMean = peerSum / peers;
+        double deviation = peerMean > 0 ? irradiance / peerMean - 1 : 0;
+        double plantMean = (peerSum + irradiance) / (peers + 1);
+        double plantDip = baseline > 0 ? Math.max(1 - plantMean / baseline, 0) : 0;
+        boolean weatherEvent = plantDip >= dipThreshold && Math.abs(deviation) <= deviationThreshold;
+        return new PeerContext(peers, deviation, plantDip, weatherEvent);
+    }
+
+    private void roll(PlantWindow window, long bucket) {
+        if (!window.current.isEmpty()) {
+            window.baseline = smoothed(window.baseline, mean(window.current));
+        }
+        // After a gap of more than one bucket the old readings are no longer peers
+        window.previous = bucket == window.bucket + 1 ? window.current : new HashMap<>();
+        window.current = new HashMap<>();
+        window.bucket = bucket;
+    }
+
+    private double smoothed(double baseline, double mean) {
+        return Double.isNaN(baseline) ? mean : baseline + baselineSmoothing * (mean - baseline);
+    }
+
+    /**
+     * Current bucket of a plant with each reporting panel's deviation from the plant mean
+     */
+    public PlantPeerStatsResponse getPlantStats(Long plantId) {
+        PlantPeerStatsResponse response = new PlantPeerStatsResponse();
+        response.setPlantId(plantId);
+        response.setPanelDeviations(new HashMap<>());
+        PlantWindow window = plants.get(plantId);
+        if (window == null) {
+            response.setPanelsReporting(0);
+            return response;
+        }
+        synchronized (window) {
+            Map<Long, Double> readings = window.current;
+            response.setBucketStart(LocalDateTime.ofEpochSecond(window.bucket * bucketSeconds, 0, ZoneOffset.UTC));
+            response.setPanelsReporting(readings.size());
+            response.setBaselineIrradiance(Double.isNaN(window.baseline) ? null : window.baseline);
+            if (readings.isEmpty()) {
+                return response;
+            }
+            double mean = mean(readings);
+            double squares = 0;
+            for (double value : readings.values()) {
+                squares += (value - mean) * (value - mean);
+            }
+            response.setMeanIrradiance(mean);
+            response.setStdDevIrradiance(Math.sqrt(squares / readings.size()));
+            if (window.baseline > 0) {
+                response.setPlantDip(Math.max(1 - mean / window.baseline, 0));
+            }
+            for (Map.Entry<Long, Double> entry : readings.entrySet()) {
+                String panelId = panelRegistry.panelIdOf(entry.getKey()).orElse("#" + entry.getKey());
+                response.getPanelDeviations().put(panelId, mean > 0 ? entry.getValue() / mean - 1 : 0.0);
+            }
+        }
+        return response;
+    }
+
+    private static double mean(Map<Long, Double> readings) {
+        double sum = 0;
+        for (double value : readings.values()) {
+            sum += value;
+        }
+        return sum / readings.size();
+    }
+}
@@ -0,0 +1,316 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PowerForecastResponse;
+import com.solarpanel.faultdetection.entity.PanelForecastState;
+import com.solarpanel.faultdetection.repository.PanelForecastStateRepository;
+import com.solarpanel.faultdetection.repository.SensorQuantileRollupRepository;
+import com.solarpanel.faultdetection.storage.HoltWinters;
+import com.solarpanel.faultdetection.storage.TDigest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Next-hours forecast of each panel's mean power, from a Holt-Winters model with daily seasonality.
+ *
+ * Models are fitted incrementally from the hourly power digests in sensor_quantile_rollups: a periodic run
+ * reads only the hours completed since the previous run (the first run after startup reads the last
+ * initial-history-days, skipping hours a saved model has already seen) and advances the panels' models in
+ * parallel on a dedicated fork-join pool, each in O(1) per hour. Models are kept in memory and saved to
+ * panel_forecast_states after every run, so a restart resumes where it stopped; runs on several instances
+ * compute the same states from the same rollups.
+ * A panel is flagged as deviating when its last few hours all fell below the forecast band.
+ */
+@Service
+@Slf4j
+public class PowerForecastService {
+
+    public static final int MAX_HORIZON_HOURS = 48;
+    private static final int DEVIATION_HOURS = 3;
+    // Band of forecast +- 2.5 mean absolute errors (about 2 sigma), never narrower than 5% of the forecast
+    private static final double BAND_WIDTH = 2.5;
+    private static final double MIN_BAND_FRACTION = 0.05;
+
+    private final PanelForecastStateRepository stateRepository;
+    private final SensorQuantileRollupRepository rollupRepository;
+    private final PanelRegistry panelRegistry;
+    private final TransactionTemplate writeTemplate;
+    private final ForkJoinPool pool;
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final int initialHistoryHours;
+    private final int settleMinutes;
+    private final Map<Long, HoltWinters> models = new ConcurrentHashMap<>();
+    private long fittedUntil = Long.MIN_VALUE;
+
+    public PowerForecastService(PanelForecastStateRepository stateRepository,
+                                SensorQuantileRollupRepository rollupRepository,
+                                PanelRegistry panelRegistry,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${forecast.alpha:0.3}") double alpha,
+                                @Value("${forecast.beta:0.01}") double beta,
+                                @Value("${forecast.gamma:0.2}") double gamma,
+                                @Value("${forecast.initial-history-days:14}") int initialHistoryDays,
+                                @Value("${forecast.settle-minutes:5}") int settleMinutes,
+                                @Value("${forecast.parallelism:0}") int parallelism) {
+        // Validates the smoothing factors before anything is loaded
+        new HoltWinters(alpha, beta, gamma);
+        this.stateRepository = stateRepository;
+        this.rollupRepository = rollupRepository;
+        this.panelRegistry = panelRegistry;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.initialHistoryHours = initialHistoryDays * 24;
+        this.settleMinutes = settleMinutes;
+    }
+
+    private record HourlyPower(long hour, double power) {
+    }
+
+    @PostConstruct
+    public void load() {
+        List<PanelForecastState> states = writeTemplate.execute(status -> stateRepository.findAll());
+        for (PanelForecastState state : states) {
+            models.put(state.getPanelRef(), HoltWinters.fromBytes(state.getState(), alpha, beta, gamma));
+        }
+        log.info("Power forecast models loaded for {} panels", states.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Fit the hours completed since the last run; an hour counts as complete settle-minutes after it ends,
+     * once its rollups have been flushed
+     */
+    @Scheduled(initialDelayString = "${forecast.fit-interval-ms:600000}",
+               fixedDelayString = "${forecast.fit-interval-ms:600000}")
+    public void fit() {
+        fit(LocalDateTime.now().minusMinutes(settleMinutes).truncatedTo(ChronoUnit.HOURS));
+    }
+
+    /**
+     * Fit every hour starting before end; returns the number of panels whose model advanced
+     */
+    synchronized int fit(LocalDateTime end) {
+        long endHour = epochHour(end);
+        // After the first run only the hours completed since are read; rollups flushed later than
+        // settle-minutes after their hour are not fitted
+        long fromHour = Math.max(endHour - initialHistoryHours, fittedUntil);
+        if (fromHour >= endHour) {
+            return 0;
+        }
+
+        LocalDateTime from = hourStart(fromHour);
+        // Read on the primary: fittedUntil moves past these hours, so hours a replica has not received yet
+        // would never be fitted
+        Map<Long, List<HourlyPower>> series = writeTemplate.execute(status -> {
+            Map<Long, List<HourlyPower>> hourly = new HashMap<>();
+            try (Stream<Object[]> rows = rollupRepository.streamPowerDigests(from, end)) {
+                rows.forEach(row -> {
+                    Long panelRef = (Long) row[0];
+                    long hour = epochHour((LocalDateTime) row[1]);
+                    HoltWinters model = models.get(panelRef);
+                    if (model == null || hour > model.lastHour()) {
+                        double power = TDigest.fromBytes((byte[]) row[2]).mean();
+                        if (!Double.isNaN(power)) {
+                            hourly.computeIfAbsent(panelRef, ref -> new ArrayList<>()).add(new HourlyPower(hour, power));
+                        }
+                    }
+                });
+            }
+            return hourly;
+        });
+        fittedUntil = endHour;
+        if (series.isEmpty()) {
+            return 0;
+        }
+
+        long started = System.nanoTime();
+        List<Long> panelRefs = new ArrayList<>(series.keySet());
+        pool.submit(() -> panelRefs.parallelStream().forEach(ref -> {
+            HoltWinters model = models.computeIfAbsent(ref, r -> new HoltWinters(alpha, beta, gamma));
+            synchronized (model) {
+                for (HourlyPower point : series.get(ref)) {
+                    model.observe(point.hour(), point.power());
+                }
+            }
+        })).join();
+        log.debug("Fitted power forecasts of {} panels in {} ms", panelRefs.size(),
+            (System.nanoTime() - started) / 1_000_000);
+
+        try {
+            writeTemplate.executeWithoutResult(status -> persist(panelRefs));
+        } catch (RuntimeException e) {
+            // Models stay advanced in memory; the states are saved again after the next run that advances them
+            log.warn("Could not save power forecast models: {}", e.getMessage());
+        }
+        return panelRefs.size();
+    }
+
+    private void persist(List<Long> panelRefs) {
+        Map<Long, PanelForecastState> existing = new HashMap<>();
+        for (PanelForecastState state : stateRepository.findAllById(panelRefs)) {
+            existing.put(state.getPanelRef(), state);
+        }
+        List<PanelForecastState> states = new ArrayList<>(panelRefs.size());
+        for (Long ref : panelRefs) {
+            HoltWinters model = models.get(ref);
+            PanelForecastState state = existing.getOrDefault(ref, new PanelForecastState());
+            state.setPanelRef(ref);
+            synchronized (model) {
+                state.setLastObservedHour(hourStart(model.lastHour()));
+                state.setState(model.toBytes());
+            }
+            states.add(state);
+        }
+        stateRepository.saveAll(states);
+    }
+
+    /**
+     * Forecast against actual power of a panel over the last day, then the forecast for the next hours
+     */
+    public PowerForecastResponse getPanelForecast(String panelId, int hours) {
+        checkHorizon(hours);
+        PanelRegistry.PanelInfo panel = panelRegistry.find(panelId)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown panel ID: " + panelId));
+        PowerForecastResponse response = new PowerForecastResponse();
+        response.setPanelId(panelId);
+        response.setPlantId(panel.plantId());
+        response.setHours(new ArrayList<>());
+        HoltWinters model = models.get(panel.id());
+        if (model == null) {
+            response.setPanels(0);
+            return response;
+        }
+        synchronized (model) {
+            if (model.isReady()) {
+                fill(response, List.of(model), model.lastHour(), hours);
+            } else {
+                response.setPanels(0);
+                response.setLastObservedHour(hourStart(model.lastHour()));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Sum over the plant's panels with a fitted model; the actual power of an hour is only given when every
+     * one of those panels reported in it
+     */
+    public PowerForecastResponse getPlantForecast(Long plantId, int hours) {
+        checkHorizon(hours);
+        PowerForecastResponse response = new PowerForecastResponse();
+        response.setPlantId(plantId);
+        response.setHours(new ArrayList<>());
+        List<HoltWinters> ready = new ArrayList<>();
+        long lastHour = Long.MIN_VALUE;
+        for (Long ref : panelRegistry.idsOfPlant(plantId)) {
+            HoltWinters model = models.get(ref);
+            if (model != null) {
+                synchronized (model) {
+                    if (model.isReady()) {
+                        // A copy, so the sums below see one consistent state of every model
+                        HoltWinters copy = HoltWinters.fromBytes(model.toBytes(), alpha, beta, gamma);
+                        ready.add(copy);
+                        lastHour = Math.max(lastHour, copy.lastHour());
+                    }
+                }
+            }
+        }
+        if (ready.isEmpty()) {
+            response.setPanels(0);
+            return response;
+        }
+        fill(response, ready, lastHour, hours);
+        return response;
+    }
+
+    private void fill(PowerForecastResponse response, List<HoltWinters> fitted, long lastHour, int hours) {
+        double error = 0;
+        for (HoltWinters model : fitted) {
+            // Errors of panels on one plant move together, so their sum is the honest band
+            error += Double.isNaN(model.meanAbsoluteError()) ? 0 : model.meanAbsoluteError();
+        }
+        int below = 0;
+        boolean deviating = false;
+        for (long hour = lastHour - HoltWinters.SEASON + 1; hour <= lastHour + hours; hour++) {
+            double forecast = 0;
+            double actual = 0;
+            boolean hasForecast = false;
+            boolean hasActual = hour <= lastHour;
+            for (HoltWinters model : fitted) {
+                double value = model.forecastAt(hour);
+                if (!Double.isNaN(value)) {
+                    forecast += value;
+                    hasForecast = true;
+                }
+                double observed = model.actualAt(hour);
+                if (Double.isNaN(observed)) {
+                    hasActual = false;
+                } else {
+                    actual += observed;
+                }
+            }
+            if (!hasForecast && !hasActual) {
+                continue;
+            }
+            PowerForecastResponse.HourlyForecast point = new PowerForecastResponse.HourlyForecast();
+            point.setHour(hourStart(hour));
+            double band = Math.max(BAND_WIDTH * error, MIN_BAND_FRACTION * forecast);
+            if (hasForecast) {
+                point.setForecast(forecast);
+                point.setLower(Math.max(forecast - band, 0));
+                point.setUpper(forecast + band);
+            }
+            if (hasActual) {
+                point.setActual(actual);
+                if (hour > lastHour - DEVIATION_HOURS) {
+                    below += hasForecast && actual < forecast - band ? 1 : 0;
+                    deviating = below == DEVIATION_HOURS;
+                }
+            }
+            response.getHours().add(point);
+        }
+        response.setPanels(fitted.size());
+        response.setLastObservedHour(hourStart(lastHour));
+        response.setMeanAbsoluteError(error);
+        response.setDeviating(deviating);
+    }
+
+    private static void checkHorizon(int hours) {
+        if (hours < 1 || hours > MAX_HORIZON_HOURS) {
+            throw new IllegalArgumentException("Hours must be between 1 and " + MAX_HORIZON_HOURS);
+        }
+    }
+
+    private static long epochHour(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private static LocalDateTime hourStart(long epochHour) {
+        return LocalDateTime.ofEpochSecond(epochHour * 3600, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,140 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import com.solarpanel.faultdetection.storage.PredictionPersistedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live prediction totals by fault type and severity, so the analytics summary never queries the database.
+ *
+ * Counters are LongAdders, incremented from {@link PredictionPersistedEvent} once each prediction commits,
+ * without contention with readers. A periodic reconcile re-counts prediction_results on the primary and
+ * corrects each counter by the difference, which also picks up rows written or deleted by other instances.
+ * A prediction committed while the reconcile query runs can be counted twice until the next reconcile.
+ */
+@Service
+@Slf4j
+public class PredictionCounters {
+
+    private final PredictionResultRepository predictionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LongAdder total = new LongAdder();
+    private final Map<String, LongAdder> faultTypeCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> severityCounts = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastReconciled;
+
+    public PredictionCounters(PredictionResultRepository predictionRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.predictionRepository = predictionRepository;
+        // Read-write, so the counts come from the primary that the events describe rather than a lagging replica
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Snapshot(long total, Map<String, Long> faultTypeCounts, Map<String, Long> severityCounts,
+                           LocalDateTime lastReconciled) {
+    }
+
+    @EventListener
+    public void onPredictionPersisted(PredictionPersistedEvent event) {
+        record(event.prediction());
+    }
+
+    void record(PredictionResult prediction) {
+        total.increment();
+        increment(faultTypeCounts, prediction.getPredictedFault());
+        increment(severityCounts, prediction.getSeverity());
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(total.sum(), positive(faultTypeCounts), positive(severityCounts), lastReconciled);
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${analytics.counters.reconcile-interval-ms:60000}",
+               fixedDelayString = "${analytics.counters.reconcile-interval-ms:60000}")
+    public synchronized void reconcile() {
+        long liveTotal = total.sum();
+        Map<String, Long> liveFaults = sums(faultTypeCounts);
+        Map<String, Long> liveSeverities = sums(severityCounts);
+
+        long[] dbTotal = new long[1];
+        Map<String, Long> dbFaults = new HashMap<>();
+        Map<String, Long> dbSeverities = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            dbTotal[0] = predictionRepository.count();
+            collect(predictionRepository.countByFaultType(), dbFaults);
+            collect(predictionRepository.countBySeverity(), dbSeverities);
+        });
+
+        long totalDelta = dbTotal[0] - liveTotal;
+        total.add(totalDelta);
+        long drift = Math.abs(totalDelta) + correct(faultTypeCounts, liveFaults, dbFaults)
+                + correct(severityCounts, liveSeverities, dbSeverities);
+        lastReconciled = LocalDateTime.now();
+        if (drift != 0) {
+            log.info("Prediction counters reconciled, {} predictions in total, corrected a drift of {} counts",
+                    dbTotal[0], drift);
+        }
+    }
+
+    private static void increment(Map<String, LongAdder> counters, String key) {
+        if (key != null) {
+            counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+    }
+
+    private static long correct(Map<String, LongAdder> counters, Map<String, Long> live, Map<String, Long> db) {
+        Set<String> keys = new HashSet<>(live.keySet());
+        keys.addAll(db.keySet());
+        long drift = 0;
+        for (String key : keys) {
+            long delta = db.getOrDefault(key, 0L) - live.getOrDefault(key, 0L);
+            if (delta != 0) {
+                counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+                drift += Math.abs(delta);
+            }
+        }
+        return drift;
+    }
+
+    private static void collect(List<Object[]> rows, Map<String, Long> into) {
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                into.put((String) row[0], (Long) row[1]);
+            }
+        }
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new HashMap<>();
+        counters.forEach((key, adder) -> sums.put(key, adder.sum()));
+        return sums;
+    }
+
+    private static Map<String, Long> positive(Map<String, LongAdder> counters) {
+        Map<String, Long> counts = new HashMap<>();
+        counters.forEach((key, adder) -> {
+            long sum = adder.sum();
+            if (sum > 0) {
+                counts.put(key, sum);
+            }
+        });
+        return counts;
+    }
+}
@@ -1,23 +1,28 @@
 package com.solarpanel.faultdetection.service;
 
 import com.solarpanel.faultdetection.dto.MLApiResponse;
+import com.solarpanel.faultdetection.dto.PredictionFilter;
+import com.solarpanel.faultdetection.dto.PredictionHistoryPage;
 import com.solarpanel.faultdetection.dto.PredictionResponse;
 import com.solarpanel.faultdetection.dto.SensorDataRequest;
 import com.solarpanel.faultdetection.entity.PredictionResult;
 import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import com.solarpanel.faultdetection.storage.WriteBehindWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -34,19 +39,38 @@ public class PredictionService {
     @Autowired
     private SeverityAssessmentService severityAssessmentService;
     
+    @Autowired
+    private WriteBehindWriter writeBehindWriter;
+    
     /**
      * Analyze sensor data and return prediction result
      */
     public PredictionResponse analyzeSensorData(SensorDataRequest sensorData) {
+        return analyzeSensorData(sensorData, null);
+    }
+    
+    /**
+     * Analyze sensor data reported by a known panel and return prediction result
+     */
+    public PredictionResponse analyzeSensorData(SensorDataRequest sensorData, String panelId) {
+        return analyzeSensorData(sensorData, panelId, null);
+    }
+    
+    /**
+     * Analyze a live reading of a known panel, with how it compares to the other panels of its plant
+     */
+    public PredictionResponse analyzeSensorData(SensorDataRequest sensorData, String panelId,
+                                                PlantPeerAggregator.PeerContext peers) {
         logger.info("Starting analysis for sensor data: {}", sensorData);
         
         try {
             // Call ML API for prediction
             MLApiResponse mlResponse = mlApiService.predictFault(sensorData);
             
-            // Create and save prediction result
-            PredictionResult predictionResult = createPredictionResult(sensorData, mlResponse);
-            PredictionResult savedResult = predictionRepository.save(predictionResult);
+            // Create and save prediction result in the caller's transaction, since the response carries the id
+            PredictionResult predictionResult = createPredictionResult(sensorData, mlResponse, peers);
+            predictionResult.setPanelId(panelId);
+            PredictionResult savedResult = writeBehindWriter.save(predictionResult);
             
             logger.info("Prediction result saved with ID: {}", savedResult.getId());
             
@@ -62,73 +86,75 @@ public class PredictionService {
     }
     
     /**
-     * Get all prediction history
-     */
-    @Transactional(readOnly = true)
-    public List<PredictionResponse> getAllPredictions() {
-        logger.info("Retrieving all prediction history");
-        
-        List<PredictionResult> results = predictionRepository.findAllByOrderByCreatedAtDesc();
-        
-        return results.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-    }
-    
-    /**
-     * Get paginated prediction history
+     * Get a keyset page of filtered prediction history, starting after the given cursor (null for the first page)
      */
     @Transactional(readOnly = true)
-    public Page<PredictionResponse> getPaginatedPredictions(int page, int size) {
-        logger.info("Retrieving paginated predictions - page: {}, size: {}", page, size);
+    public PredictionHistoryPage getPredictionHistory(PredictionFilter filter, String cursor, int size, boolean includeTotal) {
+        logger.info("Retrieving prediction history - filter: {}, cursor: {}, size: {}", filter, cursor, size);
         
-        Pageable pageable = PageRequest.of(page, size);
-        Page<PredictionResult> results = predictionRepository.findAllByOrderByCreatedAtDesc(pageable);
+        LocalDateTime cursorCreatedAt = null;
+        Long cursorId = null;
+        if (cursor != null) {
+            String[] parts = decodeCursor(cursor);
+            cursorCreatedAt = LocalDateTime.parse(parts[0]);
+            cursorId = Long.parseLong(parts[1]);
+        }
         
-        return results.map(this::convertToResponse);
-    }
-    
-    /**
-     * Get predictions by fault type
-     */
-    @Transactional(readOnly = true)
-    public List<PredictionResponse> getPredictionsByFaultType(String faultType) {
-        logger.info("Retrieving predictions for fault type: {}", faultType);
+        // Fetch one extra row to know whether another page exists
+        List<PredictionResponse> results = predictionRepository.findPageAfter(
+                filter.getFaultType(), filter.getSeverity(), filter.getMinConfidence(),
+                filter.getFrom(), filter.getTo(), filter.getPanelId(),
+                cursorCreatedAt, cursorId, PageRequest.of(0, size + 1));
         
-        List<PredictionResult> results = predictionRepository.findByPredictedFaultOrderByCreatedAtDesc(faultType);
+        boolean hasNext = results.size() > size;
+        List<PredictionResponse> pageResults = hasNext ? results.subList(0, size) : results;
         
-        return results.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        PredictionHistoryPage page = new PredictionHistoryPage();
+        page.setContent(pageResults);
+        page.setSize(size);
+        page.setHasNext(hasNext);
+        page.setNextCursor(hasNext ? encodeCursor(pageResults.get(pageResults.size() - 1)) : null);
+        if (includeTotal) {
+            page.setTotalElements(predictionRepository.countByFilter(
+                    filter.getFaultType(), filter.getSeverity(), filter.getMinConfidence(),
+                    filter.getFrom(), filter.getTo(), filter.getPanelId()));
+        }
+        return page;
     }
     
     /**
-     * Get predictions by severity
+     * Get a page-numbered page of filtered prediction history, with totals
      */
     @Transactional(readOnly = true)
-    public List<PredictionResponse> getPredictionsBySeverity(String severity) {
-        logger.info("Retrieving predictions for severity: {}", severity);
+    public PredictionHistoryPage getPredictionHistoryPage(PredictionFilter filter, int page, int size) {
+        logger.info("Retrieving prediction history - filter: {}, page: {}, size: {}", filter, page, size);
         
-        List<PredictionResult> results = predictionRepository.findBySeverityOrderByCreatedAtDesc(severity);
+        Page<PredictionResponse> results = predictionRepository.findPageByFilter(
+                filter.getFaultType(), filter.getSeverity(), filter.getMinConfidence(),
+                filter.getFrom(), filter.getTo(), filter.getPanelId(), PageRequest.of(page, size));
         
-        return results.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        PredictionHistoryPage historyPage = new PredictionHistoryPage();
+        historyPage.setContent(results.getContent());
+        historyPage.setSize(size);
+        historyPage.setHasNext(results.hasNext());
+        historyPage.setNextCursor(results.hasNext() && !results.isEmpty()
+                ? encodeCursor(results.getContent().get(results.getNumberOfElements() - 1)) : null);
+        historyPage.setTotalElements(results.getTotalElements());
+        historyPage.setCurrentPage(page);
+        historyPage.setTotalPages(results.getTotalPages());
+        historyPage.setHasPrevious(results.hasPrevious());
+        return historyPage;
     }
     
     /**
-     * Get recent predictions (last 24 hours)
+     * Get the newest predictions of the last 24 hours, at most limit of them
      */
     @Transactional(readOnly = true)
-    public List<PredictionResponse> getRecentPredictions() {
-        logger.info("Retrieving recent predictions (last 24 hours)");
+    public List<PredictionResponse> getRecentPredictions(int limit) {
+        logger.info("Retrieving recent predictions (last 24 hours, limit {})", limit);
         
         LocalDateTime since = LocalDateTime.now().minusHours(24);
-        List<PredictionResult> results = predictionRepository.findRecentPredictions(since);
-        
-        return results.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return predictionRepository.findRecentSummaries(since, Limit.of(limit));
     }
     
     /**
@@ -155,12 +181,14 @@ public class PredictionService {
     /**
      * Create PredictionResult entity from sensor data and ML response
      */
-    private PredictionResult createPredictionResult(SensorDataRequest sensorData, MLApiResponse mlResponse) {
+    private PredictionResult createPredictionResult(SensorDataRequest sensorData, MLApiResponse mlResponse,
+                                                    PlantPeerAggregator.PeerContext peers) {
         // Assess severity using our enhanced logic
         String assessedSeverity = severityAssessmentService.assessSeverity(
             mlResponse.getPredictedFault(), 
             sensorData, 
-            mlResponse.getConfidenceScore()
+            mlResponse.getConfidenceScore(),
+            peers
         );
         
         // Get enhanced maintenance recommendation
@@ -184,12 +212,36 @@ public class PredictionService {
         );
     }
     
+    /**
+     * Opaque cursor for the keyset position of a prediction: createdAt and id
+     */
+    private String encodeCursor(PredictionResponse result) {
+        String position = result.getTimestamp() + "_" + result.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("_", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+    
     /**
      * Convert PredictionResult entity to PredictionResponse DTO
      */
     private PredictionResponse convertToResponse(PredictionResult result) {
         PredictionResponse response = new PredictionResponse();
         response.setId(result.getId());
+        response.setPanelId(result.getPanelId());
         response.setPredictedFault(result.getPredictedFault());
         response.setConfidence(result.getConfidence());
         response.setConfidenceScore(result.getConfidenceScore());
@@ -0,0 +1,208 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.entity.SensorArchiveBlock;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.repository.SensorArchiveBlockRepository;
+import com.solarpanel.faultdetection.repository.SensorDataRepository;
+import com.solarpanel.faultdetection.storage.GorillaCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves old sensor readings out of sensor_data into Gorilla-compressed per-panel blocks,
+ * and reads hot and archived readings back as one series.
+ *
+ * Values are stored rounded to value-precision decimals (2 by default), about 7.5 bytes per reading
+ * against 80+ for a sensor_data row with its indexes. Lossless blocks (-1) keep every bit of the doubles
+ * but take about 30 bytes per reading, under a 3x reduction.
+ */
+@Service
+public class SensorArchiveService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SensorArchiveService.class);
+    
+    private final SensorDataRepository sensorDataRepository;
+    private final SensorArchiveBlockRepository archiveBlockRepository;
+    private final PanelRegistry panelRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxAgeDays;
+    private final int blockSize;
+    private final int valuePrecision;
+    
+    public SensorArchiveService(SensorDataRepository sensorDataRepository,
+                                SensorArchiveBlockRepository archiveBlockRepository,
+                                PanelRegistry panelRegistry,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${sensor.archive.enabled:false}") boolean enabled,
+                                @Value("${sensor.archive.max-age-days:90}") int maxAgeDays,
+                                @Value("${sensor.archive.block-size:1000}") int blockSize,
+                                @Value("${sensor.archive.value-precision:2}") int valuePrecision) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("sensor.archive.block-size must be positive");
+        }
+        GorillaCodec.checkPrecision(valuePrecision);
+        this.sensorDataRepository = sensorDataRepository;
+        this.archiveBlockRepository = archiveBlockRepository;
+        this.panelRegistry = panelRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAgeDays = maxAgeDays;
+        this.blockSize = blockSize;
+        this.valuePrecision = valuePrecision;
+    }
+    
+    /**
+     * Scheduled archive run; a no-op unless sensor.archive.enabled is set
+     */
+    @Scheduled(cron = "${sensor.archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        int archived = archiveOlderThan(LocalDateTime.now().minusDays(maxAgeDays));
+        logger.info("Sensor archive run completed, {} readings archived", archived);
+    }
+    
+    /**
+     * Archive all readings with a timestamp before the cutoff. Each block is written and its
+     * source rows deleted in one transaction, so a failed run never loses or duplicates readings.
+     */
+    public int archiveOlderThan(LocalDateTime cutoff) {
+        int archived = 0;
+        for (Long panelRef : sensorDataRepository.findPanelRefsWithReadingsBefore(cutoff)) {
+            // Blocks are keyed by external panel ID; readings of a deleted panel are archived under its old id
+            String panelId = panelRegistry.panelIdOf(panelRef).orElse("#" + panelRef);
+            while (true) {
+                Integer moved = transactionTemplate.execute(status -> archiveNextBlock(panelRef, panelId, cutoff));
+                if (moved == null || moved == 0) {
+                    break;
+                }
+                archived += moved;
+            }
+        }
+        return archived;
+    }
+    
+    private int archiveNextBlock(Long panelRef, String panelId, LocalDateTime cutoff) {
+        List<SensorData> readings = sensorDataRepository.findByPanelRefAndTimestampBeforeOrderByTimestampAsc(
+            panelRef, cutoff, PageRequest.of(0, blockSize));
+        if (readings.isEmpty()) {
+            return 0;
+        }
+        
+        SensorArchiveBlock block = new SensorArchiveBlock();
+        block.setPanelId(panelId);
+        block.setStartTime(readings.get(0).getTimestamp());
+        block.setEndTime(readings.get(readings.size() - 1).getTimestamp());
+        block.setPointCount(readings.size());
+        byte[] payload = encode(readings);
+        block.setPayload(payload);
+        block.setPayloadBytes(payload.length);
+        archiveBlockRepository.save(block);
+        
+        sensorDataRepository.deleteAllInBatch(readings);
+        logger.debug("Archived {} readings of panel {} into block {}", readings.size(), panelId, block.getId());
+        return readings.size();
+    }
+    
+    /**
+     * Readings of a panel in the given time range, from both sensor_data and the archive, in timestamp order.
+     * Archived readings have no id and millisecond timestamp resolution.
+     */
+    public List<SensorData> findByPanelIdAndTimestampBetween(String panelId, LocalDateTime start, LocalDateTime end) {
+        List<SensorData> result = new ArrayList<>();
+        // Hot rows first: the archive job only moves rows from sensor_data into blocks, so a reading archived
+        // between the two reads is seen twice rather than not at all, and its archived copy is skipped
+        Map<Long, Integer> hotReadings = new HashMap<>();
+        Long panelRef = panelRegistry.find(panelId).map(PanelRegistry.PanelInfo::id).orElse(null);
+        if (panelRef != null) {
+            for (SensorData reading : sensorDataRepository.findByPanelRefAndTimestampBetween(panelRef, start, end)) {
+                reading.setPanelId(panelId);
+                result.add(reading);
+                hotReadings.merge(epochMillis(reading.getTimestamp()), 1, Integer::sum);
+            }
+        }
+        for (SensorArchiveBlock block : archiveBlockRepository.findOverlapping(panelId, start, end)) {
+            for (SensorData reading : decode(block)) {
+                if (reading.getTimestamp().isBefore(start) || reading.getTimestamp().isAfter(end)) {
+                    continue;
+                }
+                long millis = epochMillis(reading.getTimestamp());
+                Integer hot = hotReadings.get(millis);
+                if (hot == null) {
+                    result.add(reading);
+                } else if (hot == 1) {
+                    hotReadings.remove(millis);
+                } else {
+                    hotReadings.put(millis, hot - 1);
+                }
+            }
+        }
+        result.sort(Comparator.comparing(SensorData::getTimestamp));
+        return result;
+    }
+    
+    /**
+     * Archive footprint: archived point count, compressed bytes and bytes per point
+     */
+    public Map<String, Object> getArchiveStats() {
+        long points = archiveBlockRepository.sumPointCount();
+        long bytes = archiveBlockRepository.sumPayloadBytes();
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("blocks", archiveBlockRepository.count());
+        stats.put("archivedPoints", points);
+        stats.put("payloadBytes", bytes);
+        stats.put("bytesPerPoint", points > 0 ? (double) bytes / points : 0.0);
+        return stats;
+    }
+    
+    byte[] encode(List<SensorData> readings) {
+        int count = readings.size();
+        long[] timestamps = new long[count];
+        double[][] columns = new double[5][count];
+        for (int i = 0; i < count; i++) {
+            SensorData reading = readings.get(i);
+            timestamps[i] = epochMillis(reading.getTimestamp());
+            columns[0][i] = reading.getVoltage();
+            columns[1][i] = reading.getCurrent();
+            columns[2][i] = reading.getTemperature();
+            columns[3][i] = reading.getIrradiance();
+            columns[4][i] = reading.getPower();
+        }
+        return GorillaCodec.encode(timestamps, columns, valuePrecision);
+    }
+    
+    private static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    List<SensorData> decode(SensorArchiveBlock block) {
+        GorillaCodec.Block decoded = GorillaCodec.decode(block.getPayload());
+        double[][] columns = decoded.columns();
+        List<SensorData> readings = new ArrayList<>(decoded.size());
+        for (int i = 0; i < decoded.size(); i++) {
+            LocalDateTime timestamp = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(decoded.timestamps()[i]), ZoneOffset.UTC);
+            readings.add(new SensorData(null, null, block.getPanelId(), columns[0][i], columns[1][i],
+                columns[2][i], columns[3][i], columns[4][i], timestamp));
+        }
+        return readings;
+    }
+}
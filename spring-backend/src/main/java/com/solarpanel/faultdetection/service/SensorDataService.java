@@ -6,12 +6,16 @@ import com.solarpanel.faultdetection.dto.SensorDataRequest;
 import com.solarpanel.faultdetection.entity.Alert;
 import com.solarpanel.faultdetection.entity.PredictionResult;
 import com.solarpanel.faultdetection.entity.SensorData;
-import com.solarpanel.faultdetection.repository.AlertRepository;
 import com.solarpanel.faultdetection.repository.SensorDataRepository;
+import com.solarpanel.faultdetection.storage.SensorSegmentStore;
+import com.solarpanel.faultdetection.storage.WriteBehindWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 
@@ -21,13 +25,28 @@ import java.time.LocalDateTime;
 public class SensorDataService {
     
     private final SensorDataRepository sensorDataRepository;
-    private final AlertRepository alertRepository;
     private final PredictionService predictionService;
+    private final SensorSegmentStore segmentStore;
+    private final WriteBehindWriter writeBehindWriter;
+    private final PanelRegistry panelRegistry;
+    private final SensorQuantileService quantileService;
+    private final PerformanceRatioService performanceRatioService;
+    private final DegradationTrendService degradationTrendService;
+    private final PlantPeerAggregator peerAggregator;
+    
+    @Value("${ingestion.reject-unknown-panels:true}")
+    private boolean rejectUnknownPanels;
     
     @Transactional
     public PredictionResponse processSensorData(SensorDataDTO sensorDataDTO) {
         log.info("Processing sensor data for panel: {}", sensorDataDTO.getPanelId());
         
+        // Resolved from memory; unknown panels are rejected before anything is stored
+        PanelRegistry.PanelInfo panel = panelRegistry.find(sensorDataDTO.getPanelId()).orElse(null);
+        if (panel == null && rejectUnknownPanels) {
+            throw new IllegalArgumentException("Unknown panel ID: " + sensorDataDTO.getPanelId());
+        }
+        
         // 1. Save sensor data
         SensorData sensorData = new SensorData();
         sensorData.setPanelId(sensorDataDTO.getPanelId());
@@ -39,8 +58,28 @@ public class SensorDataService {
         sensorData.setTimestamp(sensorDataDTO.getTimestamp() != null ? 
             sensorDataDTO.getTimestamp() : LocalDateTime.now());
         
-        sensorDataRepository.save(sensorData);
-        log.info("Sensor data saved with ID: {}", sensorData.getId());
+        PlantPeerAggregator.PeerContext peers = null;
+        if (panel != null) {
+            sensorData.setPanelRef(panel.id());
+            sensorDataRepository.save(sensorData);
+            log.info("Sensor data saved with ID: {}", sensorData.getId());
+            // Only committed readings count, so a rolled-back request that is retried is not counted twice
+            afterCommit(() -> quantileService.record(panel.id(), sensorData.getTimestamp(), sensorData.getVoltage(),
+                sensorData.getTemperature(), sensorData.getPower()));
+            // Rated against the panel's capacity in memory once committed, so a rolled-back reading neither
+            // moves the PR nor consumes its one UNDERPERFORMANCE alert; raised without an ML call
+            afterCommit(() -> performanceRatioService.record(panel, sensorData).ifPresent(ratio ->
+                degradationTrendService.record(panel.id(), sensorData.getTimestamp(), ratio)));
+            // Compared with the plant's other panels, so a passing cloud is not taken for shading; the plant's
+            // statistics take the reading only once it commits
+            peers = peerAggregator.peek(panel, sensorData.getTimestamp(), sensorData.getIrradiance()).orElse(null);
+            afterCommit(() -> peerAggregator.observe(panel, sensorData.getTimestamp(), sensorData.getIrradiance()));
+            // Mirror the stored reading into the off-heap analytical tier once it is committed
+            afterCommit(() -> segmentStore.append(sensorData));
+        } else {
+            // Readings are stored by panel_ref, so one from an unknown panel is scored but not kept
+            log.warn("Sensor data from unknown panel {} not stored", sensorDataDTO.getPanelId());
+        }
         
         // 2. Create prediction request
         SensorDataRequest predictionRequest = new SensorDataRequest();
@@ -51,18 +90,19 @@ public class SensorDataService {
         predictionRequest.setPower(sensorDataDTO.getPower());
         
         // 3. Get ML prediction
-        PredictionResponse prediction = predictionService.analyzeSensorData(predictionRequest);
+        PredictionResponse prediction = predictionService.analyzeSensorData(predictionRequest, sensorDataDTO.getPanelId(),
+            peers);
         log.info("ML prediction completed: {} - {}", prediction.getPredictedFault(), prediction.getSeverity());
         
-        // 4. Generate alert if fault detected
-        if (!"NORMAL".equals(prediction.getPredictedFault())) {
-            generateAlert(sensorDataDTO.getPanelId(), prediction);
+        // 4. Generate alert if fault detected, unless discounted as a plant-wide weather dip
+        if (!"NORMAL".equals(prediction.getPredictedFault()) && !"None".equals(prediction.getSeverity())) {
+            generateAlert(sensorDataDTO.getPanelId(), panel, prediction);
         }
         
         return prediction;
     }
     
-    private void generateAlert(String panelId, PredictionResponse prediction) {
+    private void generateAlert(String panelId, PanelRegistry.PanelInfo panel, PredictionResponse prediction) {
         log.info("Generating alert for panel {} - Fault: {}", panelId, prediction.getPredictedFault());
         
         Alert alert = new Alert();
@@ -74,9 +114,24 @@ public class SensorDataService {
         alert.setConfidenceScore(prediction.getConfidenceScore());
         alert.setCreatedAt(LocalDateTime.now());
         alert.setAcknowledged(false);
+        // Route the alert to the panel's technician without looking the panel up
+        alert.setAssignedTechnicianId(panel != null ? panel.assignedTechnicianId() : null);
         
-        alertRepository.save(alert);
-        log.info("Alert created with ID: {}", alert.getId());
+        // Alerts are written behind once the reading commits; nothing on the request path needs the id
+        writeBehindWriter.submitAfterCommit(alert);
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
     
     private String generateAlertMessage(String faultType, String severity) {
@@ -0,0 +1,588 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.ImportJobStatus;
+import com.solarpanel.faultdetection.dto.SensorDataRequest;
+import com.solarpanel.faultdetection.dto.SensorImportRequest;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.storage.CsvRecordReader;
+import com.solarpanel.faultdetection.storage.SensorSegmentStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk loader for historical sensor CSVs (voltage, current, temperature, irradiance, power and optional
+ * panel_id / timestamp columns, in any order; other columns such as fault_type are ignored). Panel IDs are
+ * resolved to their solar_panels id through {@link PanelRegistry}; rows for unknown panels are rejected.
+ *
+ * The file is split into newline-aligned chunks that are memory-mapped and parsed in parallel with
+ * {@link CsvRecordReader}. Each worker inserts through its own connection with JDBC batches committed
+ * per batch, so a failure part way through keeps everything committed so far. Rows that do not parse
+ * are counted and sampled with their line number instead of failing the job.
+ */
+@Service
+@Slf4j
+public class SensorImportService {
+
+    private static final long MAX_CHUNK_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_ERROR_SAMPLES = 100;
+    private static final int MAX_RETAINED_JOBS = 100;
+    private static final long PROGRESS_LOG_INTERVAL_SECONDS = 5;
+    private static final String INSERT_SQL = "INSERT INTO sensor_data (panel_ref, voltage, current, temperature, "
+            + "irradiance, power, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final PredictionService predictionService;
+    private final SensorSegmentStore segmentStore;
+    private final PanelRegistry panelRegistry;
+    private final SensorQuantileService quantileService;
+    private final PerformanceRatioService performanceRatioService;
+    private final DegradationTrendService degradationTrendService;
+    private final Path baseDirectory;
+    private final int threads;
+    private final int batchSize;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor;
+
+    public SensorImportService(DataSource dataSource,
+                               PredictionService predictionService,
+                               SensorSegmentStore segmentStore,
+                               PanelRegistry panelRegistry,
+                               SensorQuantileService quantileService,
+                               PerformanceRatioService performanceRatioService,
+                               DegradationTrendService degradationTrendService,
+                               @Value("${import.base-directory:data/import}") String baseDirectory,
+                               @Value("${import.threads:0}") int threads,
+                               @Value("${import.batch-size:5000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("import.batch-size must be positive");
+        }
+        this.dataSource = dataSource;
+        this.predictionService = predictionService;
+        this.segmentStore = segmentStore;
+        this.panelRegistry = panelRegistry;
+        this.quantileService = quantileService;
+        this.performanceRatioService = performanceRatioService;
+        this.degradationTrendService = degradationTrendService;
+        this.baseDirectory = Paths.get(baseDirectory).toAbsolutePath().normalize();
+        this.threads = threads > 0 ? threads : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        this.batchSize = batchSize;
+        this.jobExecutor = Executors.newCachedThreadPool(daemonThreads("sensor-import-job"));
+    }
+
+    /**
+     * Start an import of a file under import.base-directory in the background
+     */
+    public ImportJobStatus startImport(SensorImportRequest request) {
+        Path file = baseDirectory.resolve(request.getPath()).normalize();
+        if (!file.startsWith(baseDirectory)) {
+            throw new IllegalArgumentException("Import files must be inside " + baseDirectory);
+        }
+        ImportJob job = createJob(file, request);
+        jobExecutor.submit(() -> execute(job, file, request));
+        return job.toStatus();
+    }
+
+    /**
+     * Import a file in the calling thread; used by the command line runner
+     */
+    public ImportJobStatus runImport(SensorImportRequest request) {
+        Path file = Paths.get(request.getPath()).toAbsolutePath().normalize();
+        ImportJob job = createJob(file, request);
+        execute(job, file, request);
+        return job.toStatus();
+    }
+
+    public Optional<ImportJobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::toStatus);
+    }
+
+    public List<ImportJobStatus> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((ImportJob job) -> job.startedAt).reversed())
+                .map(ImportJob::toStatus)
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    private ImportJob createJob(Path file, SensorImportRequest request) {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Import file not found: " + request.getPath());
+        }
+        evictFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getFileName().toString());
+        jobs.put(job.id, job);
+        return job;
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .min(Comparator.comparing((ImportJob job) -> job.finishedAt))
+                .ifPresent(job -> jobs.remove(job.id));
+    }
+
+    private void execute(ImportJob job, Path file, SensorImportRequest request) {
+        log.info("Starting sensor import {} of {} with {} threads", job.id, file, threads);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, daemonThreads("sensor-import-worker"));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Header header = readHeader(channel, request);
+            job.totalBytes = Math.max(size - header.length, 1);
+
+            List<long[]> chunks = split(channel, header.length, size);
+
+            // Row numbers are needed for synthesized timestamps and error line numbers
+            List<Future<Long>> counts = new ArrayList<>();
+            for (long[] chunk : chunks) {
+                counts.add(workers.submit(() -> countRecords(channel, chunk)));
+            }
+            long[] firstRows = new long[chunks.size()];
+            long rows = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                firstRows[i] = rows;
+                rows += counts.get(i).get();
+            }
+
+            List<Future<?>> imports = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                long[] chunk = chunks.get(i);
+                long firstRow = firstRows[i];
+                imports.add(workers.submit(() -> {
+                    importChunk(job, channel, chunk, firstRow, header, request);
+                    return null;
+                }));
+            }
+            awaitWithProgress(job, imports);
+
+            job.finish("COMPLETED", null);
+            log.info("Sensor import {} completed: {} rows inserted, {} rejected, {} rows/s",
+                    job.id, job.rowsInserted.get(), job.rowsRejected.get(), Math.round(job.rowsPerSecond()));
+
+        } catch (ExecutionException e) {
+            job.finish("FAILED", e.getCause().getMessage());
+            log.error("Sensor import {} failed: {}", job.id, e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish("FAILED", "Interrupted");
+        } catch (IOException | RuntimeException e) {
+            job.finish("FAILED", e.getMessage());
+            log.error("Sensor import {} failed: {}", job.id, e.getMessage(), e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void awaitWithProgress(ImportJob job, List<Future<?>> futures)
+            throws InterruptedException, ExecutionException {
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get(PROGRESS_LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    ImportJobStatus status = job.toStatus();
+                    log.info("Sensor import {} at {}%: {} rows inserted, {} rejected, {} rows/s", job.id,
+                            status.getProgressPercent(), status.getRowsInserted(), status.getRowsRejected(),
+                            status.getRowsPerSecond());
+                }
+            }
+        }
+    }
+
+    private Header readHeader(FileChannel channel, SensorImportRequest request) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 64 * 1024));
+        channel.read(buffer, 0);
+        buffer.flip();
+
+        int end = 0;
+        while (end < buffer.limit() && buffer.get(end) != '\n') {
+            end++;
+        }
+        if (end == buffer.limit() && end == 64 * 1024) {
+            throw new IllegalArgumentException("CSV header line is too long");
+        }
+        String line = new String(buffer.array(), 0, end, StandardCharsets.UTF_8).replace("\r", "").replace("\uFEFF", "");
+
+        Header header = new Header();
+        header.length = Math.min(end + 1, buffer.limit());
+        String[] names = line.split(",");
+        for (int i = 0; i < names.length; i++) {
+            switch (names[i].trim().toLowerCase(Locale.ROOT)) {
+                case "voltage" -> header.voltage = i;
+                case "current" -> header.current = i;
+                case "temperature" -> header.temperature = i;
+                case "irradiance" -> header.irradiance = i;
+                case "power" -> header.power = i;
+                case "panel_id", "panelid" -> header.panelId = i;
+                case "timestamp" -> header.timestamp = i;
+                default -> { }
+            }
+            header.fieldCount = i + 1;
+        }
+
+        if (header.voltage < 0 || header.current < 0 || header.temperature < 0
+                || header.irradiance < 0 || header.power < 0) {
+            throw new IllegalArgumentException("CSV must have voltage, current, temperature, irradiance and power columns");
+        }
+        if (header.panelId < 0 && (request.getPanelId() == null || request.getPanelId().isBlank())) {
+            throw new IllegalArgumentException("CSV has no panel_id column, a panelId is required");
+        }
+        if (header.panelId < 0 && !panelRegistry.contains(request.getPanelId().trim())) {
+            throw new IllegalArgumentException("Unknown panel ID: " + request.getPanelId());
+        }
+        if (header.timestamp < 0 && request.getStartTime() == null) {
+            throw new IllegalArgumentException("CSV has no timestamp column, a startTime is required");
+        }
+        return header;
+    }
+
+    /**
+     * Split [dataStart, size) into chunks that end just after a newline
+     */
+    private List<long[]> split(FileChannel channel, long dataStart, long size) throws IOException {
+        long dataLength = size - dataStart;
+        long chunkCount = Math.max(threads * 4L, (dataLength + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long target = Math.max(dataLength / chunkCount, 1);
+
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = dataStart;
+        while (start < size) {
+            long end = Math.min(start + target, size);
+            // Extend to the end of the line the boundary falls in
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("CSV line too long near byte " + start);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private long countRecords(FileChannel channel, long[] chunk) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(map(channel, chunk));
+        long count = 0;
+        while (reader.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    private void importChunk(ImportJob job, FileChannel channel, long[] chunk, long firstRow,
+                             Header header, SensorImportRequest request) throws IOException, SQLException {
+        CsvRecordReader reader = new CsvRecordReader(map(channel, chunk));
+        Batch batch = new Batch(batchSize);
+        String defaultPanel = request.getPanelId() != null ? request.getPanelId().trim() : null;
+
+        byte[] lastPanelBytes = null;
+        String lastPanel = null;
+        String resolvedPanel = null;
+        Long panelRef = null;
+        long row = firstRow;
+        int flushedPosition = 0;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                while (reader.next()) {
+                    long rowIndex = row++;
+                    try {
+                        if (reader.getFieldCount() < header.fieldCount) {
+                            throw new NumberFormatException("Expected " + header.fieldCount + " fields but found "
+                                    + reader.getFieldCount());
+                        }
+                        double voltage = reader.getDouble(header.voltage);
+                        double current = reader.getDouble(header.current);
+                        double temperature = reader.getDouble(header.temperature);
+                        double irradiance = reader.getDouble(header.irradiance);
+                        double power = reader.getDouble(header.power);
+                        if (!Double.isFinite(voltage + current + temperature + irradiance + power)) {
+                            throw new NumberFormatException("Non-finite value");
+                        }
+
+                        String panelId = defaultPanel;
+                        if (header.panelId >= 0 && !reader.isEmpty(header.panelId)) {
+                            // Panel ids repeat in runs, reuse the last string instead of decoding every row
+                            if (lastPanelBytes == null || !reader.fieldEquals(header.panelId, lastPanelBytes)) {
+                                lastPanelBytes = reader.getBytes(header.panelId);
+                                lastPanel = new String(lastPanelBytes, StandardCharsets.UTF_8);
+                            }
+                            panelId = lastPanel;
+                        }
+                        if (panelId == null || panelId.isEmpty()) {
+                            throw new NumberFormatException("Missing panel id");
+                        }
+                        // Same String instance while the panel does not change, so resolve once per run
+                        if (panelId != resolvedPanel) {
+                            panelRef = panelRegistry.find(panelId).map(PanelRegistry.PanelInfo::id).orElse(null);
+                            resolvedPanel = panelId;
+                        }
+                        if (panelRef == null) {
+                            throw new NumberFormatException("Unknown panel id " + panelId);
+                        }
+
+                        LocalDateTime timestamp = header.timestamp >= 0 && !reader.isEmpty(header.timestamp)
+                                ? reader.getDateTime(header.timestamp)
+                                : startTime(request, rowIndex);
+
+                        statement.setLong(1, panelRef);
+                        statement.setDouble(2, voltage);
+                        statement.setDouble(3, current);
+                        statement.setDouble(4, temperature);
+                        statement.setDouble(5, irradiance);
+                        statement.setDouble(6, power);
+                        statement.setObject(7, timestamp);
+                        statement.addBatch();
+                        batch.add(panelId, panelRef, timestamp, voltage, current, temperature, irradiance, power);
+                    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                        // Line numbers are 1-based and the header is line 1
+                        job.reject(rowIndex + 2, e.getMessage());
+                    }
+
+                    if (batch.size == batchSize) {
+                        flush(job, connection, statement, batch, request);
+                        job.rowsRead.addAndGet(batchSize);
+                        job.bytesDone.addAndGet(reader.getPosition() - flushedPosition);
+                        flushedPosition = reader.getPosition();
+                    }
+                }
+                int remaining = batch.size;
+                flush(job, connection, statement, batch, request);
+                job.rowsRead.addAndGet(remaining);
+                job.bytesDone.addAndGet(reader.getPosition() - flushedPosition);
+            }
+        }
+    }
+
+    private LocalDateTime startTime(SensorImportRequest request, long rowIndex) {
+        if (request.getStartTime() == null) {
+            throw new NumberFormatException("Missing timestamp");
+        }
+        return request.getStartTime().plusSeconds(request.getIntervalSeconds() * rowIndex);
+    }
+
+    private void flush(ImportJob job, Connection connection, PreparedStatement statement,
+                       Batch batch, SensorImportRequest request) throws SQLException {
+        if (batch.size == 0) {
+            return;
+        }
+        statement.executeBatch();
+        connection.commit();
+        job.rowsInserted.addAndGet(batch.size);
+
+        for (int i = 0; i < batch.size; i++) {
+            if (segmentStore.isEnabled()) {
+                segmentStore.append(new SensorData(null, batch.panelRefs[i], batch.panels[i], batch.values[i][0], batch.values[i][1],
+                        batch.values[i][2], batch.values[i][3], batch.values[i][4], batch.timestamps[i]));
+            }
+            quantileService.record(batch.panelRefs[i], batch.timestamps[i], batch.values[i][0],
+                    batch.values[i][2], batch.values[i][4]);
+            recordPerformanceRatio(batch, i);
+            if (request.isScore()) {
+                score(job, batch, i);
+            }
+        }
+        batch.size = 0;
+    }
+
+    /**
+     * Add a back-filled reading's PR to the degradation regression, which needs years of history. The live PR
+     * averages and their alerts describe current output, so history does not go through them.
+     */
+    private void recordPerformanceRatio(Batch batch, int i) {
+        PanelRegistry.PanelInfo panel = panelRegistry.find(batch.panels[i]).orElse(null);
+        if (panel == null) {
+            return;
+        }
+        double[] row = batch.values[i];
+        performanceRatioService.ratio(panel, row[3], row[2], row[4]).ifPresent(ratio ->
+                degradationTrendService.record(batch.panelRefs[i], batch.timestamps[i], ratio));
+    }
+
+    private void score(ImportJob job, Batch batch, int i) {
+        try {
+            SensorDataRequest sensorData = new SensorDataRequest(batch.values[i][0], batch.values[i][1],
+                    batch.values[i][2], batch.values[i][3], batch.values[i][4]);
+            predictionService.analyzeSensorData(sensorData, batch.panels[i]);
+            job.rowsScored.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.debug("Scoring failed for imported reading of panel {}: {}", batch.panels[i], e.getMessage());
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long[] chunk) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Header {
+        private int length;
+        private int fieldCount;
+        private int voltage = -1;
+        private int current = -1;
+        private int temperature = -1;
+        private int irradiance = -1;
+        private int power = -1;
+        private int panelId = -1;
+        private int timestamp = -1;
+    }
+
+    /**
+     * Rows of the current JDBC batch, kept for the in-memory statistics fed after the commit
+     */
+    private static final class Batch {
+        private final String[] panels;
+        private final long[] panelRefs;
+        private final LocalDateTime[] timestamps;
+        private final double[][] values;
+        private int size;
+
+        Batch(int capacity) {
+            this.panels = new String[capacity];
+            this.panelRefs = new long[capacity];
+            this.timestamps = new LocalDateTime[capacity];
+            this.values = new double[capacity][5];
+        }
+
+        void add(String panelId, long panelRef, LocalDateTime timestamp, double voltage, double current,
+                 double temperature, double irradiance, double power) {
+            panels[size] = panelId;
+            panelRefs[size] = panelRef;
+            timestamps[size] = timestamp;
+            double[] row = values[size];
+            row[0] = voltage;
+            row[1] = current;
+            row[2] = temperature;
+            row[3] = irradiance;
+            row[4] = power;
+            size++;
+        }
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final String file;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong rowsInserted = new AtomicLong();
+        private final AtomicLong rowsRejected = new AtomicLong();
+        private final AtomicLong rowsScored = new AtomicLong();
+        private final AtomicLong bytesDone = new AtomicLong();
+        private final List<String> errorSamples = Collections.synchronizedList(new ArrayList<>());
+        private volatile long totalBytes = 1;
+        private volatile String state = "RUNNING";
+        private volatile String failureMessage;
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedNanos;
+
+        ImportJob(String id, String file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        void reject(long line, String reason) {
+            rowsRejected.incrementAndGet();
+            rowsRead.incrementAndGet();
+            if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+                errorSamples.add("line " + line + ": " + reason);
+            }
+        }
+
+        void finish(String finalState, String message) {
+            finishedNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            failureMessage = message;
+            state = finalState;
+        }
+
+        double rowsPerSecond() {
+            long end = finishedAt != null ? finishedNanos : System.nanoTime();
+            double seconds = Math.max((end - startNanos) / 1e9, 1e-3);
+            return rowsInserted.get() / seconds;
+        }
+
+        ImportJobStatus toStatus() {
+            double progress = "COMPLETED".equals(state) ? 100.0
+                    : Math.min(100.0, Math.round(bytesDone.get() * 1000.0 / totalBytes) / 10.0);
+            List<String> samples;
+            synchronized (errorSamples) {
+                samples = new ArrayList<>(errorSamples);
+            }
+            return new ImportJobStatus(id, file, state, progress, rowsRead.get(), rowsInserted.get(),
+                    rowsRejected.get(), rowsScored.get(), (double) Math.round(rowsPerSecond()),
+                    samples, failureMessage, startedAt, finishedAt);
+        }
+    }
+}
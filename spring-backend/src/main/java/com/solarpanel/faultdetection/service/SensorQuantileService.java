@@ -0,0 +1,250 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.SensorQuantileResponse;
+import com.solarpanel.faultdetection.entity.SensorQuantileRollup;
+import com.solarpanel.faultdetection.repository.SensorQuantileRollupRepository;
+import com.solarpanel.faultdetection.storage.TDigest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Approximate p50/p95/p99 of voltage, temperature and power per panel, plant or fleet over any range of hours.
+ *
+ * Every ingested reading is added to a t-digest of its panel and hour, held in memory while the hour is
+ * being written. A periodic flush merges the open digests into sensor_quantile_rollups (one row per panel
+ * and hour), so a late reading or another instance's readings for the same hour are merged rather than lost:
+ * rows carry a version, and a flush that lost a race for its row merges again on the next one. Ingestion adds
+ * a reading once its transaction commits.
+ * Queries merge the rollups of the requested panels and hours, plus whatever is not flushed yet, without
+ * touching sensor_data; the rollups also outlive the rows the sensor archive removes.
+ */
+@Service
+@Slf4j
+public class SensorQuantileService {
+
+    private final SensorQuantileRollupRepository rollupRepository;
+    private final PanelRegistry panelRegistry;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate readTemplate;
+    private final boolean enabled;
+    private final Map<BucketKey, BucketDigests> open = new ConcurrentHashMap<>();
+
+    public SensorQuantileService(SensorQuantileRollupRepository rollupRepository,
+                                 PanelRegistry panelRegistry,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${rollups.quantiles.enabled:true}") boolean enabled) {
+        this.rollupRepository = rollupRepository;
+        this.panelRegistry = panelRegistry;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    private record BucketKey(Long panelRef, LocalDateTime bucketStart) {
+    }
+
+    /**
+     * Digests of one open bucket; once flushed it is closed and further readings go to a fresh bucket
+     */
+    private static final class BucketDigests {
+        private final TDigest voltage = new TDigest();
+        private final TDigest temperature = new TDigest();
+        private final TDigest power = new TDigest();
+        private boolean closed;
+
+        synchronized boolean add(double voltageValue, double temperatureValue, double powerValue) {
+            if (closed) {
+                return false;
+            }
+            voltage.add(voltageValue);
+            temperature.add(temperatureValue);
+            power.add(powerValue);
+            return true;
+        }
+
+        synchronized boolean add(BucketDigests other) {
+            if (closed) {
+                return false;
+            }
+            voltage.add(other.voltage);
+            temperature.add(other.temperature);
+            power.add(other.power);
+            return true;
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+
+        synchronized void mergeInto(TDigest[] digests) {
+            digests[0].add(voltage);
+            digests[1].add(temperature);
+            digests[2].add(power);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add one stored reading to its panel's digests for the hour
+     */
+    public void record(Long panelRef, LocalDateTime timestamp, double voltage, double temperature, double power) {
+        if (!enabled || panelRef == null || timestamp == null) {
+            return;
+        }
+        BucketKey key = new BucketKey(panelRef, timestamp.truncatedTo(ChronoUnit.HOURS));
+        while (!open.computeIfAbsent(key, k -> new BucketDigests()).add(voltage, temperature, power)) {
+            // Flushed concurrently; the closed bucket has been removed, so retry on a fresh one
+            Thread.yield();
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(initialDelayString = "${rollups.quantiles.flush-interval-ms:60000}",
+               fixedDelayString = "${rollups.quantiles.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        int flushed = 0;
+        for (BucketKey key : List.copyOf(open.keySet())) {
+            BucketDigests digests = open.remove(key);
+            if (digests == null) {
+                continue;
+            }
+            digests.close();
+            try {
+                writeTemplate.executeWithoutResult(status -> persist(key, digests));
+                flushed++;
+            } catch (RuntimeException e) {
+                // Typically another instance inserting or updating the same panel and hour (unique key or
+                // version conflict); merge again on the next flush
+                log.warn("Could not flush quantile rollup of panel {} at {}: {}", key.panelRef(), key.bucketStart(),
+                    e.getMessage());
+                requeue(key, digests);
+            }
+        }
+        if (flushed > 0) {
+            log.debug("Flushed {} quantile rollup buckets", flushed);
+        }
+    }
+
+    private void persist(BucketKey key, BucketDigests digests) {
+        SensorQuantileRollup rollup = rollupRepository.findByPanelRefAndBucketStart(key.panelRef(), key.bucketStart())
+            .orElse(null);
+        TDigest voltage = digests.voltage;
+        TDigest temperature = digests.temperature;
+        TDigest power = digests.power;
+        if (rollup == null) {
+            rollup = new SensorQuantileRollup();
+            rollup.setPanelRef(key.panelRef());
+            rollup.setBucketStart(key.bucketStart());
+        } else {
+            // Merge into copies so a failed transaction leaves the in-memory digests untouched for the retry
+            voltage = merged(rollup.getVoltageDigest(), voltage);
+            temperature = merged(rollup.getTemperatureDigest(), temperature);
+            power = merged(rollup.getPowerDigest(), power);
+        }
+        rollup.setSampleCount(voltage.size());
+        rollup.setVoltageDigest(voltage.toBytes());
+        rollup.setTemperatureDigest(temperature.toBytes());
+        rollup.setPowerDigest(power.toBytes());
+        rollupRepository.save(rollup);
+    }
+
+    private void requeue(BucketKey key, BucketDigests digests) {
+        while (!open.computeIfAbsent(key, k -> new BucketDigests()).add(digests)) {
+            Thread.yield();
+        }
+    }
+
+    private static TDigest merged(byte[] stored, TDigest digest) {
+        TDigest merged = TDigest.fromBytes(stored);
+        merged.add(digest);
+        return merged;
+    }
+
+    /**
+     * Percentiles of one panel, one plant or (with neither) the whole fleet. The window is resolved to
+     * whole hours: every hour that starts before end and ends after start is included.
+     */
+    public SensorQuantileResponse quantiles(String panelId, Long plantId, LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start cannot be after end");
+        }
+        if (panelId != null && plantId != null) {
+            throw new IllegalArgumentException("Specify either panelId or plantId, not both");
+        }
+        List<Long> panelRefs = null;
+        if (panelId != null) {
+            panelRefs = List.of(panelRegistry.find(panelId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown panel ID: " + panelId)).id());
+        } else if (plantId != null) {
+            panelRefs = panelRegistry.idsOfPlant(plantId);
+        }
+
+        LocalDateTime from = start.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        TDigest[] digests = {new TDigest(), new TDigest(), new TDigest()};
+        int buckets = 0;
+
+        if (panelRefs == null || !panelRefs.isEmpty()) {
+            List<Long> refs = panelRefs;
+            buckets += readTemplate.execute(status -> {
+                int merged = 0;
+                try (Stream<SensorQuantileRollup> rollups = refs == null
+                        ? rollupRepository.streamAll(from, to)
+                        : rollupRepository.streamByPanelRefs(refs, from, to)) {
+                    for (SensorQuantileRollup rollup : (Iterable<SensorQuantileRollup>) rollups::iterator) {
+                        digests[0].add(TDigest.fromBytes(rollup.getVoltageDigest()));
+                        digests[1].add(TDigest.fromBytes(rollup.getTemperatureDigest()));
+                        digests[2].add(TDigest.fromBytes(rollup.getPowerDigest()));
+                        merged++;
+                    }
+                }
+                return merged;
+            });
+            // Readings not flushed yet
+            for (Map.Entry<BucketKey, BucketDigests> entry : open.entrySet()) {
+                BucketKey key = entry.getKey();
+                if ((refs == null || refs.contains(key.panelRef()))
+                        && !key.bucketStart().isBefore(from) && key.bucketStart().isBefore(to)) {
+                    entry.getValue().mergeInto(digests);
+                    buckets++;
+                }
+            }
+        }
+
+        SensorQuantileResponse response = new SensorQuantileResponse();
+        response.setPanelId(panelId);
+        response.setPlantId(plantId);
+        response.setStart(from);
+        response.setEnd(to);
+        response.setCount(digests[0].size());
+        response.setBucketsMerged(buckets);
+        response.setVoltage(quantiles(digests[0]));
+        response.setTemperature(quantiles(digests[1]));
+        response.setPower(quantiles(digests[2]));
+        return response;
+    }
+
+    private static SensorQuantileResponse.MetricQuantiles quantiles(TDigest digest) {
+        if (digest.size() == 0) {
+            return null;
+        }
+        return new SensorQuantileResponse.MetricQuantiles(digest.min(), digest.quantile(0.5), digest.quantile(0.95),
+            digest.quantile(0.99), digest.max());
+    }
+}
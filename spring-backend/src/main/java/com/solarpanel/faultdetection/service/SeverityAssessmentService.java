@@ -47,6 +47,14 @@ public class SeverityAssessmentService {
      * Assess severity based on fault type, sensor data, and confidence score
      */
     public String assessSeverity(String faultType, SensorDataRequest sensorData, Double confidenceScore) {
+        return assessSeverity(faultType, sensorData, confidenceScore, null);
+    }
+    
+    /**
+     * Assess severity, also taking into account how the reading compares with the other panels of its plant
+     */
+    public String assessSeverity(String faultType, SensorDataRequest sensorData, Double confidenceScore,
+                                 PlantPeerAggregator.PeerContext peers) {
         logger.debug("Assessing severity for fault type: {}, confidence: {}", faultType, confidenceScore);
         
         // Get base severity for fault type
@@ -56,7 +64,10 @@ public class SeverityAssessmentService {
         SeverityLevel adjustedSeverity = adjustSeverityByConfidence(baseSeverity, confidenceScore);
         
         // Further adjust based on sensor thresholds
-        SeverityLevel finalSeverity = adjustSeverityBySensorData(adjustedSeverity, faultType, sensorData);
+        SeverityLevel sensorSeverity = adjustSeverityBySensorData(adjustedSeverity, faultType, sensorData);
+        
+        // Finally discount plant-wide weather dips
+        SeverityLevel finalSeverity = adjustSeverityByPeers(sensorSeverity, faultType, peers);
         
         String result = finalSeverity.getDisplayName();
         logger.info("Final severity assessment: {} for fault type: {}", result, faultType);
@@ -144,6 +155,28 @@ public class SeverityAssessmentService {
         return baseSeverity;
     }
     
+    /**
+     * Adjust severity when the whole plant dips together and the panel is in line with its peers
+     */
+    private SeverityLevel adjustSeverityByPeers(SeverityLevel severity, String faultType,
+                                                PlantPeerAggregator.PeerContext peers) {
+        if (peers == null || !peers.weatherEvent()) {
+            return severity;
+        }
+        logger.info("Plant-wide irradiance dip of {}% with the panel {}% from its peers, discounting {}",
+                Math.round(peers.plantDip() * 100), Math.round(peers.deviation() * 100), faultType);
+        
+        // A cloud looks like shading on every panel; shading is only real when one panel differs
+        if ("PARTIAL_SHADING".equals(faultType)) return SeverityLevel.NONE;
+        // Inverter faults are electrical and not explained by weather
+        if ("INVERTER_FAULT".equals(faultType)) return severity;
+        // Anything else is reduced by one level
+        if (severity == SeverityLevel.CRITICAL) return SeverityLevel.HIGH;
+        if (severity == SeverityLevel.HIGH) return SeverityLevel.MEDIUM;
+        if (severity == SeverityLevel.MEDIUM) return SeverityLevel.LOW;
+        return severity;
+    }
+    
     /**
      * Get base maintenance recommendation for fault type
      */
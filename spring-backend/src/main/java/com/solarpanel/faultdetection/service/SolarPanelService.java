@@ -8,11 +8,12 @@ import com.solarpanel.faultdetection.repository.SolarPanelRepository;
 import com.solarpanel.faultdetection.repository.SolarPlantRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +22,7 @@ public class SolarPanelService {
     
     private final SolarPanelRepository panelRepository;
     private final SolarPlantRepository plantRepository;
+    private final PanelRegistry panelRegistry;
     
     @Transactional
     public SolarPanelResponse createPanel(SolarPanelRequest request) {
@@ -42,6 +44,7 @@ public class SolarPanelService {
         panel.setAssignedTechnicianId(request.getAssignedTechnicianId());
         
         SolarPanel savedPanel = panelRepository.save(panel);
+        panelRegistry.register(savedPanel);
         log.info("Solar panel created successfully with ID: {}", savedPanel.getId());
         
         return mapToResponse(savedPanel);
@@ -50,18 +53,26 @@ public class SolarPanelService {
     @Transactional(readOnly = true)
     public List<SolarPanelResponse> getAllPanels() {
         log.info("Fetching all solar panels");
-        return panelRepository.findAll().stream()
-                .sorted((a, b) -> a.getId().compareTo(b.getId())) // Sort by ID (creation order)
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        // Sorted by ID (creation order)
+        return panelRepository.findAllResponses();
     }
     
     @Transactional(readOnly = true)
     public List<SolarPanelResponse> getPanelsByPlant(Long plantId) {
         log.info("Fetching panels for plant ID: {}", plantId);
-        return panelRepository.findByPlantId(plantId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return panelRepository.findResponsesByPlantId(plantId);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<SolarPanelResponse> getPanels(int page, int size) {
+        log.info("Fetching solar panels page {} (size {})", page, size);
+        return panelRepository.findResponses(PageRequest.of(page, size));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<SolarPanelResponse> getPanelsByPlant(Long plantId, int page, int size) {
+        log.info("Fetching panels for plant ID {} page {} (size {})", plantId, page, size);
+        return panelRepository.findResponsesByPlantId(plantId, PageRequest.of(page, size));
     }
     
     @Transactional(readOnly = true)
@@ -94,6 +105,7 @@ public class SolarPanelService {
         panel.setAssignedTechnicianId(request.getAssignedTechnicianId());
         
         SolarPanel updatedPanel = panelRepository.save(panel);
+        panelRegistry.register(updatedPanel);
         log.info("Solar panel updated successfully");
         
         return mapToResponse(updatedPanel);
@@ -108,6 +120,7 @@ public class SolarPanelService {
         }
         
         panelRepository.deleteById(id);
+        panelRegistry.unregister(id);
         log.info("Solar panel deleted successfully");
     }
     
@@ -7,11 +7,12 @@ import com.solarpanel.faultdetection.repository.SolarPanelRepository;
 import com.solarpanel.faultdetection.repository.SolarPlantRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +21,7 @@ public class SolarPlantService {
     
     private final SolarPlantRepository plantRepository;
     private final SolarPanelRepository panelRepository;
+    private final PanelRegistry panelRegistry;
     
     @Transactional
     public SolarPlantResponse createPlant(SolarPlantRequest request) {
@@ -43,17 +45,20 @@ public class SolarPlantService {
     @Transactional(readOnly = true)
     public List<SolarPlantResponse> getAllPlants() {
         log.info("Fetching all solar plants");
-        return plantRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return plantRepository.findAllResponses();
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<SolarPlantResponse> getPlants(int page, int size) {
+        log.info("Fetching solar plants page {} (size {})", page, size);
+        return plantRepository.findResponses(PageRequest.of(page, size));
     }
     
     @Transactional(readOnly = true)
     public SolarPlantResponse getPlantById(Long id) {
         log.info("Fetching solar plant with ID: {}", id);
-        SolarPlant plant = plantRepository.findById(id)
+        return plantRepository.findResponseById(id)
                 .orElseThrow(() -> new RuntimeException("Plant not found with ID: " + id));
-        return mapToResponse(plant);
     }
     
     @Transactional
@@ -85,7 +90,9 @@ public class SolarPlantService {
             throw new RuntimeException("Plant not found with ID: " + id);
         }
         
+        // Panels are removed with the plant
         plantRepository.deleteById(id);
+        panelRegistry.unregisterPlant(id);
         log.info("Solar plant deleted successfully");
     }
     
@@ -141,8 +141,10 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findByUsernameOrEmail(loginRequest.getUsername(), loginRequest.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Update last login time
-        userRepository.updateLastLogin(user.getId(), LocalDateTime.now());
+        // Update last login time; a managed-entity update refreshes just this user's cache entry,
+        // where a bulk UPDATE query would evict every cached user
+        user.setLastLogin(LocalDateTime.now());
+        userRepository.save(user);
         
         logger.info("User authenticated successfully: {}", user.getUsername());
         
@@ -0,0 +1,302 @@
+package com.solarpanel.faultdetection.storage;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+/**
+ * Forward-only reader over CSV records in a byte buffer, typically a memory-mapped slice of a file.
+ *
+ * Field boundaries are kept as offsets into the buffer and numbers are parsed straight from the bytes,
+ * so reading a record allocates nothing. Only unquoted fields are supported, which covers the numeric
+ * sensor exports this is used for. Both LF and CRLF line endings are accepted; blank lines are skipped.
+ */
+public final class CsvRecordReader {
+
+    private static final int MAX_FIELDS = 64;
+
+    // Exact powers of ten representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private int position;
+    private int fieldCount;
+    private int recordStart;
+
+    public CsvRecordReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Advance to the next non-blank record; false at the end of the buffer
+     */
+    public boolean next() {
+        while (position < limit) {
+            recordStart = position;
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > position && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            position = Math.min(lineEnd + 1, limit);
+
+            if (contentEnd == recordStart) {
+                continue;
+            }
+            split(recordStart, contentEnd);
+            return true;
+        }
+        return false;
+    }
+
+    private void split(int start, int end) {
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == ',') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, end);
+    }
+
+    private void addField(int start, int end) {
+        // Extra fields beyond the limit are dropped; callers validate the count
+        if (fieldCount < MAX_FIELDS) {
+            fieldStarts[fieldCount] = start;
+            fieldEnds[fieldCount] = end;
+        }
+        fieldCount++;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Byte offset of the end of the current record, including its line terminator
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean isEmpty(int field) {
+        return trimmedStart(field) >= trimmedEnd(field);
+    }
+
+    /**
+     * Parse a decimal field such as 31.886, -4, 1.2e3. Mantissas up to 2^53 with a small exponent are correctly
+     * rounded; longer ones (up to 18 digits) are within an ulp of Double.parseDouble and almost always equal.
+     */
+    public double getDouble(int field) {
+        int i = trimmedStart(field);
+        int end = trimmedEnd(field);
+        if (i >= end) {
+            throw new NumberFormatException("Empty numeric field");
+        }
+
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int droppedDigits = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (digits < 18) {
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (seenPoint) {
+                        fractionDigits++;
+                    }
+                } else if (!seenPoint) {
+                    // Integer digits beyond long precision still scale the value
+                    droppedDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (b == 'e' || b == 'E') {
+                break;
+            } else {
+                throw new NumberFormatException("Invalid character in numeric field");
+            }
+        }
+        if (!seenDigit) {
+            throw new NumberFormatException("No digits in numeric field");
+        }
+
+        int exponent = 0;
+        if (i < end) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            if (i >= end) {
+                throw new NumberFormatException("Missing exponent digits");
+            }
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    throw new NumberFormatException("Invalid exponent");
+                }
+                exponent = Math.min(exponent * 10 + (b - '0'), 1000);
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        int scale = exponent - fractionDigits + droppedDigits;
+        double value;
+        if (scale < -22 || scale > 22) {
+            value = mantissa * Math.pow(10, scale);
+        } else if (mantissa < (1L << 53)) {
+            // Both operands exact: one correctly rounded operation
+            value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        } else {
+            // Mantissa split into an exact high/low pair, the rounding error of the main operation recovered with fma
+            double high = (double) mantissa;
+            double low = (double) (mantissa - (long) high);
+            double power = POWERS_OF_TEN[Math.abs(scale)];
+            if (scale < 0) {
+                double quotient = high / power;
+                double remainder = Math.fma(-quotient, power, high);
+                value = quotient + (remainder + low) / power;
+            } else {
+                double product = high * power;
+                double error = Math.fma(high, power, -product);
+                value = product + (error + low * power);
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse an ISO-8601 local date-time field: yyyy-MM-dd[T| ]HH:mm[:ss[.fraction]]
+     */
+    public LocalDateTime getDateTime(int field) {
+        int i = trimmedStart(field);
+        int end = trimmedEnd(field);
+        if (end - i < 16 || buffer.get(i + 4) != '-' || buffer.get(i + 7) != '-'
+                || (buffer.get(i + 10) != 'T' && buffer.get(i + 10) != ' ') || buffer.get(i + 13) != ':') {
+            throw new NumberFormatException("Invalid date-time field");
+        }
+        int year = digits(i, 4);
+        int month = digits(i + 5, 2);
+        int day = digits(i + 8, 2);
+        int hour = digits(i + 11, 2);
+        int minute = digits(i + 14, 2);
+        int second = 0;
+        int nanos = 0;
+        int p = i + 16;
+        if (p < end) {
+            if (buffer.get(p) != ':' || p + 3 > end) {
+                throw new NumberFormatException("Invalid date-time field");
+            }
+            second = digits(p + 1, 2);
+            p += 3;
+            if (p < end) {
+                if (buffer.get(p) != '.') {
+                    throw new NumberFormatException("Invalid date-time field");
+                }
+                int scale = 100_000_000;
+                for (p++; p < end && scale > 0; p++, scale /= 10) {
+                    nanos += digit(p) * scale;
+                }
+            }
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (RuntimeException e) {
+            throw new NumberFormatException("Invalid date-time field");
+        }
+    }
+
+    /**
+     * True if the field is byte-for-byte equal to the given ASCII value
+     */
+    public boolean fieldEquals(int field, byte[] value) {
+        int start = trimmedStart(field);
+        int length = trimmedEnd(field) - start;
+        if (length != value.length) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (buffer.get(start + j) != value[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public byte[] getBytes(int field) {
+        int start = trimmedStart(field);
+        byte[] bytes = new byte[trimmedEnd(field) - start];
+        buffer.get(start, bytes);
+        return bytes;
+    }
+
+    private int digits(int offset, int count) {
+        int value = 0;
+        for (int j = 0; j < count; j++) {
+            value = value * 10 + digit(offset + j);
+        }
+        return value;
+    }
+
+    private int digit(int offset) {
+        byte b = buffer.get(offset);
+        if (b < '0' || b > '9') {
+            throw new NumberFormatException("Invalid digit");
+        }
+        return b - '0';
+    }
+
+    private int trimmedStart(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= Math.min(fieldCount, MAX_FIELDS)) {
+            throw new IndexOutOfBoundsException("Record has no field " + field);
+        }
+    }
+}
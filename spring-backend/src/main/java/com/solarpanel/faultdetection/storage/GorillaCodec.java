@@ -0,0 +1,290 @@
+package com.solarpanel.faultdetection.storage;
+
+import java.util.Arrays;
+
+/**
+ * Compressed encoding for a block of time series points, in the style of Facebook's Gorilla (VLDB 2015).
+ *
+ * Timestamps (epoch millis) are stored as delta-of-delta with variable-width buckets, so readings at a
+ * regular interval cost a single bit each. Each value column is XOR-compressed against the previous value,
+ * reusing the previous leading/trailing zero window when possible. When a precision is given, values are
+ * scaled to integers first (e.g. 2 decimals: 31.88 -> 3188.0); integer-valued doubles share their exponent
+ * and have long runs of trailing zeros, which is what makes the XOR step effective on sensor noise.
+ *
+ * Block layout: point count (32), column count (8), precision (8, 0xFF for lossless), timestamp stream,
+ * then each value column stream in order.
+ */
+public final class GorillaCodec {
+
+    public static final int LOSSLESS = -1;
+
+    private GorillaCodec() {
+    }
+
+    /**
+     * Encode one block. All columns must have the same length as the timestamp array, and
+     * timestamps must be in ascending order.
+     */
+    public static byte[] encode(long[] timestamps, double[][] columns, int precision) {
+        checkPrecision(precision);
+        int count = timestamps.length;
+        for (double[] column : columns) {
+            if (column.length != count) {
+                throw new IllegalArgumentException("All columns must have " + count + " values");
+            }
+        }
+
+        BitWriter out = new BitWriter(16 + count * (1 + columns.length * 4));
+        out.write(count, 32);
+        out.write(columns.length, 8);
+        out.write(precision == LOSSLESS ? 0xFF : precision, 8);
+        if (count == 0) {
+            return out.toByteArray();
+        }
+
+        encodeTimestamps(out, timestamps);
+        double scale = scale(precision);
+        for (double[] column : columns) {
+            encodeValues(out, column, scale);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Precision must fit the 8-bit header field, whose all-ones value marks lossless blocks
+     */
+    public static void checkPrecision(int precision) {
+        if (precision != LOSSLESS && (precision < 0 || precision >= 0xFF)) {
+            throw new IllegalArgumentException("Precision must be " + LOSSLESS + " (lossless) or in [0, 255), got "
+                + precision);
+        }
+    }
+
+    /**
+     * Decode a block produced by {@link #encode}
+     */
+    public static Block decode(byte[] data) {
+        BitReader in = new BitReader(data);
+        int count = (int) in.read(32);
+        int columnCount = (int) in.read(8);
+        int precisionBits = (int) in.read(8);
+        int precision = precisionBits == 0xFF ? LOSSLESS : precisionBits;
+
+        long[] timestamps = new long[count];
+        double[][] columns = new double[columnCount][count];
+        if (count > 0) {
+            decodeTimestamps(in, timestamps);
+            double scale = scale(precision);
+            for (double[] column : columns) {
+                decodeValues(in, column, scale);
+            }
+        }
+        return new Block(timestamps, columns);
+    }
+
+    private static void encodeTimestamps(BitWriter out, long[] timestamps) {
+        out.write(timestamps[0], 64);
+        long previous = timestamps[0];
+        long previousDelta = 0;
+
+        for (int i = 1; i < timestamps.length; i++) {
+            long delta = timestamps[i] - previous;
+            if (delta < 0) {
+                throw new IllegalArgumentException("Timestamps must be in ascending order");
+            }
+            long deltaOfDelta = delta - previousDelta;
+
+            if (deltaOfDelta == 0) {
+                out.write(0b0, 1);
+            } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                out.write(0b10, 2);
+                out.write(deltaOfDelta + 63, 7);
+            } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                out.write(0b110, 3);
+                out.write(deltaOfDelta + 255, 9);
+            } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                out.write(0b1110, 4);
+                out.write(deltaOfDelta + 2047, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(deltaOfDelta, 64);
+            }
+
+            previous = timestamps[i];
+            previousDelta = delta;
+        }
+    }
+
+    private static void decodeTimestamps(BitReader in, long[] timestamps) {
+        timestamps[0] = in.read(64);
+        long previousDelta = 0;
+
+        for (int i = 1; i < timestamps.length; i++) {
+            long deltaOfDelta;
+            if (in.read(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.read(7) - 63;
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.read(9) - 255;
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.read(12) - 2047;
+            } else {
+                deltaOfDelta = in.read(64);
+            }
+
+            long delta = previousDelta + deltaOfDelta;
+            timestamps[i] = timestamps[i - 1] + delta;
+            previousDelta = delta;
+        }
+    }
+
+    private static void encodeValues(BitWriter out, double[] values, double scale) {
+        long previous = Double.doubleToRawLongBits(toStored(values[0], scale));
+        out.write(previous, 64);
+        int previousLeading = Integer.MAX_VALUE;
+        int previousTrailing = 0;
+
+        for (int i = 1; i < values.length; i++) {
+            long current = Double.doubleToRawLongBits(toStored(values[i], scale));
+            long xor = current ^ previous;
+
+            if (xor == 0) {
+                out.write(0b0, 1);
+            } else {
+                // Leading zero count is stored in 5 bits
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+
+                if (previousLeading != Integer.MAX_VALUE && leading >= previousLeading && trailing >= previousTrailing) {
+                    // Meaningful bits fit in the previous window
+                    out.write(0b10, 2);
+                    int length = 64 - previousLeading - previousTrailing;
+                    out.write(xor >>> previousTrailing, length);
+                } else {
+                    out.write(0b11, 2);
+                    int length = 64 - leading - trailing;
+                    out.write(leading, 5);
+                    // A length of 64 does not fit in 6 bits and is stored as 0
+                    out.write(length == 64 ? 0 : length, 6);
+                    out.write(xor >>> trailing, length);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previous = current;
+        }
+    }
+
+    private static void decodeValues(BitReader in, double[] values, double scale) {
+        long previous = in.read(64);
+        values[0] = fromStored(Double.longBitsToDouble(previous), scale);
+        int previousLeading = 0;
+        int previousTrailing = 0;
+
+        for (int i = 1; i < values.length; i++) {
+            if (in.read(1) == 1) {
+                long xor;
+                if (in.read(1) == 0) {
+                    int length = 64 - previousLeading - previousTrailing;
+                    xor = in.read(length) << previousTrailing;
+                } else {
+                    int leading = (int) in.read(5);
+                    int length = (int) in.read(6);
+                    if (length == 0) {
+                        length = 64;
+                    }
+                    int trailing = 64 - leading - length;
+                    xor = in.read(length) << trailing;
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+                previous ^= xor;
+            }
+            values[i] = fromStored(Double.longBitsToDouble(previous), scale);
+        }
+    }
+
+    private static double scale(int precision) {
+        return precision == LOSSLESS ? 0 : Math.pow(10, precision);
+    }
+
+    private static double toStored(double value, double scale) {
+        return scale == 0 ? value : Math.rint(value * scale);
+    }
+
+    private static double fromStored(double stored, double scale) {
+        return scale == 0 ? stored : stored / scale;
+    }
+
+    /**
+     * Decoded block: timestamps plus one array per value column
+     */
+    public record Block(long[] timestamps, double[][] columns) {
+
+        public int size() {
+            return timestamps.length;
+        }
+    }
+
+    /**
+     * Append-only big-endian bit buffer
+     */
+    static final class BitWriter {
+        private byte[] bytes;
+        private long bitPosition;
+
+        BitWriter(int expectedBytes) {
+            bytes = new byte[Math.max(expectedBytes, 16)];
+        }
+
+        void write(long value, int bits) {
+            for (int remaining = bits; remaining > 0; ) {
+                int byteIndex = (int) (bitPosition >>> 3);
+                if (byteIndex >= bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int freeInByte = 8 - (int) (bitPosition & 7);
+                int chunk = Math.min(freeInByte, remaining);
+                int shift = remaining - chunk;
+                int chunkBits = (int) ((value >>> shift) & ((1L << chunk) - 1));
+                bytes[byteIndex] |= (byte) (chunkBits << (freeInByte - chunk));
+                bitPosition += chunk;
+                remaining -= chunk;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((bitPosition + 7) >>> 3));
+        }
+    }
+
+    /**
+     * Sequential reader over a {@link BitWriter} buffer
+     */
+    static final class BitReader {
+        private final byte[] bytes;
+        private long bitPosition;
+
+        BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            for (int remaining = bits; remaining > 0; ) {
+                int byteIndex = (int) (bitPosition >>> 3);
+                if (byteIndex >= bytes.length) {
+                    throw new IllegalStateException("Unexpected end of compressed block");
+                }
+                int availableInByte = 8 - (int) (bitPosition & 7);
+                int chunk = Math.min(availableInByte, remaining);
+                int chunkBits = ((bytes[byteIndex] & 0xFF) >>> (availableInByte - chunk)) & ((1 << chunk) - 1);
+                value = (value << chunk) | chunkBits;
+                bitPosition += chunk;
+                remaining -= chunk;
+            }
+            return value;
+        }
+    }
+}
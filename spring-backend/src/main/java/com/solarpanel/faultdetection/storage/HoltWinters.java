@@ -0,0 +1,225 @@
+package com.solarpanel.faultdetection.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Additive Holt-Winters (triple exponential smoothing) of an hourly series with daily seasonality.
+ *
+ * The first day of observations initializes the level and the 24 hour-of-day seasonal terms; every later
+ * hour updates level, trend and the seasonal term of its hour of day in O(1). Seasons are indexed by the
+ * observation's UTC hour of day, so a gap does not shift them; each missing hour advances the level by the
+ * trend, as if the forecast had been observed, and a gap longer than a week starts the model over. One-step
+ * errors are tracked as an exponentially weighted mean absolute error, and the last day of one-step forecasts
+ * and actuals is kept for forecast-vs-actual views. Hours at or before the last observed one are ignored.
+ *
+ * Not thread-safe. Serialized layout: observations, last hour (8 bytes each), level, trend, mean absolute
+ * error, then the seasonal terms, forecasts and actuals of each hour of day: 616 bytes.
+ */
+public final class HoltWinters {
+
+    public static final int SEASON = 24;
+    private static final int MAX_GAP = 7 * SEASON;
+    private static final double ERROR_SMOOTHING = 0.05;
+    private static final int SERIALIZED_SIZE = 40 + 3 * SEASON * 8;
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private long observations;
+    private long lastHour = Long.MIN_VALUE;
+    private double level;
+    private double trend;
+    private double meanAbsoluteError = Double.NaN;
+    private final double[] seasonal = new double[SEASON];
+    private final double[] forecasts = new double[SEASON];
+    private final double[] actuals = new double[SEASON];
+
+    public HoltWinters(double alpha, double beta, double gamma) {
+        if (!inUnitInterval(alpha) || !inUnitInterval(beta) || !inUnitInterval(gamma)) {
+            throw new IllegalArgumentException("Smoothing factors must be in [0, 1]");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        Arrays.fill(forecasts, Double.NaN);
+        Arrays.fill(actuals, Double.NaN);
+    }
+
+    private static boolean inUnitInterval(double value) {
+        return value >= 0 && value <= 1;
+    }
+
+    /**
+     * Add the value of one hour, given as hours since the epoch
+     */
+    public void observe(long hour, double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot observe NaN");
+        }
+        if (observations > 0 && hour <= lastHour) {
+            return;
+        }
+        if (observations > 0 && hour - lastHour > MAX_GAP) {
+            reset();
+        }
+        if (observations > 0) {
+            for (long missing = lastHour + 1; missing < hour; missing++) {
+                fill(missing);
+            }
+        }
+        int slot = slot(hour);
+        if (observations < SEASON) {
+            // Initialization: keep the raw values until a full day is in
+            seasonal[slot] = value;
+            forecasts[slot] = Double.NaN;
+        } else {
+            double season = seasonal[slot];
+            double forecast = level + trend + season;
+            double error = Math.abs(value - forecast);
+            meanAbsoluteError = Double.isNaN(meanAbsoluteError) ? error
+                : meanAbsoluteError + ERROR_SMOOTHING * (error - meanAbsoluteError);
+            forecasts[slot] = Math.max(forecast, 0);
+            double newLevel = alpha * (value - season) + (1 - alpha) * (level + trend);
+            trend = beta * (newLevel - level) + (1 - beta) * trend;
+            seasonal[slot] = gamma * (value - newLevel) + (1 - gamma) * season;
+            level = newLevel;
+        }
+        actuals[slot] = value;
+        observations++;
+        lastHour = hour;
+        if (observations == SEASON) {
+            initialize();
+        }
+    }
+
+    private void fill(long hour) {
+        int slot = slot(hour);
+        if (observations < SEASON) {
+            // Still initializing: hold the previous value
+            seasonal[slot] = seasonal[slot(hour - 1)];
+            forecasts[slot] = Double.NaN;
+        } else {
+            forecasts[slot] = Math.max(level + trend + seasonal[slot], 0);
+            level += trend;
+        }
+        actuals[slot] = Double.NaN;
+        observations++;
+        lastHour = hour;
+        if (observations == SEASON) {
+            initialize();
+        }
+    }
+
+    private void initialize() {
+        double sum = 0;
+        for (double value : seasonal) {
+            sum += value;
+        }
+        level = sum / SEASON;
+        trend = 0;
+        for (int i = 0; i < SEASON; i++) {
+            seasonal[i] -= level;
+        }
+    }
+
+    private void reset() {
+        observations = 0;
+        level = 0;
+        trend = 0;
+        meanAbsoluteError = Double.NaN;
+        Arrays.fill(seasonal, 0);
+        Arrays.fill(forecasts, Double.NaN);
+        Arrays.fill(actuals, Double.NaN);
+    }
+
+    /**
+     * Whether a full day has been observed, so forecasts are available
+     */
+    public boolean isReady() {
+        return observations >= SEASON;
+    }
+
+    /**
+     * Forecast of an hour: after the last observed hour the model's forecast (never negative), within the last
+     * day the one-step forecast made before it was observed; NaN otherwise
+     */
+    public double forecastAt(long hour) {
+        if (!isReady()) {
+            return Double.NaN;
+        }
+        if (hour > lastHour) {
+            return Math.max(level + (hour - lastHour) * trend + seasonal[slot(hour)], 0);
+        }
+        return hour > lastHour - SEASON ? forecasts[slot(hour)] : Double.NaN;
+    }
+
+    /**
+     * Observed value of an hour within the last day; NaN for hours that were missing or are out of range
+     */
+    public double actualAt(long hour) {
+        if (observations == 0 || hour > lastHour || hour <= lastHour - SEASON) {
+            return Double.NaN;
+        }
+        return actuals[slot(hour)];
+    }
+
+    /**
+     * Exponentially weighted mean absolute one-step error; NaN until the first forecast was checked
+     */
+    public double meanAbsoluteError() {
+        return meanAbsoluteError;
+    }
+
+    public long observations() {
+        return observations;
+    }
+
+    /**
+     * Last observed hour, in hours since the epoch
+     */
+    public long lastHour() {
+        return lastHour;
+    }
+
+    private static int slot(long hour) {
+        return Math.floorMod(hour, SEASON);
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_SIZE);
+        buffer.putLong(observations);
+        buffer.putLong(lastHour);
+        buffer.putDouble(level);
+        buffer.putDouble(trend);
+        buffer.putDouble(meanAbsoluteError);
+        for (double[] values : new double[][]{seasonal, forecasts, actuals}) {
+            for (double value : values) {
+                buffer.putDouble(value);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Restore a serialized model; smoothing factors are configuration and not part of the state
+     */
+    public static HoltWinters fromBytes(byte[] data, double alpha, double beta, double gamma) {
+        if (data.length != SERIALIZED_SIZE) {
+            throw new IllegalArgumentException("Expected " + SERIALIZED_SIZE + " bytes, got " + data.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        HoltWinters model = new HoltWinters(alpha, beta, gamma);
+        model.observations = buffer.getLong();
+        model.lastHour = buffer.getLong();
+        model.level = buffer.getDouble();
+        model.trend = buffer.getDouble();
+        model.meanAbsoluteError = buffer.getDouble();
+        for (double[] values : new double[][]{model.seasonal, model.forecasts, model.actuals}) {
+            for (int i = 0; i < SEASON; i++) {
+                values[i] = buffer.getDouble();
+            }
+        }
+        return model;
+    }
+}
@@ -0,0 +1,9 @@
+package com.solarpanel.faultdetection.storage;
+
+import com.solarpanel.faultdetection.entity.PredictionResult;
+
+/**
+ * Published by {@link WriteBehindWriter} once a prediction result is committed and has its id
+ */
+public record PredictionPersistedEvent(PredictionResult prediction) {
+}
@@ -0,0 +1,120 @@
+package com.solarpanel.faultdetection.storage;
+
+/**
+ * Ordinary least squares of y on x from running sums (n, sum x, sum y, sum x^2, sum xy, sum y^2).
+ *
+ * Each point is an O(1) update, and two accumulators over disjoint points add up to the accumulator over
+ * all of them, so sums can be persisted as deltas and merged across instances without keeping the points.
+ * Not thread-safe.
+ */
+public final class RunningRegression {
+
+    private long count;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+    private double sumYY;
+
+    public RunningRegression() {
+    }
+
+    public RunningRegression(long count, double sumX, double sumY, double sumXX, double sumXY, double sumYY) {
+        this.count = count;
+        this.sumX = sumX;
+        this.sumY = sumY;
+        this.sumXX = sumXX;
+        this.sumXY = sumXY;
+        this.sumYY = sumYY;
+    }
+
+    public void add(double x, double y) {
+        count++;
+        sumX += x;
+        sumY += y;
+        sumXX += x * x;
+        sumXY += x * y;
+        sumYY += y * y;
+    }
+
+    public void add(RunningRegression other) {
+        count += other.count;
+        sumX += other.sumX;
+        sumY += other.sumY;
+        sumXX += other.sumXX;
+        sumXY += other.sumXY;
+        sumYY += other.sumYY;
+    }
+
+    public RunningRegression copy() {
+        return new RunningRegression(count, sumX, sumY, sumXX, sumXY, sumYY);
+    }
+
+    /**
+     * Spread of x around its mean, n * variance; zero when all points share one x
+     */
+    private double sxx() {
+        return sumXX - sumX * sumX / count;
+    }
+
+    public double slope() {
+        if (count < 2 || sxx() <= 0) {
+            return Double.NaN;
+        }
+        return (sumXY - sumX * sumY / count) / sxx();
+    }
+
+    public double intercept() {
+        return (sumY - slope() * sumX) / count;
+    }
+
+    /**
+     * Fitted y at x
+     */
+    public double predict(double x) {
+        return intercept() + slope() * x;
+    }
+
+    /**
+     * Standard error of the slope; NaN with fewer than three points
+     */
+    public double slopeStandardError() {
+        if (count < 3 || sxx() <= 0) {
+            return Double.NaN;
+        }
+        double slope = slope();
+        double syy = sumYY - sumY * sumY / count;
+        double sxy = sumXY - sumX * sumY / count;
+        // Residual sum of squares, clamped against rounding below zero on perfectly linear data
+        double residual = Math.max(syy - slope * sxy, 0);
+        return Math.sqrt(residual / (count - 2) / sxx());
+    }
+
+    public double meanX() {
+        return count == 0 ? Double.NaN : sumX / count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSumX() {
+        return sumX;
+    }
+
+    public double getSumY() {
+        return sumY;
+    }
+
+    public double getSumXX() {
+        return sumXX;
+    }
+
+    public double getSumXY() {
+        return sumXY;
+    }
+
+    public double getSumYY() {
+        return sumYY;
+    }
+}
@@ -0,0 +1,377 @@
+package com.solarpanel.faultdetection.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped, column-oriented segment file holding the sensor readings of a single time window.
+ *
+ * Layout (little endian): a fixed 256 byte header followed by one fixed-width column per field -
+ * timestamp (long), panel ordinal (int) and the five measurements (double) - each sized to the
+ * segment capacity. Active segments are appended to in place; the row count in the header is written
+ * after the column values and acts as the commit marker. Sealing compacts the columns into a new file,
+ * stores the min/max index and a CRC, forces it to disk and atomically renames it into place.
+ */
+public class SensorSegment {
+
+    public static final String ACTIVE_SUFFIX = ".active";
+    public static final String SEALED_SUFFIX = ".seg";
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    public static final int METRIC_COUNT = 5;
+    public static final int VOLTAGE = 0;
+    public static final int CURRENT = 1;
+    public static final int TEMPERATURE = 2;
+    public static final int IRRADIANCE = 3;
+    public static final int POWER = 4;
+
+    static final int HEADER_SIZE = 256;
+    static final int ROW_SIZE = Long.BYTES + Integer.BYTES + METRIC_COUNT * Double.BYTES;
+
+    private static final int MAGIC = 0x53454731; // "SEG1"
+    private static final int VERSION = 1;
+    private static final int FLAG_SEALED = 1;
+
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_FLAGS = 8;
+    private static final int OFF_CAPACITY = 12;
+    private static final int OFF_ROW_COUNT = 16;
+    private static final int OFF_WINDOW_START = 24;
+    private static final int OFF_WINDOW_END = 32;
+    private static final int OFF_MIN_TS = 40;
+    private static final int OFF_MAX_TS = 48;
+    private static final int OFF_MIN_PANEL = 56;
+    private static final int OFF_MAX_PANEL = 60;
+    private static final int OFF_METRIC_MIN_MAX = 64;
+    private static final int OFF_CRC = OFF_METRIC_MIN_MAX + METRIC_COUNT * 2 * Double.BYTES;
+
+    private final Path path;
+    private final long windowStart;
+    private final long windowEnd;
+    private final int capacity;
+    private final boolean sealed;
+    private final MappedByteBuffer buffer;
+
+    // Row count published to readers; column writes happen-before the volatile store
+    private volatile int rowCount;
+
+    // Min/max index, maintained incrementally for active segments and read by query threads while appends
+    // continue; the pruning bounds are volatile, the metric bounds are guarded by metricMin
+    private volatile long minTimestamp = Long.MAX_VALUE;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+    private volatile int minPanel = Integer.MAX_VALUE;
+    private volatile int maxPanel = Integer.MIN_VALUE;
+    private final double[] metricMin = new double[METRIC_COUNT];
+    private final double[] metricMax = new double[METRIC_COUNT];
+
+    private SensorSegment(Path path, long windowStart, long windowEnd, int capacity, boolean sealed,
+                          MappedByteBuffer buffer) {
+        this.path = path;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.capacity = capacity;
+        this.sealed = sealed;
+        this.buffer = buffer;
+        Arrays.fill(metricMin, Double.POSITIVE_INFINITY);
+        Arrays.fill(metricMax, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Create a new, empty active segment file
+     */
+    public static SensorSegment create(Path path, long windowStart, long windowEnd, int capacity) throws IOException {
+        MappedByteBuffer buffer = map(path, fileSize(capacity), true);
+        buffer.putInt(OFF_MAGIC, MAGIC);
+        buffer.putInt(OFF_VERSION, VERSION);
+        buffer.putInt(OFF_FLAGS, 0);
+        buffer.putInt(OFF_CAPACITY, capacity);
+        buffer.putInt(OFF_ROW_COUNT, 0);
+        buffer.putLong(OFF_WINDOW_START, windowStart);
+        buffer.putLong(OFF_WINDOW_END, windowEnd);
+        return new SensorSegment(path, windowStart, windowEnd, capacity, false, buffer);
+    }
+
+    /**
+     * Open an existing segment file. Active segments are reopened for appending and their
+     * index is rebuilt from the committed rows; sealed segments are mapped read-only and verified.
+     */
+    public static SensorSegment open(Path path) throws IOException {
+        boolean sealed = path.getFileName().toString().endsWith(SEALED_SUFFIX);
+        MappedByteBuffer buffer = map(path, Files.size(path), !sealed);
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(OFF_MAGIC) != MAGIC) {
+            throw new IOException("Not a sensor segment file: " + path);
+        }
+        if (buffer.getInt(OFF_VERSION) != VERSION) {
+            throw new IOException("Unsupported segment version " + buffer.getInt(OFF_VERSION) + " in " + path);
+        }
+
+        int capacity = buffer.getInt(OFF_CAPACITY);
+        if ((long) HEADER_SIZE + (long) capacity * ROW_SIZE > buffer.capacity()) {
+            throw new IOException("Truncated segment file: " + path);
+        }
+
+        SensorSegment segment = new SensorSegment(path, buffer.getLong(OFF_WINDOW_START),
+                buffer.getLong(OFF_WINDOW_END), capacity, sealed, buffer);
+        int rows = Math.min(buffer.getInt(OFF_ROW_COUNT), capacity);
+
+        if (sealed) {
+            if ((buffer.getInt(OFF_FLAGS) & FLAG_SEALED) == 0 || buffer.getLong(OFF_CRC) != segment.checksum(rows)) {
+                throw new IOException("Corrupt sealed segment: " + path);
+            }
+            segment.readIndex();
+        } else {
+            for (int row = 0; row < rows; row++) {
+                segment.updateIndex(row);
+            }
+        }
+        segment.rowCount = rows;
+        return segment;
+    }
+
+    /**
+     * Append one reading. Callers must serialize appends to the same segment.
+     *
+     * @return false if the segment is full
+     */
+    public boolean append(long timestamp, int panel, double voltage, double current,
+                          double temperature, double irradiance, double power) {
+        if (sealed) {
+            throw new IllegalStateException("Cannot append to sealed segment " + path);
+        }
+        int row = rowCount;
+        if (row >= capacity) {
+            return false;
+        }
+
+        buffer.putLong(timestampOffset(row), timestamp);
+        buffer.putInt(panelOffset(row), panel);
+        buffer.putDouble(metricOffset(VOLTAGE, row), voltage);
+        buffer.putDouble(metricOffset(CURRENT, row), current);
+        buffer.putDouble(metricOffset(TEMPERATURE, row), temperature);
+        buffer.putDouble(metricOffset(IRRADIANCE, row), irradiance);
+        buffer.putDouble(metricOffset(POWER, row), power);
+        updateIndex(row);
+
+        // Commit marker: the row only becomes visible once the count is advanced
+        buffer.putInt(OFF_ROW_COUNT, row + 1);
+        rowCount = row + 1;
+        return true;
+    }
+
+    /**
+     * Write a compacted, sealed copy of this segment next to it and atomically move it into place.
+     * The active file is left for the caller to delete; recovery treats an active file that has a
+     * sealed twin as already sealed.
+     */
+    public SensorSegment seal(Path sealedPath) throws IOException {
+        int rows = rowCount;
+        Path tempPath = sealedPath.resolveSibling(sealedPath.getFileName() + TEMP_SUFFIX);
+        Files.deleteIfExists(tempPath);
+
+        MappedByteBuffer target = map(tempPath, fileSize(rows), true);
+        ByteBuffer source = view();
+        target.put(0, source, 0, HEADER_SIZE);
+        target.putInt(OFF_CAPACITY, rows);
+        target.putInt(OFF_ROW_COUNT, rows);
+
+        target.put(HEADER_SIZE, source, timestampOffset(0), rows * Long.BYTES);
+        target.put(HEADER_SIZE + rows * Long.BYTES, source, panelOffset(0), rows * Integer.BYTES);
+        int metricBase = HEADER_SIZE + rows * (Long.BYTES + Integer.BYTES);
+        for (int metric = 0; metric < METRIC_COUNT; metric++) {
+            target.put(metricBase + metric * rows * Double.BYTES, source, metricOffset(metric, 0), rows * Double.BYTES);
+        }
+
+        SensorSegment sealedSegment = new SensorSegment(tempPath, windowStart, windowEnd, rows, true, target);
+        sealedSegment.rowCount = rows;
+        sealedSegment.copyIndexFrom(this);
+        sealedSegment.writeIndex();
+        target.putLong(OFF_CRC, sealedSegment.checksum(rows));
+        target.putInt(OFF_FLAGS, FLAG_SEALED);
+        target.force();
+
+        Files.move(tempPath, sealedPath, StandardCopyOption.ATOMIC_MOVE);
+        return open(sealedPath);
+    }
+
+    /**
+     * Flush pending writes of an active segment to disk
+     */
+    public void force() {
+        if (!sealed) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Whether any committed row of this segment can fall in the given inclusive time range
+     */
+    public boolean overlaps(long fromTimestamp, long toTimestamp) {
+        return rowCount > 0 && minTimestamp <= toTimestamp && maxTimestamp >= fromTimestamp;
+    }
+
+    /**
+     * Whether the panel ordinal is within the indexed panel range of this segment
+     */
+    public boolean mayContainPanel(int panel) {
+        return rowCount > 0 && panel >= minPanel && panel <= maxPanel;
+    }
+
+    /**
+     * Independent read view over the mapped file, safe to use from any thread
+     */
+    public ByteBuffer view() {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int timestampOffset(int row) {
+        return HEADER_SIZE + row * Long.BYTES;
+    }
+
+    public int panelOffset(int row) {
+        return HEADER_SIZE + capacity * Long.BYTES + row * Integer.BYTES;
+    }
+
+    public int metricOffset(int metric, int row) {
+        return HEADER_SIZE + capacity * (Long.BYTES + Integer.BYTES) + (metric * capacity + row) * Double.BYTES;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public long getWindowEnd() {
+        return windowEnd;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    public boolean isFull() {
+        return rowCount >= capacity;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public double getMetricMin(int metric) {
+        synchronized (metricMin) {
+            return metricMin[metric];
+        }
+    }
+
+    public double getMetricMax(int metric) {
+        synchronized (metricMin) {
+            return metricMax[metric];
+        }
+    }
+
+    public long getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+    static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * ROW_SIZE;
+    }
+
+    private static MappedByteBuffer map(Path path, long size, boolean writable) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Segment too large to map: " + size + " bytes");
+        }
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private void updateIndex(int row) {
+        long timestamp = buffer.getLong(timestampOffset(row));
+        int panel = buffer.getInt(panelOffset(row));
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        minPanel = Math.min(minPanel, panel);
+        maxPanel = Math.max(maxPanel, panel);
+        synchronized (metricMin) {
+            for (int metric = 0; metric < METRIC_COUNT; metric++) {
+                double value = buffer.getDouble(metricOffset(metric, row));
+                metricMin[metric] = Math.min(metricMin[metric], value);
+                metricMax[metric] = Math.max(metricMax[metric], value);
+            }
+        }
+    }
+
+    private void copyIndexFrom(SensorSegment other) {
+        minTimestamp = other.minTimestamp;
+        maxTimestamp = other.maxTimestamp;
+        minPanel = other.minPanel;
+        maxPanel = other.maxPanel;
+        synchronized (other.metricMin) {
+            System.arraycopy(other.metricMin, 0, metricMin, 0, METRIC_COUNT);
+            System.arraycopy(other.metricMax, 0, metricMax, 0, METRIC_COUNT);
+        }
+    }
+
+    private void writeIndex() {
+        buffer.putLong(OFF_MIN_TS, minTimestamp);
+        buffer.putLong(OFF_MAX_TS, maxTimestamp);
+        buffer.putInt(OFF_MIN_PANEL, minPanel);
+        buffer.putInt(OFF_MAX_PANEL, maxPanel);
+        for (int metric = 0; metric < METRIC_COUNT; metric++) {
+            buffer.putDouble(OFF_METRIC_MIN_MAX + metric * 2 * Double.BYTES, metricMin[metric]);
+            buffer.putDouble(OFF_METRIC_MIN_MAX + metric * 2 * Double.BYTES + Double.BYTES, metricMax[metric]);
+        }
+    }
+
+    private void readIndex() {
+        minTimestamp = buffer.getLong(OFF_MIN_TS);
+        maxTimestamp = buffer.getLong(OFF_MAX_TS);
+        minPanel = buffer.getInt(OFF_MIN_PANEL);
+        maxPanel = buffer.getInt(OFF_MAX_PANEL);
+        for (int metric = 0; metric < METRIC_COUNT; metric++) {
+            metricMin[metric] = buffer.getDouble(OFF_METRIC_MIN_MAX + metric * 2 * Double.BYTES);
+            metricMax[metric] = buffer.getDouble(OFF_METRIC_MIN_MAX + metric * 2 * Double.BYTES + Double.BYTES);
+        }
+    }
+
+    private long checksum(int rows) {
+        CRC32 crc = new CRC32();
+        ByteBuffer data = view();
+        data.limit(HEADER_SIZE + rows * ROW_SIZE).position(HEADER_SIZE);
+        crc.update(data);
+        return crc.getValue();
+    }
+}
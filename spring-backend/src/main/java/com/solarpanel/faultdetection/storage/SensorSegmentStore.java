@@ -0,0 +1,433 @@
+package com.solarpanel.faultdetection.storage;
+
+import com.solarpanel.faultdetection.dto.TelemetryAggregateResponse;
+import com.solarpanel.faultdetection.entity.SensorData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Off-heap, append-only columnar store for sensor readings, kept next to the JPA repository as an
+ * analytical tier. Readings are bucketed into one segment file per time window; a window's segment is
+ * sealed once the window has closed (or the segment is full), after which it is immutable.
+ * Aggregation queries skip segments using their min/max index and scan the rest in parallel
+ * straight from the memory-mapped columns, so none of the data lives on the Java heap.
+ */
+@Component
+public class SensorSegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorSegmentStore.class);
+
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String DICTIONARY_FILE = "panels.dict";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long windowMillis;
+    private final int segmentCapacity;
+    private final long sealGraceMillis;
+
+    // Sealed segments are immutable; the list is only modified when a segment is sealed or loaded
+    private final List<SensorSegment> sealedSegments = new CopyOnWriteArrayList<>();
+    // Active segment per window start
+    private final Map<Long, SensorSegment> activeSegments = new ConcurrentHashMap<>();
+    // Number of parts already created per window, used to name the next segment of a full window
+    private final Map<Long, Integer> windowParts = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> panelOrdinals = new ConcurrentHashMap<>();
+    private final List<String> panelIds = new CopyOnWriteArrayList<>();
+
+    public SensorSegmentStore(@Value("${telemetry.store.enabled:false}") boolean enabled,
+                              @Value("${telemetry.store.directory:data/telemetry-segments}") String directory,
+                              @Value("${telemetry.store.window-hours:24}") long windowHours,
+                              @Value("${telemetry.store.segment-capacity:1048576}") int segmentCapacity,
+                              @Value("${telemetry.store.seal-grace-minutes:10}") long sealGraceMinutes) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.windowMillis = TimeUnit.HOURS.toMillis(windowHours);
+        this.segmentCapacity = segmentCapacity;
+        this.sealGraceMillis = TimeUnit.MINUTES.toMillis(sealGraceMinutes);
+    }
+
+    /**
+     * Recover the store from disk: discard half-written seals, drop active files that were already
+     * sealed, reopen the remaining active segments and load the panel dictionary
+     */
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            logger.info("Telemetry segment store is disabled");
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            loadDictionary();
+
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted()
+                        .toList();
+            }
+
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SensorSegment.TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SensorSegment.SEALED_SUFFIX)) {
+                    SensorSegment segment = SensorSegment.open(file);
+                    sealedSegments.add(segment);
+                    trackPart(name, segment.getWindowStart());
+                }
+            }
+
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(SensorSegment.ACTIVE_SUFFIX)) {
+                    continue;
+                }
+                if (Files.exists(sealedPathFor(file))) {
+                    // Crashed after sealing but before the active file was removed
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                SensorSegment segment = SensorSegment.open(file);
+                trackPart(name, segment.getWindowStart());
+                // Files are sorted by part, so only the newest part of a window stays active
+                SensorSegment previous = activeSegments.put(segment.getWindowStart(), segment);
+                if (previous != null) {
+                    sealSegment(previous);
+                }
+            }
+
+            logger.info("Telemetry segment store opened at {}: {} sealed and {} active segments, {} panels",
+                       directory.toAbsolutePath(), sealedSegments.size(), activeSegments.size(), panelIds.size());
+
+            sealExpiredSegments();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open telemetry segment store at " + directory, e);
+        }
+    }
+
+    /**
+     * Append a persisted sensor reading to the segment of its time window
+     */
+    public void append(SensorData sensorData) {
+        if (!enabled) {
+            return;
+        }
+
+        long timestamp = toEpochMillis(sensorData.getTimestamp());
+        int panel = panelOrdinal(sensorData.getPanelId());
+        long windowStart = Math.floorDiv(timestamp, windowMillis) * windowMillis;
+
+        synchronized (this) {
+            try {
+                SensorSegment segment = activeSegments.get(windowStart);
+                if (segment == null) {
+                    segment = createSegment(windowStart);
+                }
+                if (!segment.append(timestamp, panel, sensorData.getVoltage(), sensorData.getCurrent(),
+                        sensorData.getTemperature(), sensorData.getIrradiance(), sensorData.getPower())) {
+                    // Segment is full: seal it and continue in a new part of the same window
+                    sealSegment(segment);
+                    segment = createSegment(windowStart);
+                    segment.append(timestamp, panel, sensorData.getVoltage(), sensorData.getCurrent(),
+                            sensorData.getTemperature(), sensorData.getIrradiance(), sensorData.getPower());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append sensor reading to segment store", e);
+            }
+        }
+    }
+
+    /**
+     * Aggregate readings in the inclusive time range, optionally restricted to one panel.
+     * Segments are pruned by their min/max index and scanned in parallel.
+     */
+    public TelemetryAggregateResponse aggregate(String panelId, LocalDateTime start, LocalDateTime end) {
+        if (!enabled) {
+            throw new IllegalStateException("Telemetry segment store is disabled");
+        }
+
+        long from = toEpochMillis(start);
+        long to = toEpochMillis(end);
+        Integer panel = null;
+        if (panelId != null) {
+            panel = panelOrdinals.get(panelId);
+            if (panel == null) {
+                return MetricAccumulator.empty().toResponse(panelId, start, end, 0);
+            }
+        }
+        final Integer panelFilter = panel;
+
+        // Active segments first: one sealed meanwhile is then among the sealed ones and skipped as active,
+        // so a reading is never counted twice nor missed
+        List<SensorSegment> candidates = new ArrayList<>(activeSegments.values());
+        List<SensorSegment> sealed = List.copyOf(sealedSegments);
+        Set<Path> sealedPaths = new HashSet<>();
+        sealed.forEach(segment -> sealedPaths.add(segment.getPath()));
+        candidates.removeIf(segment -> sealedPaths.contains(sealedPathFor(segment.getPath())));
+        candidates.addAll(sealed);
+        candidates.removeIf(segment -> !segment.overlaps(from, to)
+                || (panelFilter != null && !segment.mayContainPanel(panelFilter)));
+
+        MetricAccumulator result = candidates.parallelStream()
+                .map(segment -> scan(segment, panelFilter, from, to))
+                .reduce(MetricAccumulator.empty(), MetricAccumulator::merge);
+
+        return result.toResponse(panelId, start, end, candidates.size());
+    }
+
+    /**
+     * Seal active segments whose window closed more than the grace period ago
+     */
+    @Scheduled(fixedDelayString = "${telemetry.store.seal-check-interval-ms:60000}")
+    public void sealExpiredSegments() {
+        if (!enabled) {
+            return;
+        }
+
+        long cutoff = System.currentTimeMillis() - sealGraceMillis;
+        synchronized (this) {
+            for (SensorSegment segment : new ArrayList<>(activeSegments.values())) {
+                if (segment.getWindowEnd() <= cutoff) {
+                    try {
+                        sealSegment(segment);
+                    } catch (IOException e) {
+                        logger.error("Failed to seal segment {}: {}", segment.getPath(), e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Flush active segments on shutdown; they are reopened and resumed on the next start
+     */
+    @PreDestroy
+    public void flush() {
+        activeSegments.values().forEach(SensorSegment::force);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSealedSegmentCount() {
+        return sealedSegments.size();
+    }
+
+    public int getActiveSegmentCount() {
+        return activeSegments.size();
+    }
+
+    public long getRowCount() {
+        return sealedSegments.stream().mapToLong(SensorSegment::getRowCount).sum()
+                + activeSegments.values().stream().mapToLong(SensorSegment::getRowCount).sum();
+    }
+
+    private MetricAccumulator scan(SensorSegment segment, Integer panel, long from, long to) {
+        MetricAccumulator accumulator = MetricAccumulator.empty();
+        ByteBuffer data = segment.view();
+        int rows = segment.getRowCount();
+
+        int[] metricBase = new int[SensorSegment.METRIC_COUNT];
+        for (int metric = 0; metric < SensorSegment.METRIC_COUNT; metric++) {
+            metricBase[metric] = segment.metricOffset(metric, 0);
+        }
+        int timestampBase = segment.timestampOffset(0);
+        int panelBase = segment.panelOffset(0);
+
+        for (int row = 0; row < rows; row++) {
+            long timestamp = data.getLong(timestampBase + row * Long.BYTES);
+            if (timestamp < from || timestamp > to) {
+                continue;
+            }
+            if (panel != null && data.getInt(panelBase + row * Integer.BYTES) != panel) {
+                continue;
+            }
+            accumulator.count++;
+            for (int metric = 0; metric < SensorSegment.METRIC_COUNT; metric++) {
+                accumulator.add(metric, data.getDouble(metricBase[metric] + row * Double.BYTES));
+            }
+        }
+        return accumulator;
+    }
+
+    private SensorSegment createSegment(long windowStart) throws IOException {
+        int part = windowParts.merge(windowStart, 1, Integer::sum) - 1;
+        Path path = directory.resolve(String.format("%s%d-%04d%s", SEGMENT_PREFIX, windowStart, part,
+                SensorSegment.ACTIVE_SUFFIX));
+        SensorSegment segment = SensorSegment.create(path, windowStart, windowStart + windowMillis, segmentCapacity);
+        activeSegments.put(windowStart, segment);
+        logger.debug("Created telemetry segment {}", path);
+        return segment;
+    }
+
+    private void sealSegment(SensorSegment segment) throws IOException {
+        // Publish the sealed copy before retiring the active segment, so readers always see one of them
+        if (segment.getRowCount() > 0) {
+            SensorSegment sealed = segment.seal(sealedPathFor(segment.getPath()));
+            sealedSegments.add(sealed);
+            sealedSegments.sort(Comparator.comparingLong(SensorSegment::getWindowStart));
+            logger.info("Sealed telemetry segment {} with {} rows", sealed.getPath().getFileName(), sealed.getRowCount());
+        }
+        activeSegments.remove(segment.getWindowStart(), segment);
+
+        try {
+            Files.deleteIfExists(segment.getPath());
+        } catch (IOException e) {
+            // Still mapped on some platforms; recovery removes it on the next start
+            logger.warn("Could not delete sealed active segment {}: {}", segment.getPath(), e.getMessage());
+        }
+    }
+
+    private Path sealedPathFor(Path activePath) {
+        String name = activePath.getFileName().toString();
+        return activePath.resolveSibling(name.substring(0, name.length() - SensorSegment.ACTIVE_SUFFIX.length())
+                + SensorSegment.SEALED_SUFFIX);
+    }
+
+    private void trackPart(String fileName, long windowStart) {
+        String base = fileName.substring(0, fileName.indexOf('.'));
+        int part = Integer.parseInt(base.substring(base.lastIndexOf('-') + 1));
+        windowParts.merge(windowStart, part + 1, Math::max);
+    }
+
+    private int panelOrdinal(String panelId) {
+        Integer ordinal = panelOrdinals.get(panelId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (panelIds) {
+            ordinal = panelOrdinals.get(panelId);
+            if (ordinal == null) {
+                ordinal = panelIds.size();
+                appendToDictionary(ordinal, panelId);
+                panelIds.add(panelId);
+                panelOrdinals.put(panelId, ordinal);
+            }
+            return ordinal;
+        }
+    }
+
+    private void loadDictionary() throws IOException {
+        Path file = directory.resolve(DICTIONARY_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(',');
+            if (separator <= 0) {
+                continue; // Torn trailing line from an interrupted write
+            }
+            int ordinal = Integer.parseInt(line.substring(0, separator));
+            if (ordinal != panelIds.size()) {
+                continue;
+            }
+            String panelId = line.substring(separator + 1);
+            panelIds.add(panelId);
+            panelOrdinals.put(panelId, ordinal);
+        }
+    }
+
+    private void appendToDictionary(int ordinal, String panelId) {
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(DICTIONARY_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC)) {
+            writer.write(ordinal + "," + panelId);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to update panel dictionary", e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Per-scan running count, sum, min and max of each measurement column
+     */
+    private static final class MetricAccumulator {
+        private long count;
+        private final double[] sum = new double[SensorSegment.METRIC_COUNT];
+        private final double[] min = new double[SensorSegment.METRIC_COUNT];
+        private final double[] max = new double[SensorSegment.METRIC_COUNT];
+
+        static MetricAccumulator empty() {
+            MetricAccumulator accumulator = new MetricAccumulator();
+            Arrays.fill(accumulator.min, Double.POSITIVE_INFINITY);
+            Arrays.fill(accumulator.max, Double.NEGATIVE_INFINITY);
+            return accumulator;
+        }
+
+        void add(int metric, double value) {
+            sum[metric] += value;
+            if (value < min[metric]) min[metric] = value;
+            if (value > max[metric]) max[metric] = value;
+        }
+
+        MetricAccumulator merge(MetricAccumulator other) {
+            MetricAccumulator merged = empty();
+            merged.count = count + other.count;
+            for (int metric = 0; metric < SensorSegment.METRIC_COUNT; metric++) {
+                merged.sum[metric] = sum[metric] + other.sum[metric];
+                merged.min[metric] = Math.min(min[metric], other.min[metric]);
+                merged.max[metric] = Math.max(max[metric], other.max[metric]);
+            }
+            return merged;
+        }
+
+        TelemetryAggregateResponse toResponse(String panelId, LocalDateTime start, LocalDateTime end, int segmentsScanned) {
+            TelemetryAggregateResponse response = new TelemetryAggregateResponse();
+            response.setPanelId(panelId);
+            response.setStart(start);
+            response.setEnd(end);
+            response.setCount(count);
+            response.setSegmentsScanned(segmentsScanned);
+            response.setVoltage(stats(SensorSegment.VOLTAGE));
+            response.setCurrent(stats(SensorSegment.CURRENT));
+            response.setTemperature(stats(SensorSegment.TEMPERATURE));
+            response.setIrradiance(stats(SensorSegment.IRRADIANCE));
+            response.setPower(stats(SensorSegment.POWER));
+            return response;
+        }
+
+        private TelemetryAggregateResponse.MetricStats stats(int metric) {
+            if (count == 0) {
+                return null;
+            }
+            return new TelemetryAggregateResponse.MetricStats(min[metric], max[metric], sum[metric] / count);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.solarpanel.faultdetection.storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Heavy hitters of a stream of keys in bounded memory, the Space-Saving algorithm (Metwally et al., ICDT 2005).
+ *
+ * At most capacity keys are tracked. A key that is not tracked while the summary is full takes over the
+ * slot of the smallest counter and inherits its count as an error bound, so every reported count
+ * overestimates the true one by at most its error, and any key occurring more than total / capacity times
+ * is guaranteed to be tracked. Summaries merge by offering each counter of one to the other, errors included.
+ *
+ * Not thread-safe.
+ */
+public final class SpaceSaving {
+
+    private static final Comparator<Counter> BY_COUNT = Comparator.comparingLong(Counter::count)
+        .thenComparing(Counter::key);
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * A tracked key with its (over-)estimated count; count - error is a lower bound of the true count
+     */
+    public record Counter(String key, long count, long error) {
+    }
+
+    public void offer(String key) {
+        offer(key, 1, 0);
+    }
+
+    private void offer(String key, long count, long error) {
+        total += count;
+        Counter current = counters.get(key);
+        if (current != null) {
+            replace(current, new Counter(key, current.count() + count, current.error() + error));
+        } else if (counters.size() < capacity) {
+            replace(null, new Counter(key, count, error));
+        } else {
+            Counter smallest = ordered.first();
+            counters.remove(smallest.key());
+            replace(smallest, new Counter(key, smallest.count() + count, smallest.count() + error));
+        }
+    }
+
+    private void replace(Counter old, Counter updated) {
+        if (old != null) {
+            ordered.remove(old);
+        }
+        ordered.add(updated);
+        counters.put(updated.key(), updated);
+    }
+
+    /**
+     * Add every counter of another summary to this one
+     */
+    public void merge(SpaceSaving other) {
+        for (Counter counter : other.counters.values()) {
+            offer(counter.key(), counter.count(), counter.error());
+        }
+        // Offers above counted only what the other summary still tracks
+        total += other.total - other.counters.values().stream().mapToLong(Counter::count).sum();
+    }
+
+    /**
+     * The n keys with the highest counts, highest first
+     */
+    public List<Counter> top(int n) {
+        List<Counter> top = new ArrayList<>(Math.min(n, ordered.size()));
+        for (Counter counter : ordered.descendingSet()) {
+            if (top.size() == n) {
+                break;
+            }
+            top.add(counter);
+        }
+        return top;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,284 @@
+package com.solarpanel.faultdetection.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch, the merging variant of Dunning's t-digest (arXiv:1902.04023).
+ *
+ * Values are buffered and periodically merged into a sorted list of centroids (mean, weight). Centroid size
+ * is bounded by the arcsine scale function k(q) = compression / 2pi * asin(2q - 1), which keeps centroids
+ * small near the tails, so p95/p99 stay accurate while the sketch holds at most about compression centroids.
+ * Two digests merge by re-compressing their centroids together, which is what lets per-panel hourly digests
+ * be combined into plant and fleet percentiles over any range of hours.
+ *
+ * Not thread-safe. Serialized layout: compression, count, min, max (8 bytes each), centroid count (4),
+ * then mean and weight of each centroid.
+ */
+public final class TDigest {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10");
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) * 2;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[capacity * 5];
+        this.bufferWeights = new double[capacity * 5];
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot add NaN");
+        }
+        add(value, 1);
+    }
+
+    /**
+     * Merge another digest into this one; the other digest is left unchanged apart from being compressed
+     */
+    public void add(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        // Centroid means lie inside [min, max], the extremes have to be carried over explicitly
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private void add(double mean, double weight) {
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        count += (long) weight;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Mean of all added values, exact up to rounding since centroids keep their weighted means; NaN when empty
+     */
+    public double mean() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        compress();
+        double sum = 0;
+        for (int i = 0; i < centroids; i++) {
+            sum += means[i] * weights[i];
+        }
+        return sum / count;
+    }
+
+    int centroidCount() {
+        compress();
+        return centroids;
+    }
+
+    /**
+     * Estimated value at quantile q (0..1), interpolating between centroid means; NaN when empty
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        compress();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double index = q * count;
+        if (index < 1) {
+            return min;
+        }
+        if (index > count - 1) {
+            return max;
+        }
+
+        int last = centroids - 1;
+        // Between the minimum and the centre of the first centroid
+        if (weights[0] > 2 && index < weights[0] / 2) {
+            return min + (index - 1) / (weights[0] / 2 - 1) * (means[0] - min);
+        }
+        // Between the centre of the last centroid and the maximum
+        if (weights[last] > 2 && count - index <= weights[last] / 2) {
+            return max - (count - index - 1) / (weights[last] / 2 - 1) * (max - means[last]);
+        }
+
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < last; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + gap > index) {
+                // A single-sample centroid is an exact value, do not smear it over its neighbours
+                double leftUnit = 0;
+                if (weights[i] == 1) {
+                    if (index - weightSoFar < 0.5) {
+                        return means[i];
+                    }
+                    leftUnit = 0.5;
+                }
+                double rightUnit = 0;
+                if (weights[i + 1] == 1) {
+                    if (weightSoFar + gap - index <= 0.5) {
+                        return means[i + 1];
+                    }
+                    rightUnit = 0.5;
+                }
+                double toLeft = index - weightSoFar - leftUnit;
+                double toRight = weightSoFar + gap - index - rightUnit;
+                return (means[i] * toRight + means[i + 1] * toLeft) / (toLeft + toRight);
+            }
+            weightSoFar += gap;
+        }
+        return means[last];
+    }
+
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        sortBuffer();
+
+        // Merge the sorted buffer with the (already sorted) centroids
+        int total = centroids + buffered;
+        double[] mergedMeans = new double[total];
+        double[] mergedWeights = new double[total];
+        int c = 0;
+        int b = 0;
+        for (int i = 0; i < total; i++) {
+            if (b == buffered || (c < centroids && means[c] <= bufferMeans[b])) {
+                mergedMeans[i] = means[c];
+                mergedWeights[i] = weights[c++];
+            } else {
+                mergedMeans[i] = bufferMeans[b];
+                mergedWeights[i] = bufferWeights[b++];
+            }
+        }
+        buffered = 0;
+
+        double[] newMeans = new double[Math.max(means.length, 16)];
+        double[] newWeights = new double[newMeans.length];
+        int size = 0;
+        double currentMean = mergedMeans[0];
+        double currentWeight = mergedWeights[0];
+        double weightBefore = 0;
+        double kLeft = k(0);
+        for (int i = 1; i < total; i++) {
+            double proposed = currentWeight + mergedWeights[i];
+            if (k((weightBefore + proposed) / count) - kLeft <= 1) {
+                currentMean += (mergedMeans[i] - currentMean) * mergedWeights[i] / proposed;
+                currentWeight = proposed;
+            } else {
+                if (size == newMeans.length) {
+                    newMeans = Arrays.copyOf(newMeans, size * 2);
+                    newWeights = Arrays.copyOf(newWeights, size * 2);
+                }
+                newMeans[size] = currentMean;
+                newWeights[size++] = currentWeight;
+                weightBefore += currentWeight;
+                kLeft = k(weightBefore / count);
+                currentMean = mergedMeans[i];
+                currentWeight = mergedWeights[i];
+            }
+        }
+        if (size == newMeans.length) {
+            newMeans = Arrays.copyOf(newMeans, size + 1);
+            newWeights = Arrays.copyOf(newWeights, size + 1);
+        }
+        newMeans[size] = currentMean;
+        newWeights[size++] = currentWeight;
+
+        means = newMeans;
+        weights = newWeights;
+        centroids = size;
+    }
+
+    private double k(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(q, 1) - 1);
+    }
+
+    private void sortBuffer() {
+        double[] keys = Arrays.copyOf(bufferMeans, buffered);
+        double[] values = Arrays.copyOf(bufferWeights, buffered);
+        Integer[] indexes = new Integer[buffered];
+        for (int i = 0; i < buffered; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, (x, y) -> Double.compare(keys[x], keys[y]));
+        for (int i = 0; i < buffered; i++) {
+            bufferMeans[i] = keys[indexes[i]];
+            bufferWeights[i] = values[indexes[i]];
+        }
+    }
+
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(36 + centroids * 16);
+        buffer.putDouble(compression);
+        buffer.putLong(count);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            buffer.putDouble(means[i]);
+            buffer.putDouble(weights[i]);
+        }
+        return buffer.array();
+    }
+
+    public static TDigest fromBytes(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        TDigest digest = new TDigest(buffer.getDouble());
+        digest.count = buffer.getLong();
+        digest.min = buffer.getDouble();
+        digest.max = buffer.getDouble();
+        int size = buffer.getInt();
+        if (size > digest.means.length) {
+            digest.means = new double[size];
+            digest.weights = new double[size];
+        }
+        for (int i = 0; i < size; i++) {
+            digest.means[i] = buffer.getDouble();
+            digest.weights[i] = buffer.getDouble();
+        }
+        digest.centroids = size;
+        return digest;
+    }
+}
@@ -0,0 +1,357 @@
+package com.solarpanel.faultdetection.storage;
+
+import com.solarpanel.faultdetection.entity.Alert;
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.repository.AlertRepository;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for alerts, and the single entry point for storing prediction results.
+ *
+ * Submitted alerts are buffered in a bounded queue and inserted by a single flusher thread as JDBC
+ * batches, once the batch size is reached or the oldest entry has waited max-delay-ms. The queue blocks
+ * producers when full, so a slow database applies backpressure instead of growing the heap. Every submit
+ * returns a future that completes with the alert once its id is assigned. The flusher commits on its own
+ * connection, so alerts raised inside a transaction are queued only once it commits
+ * ({@link #submitAfterCommit}). The queue is drained on shutdown.
+ *
+ * Prediction results are saved synchronously in the caller's transaction ({@link #save}): the prediction
+ * response carries the id, and a reading that rolls back must take its prediction with it, which the
+ * flusher's separate commit cannot offer. A {@link PredictionPersistedEvent} is published for every
+ * committed prediction.
+ *
+ * Alerts are inserted with plain JDBC because IDENTITY ids disable Hibernate's insert batching.
+ */
+@Component
+public class WriteBehindWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindWriter.class);
+
+    private static final String INSERT_ALERT = "INSERT INTO alerts (panel_id, fault_type, severity, message, confidence, "
+        + "confidence_score, status, created_at, acknowledged, assigned_technician_id, prediction_id) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final PredictionResultRepository predictionRepository;
+    private final AlertRepository alertRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxDelayMs;
+    private final BlockingQueue<Pending> queue;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindWriter(PredictionResultRepository predictionRepository,
+                             AlertRepository alertRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher,
+                             MeterRegistry meterRegistry,
+                             @Value("${persistence.write-behind.enabled:true}") boolean enabled,
+                             @Value("${persistence.write-behind.batch-size:200}") int batchSize,
+                             @Value("${persistence.write-behind.max-delay-ms:50}") long maxDelayMs,
+                             @Value("${persistence.write-behind.queue-capacity:10000}") int queueCapacity) {
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Write-behind batch size and queue capacity must be positive");
+        }
+        this.predictionRepository = predictionRepository;
+        this.alertRepository = alertRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayMs = maxDelayMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.flushTimer = Timer.builder("writebehind.flush.latency")
+            .description("Time to insert and commit one write-behind batch")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("writebehind.batch.size")
+            .description("Alerts per write-behind batch")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("writebehind.failed")
+            .description("Alerts that could not be persisted")
+            .register(meterRegistry);
+        Gauge.builder("writebehind.backlog", queue, BlockingQueue::size)
+            .description("Alerts waiting to be flushed")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("Write-behind persistence disabled, alerts are saved synchronously");
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "write-behind-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Write-behind persistence started - batch size: {}, max delay: {} ms", batchSize, maxDelayMs);
+    }
+
+    /**
+     * Insert a prediction result now, joining the caller's transaction; announced once that commits
+     */
+    public PredictionResult save(PredictionResult prediction) {
+        if (prediction.getCreatedAt() == null) {
+            prediction.setCreatedAt(LocalDateTime.now());
+        }
+        PredictionResult saved = predictionRepository.save(prediction);
+        afterCommit(() -> publishPersisted(saved));
+        return saved;
+    }
+
+    /**
+     * Queue an alert for insertion
+     */
+    public CompletableFuture<Alert> submit(Alert alert) {
+        if (alert.getCreatedAt() == null) {
+            alert.setCreatedAt(LocalDateTime.now());
+        }
+        if (!running) {
+            return CompletableFuture.completedFuture(alertRepository.save(alert));
+        }
+        return enqueue(new Pending(alert));
+    }
+
+    /**
+     * Queue an alert once the caller's transaction commits, so a rolled-back transaction raises none;
+     * queued immediately outside a transaction
+     */
+    public void submitAfterCommit(Alert alert) {
+        if (alert.getCreatedAt() == null) {
+            alert.setCreatedAt(LocalDateTime.now());
+        }
+        afterCommit(() -> submit(alert)
+            .thenAccept(saved -> logger.debug("Alert created with ID: {}", saved.getId())));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Stop accepting work and flush everything still queued
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything enqueued while the flusher was exiting
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        logger.info("Write-behind persistence stopped");
+    }
+
+    public int getBacklog() {
+        return queue.size();
+    }
+
+    private CompletableFuture<Alert> enqueue(Pending pending) {
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while queueing alert for persistence");
+        }
+        return pending.future;
+    }
+
+    private void runFlusher() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(maxDelayMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Collect more until the batch is full or the first entry has waited long enough
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Shutdown: fall through, flush what we have and drain the rest
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        batchSizeSummary.record(batch.size());
+        Timer.Sample sample = Timer.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(batch));
+            batch.forEach(Pending::complete);
+        } catch (RuntimeException e) {
+            logger.warn("Write-behind batch of {} failed, retrying alerts one by one: {}", batch.size(), e.getMessage());
+            flushIndividually(batch);
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    private void flushIndividually(List<Pending> pendings) {
+        for (Pending pending : pendings) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(pending)));
+                pending.complete();
+            } catch (RuntimeException e) {
+                logger.error("Failed to persist alert: {}", e.getMessage());
+                failedCounter.increment();
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void publishPersisted(PredictionResult prediction) {
+        try {
+            eventPublisher.publishEvent(new PredictionPersistedEvent(prediction));
+        } catch (RuntimeException e) {
+            // A failing listener must not fail the request; the row is already committed
+            logger.warn("Prediction persisted listener failed: {}", e.getMessage());
+        }
+    }
+
+    private void insertBatch(List<Pending> pendings) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ALERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Pending pending : pendings) {
+                    bindAlert(statement, pending.alert);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                assignGeneratedIds(statement, pendings);
+            }
+            return null;
+        });
+    }
+
+    private static void bindAlert(PreparedStatement statement, Alert alert) throws SQLException {
+        statement.setString(1, alert.getPanelId());
+        statement.setString(2, alert.getFaultType());
+        statement.setString(3, alert.getSeverity());
+        statement.setString(4, alert.getMessage());
+        statement.setString(5, alert.getConfidence());
+        setNullableDouble(statement, 6, alert.getConfidenceScore());
+        statement.setString(7, (alert.getStatus() != null ? alert.getStatus() : Alert.AlertStatus.OPEN).name());
+        statement.setTimestamp(8, Timestamp.valueOf(alert.getCreatedAt()));
+        statement.setBoolean(9, Boolean.TRUE.equals(alert.getAcknowledged()));
+        setNullableLong(statement, 10, alert.getAssignedTechnicianId());
+        setNullableLong(statement, 11, alert.getPrediction() != null ? alert.getPrediction().getId() : null);
+    }
+
+    private static void setNullableDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.DOUBLE);
+        } else {
+            statement.setDouble(index, value);
+        }
+    }
+
+    private static void setNullableLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    private static void assignGeneratedIds(PreparedStatement statement, List<Pending> pendings) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (Pending pending : pendings) {
+                if (!keys.next()) {
+                    throw new SQLException("Driver returned fewer generated keys than inserted rows");
+                }
+                pending.alert.setId(keys.getLong(1));
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final Alert alert;
+        private final CompletableFuture<Alert> future = new CompletableFuture<>();
+
+        Pending(Alert alert) {
+            this.alert = alert;
+        }
+
+        void complete() {
+            future.complete(alert);
+        }
+    }
+}
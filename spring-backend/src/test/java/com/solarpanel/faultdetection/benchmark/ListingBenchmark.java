@@ -0,0 +1,189 @@
+package com.solarpanel.faultdetection.benchmark;
+
+import com.solarpanel.faultdetection.dto.AlertResponse;
+import com.solarpanel.faultdetection.dto.PredictionResponse;
+import com.solarpanel.faultdetection.entity.Alert;
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.repository.AlertRepository;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Times the alert and prediction history listings over 100k rows each, through the endpoints (projection
+ * queries plus JSON) and, for comparison, the previous approach of hydrating managed entities and copying
+ * them field by field. Not part of the regular build; run with: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:listing-benchmark;DB_CLOSE_DELAY=-1",
+    "logging.level.com.solarpanel=WARN"
+})
+public class ListingBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+    private static final String LONG_TEXT = "Inspect the panel surface and wiring, compare string currents against "
+        + "neighbouring panels and schedule cleaning if soiling is visible. ".repeat(6);
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MockMvc mockMvc;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM alerts", Long.class);
+        if (existing == null || existing < ROWS) {
+            seed();
+        }
+    }
+
+    @Test
+    void benchmarkListings() throws Exception {
+        List<String> report = new ArrayList<>();
+
+        report.add(time("GET /alerts (latest 50)", () -> perform("/alerts")));
+        report.add(time("GET /alerts/unacknowledged (" + ROWS + " rows)", () -> perform("/alerts/unacknowledged")));
+        report.add(time("  query, unacknowledged alerts: entities", () -> inReadOnly(() ->
+            entityManager.createQuery("SELECT a FROM Alert a WHERE a.acknowledged = false", Alert.class)
+                .getResultList().forEach(ListingBenchmark::copyAlert))));
+        report.add(time("  query, unacknowledged alerts: projection", () -> inReadOnly(() ->
+            alertRepository.findResponsesByAcknowledged(false))));
+
+        report.add(time("GET /solar-panel/history?page=100&size=500", () ->
+            perform("/solar-panel/history?page=100&size=500")));
+        report.add(time("GET /solar-panel/history?size=500 (keyset)", () ->
+            perform("/solar-panel/history?size=500")));
+        report.add(time("  query, history page 100: entities", () -> inReadOnly(() ->
+            entityManager.createQuery("SELECT p FROM PredictionResult p ORDER BY p.createdAt DESC, p.id DESC",
+                    PredictionResult.class)
+                .setFirstResult(100 * 500).setMaxResults(500)
+                .getResultList().forEach(ListingBenchmark::copyPrediction))));
+        report.add(time("  query, history page 100: projection", () -> inReadOnly(() ->
+            entityManager.createQuery(PredictionResultRepository.SELECT_SUMMARY
+                    + "ORDER BY p.createdAt DESC, p.id DESC", PredictionResponse.class)
+                .setFirstResult(100 * 500).setMaxResults(500)
+                .getResultList())));
+        report.add(time("  query, all " + ROWS + " predictions: entities", () -> inReadOnly(() ->
+            entityManager.createQuery("SELECT p FROM PredictionResult p", PredictionResult.class)
+                .getResultList().forEach(ListingBenchmark::copyPrediction))));
+        report.add(time("  query, all " + ROWS + " predictions: projection", () -> inReadOnly(() ->
+            entityManager.createQuery(PredictionResultRepository.SELECT_SUMMARY, PredictionResponse.class)
+                .getResultList())));
+
+        System.out.println("\nListing benchmark, " + ROWS + " rows per table, median of " + ITERATIONS + " runs");
+        report.forEach(System.out::println);
+    }
+
+    private void inReadOnly(Runnable work) {
+        readOnly.executeWithoutResult(status -> work.run());
+    }
+
+    private void perform(String uri) throws Exception {
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+    }
+
+    private static String time(String name, Task task) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return String.format("%-52s %9.2f ms (min %.2f)", name, samples[ITERATIONS / 2] / 1e6, samples[0] / 1e6);
+    }
+
+    private void seed() {
+        LocalDateTime base = LocalDateTime.now().minusDays(30);
+        List<Object[]> predictions = new ArrayList<>();
+        List<Object[]> alerts = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Timestamp createdAt = Timestamp.valueOf(base.plusSeconds(i * 20L));
+            String panelId = String.format("P%03d", i % 200 + 1);
+            predictions.add(new Object[] {30.0, 8.0, 25.0, 800.0, 240.0, i % 4 == 0 ? "PARTIAL_SHADING" : "NORMAL",
+                "High", 0.9, i % 4 == 0 ? "MEDIUM" : "None", LONG_TEXT, LONG_TEXT, createdAt, panelId});
+            alerts.add(new Object[] {panelId, "PARTIAL_SHADING", "MEDIUM", "Partial shading detected on " + panelId,
+                "High", 0.9, "OPEN", createdAt, false});
+            if (predictions.size() == 5000) {
+                flush(predictions, alerts);
+            }
+        }
+        flush(predictions, alerts);
+    }
+
+    private void flush(List<Object[]> predictions, List<Object[]> alerts) {
+        jdbcTemplate.batchUpdate("INSERT INTO prediction_results (voltage, current, temperature, irradiance, power, "
+            + "predicted_fault, confidence, confidence_score, severity, maintenance_recommendation, description, "
+            + "created_at, panel_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", predictions);
+        jdbcTemplate.batchUpdate("INSERT INTO alerts (panel_id, fault_type, severity, message, confidence, "
+            + "confidence_score, status, created_at, acknowledged) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", alerts);
+        predictions.clear();
+        alerts.clear();
+    }
+
+    // Field-by-field copies as the services did before the listing projections
+
+    private static AlertResponse copyAlert(Alert alert) {
+        return new AlertResponse(alert.getId(), alert.getPanelId(), alert.getFaultType(), alert.getSeverity(),
+            alert.getMessage(), alert.getConfidence(), alert.getConfidenceScore(), alert.getStatus().name(),
+            alert.getCreatedAt(), alert.getResolvedAt(), alert.getAcknowledged(), alert.getAcknowledgedAt(),
+            alert.getAcknowledgedBy(), alert.getAssignedTechnicianId(), alert.getTechnicianNotes());
+    }
+
+    private static PredictionResponse copyPrediction(PredictionResult result) {
+        PredictionResponse response = new PredictionResponse(result.getId(), result.getPanelId(),
+            result.getPredictedFault(), result.getConfidence(), result.getConfidenceScore(), result.getSeverity(),
+            result.getCreatedAt());
+        response.setDescription(result.getDescription());
+        response.setMaintenanceRecommendation(result.getMaintenanceRecommendation());
+        return response;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+}
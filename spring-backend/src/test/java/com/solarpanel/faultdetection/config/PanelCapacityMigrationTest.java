@@ -0,0 +1,78 @@
+package com.solarpanel.faultdetection.config;
+
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import com.solarpanel.faultdetection.service.PanelRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(PanelRegistry.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PanelCapacityMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PanelRegistry panelRegistry;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    @AfterEach
+    void cleanUp() {
+        panelRepository.deleteAllInBatch();
+        plantRepository.deleteAll();
+        panelRegistry.reload();
+    }
+
+    @Test
+    void testConvertsWattsOnceAndReloadsRegistry() {
+        SolarPlant plant = new SolarPlant();
+        plant.setName("Capacity Plant");
+        plant.setLocation("Site W");
+        plant.setCapacityKW(10.0);
+        plant = plantRepository.save(plant);
+        savePanel(plant, "WATTS-1", 350.0);
+        savePanel(plant, "KW-1", 0.4);
+        panelRegistry.reload();
+
+        PanelCapacityMigration migration = new PanelCapacityMigration(jdbcTemplate, entityManagerFactory, panelRegistry);
+
+        assertEquals(1, migration.migrate());
+        assertEquals(0.35, panelRegistry.find("WATTS-1").orElseThrow().capacity(), 1e-9);
+        assertEquals(0.4, panelRegistry.find("KW-1").orElseThrow().capacity(), 1e-9);
+        assertEquals(0, migration.migrate());
+    }
+
+    private void savePanel(SolarPlant plant, String panelId, double capacity) {
+        SolarPanel panel = new SolarPanel();
+        panel.setPanelId(panelId);
+        panel.setPlant(plant);
+        panel.setInstallationDate(LocalDate.of(2020, 1, 1));
+        panel.setCapacity(capacity);
+        panelRepository.save(panel);
+    }
+}
@@ -0,0 +1,178 @@
+package com.solarpanel.faultdetection.config;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two independent in-memory H2 databases stand in for the primary and the replica; replication is
+ * simulated by copying the heartbeat row by hand.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor lagMonitor;
+    private DataSource routing;
+    private JdbcTemplate routed;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = database("primary");
+        DataSource replicaDataSource = database("replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+
+        lagMonitor = new ReplicaLagMonitor(primaryDataSource, replicaDataSource, 5000);
+        routing = new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, lagMonitor));
+        routed = new JdbcTemplate(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseCaughtUpReplica() {
+        lagMonitor.checkLag();
+        replicate(0);
+        lagMonitor.checkLag();
+
+        assertTrue(lagMonitor.isReplicaAvailable());
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+        assertEquals("primary", readWrite.execute(status -> whoAmI()));
+        // No transaction at all is treated as a write
+        assertEquals("primary", whoAmI());
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        lagMonitor.checkLag();
+        replicate(60_000);
+        lagMonitor.checkLag();
+
+        assertFalse(lagMonitor.isReplicaAvailable());
+        assertTrue(lagMonitor.getLagMs() >= 60_000);
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void testReplicaWithoutHeartbeatIsNotUsed() {
+        lagMonitor.checkLag();
+
+        assertFalse(lagMonitor.isReplicaAvailable());
+        assertEquals(-1, lagMonitor.getLagMs());
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void testRepositoryCrudMethodsOutsideATransactionUseTheReplica() {
+        lagMonitor.checkLag();
+        replicate(0);
+        lagMonitor.checkLag();
+
+        try (AnnotationConfigApplicationContext context = jpaContext()) {
+            NodeRepository nodes = context.getBean(NodeRepository.class);
+            TransactionTemplate jpaReadWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            // Inherited CRUD methods open a read-only transaction of their own
+            assertEquals("replica", nodes.findAll().get(0).name);
+            // Declared queries do not, and a read-write transaction keeps the CRUD methods on the primary
+            assertEquals("primary", nodes.names().get(0));
+            assertEquals("primary", jpaReadWrite.execute(status -> nodes.findAll().get(0).name));
+        }
+    }
+
+    private AnnotationConfigApplicationContext jpaContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> routing);
+        context.register(JpaConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    @Entity(name = "Node")
+    @Table(name = "node")
+    static class Node {
+        @Id
+        String name;
+    }
+
+    interface NodeRepository extends JpaRepository<Node, String> {
+        @Query("SELECT n.name FROM Node n")
+        List<String> names();
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(considerNestedRepositories = true, basePackageClasses = ReplicaRoutingDataSourceTest.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = NodeRepository.class))
+    static class JpaConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setManagedTypes(PersistenceManagedTypes.of(Node.class.getName()));
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+
+    private String whoAmI() {
+        return routed.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private void replicate(long delayMs) {
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+        replica.execute("CREATE TABLE IF NOT EXISTS replication_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        replica.update("DELETE FROM replication_heartbeat");
+        replica.update("INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, ?)", beat - delayMs);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
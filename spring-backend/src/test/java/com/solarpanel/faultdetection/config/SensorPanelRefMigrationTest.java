@@ -0,0 +1,123 @@
+package com.solarpanel.faultdetection.config;
+
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SensorDataRepository;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recreates the legacy NOT NULL panel_id column on the test schema and backfills it in small batches
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SensorPanelRefMigrationTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2023, 3, 1, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SensorDataRepository sensorDataRepository;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    private Long panelRef;
+
+    @BeforeEach
+    void setUp() {
+        SolarPlant plant = new SolarPlant();
+        plant.setName("Migration Plant");
+        plant.setLocation("Site M");
+        plant.setCapacityKW(10.0);
+        plant = plantRepository.save(plant);
+        SolarPanel panel = new SolarPanel();
+        panel.setPanelId("LEGACY-1");
+        panel.setPlant(plant);
+        panel.setInstallationDate(LocalDate.of(2020, 1, 1));
+        panel.setCapacity(0.4);
+        panelRef = panelRepository.save(panel).getId();
+
+        jdbcTemplate.execute("ALTER TABLE sensor_data ADD COLUMN panel_id VARCHAR(255) NOT NULL");
+        for (int i = 0; i < 7; i++) {
+            jdbcTemplate.update("INSERT INTO sensor_data (panel_id, voltage, current, temperature, irradiance, power, "
+                + "timestamp) VALUES (?, 30.0, 8.0, 25.0, 800.0, 240.0, ?)", i < 5 ? "LEGACY-1" : "GONE-1", BASE.plusHours(i));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        sensorDataRepository.deleteAllInBatch();
+        jdbcTemplate.execute("ALTER TABLE sensor_data DROP COLUMN panel_id");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + SensorPanelRefMigration.STATE_TABLE);
+        panelRepository.deleteAllInBatch();
+        plantRepository.deleteAll();
+    }
+
+    @Test
+    void testBackfillsPanelRefAndRelaxesLegacyColumn() {
+        SensorPanelRefMigration migration = new SensorPanelRefMigration(jdbcTemplate, 2);
+
+        assertEquals(2, migration.migrate());
+
+        assertEquals(5, sensorDataRepository.findByPanelRefAndTimestampBetween(panelRef, BASE, BASE.plusDays(1)).size());
+        // New readings no longer write panel_id
+        sensorDataRepository.save(new SensorData(null, panelRef, "LEGACY-1", 31.0, 8.0, 25.0, 800.0, 248.0,
+            BASE.plusDays(1)));
+        assertEquals(6, sensorDataRepository.findByPanelRefAndTimestampBetween(panelRef, BASE, BASE.plusDays(1)).size());
+
+        // A second run only reports what is still unmapped
+        assertEquals(2, migration.migrate());
+    }
+
+    @Test
+    void testRestartSkipsRowsAlreadyBackfilled() {
+        SensorPanelRefMigration migration = new SensorPanelRefMigration(jdbcTemplate, 2);
+        assertEquals(2, migration.migrate());
+
+        // The orphans are not retried, even once their panel exists; rows written since are
+        SolarPanel panel = new SolarPanel();
+        panel.setPanelId("GONE-1");
+        panel.setPlant(plantRepository.findAll().get(0));
+        panel.setInstallationDate(LocalDate.of(2020, 1, 1));
+        panel.setCapacity(0.4);
+        panelRepository.save(panel);
+        jdbcTemplate.update("INSERT INTO sensor_data (panel_id, voltage, current, temperature, irradiance, power, "
+            + "timestamp) VALUES ('GONE-1', 30.0, 8.0, 25.0, 800.0, 240.0, ?)", BASE.plusDays(1));
+
+        assertEquals(2, migration.migrate());
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM sensor_data WHERE panel_ref = ?", Long.class, panel.getId()));
+    }
+
+    @Test
+    void testNoOpWithoutLegacyColumn() {
+        jdbcTemplate.execute("ALTER TABLE sensor_data DROP COLUMN panel_id");
+        try {
+            assertEquals(-1, new SensorPanelRefMigration(jdbcTemplate, 100).migrate());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE sensor_data ADD COLUMN panel_id VARCHAR(255)");
+        }
+    }
+}
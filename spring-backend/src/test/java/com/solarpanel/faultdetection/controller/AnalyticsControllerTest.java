@@ -1,11 +1,16 @@
 package com.solarpanel.faultdetection.controller;
 
+import com.solarpanel.faultdetection.dto.AnalyticsCacheStatsResponse;
 import com.solarpanel.faultdetection.dto.AnalyticsSummaryResponse;
 import com.solarpanel.faultdetection.dto.AnalyticsTrendsResponse;
 import com.solarpanel.faultdetection.dto.TrendDataPoint;
+import com.solarpanel.faultdetection.security.JwtUtils;
 import com.solarpanel.faultdetection.service.AnalyticsService;
+import com.solarpanel.faultdetection.service.AnalyticsTrendCache;
+import com.solarpanel.faultdetection.service.PanelFaultRanking;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,6 +27,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AnalyticsController.class)
+// The endpoints are public (SecurityConfig permits all); the slice would apply Boot's default security
+@AutoConfigureMockMvc(addFilters = false)
 public class AnalyticsControllerTest {
     
     @Autowired
@@ -30,6 +37,16 @@ public class AnalyticsControllerTest {
     @MockBean
     private AnalyticsService analyticsService;
     
+    @MockBean
+    private PanelFaultRanking panelFaultRanking;
+    
+    // Needed to create the JWT filter the slice picks up
+    @MockBean
+    private JwtUtils jwtUtils;
+    
+    @MockBean
+    private AnalyticsTrendCache trendCache;
+    
     @Test
     public void testGetAnalyticsSummary_Success() throws Exception {
         // Prepare mock data
@@ -50,7 +67,7 @@ public class AnalyticsControllerTest {
         when(analyticsService.getAnalyticsSummary()).thenReturn(mockSummary);
         
         // Perform request and verify response
-        mockMvc.perform(get("/api/v1/analytics/summary"))
+        mockMvc.perform(get("/analytics/summary"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.totalPredictions").value(120))
                 .andExpect(jsonPath("$.mostCommonFault").value("NORMAL"))
@@ -75,10 +92,10 @@ public class AnalyticsControllerTest {
         mockTrends.setMostActiveFaultType("NORMAL");
         mockTrends.setTrendDirection("INCREASING");
         
-        when(analyticsService.getAnalyticsTrends(anyInt())).thenReturn(mockTrends);
+        when(analyticsService.getAnalyticsTrends(anyInt(), any(), any(), any())).thenReturn(mockTrends);
         
         // Perform request and verify response
-        mockMvc.perform(get("/api/v1/analytics/trends?days=7"))
+        mockMvc.perform(get("/analytics/trends?days=7"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.totalPredictionsInPeriod").value(25))
                 .andExpect(jsonPath("$.mostActiveFaultType").value("NORMAL"))
@@ -96,7 +113,7 @@ public class AnalyticsControllerTest {
         when(analyticsService.getAnalyticsTrends(30)).thenReturn(mockTrends);
         
         // Perform request and verify response
-        mockMvc.perform(get("/api/v1/analytics/trends/last/30"))
+        mockMvc.perform(get("/analytics/trends/last/30"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.totalPredictionsInPeriod").value(50));
     }
@@ -104,11 +121,25 @@ public class AnalyticsControllerTest {
     @Test
     public void testGetAnalyticsTrendsLastDays_InvalidDays() throws Exception {
         // Test with invalid days parameter
-        mockMvc.perform(get("/api/v1/analytics/trends/last/500"))
+        mockMvc.perform(get("/analytics/trends/last/500"))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Invalid days parameter"));
     }
     
+    @Test
+    public void testGetCacheStats() throws Exception {
+        AnalyticsCacheStatsResponse stats = new AnalyticsCacheStatsResponse(3, 45L, 200000L, 9L, 3L, 0.75, 1L, 0L);
+        
+        when(trendCache.stats()).thenReturn(stats);
+        
+        mockMvc.perform(get("/analytics/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.partitions").value(3))
+                .andExpect(jsonPath("$.cachedRows").value(45))
+                .andExpect(jsonPath("$.hitRate").value(0.75))
+                .andExpect(jsonPath("$.evictions").value(0));
+    }
+    
     @Test
     public void testAnalyticsHealthCheck() throws Exception {
         // Prepare mock data
@@ -118,7 +149,7 @@ public class AnalyticsControllerTest {
         when(analyticsService.getAnalyticsSummary()).thenReturn(mockSummary);
         
         // Perform request and verify response
-        mockMvc.perform(get("/api/v1/analytics/health"))
+        mockMvc.perform(get("/analytics/health"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("UP"))
                 .andExpect(jsonPath("$.service").value("Analytics Service"))
@@ -1,11 +1,14 @@
 package com.solarpanel.faultdetection.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solarpanel.faultdetection.dto.PredictionHistoryPage;
 import com.solarpanel.faultdetection.dto.PredictionResponse;
 import com.solarpanel.faultdetection.dto.SensorDataRequest;
+import com.solarpanel.faultdetection.security.JwtUtils;
 import com.solarpanel.faultdetection.service.PredictionService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
@@ -16,12 +19,17 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(PredictionController.class)
+// The endpoints are public (SecurityConfig permits all); the slice would apply Boot's default security
+@AutoConfigureMockMvc(addFilters = false)
 public class PredictionControllerTest {
     
     @Autowired
@@ -30,6 +38,10 @@ public class PredictionControllerTest {
     @MockBean
     private PredictionService predictionService;
     
+    // Needed to create the JWT filter the slice picks up
+    @MockBean
+    private JwtUtils jwtUtils;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -49,7 +61,7 @@ public class PredictionControllerTest {
             .thenReturn(mockResponse);
         
         // Perform request and verify response
-        mockMvc.perform(post("/api/v1/solar-panel/analyze")
+        mockMvc.perform(post("/solar-panel/analyze")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -66,7 +78,7 @@ public class PredictionControllerTest {
         SensorDataRequest request = new SensorDataRequest(-10.0, 8.2, 25.0, 850.0, 266.5);
         
         // Perform request and verify validation error
-        mockMvc.perform(post("/api/v1/solar-panel/analyze")
+        mockMvc.perform(post("/solar-panel/analyze")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
@@ -81,22 +93,28 @@ public class PredictionControllerTest {
             createMockPredictionResponse(2L, "PARTIAL_SHADING")
         );
         
-        when(predictionService.getAllPredictions()).thenReturn(mockHistory);
+        PredictionHistoryPage mockPage = new PredictionHistoryPage();
+        mockPage.setContent(mockHistory);
+        mockPage.setSize(20);
+        mockPage.setHasNext(false);
+        
+        when(predictionService.getPredictionHistory(any(), isNull(), anyInt(), anyBoolean())).thenReturn(mockPage);
         
         // Perform request and verify response
-        mockMvc.perform(get("/api/v1/solar-panel/history"))
+        mockMvc.perform(get("/solar-panel/history"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].predictedFault").value("NORMAL"))
-                .andExpect(jsonPath("$[1].id").value(2))
-                .andExpect(jsonPath("$[1].predictedFault").value("PARTIAL_SHADING"));
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].predictedFault").value("NORMAL"))
+                .andExpect(jsonPath("$.content[1].id").value(2))
+                .andExpect(jsonPath("$.content[1].predictedFault").value("PARTIAL_SHADING"))
+                .andExpect(jsonPath("$.hasNext").value(false));
     }
     
     @Test
     public void testHealthCheck() throws Exception {
-        mockMvc.perform(get("/api/v1/solar-panel/health"))
+        mockMvc.perform(get("/solar-panel/health"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("UP"))
                 .andExpect(jsonPath("$.service").value("Solar Panel Fault Detection"));
@@ -65,4 +65,19 @@ public class ApiIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testDashboardStatsRevalidation() throws Exception {
+        setup();
+        
+        String etag = mockMvc.perform(get("/dashboard/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$.totalAlerts").isNumber())
+                .andReturn().getResponse().getHeader("ETag");
+        
+        mockMvc.perform(get("/dashboard/stats").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+}
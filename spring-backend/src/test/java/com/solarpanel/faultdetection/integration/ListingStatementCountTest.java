@@ -0,0 +1,158 @@
+package com.solarpanel.faultdetection.integration;
+
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Counts the SQL statements each listing request issues with cold caches. The seed data has several plants
+ * with several panels each, so a per-row lazy load or count shows up as a higher statement count.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ListingStatementCountTest {
+
+    private static final int PLANTS = 5;
+    private static final int PANELS_PER_PLANT = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SessionFactory sessionFactory;
+    private Long firstPlantId;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        // Start from a known set of plants, without the startup demo data
+        cleanUp();
+
+        for (int i = 0; i < PLANTS; i++) {
+            SolarPlant plant = new SolarPlant();
+            plant.setName("Count Test Plant " + i);
+            plant.setLocation("Site " + i);
+            plant.setCapacityKW(100.0);
+            plant = plantRepository.save(plant);
+            if (firstPlantId == null) {
+                firstPlantId = plant.getId();
+            }
+            for (int j = 0; j < PANELS_PER_PLANT; j++) {
+                SolarPanel panel = new SolarPanel();
+                panel.setPanelId("CT-" + i + "-" + j);
+                panel.setPlant(plant);
+                panel.setInstallationDate(LocalDate.of(2023, 6, 1));
+                panel.setCapacity(0.4);
+                panelRepository.save(panel);
+            }
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        panelRepository.deleteAll();
+        plantRepository.deleteAll();
+    }
+
+    @Test
+    void testPlantListingUsesOneQuery() throws Exception {
+        long statements = statementsFor(get("/plants"));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void testPlantPageUsesContentAndCountQueries() throws Exception {
+        mockMvc.perform(get("/plants").param("page", "0").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", String.valueOf(PLANTS)))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].panelCount").value(PANELS_PER_PLANT));
+
+        assertEquals(2, statementsFor(get("/plants").param("page", "1").param("size", "2")));
+    }
+
+    @Test
+    void testPlantByIdUsesOneQuery() throws Exception {
+        assertEquals(1, statementsFor(get("/plants/{id}", firstPlantId)));
+    }
+
+    @Test
+    void testPanelListingsUseOneQuery() throws Exception {
+        assertEquals(1, statementsFor(get("/panels")));
+        assertEquals(1, statementsFor(get("/panels/plant/{plantId}", firstPlantId)));
+    }
+
+    @Test
+    void testPanelPageUsesContentAndCountQueries() throws Exception {
+        mockMvc.perform(get("/panels/plant/{plantId}", firstPlantId).param("page", "0").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", String.valueOf(PANELS_PER_PLANT)))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].plantName").value("Count Test Plant 0"));
+
+        assertEquals(2, statementsFor(get("/panels").param("page", "2").param("size", "5")));
+    }
+
+    @Test
+    void testStatementCountIsRecordedPerEndpoint() throws Exception {
+        statementsFor(get("/plants/{id}", firstPlantId));
+
+        DistributionSummary summary = meterRegistry.find("http.server.requests.sql.statements")
+                .tags("method", "GET", "uri", "/plants/{id}")
+                .summary();
+        assertNotNull(summary);
+        assertEquals(1, summary.max());
+    }
+
+    @Test
+    void testInvalidPageIsRejected() throws Exception {
+        mockMvc.perform(get("/panels").param("page", "0").param("size", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid page request"));
+    }
+
+    private long statementsFor(RequestBuilder request) throws Exception {
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(request).andExpect(status().isOk());
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,93 @@
+package com.solarpanel.faultdetection.monitoring;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlStatementMonitorTest {
+
+    private DriverManagerDataSource target;
+
+    @BeforeEach
+    void setUp() {
+        target = new DriverManagerDataSource("jdbc:h2:mem:sql-monitor;DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(target).execute("CREATE TABLE readings (id INT PRIMARY KEY, panel VARCHAR(20))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(target).execute("DROP TABLE readings");
+    }
+
+    @Test
+    void testStatementsAreCountedPerThread() {
+        SqlStatementMonitor monitor = new SqlStatementMonitor(new SlowQueryRegistry(10), Long.MAX_VALUE);
+        JdbcTemplate jdbc = new JdbcTemplate(proxy(monitor));
+
+        jdbc.update("INSERT INTO readings VALUES (1, 'P001')");
+        SqlStatementMonitor.RequestStats stats = monitor.begin();
+        jdbc.update("INSERT INTO readings VALUES (2, 'P002')");
+        assertEquals("1", MDC.get(SqlStatementMonitor.MDC_STATEMENTS));
+        jdbc.queryForList("SELECT panel FROM readings", String.class);
+        jdbc.batchUpdate("INSERT INTO readings VALUES (?, ?)", List.of(new Object[]{3, "P003"}, new Object[]{4, "P004"}));
+        monitor.end();
+        jdbc.queryForList("SELECT panel FROM readings", String.class);
+
+        assertEquals(3, stats.getStatements());
+        // Sub-millisecond statements still add up
+        assertTrue(stats.getJdbcTimeNanos() > 0);
+        assertNull(MDC.get(SqlStatementMonitor.MDC_STATEMENTS));
+        assertEquals(0, monitor.getSlowQueries().size());
+    }
+
+    @Test
+    void testSlowStatementsAreGroupedByShape() {
+        SqlStatementMonitor monitor = new SqlStatementMonitor(new SlowQueryRegistry(10), 0);
+        JdbcTemplate jdbc = new JdbcTemplate(proxy(monitor));
+
+        jdbc.update("INSERT INTO readings VALUES (1, 'P001')");
+        jdbc.update("INSERT INTO readings VALUES (2, 'P002')");
+        jdbc.queryForList("SELECT panel FROM readings WHERE id IN (1, 2)", String.class);
+        jdbc.queryForList("SELECT panel FROM readings WHERE id IN (1, 2, 3)", String.class);
+
+        List<SlowQueryRegistry.SlowQuery> queries = monitor.getSlowQueries().top(10);
+        assertEquals(2, queries.size());
+        assertTrue(queries.stream().anyMatch(q -> q.sql().equals("INSERT INTO readings VALUES (?, ?)") && q.count() == 2));
+        assertTrue(queries.stream().anyMatch(q -> q.sql().equals("SELECT panel FROM readings WHERE id in (?)") && q.count() == 2));
+    }
+
+    @Test
+    void testNormalizeKeepsIdentifiersWithDigits() {
+        assertEquals("select sp1_0.id from solar_panels sp1_0 where sp1_0.capacity > ? and sp1_0.panel_id = ?",
+            SlowQueryRegistry.normalize("select sp1_0.id from solar_panels sp1_0\n    where sp1_0.capacity > 0.35 and sp1_0.panel_id = 'it''s'"));
+    }
+
+    @Test
+    void testRegistryKeepsSlowestShapesWhenFull() {
+        SlowQueryRegistry registry = new SlowQueryRegistry(2);
+        registry.record("SELECT a FROM t", 300);
+        registry.record("SELECT b FROM t", 250);
+        registry.record("SELECT c FROM t", 900);
+        registry.record("SELECT c FROM t", 100);
+
+        List<SlowQueryRegistry.SlowQuery> top = registry.top(5);
+        assertEquals(List.of("SELECT c FROM t", "SELECT a FROM t"), top.stream().map(SlowQueryRegistry.SlowQuery::sql).toList());
+        assertEquals(2, top.get(0).count());
+        assertEquals(900, top.get(0).maxMs());
+        assertEquals(500, top.get(0).meanMs());
+        assertEquals(1, registry.top(1).size());
+    }
+
+    private DataSource proxy(SqlStatementMonitor monitor) {
+        return ProxyDataSourceBuilder.create("test", target).listener(monitor).build();
+    }
+}
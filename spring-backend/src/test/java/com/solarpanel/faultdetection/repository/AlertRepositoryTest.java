@@ -0,0 +1,67 @@
+package com.solarpanel.faultdetection.repository;
+
+import com.solarpanel.faultdetection.dto.AlertResponse;
+import com.solarpanel.faultdetection.entity.Alert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class AlertRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 6; i++) {
+            Alert alert = new Alert();
+            alert.setPanelId(i % 2 == 0 ? "P001" : "P002");
+            alert.setFaultType("PARTIAL_SHADING");
+            alert.setSeverity(i < 2 ? "CRITICAL" : "MEDIUM");
+            alert.setMessage("Alert " + i);
+            alert.setConfidence("High");
+            alert.setConfidenceScore(0.9);
+            alert.setStatus(i == 0 ? Alert.AlertStatus.RESOLVED : Alert.AlertStatus.OPEN);
+            alert.setAcknowledged(i == 0);
+            alert.setTechnicianNotes(i == 0 ? "Cleaned panel" : null);
+            alert.setCreatedAt(BASE.plusMinutes(i));
+            alertRepository.save(alert);
+        }
+    }
+
+    @Test
+    void testRecentResponsesCopyEveryField() {
+        List<AlertResponse> recent = alertRepository.findRecentResponses(Limit.of(4));
+
+        assertEquals(4, recent.size());
+        assertEquals("Alert 5", recent.get(0).getMessage());
+        assertEquals("OPEN", recent.get(0).getStatus());
+        assertEquals(BASE.plusMinutes(5), recent.get(0).getCreatedAt());
+
+        AlertResponse resolved = alertRepository.findResponsesByStatus(Alert.AlertStatus.RESOLVED).get(0);
+        assertEquals("RESOLVED", resolved.getStatus());
+        assertEquals("P001", resolved.getPanelId());
+        assertEquals("CRITICAL", resolved.getSeverity());
+        assertEquals("Cleaned panel", resolved.getTechnicianNotes());
+        assertTrue(resolved.getAcknowledged());
+    }
+
+    @Test
+    void testResponseFilters() {
+        assertEquals(5, alertRepository.findResponsesByAcknowledged(false).size());
+        assertEquals(3, alertRepository.findResponsesByPanelId("P002").size());
+        assertEquals(2, alertRepository.findResponsesBySeverity("CRITICAL").size());
+    }
+}
@@ -0,0 +1,112 @@
+package com.solarpanel.faultdetection.repository;
+
+import com.solarpanel.faultdetection.dto.PredictionResponse;
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class PredictionResultRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Autowired
+    private PredictionResultRepository predictionRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 25; i++) {
+            // Pairs of rows share a timestamp so the id tie-breaker is exercised
+            PredictionResult result = new PredictionResult(30.0, 8.0, 25.0, 800.0, 240.0,
+                i % 3 == 0 ? "PARTIAL_SHADING" : "NORMAL", "High", 0.5 + (i % 5) * 0.1,
+                i % 3 == 0 ? "MEDIUM" : "None", "None", "Test");
+            result.setPanelId(i % 2 == 0 ? "P001" : "P002");
+            predictionRepository.save(result);
+            result.setCreatedAt(BASE.plusMinutes(i / 2));
+        }
+        predictionRepository.flush();
+    }
+
+    @Test
+    void testKeysetPagesCoverAllRowsInOrder() {
+        List<PredictionResponse> seen = new ArrayList<>();
+        LocalDateTime cursorCreatedAt = null;
+        Long cursorId = null;
+        while (true) {
+            List<PredictionResponse> page = predictionRepository.findPageAfter(null, null, null, null, null, null,
+                cursorCreatedAt, cursorId, PageRequest.of(0, 4));
+            if (page.isEmpty()) {
+                break;
+            }
+            seen.addAll(page);
+            PredictionResponse last = page.get(page.size() - 1);
+            cursorCreatedAt = last.getTimestamp();
+            cursorId = last.getId();
+        }
+
+        assertEquals(25, seen.size());
+        Set<Long> ids = new HashSet<>();
+        seen.forEach(p -> ids.add(p.getId()));
+        assertEquals(25, ids.size());
+        for (int i = 1; i < seen.size(); i++) {
+            PredictionResponse previous = seen.get(i - 1);
+            PredictionResponse current = seen.get(i);
+            assertTrue(previous.getTimestamp().isAfter(current.getTimestamp())
+                || (previous.getTimestamp().equals(current.getTimestamp()) && previous.getId() > current.getId()));
+        }
+    }
+
+    @Test
+    void testFiltersCombine() {
+        List<PredictionResponse> results = predictionRepository.findPageAfter("PARTIAL_SHADING", "MEDIUM", 0.6,
+            BASE.plusMinutes(1), BASE.plusMinutes(10), "P001", null, null, PageRequest.of(0, 100));
+
+        assertFalse(results.isEmpty());
+        for (PredictionResponse result : results) {
+            assertEquals("PARTIAL_SHADING", result.getPredictedFault());
+            assertEquals("P001", result.getPanelId());
+            assertNull(result.getDescription());
+            assertTrue(result.getConfidenceScore() >= 0.6);
+            assertFalse(result.getTimestamp().isBefore(BASE.plusMinutes(1)));
+            assertTrue(result.getTimestamp().isBefore(BASE.plusMinutes(10)));
+        }
+        assertEquals(results.size(), predictionRepository.countByFilter("PARTIAL_SHADING", "MEDIUM", 0.6,
+            BASE.plusMinutes(1), BASE.plusMinutes(10), "P001"));
+    }
+
+    @Test
+    void testRecentSummariesAreLimited() {
+        List<PredictionResponse> recent = predictionRepository.findRecentSummaries(BASE.plusMinutes(5), Limit.of(3));
+
+        assertEquals(3, recent.size());
+        assertEquals(BASE.plusMinutes(12), recent.get(0).getTimestamp());
+        assertTrue(recent.get(1).getId() > recent.get(2).getId());
+        assertEquals(15, predictionRepository.findRecentSummaries(BASE.plusMinutes(5), Limit.of(100)).size());
+    }
+
+    @Test
+    void testOffsetPageByFilterReportsTotals() {
+        Page<PredictionResponse> page = predictionRepository.findPageByFilter(null, null, null, null, null, "P002",
+            PageRequest.of(1, 5));
+
+        assertEquals(12, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        assertEquals(5, page.getNumberOfElements());
+        assertTrue(page.getContent().stream().allMatch(p -> "P002".equals(p.getPanelId())));
+    }
+}
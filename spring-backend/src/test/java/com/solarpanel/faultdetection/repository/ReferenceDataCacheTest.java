@@ -0,0 +1,144 @@
+package com.solarpanel.faultdetection.repository;
+
+import com.solarpanel.faultdetection.dto.SolarPanelResponse;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Each repository call runs in its own transaction, so repeat reads can only be served by the shared caches
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReferenceDataCacheTest {
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private SolarPlant plant;
+
+    @BeforeEach
+    void setUp() {
+        plant = new SolarPlant();
+        plant.setName("North Field");
+        plant.setLocation("Site A");
+        plant.setCapacityKW(500.0);
+        plant = plantRepository.save(plant);
+        panelRepository.save(panel("P001"));
+        panelRepository.save(panel("P002"));
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        panelRepository.deleteAll();
+        plantRepository.deleteAll();
+    }
+
+    @Test
+    void testRepeatedFinderIsServedFromCache() {
+        panelRepository.findByPanelId("P001").orElseThrow();
+        long queries = statistics.getQueryExecutionCount();
+
+        SolarPanel panel = panelRepository.findByPanelId("P001").orElseThrow();
+
+        assertEquals("P001", panel.getPanelId());
+        assertEquals(queries, statistics.getQueryExecutionCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void testLazyPlantIsLoadedFromCache() {
+        plantRepository.findById(plant.getId()).orElseThrow();
+        long loads = statistics.getEntityLoadCount();
+
+        String plantName = new TransactionTemplate(transactionManager).execute(status ->
+            panelRepository.findByPanelId("P002").orElseThrow().getPlant().getName());
+
+        assertEquals("North Field", plantName);
+        assertTrue(statistics.getDomainDataRegionStatistics(SolarPlant.class.getName()).getHitCount() >= 1);
+        // Only the panel itself is read from the database
+        assertEquals(loads + 1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testUpdateIsVisibleThroughCache() {
+        assertTrue(plantRepository.findByName("North Field").isPresent());
+
+        SolarPlant cached = plantRepository.findById(plant.getId()).orElseThrow();
+        cached.setName("South Field");
+        plantRepository.save(cached);
+
+        assertEquals("South Field", plantRepository.findById(plant.getId()).orElseThrow().getName());
+        assertTrue(plantRepository.findByName("North Field").isEmpty());
+        assertTrue(plantRepository.existsByName("South Field"));
+    }
+
+    @Test
+    void testDeleteInvalidatesCachedQueries() {
+        SolarPanel panel = panelRepository.findByPanelId("P001").orElseThrow();
+        assertTrue(panelRepository.existsByPanelId("P001"));
+        assertEquals(2, panelRepository.countByPlantId(plant.getId()));
+
+        panelRepository.deleteById(panel.getId());
+
+        assertFalse(panelRepository.existsByPanelId("P001"));
+        assertEquals(1, panelRepository.countByPlantId(plant.getId()));
+        assertTrue(panelRepository.findById(panel.getId()).isEmpty());
+    }
+
+    @Test
+    void testPanelListingProjectionIsCachedAndInvalidated() {
+        List<SolarPanelResponse> panels = panelRepository.findResponsesByPlantId(plant.getId());
+        assertEquals(List.of("P001", "P002"), panels.stream().map(SolarPanelResponse::getPanelId).toList());
+        assertEquals("North Field", panels.get(0).getPlantName());
+
+        assertEquals(2, panelRepository.findAllResponses().size());
+        assertEquals(2, panelRepository.findAllResponses().size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        panelRepository.save(panel("P003"));
+        assertEquals(3, panelRepository.findAllResponses().size());
+    }
+
+    private SolarPanel panel(String panelId) {
+        SolarPanel panel = new SolarPanel();
+        panel.setPanelId(panelId);
+        panel.setPlant(plant);
+        panel.setInstallationDate(LocalDate.of(2023, 6, 1));
+        panel.setCapacity(0.4);
+        return panel;
+    }
+}
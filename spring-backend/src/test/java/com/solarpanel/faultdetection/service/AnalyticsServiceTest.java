@@ -0,0 +1,145 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.AnalyticsTrendsResponse;
+import com.solarpanel.faultdetection.dto.TrendDataPoint;
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({AnalyticsService.class, AnalyticsTrendCache.class, PredictionCounters.class})
+public class AnalyticsServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 4, 1);
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private PredictionResultRepository predictionRepository;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    private Long plantId;
+
+    @BeforeEach
+    void setUp() {
+        plantId = plantRepository.save(plant("Trend Plant")).getId();
+        panelRepository.save(panel("TR-1", plantId));
+        Long otherPlantId = plantRepository.save(plant("Other Plant")).getId();
+        panelRepository.save(panel("TR-2", otherPlantId));
+
+        // Ten days of readings, two per day at 09:00 and 14:00, alternating panels
+        for (int day = 0; day < 10; day++) {
+            LocalDateTime date = START.plusDays(day).atStartOfDay();
+            save("TR-1", "NORMAL", "None", date.plusHours(9));
+            save("TR-2", day % 2 == 0 ? "PARTIAL_SHADING" : "NORMAL", day % 2 == 0 ? "MEDIUM" : "None",
+                date.plusHours(14));
+        }
+        // Outside the queried range
+        save("TR-1", "INVERTER_FAULT", "CRITICAL", START.minusDays(1).atTime(23, 59, 59));
+        predictionRepository.flush();
+    }
+
+    @Test
+    void testDailyBucketsIncludeEmptyDays() {
+        AnalyticsTrendsResponse trends = analyticsService.getAnalyticsTrends(START, START.plusDays(11));
+
+        assertEquals("DAY", trends.getBucket());
+        assertEquals(12, trends.getDailyTrends().size());
+        assertEquals(20, trends.getTotalPredictionsInPeriod());
+        TrendDataPoint first = trends.getDailyTrends().get(0);
+        assertEquals(START, first.getDate());
+        assertEquals(2, first.getTotalCount());
+        assertEquals(1L, first.getFaultTypeCounts().get("PARTIAL_SHADING"));
+        assertEquals(1L, first.getSeverityCounts().get("MEDIUM"));
+        assertEquals(0, trends.getDailyTrends().get(11).getTotalCount());
+        assertEquals("NORMAL", trends.getMostActiveFaultType());
+    }
+
+    @Test
+    void testHourlyAndWeeklyBuckets() {
+        AnalyticsTrendsResponse hourly = analyticsService.getAnalyticsTrends(START, START.plusDays(1),
+            AnalyticsService.TrendBucket.HOUR, null, null);
+        assertEquals(48, hourly.getDailyTrends().size());
+        assertEquals(START.atTime(9, 0), hourly.getDailyTrends().get(9).getBucketStart());
+        assertEquals(1, hourly.getDailyTrends().get(9).getTotalCount());
+        assertEquals(1, hourly.getDailyTrends().get(24 + 14).getTotalCount());
+        assertEquals(4, hourly.getTotalPredictionsInPeriod());
+
+        AnalyticsTrendsResponse weekly = analyticsService.getAnalyticsTrends(START, START.plusDays(9),
+            AnalyticsService.TrendBucket.WEEK, null, null);
+        assertEquals(2, weekly.getDailyTrends().size());
+        assertEquals(14, weekly.getDailyTrends().get(0).getTotalCount());
+        assertEquals(START.plusDays(7).atStartOfDay(), weekly.getDailyTrends().get(1).getBucketStart());
+        assertEquals(6, weekly.getDailyTrends().get(1).getTotalCount());
+        assertEquals(10, weekly.getTotalDays());
+    }
+
+    @Test
+    void testPlantAndPanelFilters() {
+        AnalyticsTrendsResponse plant = analyticsService.getAnalyticsTrends(START, START.plusDays(9),
+            AnalyticsService.TrendBucket.DAY, plantId, null);
+        assertEquals(10, plant.getTotalPredictionsInPeriod());
+        assertEquals("NORMAL", plant.getMostActiveFaultType());
+
+        AnalyticsTrendsResponse panel = analyticsService.getAnalyticsTrends(START, START.plusDays(9),
+            AnalyticsService.TrendBucket.DAY, null, "TR-2");
+        assertEquals(10, panel.getTotalPredictionsInPeriod());
+        assertEquals(1L, panel.getDailyTrends().get(0).getFaultTypeCounts().get("PARTIAL_SHADING"));
+    }
+
+    @Test
+    void testInvalidRangesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> analyticsService.getAnalyticsTrends(START.plusDays(1), START));
+        assertThrows(IllegalArgumentException.class, () -> analyticsService.getAnalyticsTrends(START,
+            START.plusDays(40), AnalyticsService.TrendBucket.HOUR, null, null));
+        assertThrows(IllegalArgumentException.class, () -> AnalyticsService.TrendBucket.fromParam("month"));
+    }
+
+    private void save(String panelId, String fault, String severity, LocalDateTime createdAt) {
+        PredictionResult result = new PredictionResult(30.0, 8.0, 25.0, 800.0, 240.0, fault, "High", 0.9,
+            severity, "None", "Test");
+        result.setPanelId(panelId);
+        predictionRepository.save(result);
+        // createdAt is set on persist, so override it afterwards
+        result.setCreatedAt(createdAt);
+    }
+
+    private static SolarPlant plant(String name) {
+        SolarPlant plant = new SolarPlant();
+        plant.setName(name);
+        plant.setLocation("Site T");
+        plant.setCapacityKW(10.0);
+        return plant;
+    }
+
+    private SolarPanel panel(String panelId, Long plantId) {
+        SolarPanel panel = new SolarPanel();
+        panel.setPanelId(panelId);
+        panel.setPlant(plantRepository.findById(plantId).orElseThrow());
+        panel.setInstallationDate(LocalDate.of(2023, 1, 1));
+        panel.setCapacity(0.4);
+        return panel;
+    }
+}
@@ -0,0 +1,113 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.AnalyticsCacheStatsResponse;
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import com.solarpanel.faultdetection.storage.PredictionPersistedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class AnalyticsTrendCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final PredictionResultRepository repository = mock(PredictionResultRepository.class);
+
+    /**
+     * One NORMAL row per day of the queried range, with the count set to the day of month
+     */
+    private void answerDailyRows() {
+        when(repository.countTrendsByDay(any(), any(), any(), any())).thenAnswer(call -> {
+            List<Object[]> rows = new ArrayList<>();
+            LocalDateTime from = call.getArgument(0);
+            LocalDateTime to = call.getArgument(1);
+            for (LocalDate day = from.toLocalDate(); day.isBefore(to.toLocalDate()); day = day.plusDays(1)) {
+                rows.add(new Object[]{day, "NORMAL", "None", (long) day.getDayOfMonth()});
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void testClosedDaysAreServedFromCacheAndTodayIsInvalidatedByWrites() {
+        answerDailyRows();
+        AnalyticsTrendCache cache = new AnalyticsTrendCache(repository, 10_000, 60_000, 86_400_000, 0);
+
+        assertEquals(30, cache.countTrends(TODAY.minusDays(29), TODAY, false, null, null).size());
+        assertEquals(30, cache.countTrends(TODAY.minusDays(29), TODAY, false, null, null).size());
+        verify(repository, times(1)).countTrendsByDay(any(), any(), isNull(), isNull());
+
+        // A new prediction only makes today stale
+        PredictionResult prediction = new PredictionResult();
+        prediction.setCreatedAt(LocalDateTime.now());
+        cache.onPredictionPersisted(new PredictionPersistedEvent(prediction));
+        assertEquals(30, cache.countTrends(TODAY.minusDays(29), TODAY, false, null, null).size());
+        verify(repository).countTrendsByDay(eq(TODAY.atStartOfDay()), eq(TODAY.plusDays(1).atStartOfDay()),
+            isNull(), isNull());
+
+        // A late write to a closed day makes that day stale; the query spans only the stale days
+        cache.invalidate(TODAY.minusDays(10));
+        cache.onPredictionPersisted(new PredictionPersistedEvent(prediction));
+        cache.countTrends(TODAY.minusDays(29), TODAY, false, null, null);
+        verify(repository).countTrendsByDay(eq(TODAY.minusDays(10).atStartOfDay()),
+            eq(TODAY.plusDays(1).atStartOfDay()), isNull(), isNull());
+
+        AnalyticsCacheStatsResponse stats = cache.stats();
+        assertEquals(3, stats.getQueries());
+        assertEquals(30 + 29 + 28, stats.getHits());
+        assertEquals(30 + 1 + 2, stats.getMisses());
+        assertEquals(87.0 / 120, stats.getHitRate(), 1e-9);
+        assertEquals(30, stats.getPartitions());
+        assertEquals(60, stats.getCachedRows());
+    }
+
+    @Test
+    void testOpenDaysExpireAndFiltersArePartitionedSeparately() {
+        answerDailyRows();
+        when(repository.countTrendsByHour(any(), any(), any(), any())).thenReturn(List.of());
+        AnalyticsTrendCache cache = new AnalyticsTrendCache(repository, 10_000, 0, 86_400_000, 0);
+
+        cache.countTrends(TODAY.minusDays(1), TODAY, false, null, null);
+        cache.countTrends(TODAY.minusDays(1), TODAY, false, 7L, null);
+        cache.countTrends(TODAY.minusDays(1), TODAY, true, null, null);
+        assertTrue(cache.countTrends(TODAY.minusDays(1), TODAY, true, null, null).isEmpty());
+        verify(repository, times(1)).countTrendsByDay(any(), any(), isNull(), isNull());
+        verify(repository, times(1)).countTrendsByDay(any(), any(), eq(7L), isNull());
+        // Without an open-day TTL only the closed day is a hit
+        verify(repository).countTrendsByHour(eq(TODAY.atStartOfDay()), eq(TODAY.plusDays(1).atStartOfDay()),
+            isNull(), isNull());
+    }
+
+    @Test
+    void testMemoryIsBoundedByRows() {
+        answerDailyRows();
+        // Each day partition weighs two: its row plus one
+        AnalyticsTrendCache cache = new AnalyticsTrendCache(repository, 20, 60_000, 86_400_000, 0);
+
+        assertEquals(30, cache.countTrends(TODAY.minusDays(40), TODAY.minusDays(11), false, null, null).size());
+        AnalyticsCacheStatsResponse stats = cache.stats();
+        assertTrue(stats.getCachedRows() <= 20);
+        assertEquals(10, stats.getPartitions());
+        assertEquals(20, stats.getEvictions());
+
+        // The most recently loaded days were kept
+        cache.countTrends(TODAY.minusDays(20), TODAY.minusDays(11), false, null, null);
+        assertEquals(1, cache.stats().getQueries());
+
+        AnalyticsTrendCache disabled = new AnalyticsTrendCache(repository, 0, 60_000, 86_400_000, 0);
+        disabled.countTrends(TODAY.minusDays(3), TODAY.minusDays(1), false, null, null);
+        disabled.countTrends(TODAY.minusDays(3), TODAY.minusDays(1), false, null, null);
+        assertEquals(2, disabled.stats().getQueries());
+        assertEquals(0, disabled.stats().getPartitions());
+    }
+}
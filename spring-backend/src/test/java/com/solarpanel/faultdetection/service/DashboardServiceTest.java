@@ -0,0 +1,116 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.DashboardStatsResponse;
+import com.solarpanel.faultdetection.entity.Alert;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.AlertRepository;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(DashboardService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DashboardServiceTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    @BeforeEach
+    void setUp() {
+        SolarPlant plant = new SolarPlant();
+        plant.setName("Dashboard Plant");
+        plant.setLocation("Site D");
+        plant.setCapacityKW(10.0);
+        plant = plantRepository.save(plant);
+        for (int i = 0; i < 3; i++) {
+            SolarPanel panel = new SolarPanel();
+            panel.setPanelId("DB-" + i);
+            panel.setPlant(plant);
+            panel.setInstallationDate(LocalDate.of(2023, 1, 1));
+            panel.setCapacity(0.4);
+            panel.setStatus(i == 2 ? SolarPanel.PanelStatus.OFFLINE : SolarPanel.PanelStatus.ACTIVE);
+            panelRepository.save(panel);
+        }
+        alert("PARTIAL_SHADING", "CRITICAL", Alert.AlertStatus.OPEN);
+        alert("PARTIAL_SHADING", "MEDIUM", Alert.AlertStatus.OPEN);
+        alert("INVERTER_FAULT", "CRITICAL", Alert.AlertStatus.RESOLVED);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        alertRepository.deleteAllInBatch();
+        panelRepository.deleteAllInBatch();
+        plantRepository.deleteAll();
+    }
+
+    @Test
+    void testStatsFromAggregateQueries() {
+        DashboardStatsResponse stats = dashboardService.refresh().stats();
+
+        assertEquals(1, stats.getTotalPlants());
+        assertEquals(3, stats.getTotalPanels());
+        assertEquals(2, stats.getActivePanels());
+        assertEquals(0, stats.getMaintenancePanels());
+        assertEquals(1, stats.getOfflinePanels());
+        assertEquals(3, stats.getTotalAlerts());
+        assertEquals(2, stats.getOpenAlerts());
+        assertEquals(2, stats.getCriticalAlerts());
+        assertEquals(1, stats.getMediumAlerts());
+        assertEquals(0, stats.getLowAlerts());
+        assertEquals(2L, stats.getFaultDistribution().get("PARTIAL_SHADING"));
+        assertEquals(0L, stats.getAlertsByStatus().get("IN_PROGRESS"));
+        assertEquals(1L, stats.getAlertsByStatus().get("RESOLVED"));
+    }
+
+    @Test
+    void testSnapshotOnlyChangesWithContent() {
+        DashboardService.Snapshot first = dashboardService.refresh();
+        assertSame(first, dashboardService.refresh());
+        assertSame(first, dashboardService.getSnapshot());
+
+        alert("DUST_ACCUMULATION", "LOW", Alert.AlertStatus.OPEN);
+        // Served from memory until the next refresh
+        assertSame(first, dashboardService.getSnapshot());
+
+        DashboardService.Snapshot second = dashboardService.refresh();
+        assertNotEquals(first.etag(), second.etag());
+        assertEquals(4, second.stats().getTotalAlerts());
+        assertFalse(second.lastModified().isBefore(first.lastModified()));
+    }
+
+    private void alert(String faultType, String severity, Alert.AlertStatus status) {
+        Alert alert = new Alert();
+        alert.setPanelId("DB-0");
+        alert.setFaultType(faultType);
+        alert.setSeverity(severity);
+        alert.setMessage(faultType);
+        alert.setConfidence("High");
+        alert.setConfidenceScore(0.9);
+        alert.setStatus(status);
+        alertRepository.save(alert);
+    }
+}
@@ -0,0 +1,133 @@
+package com.solarpanel.faultdetection.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solarpanel.faultdetection.entity.Alert;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.AlertRepository;
+import com.solarpanel.faultdetection.repository.SensorDataRepository;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class DataExportServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SensorDataRepository sensorDataRepository;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    private DataExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new DataExportService(jdbcTemplate, new ObjectMapper(), 2);
+        SolarPlant plant = new SolarPlant();
+        plant.setName("Export Plant");
+        plant.setLocation("Site E");
+        plant.setCapacityKW(10.0);
+        plant = plantRepository.save(plant);
+        Long[] panelRefs = new Long[3];
+        for (int i = 0; i < 3; i++) {
+            SolarPanel panel = new SolarPanel();
+            panel.setPanelId("P00" + (i + 1));
+            panel.setPlant(plant);
+            panel.setInstallationDate(LocalDate.of(2024, 1, 1));
+            panel.setCapacity(0.4);
+            panelRefs[i] = panelRepository.save(panel).getId();
+        }
+        for (int i = 0; i < 10; i++) {
+            sensorDataRepository.save(new SensorData(null, panelRefs[i % 3], null, 30.0 + i, 8.0, 25.0, 800.0,
+                240.0, BASE.plusHours(i)));
+        }
+        Alert alert = new Alert();
+        alert.setPanelId("P001");
+        alert.setFaultType("PARTIAL_SHADING");
+        alert.setSeverity("HIGH");
+        alert.setMessage("Shading on \"east\" row, check trees\nand poles");
+        alert.setConfidence("High");
+        alert.setCreatedAt(BASE.plusHours(1));
+        alertRepository.save(alert);
+        sensorDataRepository.flush();
+    }
+
+    @Test
+    void testCsvExportHonoursTimeRange() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.export(DataExportService.Dataset.SENSOR_DATA, BASE.plusHours(2), BASE.plusHours(6),
+            DataExportService.Format.CSV, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(4, rows);
+        assertEquals(5, lines.length);
+        assertEquals("id,panel_id,voltage,current,temperature,irradiance,power,timestamp", lines[0]);
+        assertTrue(lines[1].contains(",32.0,"));
+        assertTrue(lines[1].endsWith(BASE.plusHours(2).toString()));
+    }
+
+    @Test
+    void testCsvQuotesSpecialCharacters() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(DataExportService.Dataset.ALERTS, BASE, BASE.plusDays(1),
+            DataExportService.Format.CSV, false, out);
+
+        assertTrue(out.toString(StandardCharsets.UTF_8)
+            .contains(",\"Shading on \"\"east\"\" row, check trees\nand poles\","));
+    }
+
+    @Test
+    void testGzippedNdjsonExport() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.export(DataExportService.Dataset.SENSOR_DATA, BASE, BASE.plusDays(1),
+            DataExportService.Format.NDJSON, true, out);
+
+        String[] lines;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+        }
+        assertEquals(10, rows);
+        assertEquals(10, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals("P001", first.get("panel_id").asText());
+        assertEquals(30.0, first.get("voltage").asDouble());
+        assertEquals(BASE.toString(), first.get("timestamp").asText());
+    }
+
+    @Test
+    void testUnknownDatasetAndFormatAreRejected() {
+        assertEquals(DataExportService.Dataset.SENSOR_DATA, DataExportService.Dataset.fromPath("sensor-data"));
+        assertThrows(IllegalArgumentException.class, () -> DataExportService.Dataset.fromPath("users"));
+        assertThrows(IllegalArgumentException.class, () -> DataExportService.Format.fromParam("xml"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.DegradationTrendResponse;
+import com.solarpanel.faultdetection.repository.PanelDegradationStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DegradationTrendServiceTest extends PanelRegistryFixtureTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 12, 0);
+
+    @Autowired
+    private PanelDegradationStatsRepository statsRepository;
+
+    private Long plantId;
+
+    @BeforeEach
+    void setUp() {
+        plantId = savePlant("Degradation Plant", 0.4, "DG-1", "DG-2", "DG-3");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        statsRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testRateSurvivesRestartAndCombinesPerPlant() {
+        DegradationTrendService service = service();
+        Random random = new Random(11);
+        // Two years of noisy daily PR: DG-1 loses 0.5 %/year, DG-2 loses 2 %/year
+        for (int day = 0; day < 730; day++) {
+            if (day == 365) {
+                service.flush();
+                // A restarted instance continues from the persisted sums
+                service = service();
+            }
+            LocalDateTime at = START.plusDays(day);
+            double years = day / 365.25;
+            service.record(ref("DG-1"), at, 0.9 * (1 - 0.005 * years) + random.nextGaussian() * 0.02);
+            service.record(ref("DG-2"), at, 0.8 * (1 - 0.02 * years) + random.nextGaussian() * 0.02);
+        }
+        // Too short a span to estimate
+        service.record(ref("DG-3"), START, 0.9);
+        service.record(ref("DG-3"), START.plusDays(1), 0.8);
+        service.record(ref("DG-3"), START.plusDays(2), 0.7);
+
+        DegradationTrendResponse first = service.getPanelTrend("DG-1");
+        assertEquals(730, first.getSamples());
+        assertEquals(-0.5, first.getRatePercentPerYear(), 0.3);
+        assertTrue(first.getConfidenceLow() < -0.5 && first.getConfidenceHigh() > -0.5);
+
+        DegradationTrendResponse second = service.getPanelTrend("DG-2");
+        assertEquals(-2.0, second.getRatePercentPerYear(), 0.3);
+
+        DegradationTrendResponse unrated = service.getPanelTrend("DG-3");
+        assertEquals(3, unrated.getSamples());
+        assertNull(unrated.getRatePercentPerYear());
+
+        DegradationTrendResponse plant = service.getPlantTrend(plantId);
+        assertEquals(2, plant.getPanels());
+        assertEquals(1463, plant.getSamples());
+        assertTrue(plant.getRatePercentPerYear() < -0.5 && plant.getRatePercentPerYear() > -2.0);
+        assertTrue(plant.getConfidenceHigh() - plant.getConfidenceLow()
+            < first.getConfidenceHigh() - first.getConfidenceLow());
+
+        service.flush();
+        assertEquals(1463, statsRepository.findAll().stream().mapToLong(row -> row.getSampleCount()).sum());
+    }
+
+    @Test
+    void testUnknownPanelIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service().getPanelTrend("NOPE"));
+    }
+
+    private DegradationTrendService service() {
+        DegradationTrendService service = new DegradationTrendService(statsRepository, panelRegistry,
+            transactionManager, 30);
+        service.load();
+        return service;
+    }
+}
@@ -0,0 +1,68 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.TopPanelsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PanelFaultRankingTest {
+
+    private PanelFaultRanking ranking;
+
+    @BeforeEach
+    void setUp() {
+        PanelRegistry registry = mock(PanelRegistry.class);
+        when(registry.find(anyString())).thenAnswer(invocation -> {
+            String panelId = invocation.getArgument(0);
+            long plantId = panelId.startsWith("A") ? 1L : 2L;
+            return Optional.of(new PanelRegistry.PanelInfo(1L, panelId, plantId, null, 0.4, null));
+        });
+        ranking = new PanelFaultRanking(registry, 50);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            ranking.record("A1", "INVERTER_FAULT", now);
+        }
+        for (int i = 0; i < 3; i++) {
+            ranking.record("B1", "PARTIAL_SHADING", now.minusHours(3));
+        }
+        ranking.record("A2", "PARTIAL_SHADING", now);
+        ranking.record("A2", "NORMAL", now);
+        // Outside the week
+        ranking.record("B2", "INVERTER_FAULT", now.minusDays(8));
+    }
+
+    @Test
+    void testWindowsAndScopes() {
+        TopPanelsResponse week = ranking.topPanels(PanelFaultRanking.Window.WEEK, null, null, 10);
+        assertEquals(9, week.getTotalFaults());
+        assertEquals(3, week.getPanels().size());
+        assertEquals("A1", week.getPanels().get(0).getPanelId());
+        assertEquals(5, week.getPanels().get(0).getFaultCount());
+
+        TopPanelsResponse hour = ranking.topPanels(PanelFaultRanking.Window.HOUR, null, null, 10);
+        assertEquals(6, hour.getTotalFaults());
+
+        TopPanelsResponse shading = ranking.topPanels(PanelFaultRanking.Window.DAY, "partial_shading", null, 1);
+        assertEquals(1, shading.getPanels().size());
+        assertEquals("B1", shading.getPanels().get(0).getPanelId());
+
+        TopPanelsResponse plant = ranking.topPanels(PanelFaultRanking.Window.DAY, "PARTIAL_SHADING", 1L, 10);
+        assertEquals(1, plant.getTotalFaults());
+        assertEquals("A2", plant.getPanels().get(0).getPanelId());
+    }
+
+    @Test
+    void testInvalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PanelFaultRanking.Window.fromParam("month"));
+        assertThrows(IllegalArgumentException.class,
+            () -> ranking.topPanels(PanelFaultRanking.Window.DAY, null, null, 51));
+    }
+}
@@ -0,0 +1,137 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PanelProvisioningResult;
+import com.solarpanel.faultdetection.dto.PanelProvisioningRow;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Provisioning commits its own chunk transactions, so the test does not wrap calls in one
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({PanelProvisioningService.class, PanelRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PanelProvisioningServiceTest {
+
+    @Autowired
+    private PanelProvisioningService provisioningService;
+
+    @Autowired
+    private PanelRegistry registry;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    private SolarPlant plant;
+
+    @BeforeEach
+    void setUp() {
+        plant = new SolarPlant();
+        plant.setName("Provisioning Plant");
+        plant.setLocation("Site B");
+        plant.setCapacityKW(20000.0);
+        plant = plantRepository.save(plant);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        panelRepository.deleteAllInBatch();
+        plantRepository.deleteAll();
+    }
+
+    @Test
+    void testProvisionsLargePlant() {
+        List<PanelProvisioningRow> rows = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            rows.add(row(String.format("BULK-%05d", i), 0.4));
+        }
+
+        PanelProvisioningResult result = provisioningService.provision(plant.getId(), rows);
+
+        assertEquals(50_000, result.getRowsInserted());
+        assertEquals(0, result.getRowsRejected());
+        assertEquals(50_000, panelRepository.countByPlantId(plant.getId()));
+        assertEquals(SolarPanel.PanelStatus.ACTIVE, panelRepository.findByPanelId("BULK-49999").orElseThrow().getStatus());
+        assertEquals(plant.getId(), registry.find("BULK-49999").orElseThrow().plantId());
+    }
+
+    @Test
+    void testReportsRejectedRowsAndInsertsTheRest() {
+        assertEquals(0, panelRepository.countByPlantId(plant.getId()));
+        provisioningService.provision(plant.getId(), List.of(row("EXISTING", 0.4)));
+
+        PanelProvisioningResult result = provisioningService.provision(plant.getId(), List.of(
+            row("NEW-1", 0.4),
+            row("EXISTING", 0.4),
+            row("NEW-1", 0.5),
+            row("NEW-2", -1.0),
+            row(" ", 0.4),
+            row("NEW-3", 0.35)));
+
+        assertEquals(6, result.getRowsReceived());
+        assertEquals(2, result.getRowsInserted());
+        assertEquals(4, result.getRowsRejected());
+        assertEquals(List.of(2, 3, 4, 5), result.getErrors().stream().map(PanelProvisioningResult.RowError::getRow).sorted().toList());
+        assertTrue(result.getErrors().stream().anyMatch(e -> e.getRow() == 2 && e.getMessage().equals("Panel ID already exists")));
+        assertTrue(result.getErrors().stream().anyMatch(e -> e.getRow() == 3 && e.getMessage().equals("Duplicate panel ID in request")));
+        // The cached count from before provisioning must not be served
+        assertEquals(3, panelRepository.countByPlantId(plant.getId()));
+    }
+
+    @Test
+    void testProvisionsFromCsv() {
+        String csv = "capacity,panel_id,status,installation_date\n"
+            + "0.4,CSV-1,maintenance,2024-03-01\n"
+            + "\n"
+            + "abc,CSV-2,,2024-03-01\n"
+            + "0.45,CSV-3,,2024-03-02\r\n";
+
+        PanelProvisioningResult result = provisioningService.provisionCsv(plant.getId(), csv);
+
+        assertEquals(3, result.getRowsReceived());
+        assertEquals(2, result.getRowsInserted());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(4, result.getErrors().get(0).getRow());
+        assertEquals("CSV-2", result.getErrors().get(0).getPanelId());
+        assertEquals(SolarPanel.PanelStatus.MAINTENANCE, panelRepository.findByPanelId("CSV-1").orElseThrow().getStatus());
+    }
+
+    @Test
+    void testRejectsCapacityInWatts() {
+        PanelProvisioningResult result = provisioningService.provision(plant.getId(), List.of(row("WATTS-1", 400)));
+
+        assertEquals(0, result.getRowsInserted());
+        assertEquals("Capacity is in kW and cannot exceed 50", result.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void testRejectsCsvWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class,
+            () -> provisioningService.provisionCsv(plant.getId(), "panel_id,capacity\nX,0.4\n"));
+    }
+
+    private static PanelProvisioningRow row(String panelId, double capacity) {
+        return new PanelProvisioningRow(panelId, LocalDate.of(2024, 3, 1), capacity, null, null);
+    }
+}
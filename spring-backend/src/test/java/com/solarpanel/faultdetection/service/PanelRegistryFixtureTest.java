@@ -0,0 +1,71 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Plants, panels and a loaded {@link PanelRegistry} for services that write in their own transactions, so the
+ * tests run without a test transaction. Subclasses clear their own tables in an @AfterEach, which runs before
+ * the panels and plants are deleted here.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class PanelRegistryFixtureTest {
+
+    @Autowired
+    protected SolarPlantRepository plantRepository;
+
+    @Autowired
+    protected SolarPanelRepository panelRepository;
+
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+
+    protected PanelRegistry panelRegistry;
+
+    /**
+     * Save a plant with panels of the given IDs and reload the registry; returns the plant id
+     */
+    protected Long savePlant(String name, double panelCapacity, String... panelIds) {
+        SolarPlant plant = new SolarPlant();
+        plant.setName(name);
+        plant.setLocation("Test Site");
+        plant.setCapacityKW(10.0);
+        plant = plantRepository.save(plant);
+        for (String panelId : panelIds) {
+            SolarPanel panel = new SolarPanel();
+            panel.setPanelId(panelId);
+            panel.setPlant(plant);
+            panel.setInstallationDate(LocalDate.of(2021, 6, 1));
+            panel.setCapacity(panelCapacity);
+            panelRepository.save(panel);
+        }
+        if (panelRegistry == null) {
+            panelRegistry = new PanelRegistry(panelRepository);
+        }
+        panelRegistry.reload();
+        return plant.getId();
+    }
+
+    protected Long ref(String panelId) {
+        return panelRegistry.find(panelId).orElseThrow().id();
+    }
+
+    @AfterEach
+    void deletePanelsAndPlants() {
+        panelRepository.deleteAllInBatch();
+        plantRepository.deleteAll();
+    }
+}
@@ -0,0 +1,126 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.SolarPanelRequest;
+import com.solarpanel.faultdetection.dto.SolarPanelResponse;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Service calls commit their own transactions, so registry updates happen as they would in production
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({PanelRegistry.class, SolarPanelService.class, SolarPlantService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PanelRegistryTest {
+
+    @Autowired
+    private PanelRegistry registry;
+
+    @Autowired
+    private SolarPanelService panelService;
+
+    @Autowired
+    private SolarPlantService plantService;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SolarPlant plant;
+
+    @BeforeEach
+    void setUp() {
+        plant = new SolarPlant();
+        plant.setName("Registry Plant");
+        plant.setLocation("Site C");
+        plant.setCapacityKW(100.0);
+        plant = plantRepository.save(plant);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        panelRepository.deleteAll();
+        plantRepository.deleteAll();
+        registry.reload();
+    }
+
+    @Test
+    void testReloadPicksUpPanelsWrittenElsewhere() {
+        SolarPanel panel = new SolarPanel();
+        panel.setPanelId("DIRECT-1");
+        panel.setPlant(plant);
+        panel.setInstallationDate(LocalDate.of(2024, 1, 1));
+        panel.setCapacity(0.4);
+        panel.setAssignedTechnicianId(7L);
+        panelRepository.save(panel);
+        assertFalse(registry.contains("DIRECT-1"));
+
+        registry.reload();
+
+        PanelRegistry.PanelInfo info = registry.find("DIRECT-1").orElseThrow();
+        assertEquals(plant.getId(), info.plantId());
+        assertEquals(7L, info.assignedTechnicianId());
+        assertEquals(SolarPanel.PanelStatus.ACTIVE, info.status());
+    }
+
+    @Test
+    void testServiceChangesAreMirrored() {
+        SolarPanelResponse created = panelService.createPanel(request("REG-1", null));
+        assertEquals(created.getId(), registry.find("REG-1").orElseThrow().id());
+
+        panelService.updatePanel(created.getId(), request("REG-1B", SolarPanel.PanelStatus.MAINTENANCE));
+        assertFalse(registry.contains("REG-1"));
+        assertEquals(SolarPanel.PanelStatus.MAINTENANCE, registry.find("REG-1B").orElseThrow().status());
+
+        panelService.deletePanel(created.getId());
+        assertFalse(registry.contains("REG-1B"));
+    }
+
+    @Test
+    void testRolledBackCreateIsNotRegistered() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            panelService.createPanel(request("ROLLBACK-1", null));
+            status.setRollbackOnly();
+        });
+
+        assertFalse(registry.contains("ROLLBACK-1"));
+    }
+
+    @Test
+    void testDeletingPlantRemovesItsPanels() {
+        panelService.createPanel(request("REG-2", null));
+        panelService.createPanel(request("REG-3", null));
+
+        plantService.deletePlant(plant.getId());
+
+        assertFalse(registry.contains("REG-2"));
+        assertFalse(registry.contains("REG-3"));
+    }
+
+    private SolarPanelRequest request(String panelId, SolarPanel.PanelStatus status) {
+        return new SolarPanelRequest(panelId, plant.getId(), LocalDate.of(2024, 1, 1), 0.4, status, null);
+    }
+}
@@ -0,0 +1,76 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PanelPerformanceResponse;
+import com.solarpanel.faultdetection.entity.Alert;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.storage.WriteBehindWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PerformanceRatioServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 6, 1, 12, 0);
+    private static final PanelRegistry.PanelInfo PANEL =
+        new PanelRegistry.PanelInfo(7L, "PR-1", 1L, SolarPanel.PanelStatus.ACTIVE, 0.4, 3L);
+
+    private final WriteBehindWriter writer = mock(WriteBehindWriter.class);
+    private final PerformanceRatioService service = new PerformanceRatioService(writer, -0.004, 200, 0.75, 0.5, 3);
+
+    @BeforeEach
+    void setUp() {
+        when(writer.submit(any(Alert.class))).thenReturn(new CompletableFuture<>());
+    }
+
+    @Test
+    void testExpectedPowerIsTemperatureCorrected() {
+        assertEquals(400.0, service.expectedPower(0.4, 1000, 25), 1e-9);
+        assertEquals(200.0 * 0.9, service.expectedPower(0.4, 500, 50), 1e-9);
+    }
+
+    @Test
+    void testLowIrradianceIsNotRated() {
+        assertTrue(service.record(PANEL, reading(100, 150, 25)).isEmpty());
+        assertTrue(service.getPerformance(PANEL.id()).isEmpty());
+    }
+
+    @Test
+    void testUnderperformanceRaisesOneAlertAndRecovers() {
+        assertEquals(0.95, service.record(PANEL, reading(380, 1000, 25)).orElseThrow(), 1e-9);
+        for (int i = 0; i < 6; i++) {
+            service.record(PANEL, reading(200, 1000, 25));
+        }
+
+        PanelPerformanceResponse performance = service.getPerformance(PANEL.id()).orElseThrow();
+        assertTrue(performance.isUnderperforming());
+        assertEquals(7, performance.getSamples());
+        assertEquals(0.5, performance.getLastPerformanceRatio(), 1e-9);
+        assertEquals((0.95 + 6 * 0.5) / 7, performance.getAveragePerformanceRatio(), 1e-9);
+
+        ArgumentCaptor<Alert> alert = ArgumentCaptor.forClass(Alert.class);
+        verify(writer, times(1)).submit(alert.capture());
+        assertEquals(PerformanceRatioService.UNDERPERFORMANCE, alert.getValue().getFaultType());
+        assertEquals("PR-1", alert.getValue().getPanelId());
+        assertEquals(3L, alert.getValue().getAssignedTechnicianId());
+
+        for (int i = 0; i < 6; i++) {
+            service.record(PANEL, reading(390, 1000, 25));
+        }
+        assertFalse(service.getPerformance(PANEL.id()).orElseThrow().isUnderperforming());
+        assertEquals(1, service.getPerformances(false).size());
+        assertTrue(service.getPerformances(true).isEmpty());
+        verify(writer, times(1)).submit(any(Alert.class));
+    }
+
+    private static SensorData reading(double power, double irradiance, double temperature) {
+        return new SensorData(null, PANEL.id(), PANEL.panelId(), 30.0, power / 30.0, temperature, irradiance, power, BASE);
+    }
+}
@@ -0,0 +1,115 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PlantPeerStatsResponse;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class PlantPeerAggregatorTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    private final PanelRegistry panelRegistry = mock(PanelRegistry.class);
+    private final PlantPeerAggregator aggregator = new PlantPeerAggregator(panelRegistry, 300, 0.3, 0.25, 2, 0.5);
+
+    private static PanelRegistry.PanelInfo panel(long id) {
+        return new PanelRegistry.PanelInfo(id, "P-" + id, 1L, SolarPanel.PanelStatus.ACTIVE, 0.4, null);
+    }
+
+    /**
+     * Four panels reporting the same irradiance once per five-minute bucket
+     */
+    private void sunnyBuckets(int buckets) {
+        for (int b = 0; b < buckets; b++) {
+            for (long id = 1; id <= 4; id++) {
+                aggregator.observe(panel(id), BASE.plusMinutes(5L * b), 900);
+            }
+        }
+    }
+
+    @Test
+    void testPlantWideDipIsWeatherEvent() {
+        sunnyBuckets(4);
+        LocalDateTime cloud = BASE.plusMinutes(20);
+        aggregator.observe(panel(1), cloud, 300);
+        aggregator.observe(panel(2), cloud, 320);
+        PlantPeerAggregator.PeerContext context = aggregator.observe(panel(3), cloud, 310).orElseThrow();
+
+        // Panel 4 has not reported yet and counts with its sunny reading of the previous bucket
+        assertEquals(3, context.peers());
+        assertTrue(context.plantDip() >= 0.3);
+        context = aggregator.observe(panel(4), cloud, 290).orElseThrow();
+        assertTrue(context.weatherEvent());
+        assertEquals(-0.06, context.deviation(), 0.01);
+        assertEquals(1 - 305.0 / 900, context.plantDip(), 1e-9);
+    }
+
+    @Test
+    void testSinglePanelDipIsNotWeatherEvent() {
+        sunnyBuckets(4);
+        LocalDateTime shade = BASE.plusMinutes(20);
+        aggregator.observe(panel(1), shade, 890);
+        aggregator.observe(panel(2), shade, 910);
+        aggregator.observe(panel(3), shade, 900);
+        PlantPeerAggregator.PeerContext context = aggregator.observe(panel(4), shade, 300).orElseThrow();
+
+        assertFalse(context.weatherEvent());
+        assertEquals(300.0 / 900 - 1, context.deviation(), 1e-9);
+        assertTrue(context.plantDip() < 0.3);
+    }
+
+    @Test
+    void testPeekComparesWithoutAddingTheReading() {
+        sunnyBuckets(4);
+        LocalDateTime cloud = BASE.plusMinutes(20);
+        aggregator.observe(panel(1), cloud, 300);
+        aggregator.observe(panel(2), cloud, 320);
+
+        PlantPeerAggregator.PeerContext peeked = aggregator.peek(panel(3), cloud, 310).orElseThrow();
+        assertEquals(2, aggregator.getPlantStats(1L).getPanelsReporting());
+        assertEquals(peeked, aggregator.observe(panel(3), cloud, 310).orElseThrow());
+
+        // Also for the first reading of a new bucket, where observe rolls the window
+        LocalDateTime next = BASE.plusMinutes(25);
+        peeked = aggregator.peek(panel(1), next, 300).orElseThrow();
+        assertEquals(cloud, aggregator.getPlantStats(1L).getBucketStart());
+        assertEquals(peeked, aggregator.observe(panel(1), next, 300).orElseThrow());
+        assertTrue(aggregator.peek(panel(2), BASE, 900).isEmpty());
+    }
+
+    @Test
+    void testTooFewPeersAndStaleReadings() {
+        assertFalse(aggregator.observe(panel(1), BASE, 900).orElseThrow().weatherEvent());
+        assertEquals(0, aggregator.observe(panel(1), BASE, 900).orElseThrow().peers());
+
+        aggregator.observe(panel(1), BASE.plusHours(1), 900);
+        assertTrue(aggregator.observe(panel(2), BASE, 900).isEmpty());
+        assertTrue(aggregator.observe(
+            new PanelRegistry.PanelInfo(9L, "P-9", null, SolarPanel.PanelStatus.ACTIVE, 0.4, null), BASE, 900).isEmpty());
+    }
+
+    @Test
+    void testPlantStats() {
+        when(panelRegistry.panelIdOf(anyLong())).thenAnswer(call -> Optional.of("P-" + call.getArgument(0)));
+        sunnyBuckets(2);
+        aggregator.observe(panel(1), BASE.plusMinutes(10), 800);
+        aggregator.observe(panel(2), BASE.plusMinutes(10), 400);
+
+        PlantPeerStatsResponse stats = aggregator.getPlantStats(1L);
+        assertEquals(BASE.plusMinutes(10), stats.getBucketStart());
+        assertEquals(2, stats.getPanelsReporting());
+        assertEquals(600.0, stats.getMeanIrradiance(), 1e-9);
+        assertEquals(200.0, stats.getStdDevIrradiance(), 1e-9);
+        assertEquals(900.0, stats.getBaselineIrradiance(), 1e-9);
+        assertEquals(1.0 / 3, stats.getPlantDip(), 1e-9);
+        assertEquals(-1.0 / 3, stats.getPanelDeviations().get("P-2"), 1e-9);
+
+        assertEquals(0, aggregator.getPlantStats(2L).getPanelsReporting());
+    }
+}
@@ -0,0 +1,113 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PowerForecastResponse;
+import com.solarpanel.faultdetection.repository.PanelForecastStateRepository;
+import com.solarpanel.faultdetection.repository.SensorQuantileRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PowerForecastServiceTest extends PanelRegistryFixtureTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+    // Four full days, then the morning of the fifth up to 15:00
+    private static final LocalDateTime END = START.plusDays(4).plusHours(15);
+
+    @Autowired
+    private PanelForecastStateRepository stateRepository;
+
+    @Autowired
+    private SensorQuantileRollupRepository rollupRepository;
+
+    private SensorQuantileService quantileService;
+    private Long plantId;
+
+    @BeforeEach
+    void setUp() {
+        plantId = savePlant("Forecast Plant", 0.3, "FC-1", "FC-2");
+        quantileService = new SensorQuantileService(rollupRepository, panelRegistry, transactionManager, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stateRepository.deleteAllInBatch();
+        rollupRepository.deleteAllInBatch();
+    }
+
+    private PowerForecastService service() {
+        PowerForecastService service = new PowerForecastService(stateRepository, rollupRepository, panelRegistry,
+            transactionManager, 0.1, 0.01, 0.2, 14, 5, 2);
+        service.load();
+        return service;
+    }
+
+    private static double solar(LocalDateTime hour) {
+        return Math.max(0, Math.sin(Math.PI * (hour.getHour() - 6) / 12)) * 300;
+    }
+
+    @Test
+    void testForecastAgainstActualPerPanelAndPlant() {
+        for (LocalDateTime hour = START; hour.isBefore(END); hour = hour.plusHours(1)) {
+            // FC-1 loses most of its output from noon on the last day
+            double fc1 = hour.isBefore(END.minusHours(3)) ? solar(hour) : solar(hour) * 0.3;
+            for (int minute : new int[]{10, 40}) {
+                record("FC-1", hour.plusMinutes(minute), fc1);
+                record("FC-2", hour.plusMinutes(minute), solar(hour));
+            }
+        }
+        quantileService.flush();
+
+        PowerForecastService service = service();
+        assertEquals(2, service.fit(END));
+        assertEquals(2, stateRepository.count());
+
+        PowerForecastResponse healthy = service.getPanelForecast("FC-2", 6);
+        assertEquals(END.minusHours(1), healthy.getLastObservedHour());
+        assertEquals(30, healthy.getHours().size());
+        assertFalse(healthy.getDeviating());
+        PowerForecastResponse.HourlyForecast last = healthy.getHours().get(23);
+        assertEquals(solar(END.minusHours(1)), last.getActual(), 1e-6);
+        assertEquals(solar(END.minusHours(1)), last.getForecast(), 1e-6);
+        PowerForecastResponse.HourlyForecast next = healthy.getHours().get(24);
+        assertEquals(END, next.getHour());
+        assertNull(next.getActual());
+        assertEquals(solar(END), next.getForecast(), 1e-6);
+
+        PowerForecastResponse faulty = service.getPanelForecast("FC-1", 6);
+        assertTrue(faulty.getDeviating());
+        assertTrue(faulty.getHours().get(23).getActual() < faulty.getHours().get(23).getLower());
+
+        PowerForecastResponse plant = service.getPlantForecast(plantId, 6);
+        assertEquals(2, plant.getPanels());
+        assertEquals(faulty.getHours().get(24).getForecast() + next.getForecast(),
+            plant.getHours().get(24).getForecast(), 1e-9);
+        assertEquals(solar(END.minusHours(1)) * 1.3, plant.getHours().get(23).getActual(), 1e-6);
+
+        // A restarted instance resumes from the saved models and finds nothing new to fit
+        PowerForecastService restarted = service();
+        assertEquals(0, restarted.fit(END));
+        assertEquals(next.getForecast(), restarted.getPanelForecast("FC-2", 6).getHours().get(24).getForecast(), 1e-9);
+    }
+
+    @Test
+    void testNoModelAndInvalidRequests() {
+        PowerForecastService service = service();
+        assertEquals(0, service.fit(END));
+        PowerForecastResponse response = service.getPanelForecast("FC-1", 24);
+        assertEquals(0, response.getPanels());
+        assertTrue(response.getHours().isEmpty());
+        assertEquals(0, service.getPlantForecast(plantId, 24).getPanels());
+        assertThrows(IllegalArgumentException.class, () -> service.getPanelForecast("FC-1", 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getPanelForecast("FC-1", 49));
+        assertThrows(IllegalArgumentException.class, () -> service.getPanelForecast("NOPE", 24));
+    }
+
+    private void record(String panelId, LocalDateTime timestamp, double power) {
+        quantileService.record(ref(panelId), timestamp, 30.0, 25.0, power);
+    }
+}
@@ -0,0 +1,79 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import com.solarpanel.faultdetection.storage.PredictionPersistedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(PredictionCounters.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PredictionCountersTest {
+
+    @Autowired
+    private PredictionCounters counters;
+
+    @Autowired
+    private PredictionResultRepository predictionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        counters.reconcile();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        predictionRepository.deleteAll();
+        counters.reconcile();
+    }
+
+    @Test
+    void testEventsUpdateCountersWithoutQueries() {
+        eventPublisher.publishEvent(new PredictionPersistedEvent(prediction("NORMAL", "None")));
+        eventPublisher.publishEvent(new PredictionPersistedEvent(prediction("INVERTER_FAULT", "CRITICAL")));
+        eventPublisher.publishEvent(new PredictionPersistedEvent(prediction("INVERTER_FAULT", "HIGH")));
+
+        PredictionCounters.Snapshot snapshot = counters.snapshot();
+        assertEquals(3, snapshot.total());
+        assertEquals(2L, snapshot.faultTypeCounts().get("INVERTER_FAULT"));
+        assertEquals(1L, snapshot.severityCounts().get("CRITICAL"));
+    }
+
+    @Test
+    void testReconcileCorrectsDriftInBothDirections() {
+        // Written without events, as another instance would
+        predictionRepository.save(prediction("PARTIAL_SHADING", "MEDIUM"));
+        predictionRepository.save(prediction("PARTIAL_SHADING", "LOW"));
+        // Announced but never stored
+        counters.record(prediction("DUST_ACCUMULATION", "LOW"));
+
+        counters.reconcile();
+
+        PredictionCounters.Snapshot snapshot = counters.snapshot();
+        assertEquals(2, snapshot.total());
+        assertEquals(2L, snapshot.faultTypeCounts().get("PARTIAL_SHADING"));
+        assertFalse(snapshot.faultTypeCounts().containsKey("DUST_ACCUMULATION"));
+        assertEquals(1L, snapshot.severityCounts().get("LOW"));
+        assertNotNull(snapshot.lastReconciled());
+    }
+
+    private static PredictionResult prediction(String fault, String severity) {
+        return new PredictionResult(30.0, 8.0, 25.0, 800.0, 240.0, fault, "High", 0.9,
+            severity, "None", "Test");
+    }
+}
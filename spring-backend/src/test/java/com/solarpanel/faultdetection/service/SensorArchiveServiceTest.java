@@ -0,0 +1,156 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.entity.SensorArchiveBlock;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SensorArchiveBlockRepository;
+import com.solarpanel.faultdetection.repository.SensorDataRepository;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SensorArchiveServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Autowired
+    private SensorDataRepository sensorDataRepository;
+
+    @Autowired
+    private SensorArchiveBlockRepository archiveBlockRepository;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PanelRegistry panelRegistry;
+    private SensorArchiveService service;
+
+    @BeforeEach
+    void setUp() {
+        SolarPlant plant = new SolarPlant();
+        plant.setName("Archive Plant");
+        plant.setLocation("Site A");
+        plant.setCapacityKW(10.0);
+        plant = plantRepository.save(plant);
+        for (String panelId : List.of("P001", "P002")) {
+            SolarPanel panel = new SolarPanel();
+            panel.setPanelId(panelId);
+            panel.setPlant(plant);
+            panel.setInstallationDate(LocalDate.of(2022, 1, 1));
+            panel.setCapacity(0.4);
+            panelRepository.save(panel);
+        }
+        panelRegistry = new PanelRegistry(panelRepository);
+        panelRegistry.reload();
+        service = new SensorArchiveService(sensorDataRepository, archiveBlockRepository, panelRegistry,
+            transactionManager, true, 90, 4, 2);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        archiveBlockRepository.deleteAllInBatch();
+        sensorDataRepository.deleteAllInBatch();
+        panelRepository.deleteAllInBatch();
+        plantRepository.deleteAll();
+    }
+
+    @Test
+    void testArchiveMovesOldReadingsIntoBlocks() {
+        List<SensorData> written = readings("P001", 30);
+
+        assertEquals(15, service.archiveOlderThan(START.plusMinutes(150)));
+
+        assertEquals(15, sensorDataRepository.count());
+        // Blocks of at most four readings
+        assertEquals(4, archiveBlockRepository.count());
+        assertEquals(15L, service.getArchiveStats().get("archivedPoints"));
+        assertEquals(0, service.archiveOlderThan(START.plusMinutes(150)));
+
+        // Hot and archived readings come back as one series, values at the configured precision
+        List<SensorData> series = service.findByPanelIdAndTimestampBetween("P001", START, START.plusMinutes(290));
+        assertEquals(30, series.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(written.get(i).getTimestamp(), series.get(i).getTimestamp());
+            assertEquals(written.get(i).getPower(), series.get(i).getPower(), 1e-9);
+            assertEquals("P001", series.get(i).getPanelId());
+            assertEquals(i < 15, series.get(i).getId() == null);
+        }
+        assertEquals(6, service.findByPanelIdAndTimestampBetween("P001",
+            START.plusMinutes(120), START.plusMinutes(170)).size());
+    }
+
+    @Test
+    void testReadingArchivedDuringReadIsReturnedOnce() {
+        List<SensorData> written = readings("P001", 6);
+        // The state a read sees when the archive job commits between its hot and its archive query:
+        // the hot rows were read, and their copies are in a block
+        SensorArchiveBlock block = new SensorArchiveBlock();
+        block.setPanelId("P001");
+        block.setStartTime(written.get(0).getTimestamp());
+        block.setEndTime(written.get(1).getTimestamp());
+        block.setPointCount(2);
+        block.setPayload(service.encode(written.subList(0, 2)));
+        block.setPayloadBytes(block.getPayload().length);
+        archiveBlockRepository.save(block);
+
+        List<SensorData> series = service.findByPanelIdAndTimestampBetween("P001", START, START.plusMinutes(50));
+
+        assertEquals(6, series.size());
+        assertTrue(series.stream().allMatch(reading -> reading.getId() != null));
+    }
+
+    @Test
+    void testReadingsOfDeletedPanelAreArchivedUnderItsRef() {
+        readings("P001", 3);
+        readings("P002", 3);
+        Long ref = panelRegistry.find("P002").orElseThrow().id();
+        panelRegistry.unregister(ref);
+
+        assertEquals(6, service.archiveOlderThan(START.plusDays(1)));
+
+        List<SensorData> archived = service.findByPanelIdAndTimestampBetween("#" + ref, START, START.plusDays(1));
+        assertEquals(3, archived.size());
+        assertTrue(archived.stream().allMatch(reading -> ("#" + ref).equals(reading.getPanelId())));
+        assertEquals(3, service.findByPanelIdAndTimestampBetween("P001", START, START.plusDays(1)).size());
+        assertTrue(service.findByPanelIdAndTimestampBetween("P002", START, START.plusDays(1)).isEmpty());
+    }
+
+    /**
+     * Readings every ten minutes from START, with values at two decimals
+     */
+    private List<SensorData> readings(String panelId, int count) {
+        Long ref = panelRegistry.find(panelId).orElseThrow().id();
+        List<SensorData> readings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double current = 8.0 + i * 0.01;
+            readings.add(new SensorData(null, ref, panelId, 31.5, current, 25.0 + i * 0.1, 900.0 - i,
+                Math.round(31.5 * current * 100) / 100.0, START.plusMinutes(10L * i)));
+        }
+        return sensorDataRepository.saveAll(readings);
+    }
+}
@@ -0,0 +1,106 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.PredictionResponse;
+import com.solarpanel.faultdetection.dto.SensorDataDTO;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.repository.SensorDataRepository;
+import com.solarpanel.faultdetection.storage.SensorSegmentStore;
+import com.solarpanel.faultdetection.storage.WriteBehindWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * The reading's transaction is simulated with a bare synchronization scope: committing runs the registered
+ * afterCommit callbacks, rolling back discards them.
+ */
+public class SensorDataServiceTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 6, 1, 12, 0);
+    private static final PanelRegistry.PanelInfo PANEL =
+        new PanelRegistry.PanelInfo(7L, "SD-1", 1L, SolarPanel.PanelStatus.ACTIVE, 0.4, 3L);
+
+    private final SensorDataRepository sensorDataRepository = mock(SensorDataRepository.class);
+    private final PredictionService predictionService = mock(PredictionService.class);
+    private final SensorSegmentStore segmentStore = mock(SensorSegmentStore.class);
+    private final WriteBehindWriter writeBehindWriter = mock(WriteBehindWriter.class);
+    private final PanelRegistry panelRegistry = mock(PanelRegistry.class);
+    private final SensorQuantileService quantileService = mock(SensorQuantileService.class);
+    private final PerformanceRatioService performanceRatioService = mock(PerformanceRatioService.class);
+    private final DegradationTrendService degradationTrendService = mock(DegradationTrendService.class);
+    private final PlantPeerAggregator peerAggregator = mock(PlantPeerAggregator.class);
+
+    private final SensorDataService service = new SensorDataService(sensorDataRepository, predictionService,
+        segmentStore, writeBehindWriter, panelRegistry, quantileService, performanceRatioService,
+        degradationTrendService, peerAggregator);
+
+    @BeforeEach
+    void setUp() {
+        when(panelRegistry.find("SD-1")).thenReturn(Optional.of(PANEL));
+        PredictionResponse normal = new PredictionResponse();
+        normal.setPredictedFault("NORMAL");
+        normal.setSeverity("None");
+        when(predictionService.analyzeSensorData(any(), any(), any())).thenReturn(normal);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testStatisticsTakeTheReadingOnceItCommits() {
+        service.processSensorData(reading());
+        verifyNoInteractions(quantileService, performanceRatioService, segmentStore);
+        verify(peerAggregator).peek(PANEL, AT, 800.0);
+        verify(peerAggregator, never()).observe(any(), any(), anyDouble());
+
+        commit();
+        verify(quantileService).record(eq(7L), eq(AT), eq(30.0), eq(25.0), eq(200.0));
+        verify(performanceRatioService).record(eq(PANEL), any());
+        verify(segmentStore).append(any());
+        verify(peerAggregator).observe(PANEL, AT, 800.0);
+    }
+
+    @Test
+    void testRolledBackReadingLeavesStatisticsUntouched() {
+        service.processSensorData(reading());
+
+        TransactionSynchronizationManager.clearSynchronization();
+        verifyNoInteractions(quantileService, performanceRatioService, segmentStore, degradationTrendService);
+        verify(peerAggregator, never()).observe(any(), any(), anyDouble());
+    }
+
+    @Test
+    void testDegradationTakesTheRatioOnceTheReadingCommits() {
+        when(performanceRatioService.record(eq(PANEL), any())).thenReturn(Optional.of(0.9));
+        service.processSensorData(reading());
+        verifyNoInteractions(degradationTrendService);
+
+        commit();
+        verify(degradationTrendService).record(7L, AT, 0.9);
+    }
+
+    private static SensorDataDTO reading() {
+        return new SensorDataDTO("SD-1", 30.0, 6.5, 25.0, 800.0, 200.0, AT);
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.ImportJobStatus;
+import com.solarpanel.faultdetection.dto.SensorImportRequest;
+import com.solarpanel.faultdetection.entity.SensorData;
+import com.solarpanel.faultdetection.entity.SolarPanel;
+import com.solarpanel.faultdetection.entity.SolarPlant;
+import com.solarpanel.faultdetection.repository.SensorDataRepository;
+import com.solarpanel.faultdetection.repository.SensorQuantileRollupRepository;
+import com.solarpanel.faultdetection.repository.SolarPanelRepository;
+import com.solarpanel.faultdetection.repository.SolarPlantRepository;
+import com.solarpanel.faultdetection.storage.SensorSegmentStore;
+import com.solarpanel.faultdetection.storage.WriteBehindWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SensorImportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SensorDataRepository sensorDataRepository;
+
+    @Autowired
+    private SolarPlantRepository plantRepository;
+
+    @Autowired
+    private SolarPanelRepository panelRepository;
+
+    @Autowired
+    private SensorQuantileRollupRepository rollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PanelRegistry panelRegistry;
+
+    @TempDir
+    Path directory;
+
+    private final PredictionService predictionService = mock(PredictionService.class);
+    private final DegradationTrendService degradationTrendService = mock(DegradationTrendService.class);
+
+    @BeforeEach
+    void setUp() {
+        SolarPlant plant = new SolarPlant();
+        plant.setName("Import Plant");
+        plant.setLocation("Site I");
+        plant.setCapacityKW(10.0);
+        plant = plantRepository.save(plant);
+        for (String panelId : List.of("P001", "P002", "P003", "P004")) {
+            SolarPanel panel = new SolarPanel();
+            panel.setPanelId(panelId);
+            panel.setPlant(plant);
+            panel.setInstallationDate(LocalDate.of(2022, 1, 1));
+            panel.setCapacity(0.4);
+            panelRepository.save(panel);
+        }
+        panelRegistry = new PanelRegistry(panelRepository);
+        panelRegistry.reload();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        sensorDataRepository.deleteAllInBatch();
+        panelRepository.deleteAllInBatch();
+        plantRepository.deleteAll();
+    }
+
+    @Test
+    void testImportsHistoricalCsvWithSynthesizedTimestamps() {
+        SensorImportService service = service(4, 500);
+
+        ImportJobStatus status = service.runImport(
+            new SensorImportRequest("../data/solar_panel_data.csv", "P001", START, 60L, false));
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(10000, status.getRowsInserted());
+        assertEquals(0, status.getRowsRejected());
+        assertEquals(100.0, status.getProgressPercent());
+        assertEquals(10000, sensorDataRepository.count());
+
+        // Rows keep file order in their timestamps even though chunks load in parallel
+        List<SensorData> last = sensorDataRepository.findByPanelRefAndTimestampBetween(ref("P001"),
+            START.plusMinutes(9999), START.plusMinutes(9999));
+        assertEquals(1, last.size());
+        verifyNoInteractions(predictionService);
+    }
+
+    @Test
+    void testRejectsBadRowsWithLineNumbers() throws IOException {
+        Path file = directory.resolve("mixed.csv");
+        Files.writeString(file, "timestamp,panel_id,voltage,current,temperature,irradiance,power\n"
+            + "2024-02-01T10:00:00,P002,31.5,8.1,25.0,900.0,255.2\n"
+            + "2024-02-01T10:01:00,P002,abc,8.1,25.0,900.0,255.2\n"
+            + "2024-02-01T10:02:00,P003,31.7,8.0,25.1,905.0,253.6\n"
+            + "2024-02-01T10:03:00,P003,31.7\n"
+            + "not-a-date,P003,31.7,8.0,25.1,905.0,253.6\n"
+            + "2024-02-01T10:04:00,P999,31.7,8.0,25.1,905.0,253.6\n");
+
+        ImportJobStatus status = service(2, 2).runImport(new SensorImportRequest(file.toString(), null, null, 60L, false));
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(2, status.getRowsInserted());
+        assertEquals(4, status.getRowsRejected());
+        assertEquals(6, status.getRowsRead());
+        assertTrue(status.getErrorSamples().stream().anyMatch(e -> e.startsWith("line 3:")));
+        assertTrue(status.getErrorSamples().stream().anyMatch(e -> e.startsWith("line 5:")));
+        assertTrue(status.getErrorSamples().stream().anyMatch(e -> e.startsWith("line 6:")));
+        assertTrue(status.getErrorSamples().stream().anyMatch(e -> e.startsWith("line 7:") && e.contains("P999")));
+        assertEquals(1, sensorDataRepository.findByPanelRefAndTimestampBetween(ref("P003"),
+            LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 2, 2, 0, 0)).size());
+
+        // Imported history reaches the degradation regression: 255.2 W of 360 W expected at 900 W/m2 and 25 C
+        verify(degradationTrendService).record(ref("P002"), LocalDateTime.of(2024, 2, 1, 10, 0), 255.2 / 360.0);
+        verify(degradationTrendService, times(2)).record(any(), any(), anyDouble());
+    }
+
+    @Test
+    void testOptionalScoringAndMissingColumns() throws IOException {
+        Path file = directory.resolve("small.csv");
+        Files.writeString(file, "voltage,current,temperature,irradiance,power,fault_type\n"
+            + "31.5,8.1,25.0,900.0,255.2,NORMAL\n32.0,8.0,26.0,910.0,256.0,NORMAL\n");
+        SensorImportService service = service(1, 100);
+
+        ImportJobStatus status = service.runImport(new SensorImportRequest(file.toString(), "P004", START, 10L, true));
+        assertEquals(2, status.getRowsScored());
+        verify(predictionService, times(2)).analyzeSensorData(any(), eq("P004"));
+
+        ImportJobStatus failed = service.runImport(new SensorImportRequest(file.toString(), null, START, 10L, false));
+        assertEquals("FAILED", failed.getState());
+        assertTrue(failed.getFailureMessage().contains("panelId"));
+
+        ImportJobStatus unknown = service.runImport(new SensorImportRequest(file.toString(), "P999", START, 10L, false));
+        assertEquals("FAILED", unknown.getState());
+        assertTrue(unknown.getFailureMessage().contains("Unknown panel ID"));
+    }
+
+    @Test
+    void testAdminImportsAreConfinedToBaseDirectory() {
+        SensorImportService service = service(1, 100);
+
+        assertThrows(IllegalArgumentException.class, () -> service.startImport(
+            new SensorImportRequest("../outside.csv", "P001", START, 60L, false)));
+    }
+
+    private SensorImportService service(int threads, int batchSize) {
+        SensorSegmentStore disabledStore = new SensorSegmentStore(false, directory.toString(), 24, 1024, 0);
+        SensorQuantileService disabledQuantiles = new SensorQuantileService(rollupRepository, panelRegistry,
+            transactionManager, false);
+        PerformanceRatioService performanceRatioService = new PerformanceRatioService(mock(WriteBehindWriter.class),
+            -0.004, 200, 0.75, 0.05, 20);
+        return new SensorImportService(dataSource, predictionService, disabledStore, panelRegistry, disabledQuantiles,
+            performanceRatioService, degradationTrendService, directory.toString(), threads, batchSize);
+    }
+
+    private Long ref(String panelId) {
+        return panelRegistry.find(panelId).orElseThrow().id();
+    }
+}
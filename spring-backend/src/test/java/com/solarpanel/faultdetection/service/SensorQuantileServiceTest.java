@@ -0,0 +1,110 @@
+package com.solarpanel.faultdetection.service;
+
+import com.solarpanel.faultdetection.dto.SensorQuantileResponse;
+import com.solarpanel.faultdetection.entity.SensorQuantileRollup;
+import com.solarpanel.faultdetection.repository.SensorQuantileRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorQuantileServiceTest extends PanelRegistryFixtureTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    @Autowired
+    private SensorQuantileRollupRepository rollupRepository;
+
+    private SensorQuantileService quantileService;
+    private Long plantId;
+
+    @BeforeEach
+    void setUp() {
+        plantId = savePlant("Quantile Plant", 0.4, "Q-1", "Q-2");
+        savePlant("Other Plant", 0.4, "Q-3");
+        quantileService = new SensorQuantileService(rollupRepository, panelRegistry, transactionManager, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        rollupRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testFlushMergesIntoOneRowPerPanelAndHour() {
+        // Power 1..100 for Q-1 in the first hour, in two flushes
+        for (int i = 1; i <= 100; i++) {
+            record("Q-1", BASE.plusSeconds(i * 30L), i);
+            if (i == 60) {
+                quantileService.flush();
+            }
+        }
+        quantileService.flush();
+
+        assertEquals(1, rollupRepository.count());
+        SensorQuantileResponse panel = quantileService.quantiles("Q-1", null, BASE, BASE.plusMinutes(59));
+        assertEquals(100, panel.getCount());
+        assertEquals(1, panel.getBucketsMerged());
+        assertEquals(1.0, panel.getPower().getMin());
+        assertEquals(50.5, panel.getPower().getP50(), 1.0);
+        assertEquals(95.5, panel.getPower().getP95(), 1.0);
+        assertEquals(100.0, panel.getPower().getMax());
+    }
+
+    @Test
+    void testPlantAndFleetMergeAcrossPanelsAndHours() {
+        for (int i = 0; i < 50; i++) {
+            record("Q-1", BASE.plusMinutes(i), 100 + i);
+            record("Q-2", BASE.plusHours(1).plusMinutes(i), 200 + i);
+            record("Q-3", BASE.plusMinutes(i), 1000 + i);
+        }
+        quantileService.flush();
+        // Not flushed yet, still part of the answer
+        record("Q-2", BASE.plusHours(1).plusMinutes(55), 250);
+
+        SensorQuantileResponse plant = quantileService.quantiles(null, plantId, BASE, BASE.plusHours(2));
+        assertEquals(101, plant.getCount());
+        assertEquals(3, plant.getBucketsMerged());
+        assertEquals(250.0, plant.getPower().getMax());
+
+        SensorQuantileResponse fleet = quantileService.quantiles(null, null, BASE, BASE.plusHours(2));
+        assertEquals(151, fleet.getCount());
+        assertTrue(fleet.getPower().getP95() >= 1000);
+
+        // Only the first hour
+        SensorQuantileResponse firstHour = quantileService.quantiles(null, plantId, BASE, BASE.plusMinutes(30));
+        assertEquals(50, firstHour.getCount());
+        assertNull(quantileService.quantiles("Q-1", null, BASE.minusDays(1), BASE.minusHours(2)).getPower());
+    }
+
+    @Test
+    void testStaleRollupUpdateIsRejected() {
+        record("Q-1", BASE, 10);
+        quantileService.flush();
+        SensorQuantileRollup first = rollupRepository.findAll().get(0);
+        SensorQuantileRollup second = rollupRepository.findAll().get(0);
+
+        first.setSampleCount(2L);
+        rollupRepository.save(first);
+        // A flush that read the row before the other one saved it must not overwrite its digests
+        second.setSampleCount(3L);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> rollupRepository.save(second));
+    }
+
+    @Test
+    void testInvalidRequestsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> quantileService.quantiles("NOPE", null, BASE, BASE));
+        assertThrows(IllegalArgumentException.class, () -> quantileService.quantiles("Q-1", plantId, BASE, BASE));
+        assertThrows(IllegalArgumentException.class,
+            () -> quantileService.quantiles(null, null, BASE.plusHours(1), BASE));
+    }
+
+    private void record(String panelId, LocalDateTime timestamp, double power) {
+        quantileService.record(ref(panelId), timestamp, 30.0, 25.0, power);
+    }
+}
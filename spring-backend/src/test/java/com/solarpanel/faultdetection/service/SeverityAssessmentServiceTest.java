@@ -48,6 +48,16 @@ public class SeverityAssessmentServiceTest {
         assertEquals("Critical", severity); // Escalated due to critical sensor conditions
     }
     
+    @Test
+    void testAssessSeverity_PlantWideDip() {
+        PlantPeerAggregator.PeerContext cloud = new PlantPeerAggregator.PeerContext(5, -0.05, 0.6, true);
+        PlantPeerAggregator.PeerContext alone = new PlantPeerAggregator.PeerContext(5, -0.6, 0.1, false);
+        assertEquals("None", severityAssessmentService.assessSeverity("PARTIAL_SHADING", normalSensorData, 0.90, cloud));
+        assertEquals("Medium", severityAssessmentService.assessSeverity("PARTIAL_SHADING", normalSensorData, 0.90, alone));
+        assertEquals("Medium", severityAssessmentService.assessSeverity("PANEL_DEGRADATION", normalSensorData, 0.90, cloud));
+        assertEquals("Critical", severityAssessmentService.assessSeverity("INVERTER_FAULT", normalSensorData, 0.90, cloud));
+    }
+    
     @Test
     void testGetMaintenanceRecommendation_Normal() {
         String recommendation = severityAssessmentService.getMaintenanceRecommendation("NORMAL", "None");
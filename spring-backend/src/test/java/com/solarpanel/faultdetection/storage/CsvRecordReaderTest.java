@@ -0,0 +1,80 @@
+package com.solarpanel.faultdetection.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvRecordReaderTest {
+
+    @Test
+    void testParsesDoublesLikeDoubleParseDouble() throws IOException {
+        // Real sensor exports carry 16-17 significant digits
+        List<String> lines = Files.readAllLines(Path.of("../data/improved_solar_data.csv"));
+        CsvRecordReader reader = reader(String.join("\n", lines.subList(1, 1001)));
+
+        int row = 1;
+        while (reader.next()) {
+            String[] fields = lines.get(row++).split(",");
+            for (int f = 0; f < 5; f++) {
+                double expected = Double.parseDouble(fields[f]);
+                assertEquals(expected, reader.getDouble(f), Math.ulp(expected), "row " + row + " field " + f);
+            }
+        }
+        assertEquals(1001, row);
+    }
+
+    @Test
+    void testNumberFormats() {
+        CsvRecordReader reader = reader("-4,+0.5, 12 ,1.5e3,2E-2,.25,007,0.000001\r\n");
+
+        assertTrue(reader.next());
+        assertEquals(8, reader.getFieldCount());
+        double[] expected = {-4, 0.5, 12, 1500, 0.02, 0.25, 7, 0.000001};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], reader.getDouble(i));
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void testInvalidNumbersAreRejected() {
+        CsvRecordReader reader = reader("abc,,1.2.3,-,1e\n");
+
+        assertTrue(reader.next());
+        for (int i = 0; i < 5; i++) {
+            int field = i;
+            assertThrows(NumberFormatException.class, () -> reader.getDouble(field));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.getDouble(5));
+    }
+
+    @Test
+    void testDateTimesPanelIdsAndBlankLines() {
+        CsvRecordReader reader = reader("P001,2024-01-15T10:30:00\n\n\nP002,2024-01-15 10:30:05.250\nP001,2024-01-15T10:31");
+
+        assertTrue(reader.next());
+        assertTrue(reader.fieldEquals(0, "P001".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), reader.getDateTime(1));
+
+        assertTrue(reader.next());
+        assertFalse(reader.fieldEquals(0, "P001".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("P002", new String(reader.getBytes(0), StandardCharsets.US_ASCII));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30, 5, 250_000_000), reader.getDateTime(1));
+
+        assertTrue(reader.next());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 31), reader.getDateTime(1));
+        assertFalse(reader.next());
+    }
+
+    private CsvRecordReader reader(String content) {
+        return new CsvRecordReader(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
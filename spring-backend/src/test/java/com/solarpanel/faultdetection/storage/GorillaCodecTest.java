@@ -0,0 +1,98 @@
+package com.solarpanel.faultdetection.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GorillaCodecTest {
+
+    private static final long START = 1705276800000L;
+
+    @Test
+    void testLosslessRoundTrip() {
+        Random random = new Random(42);
+        int count = 500;
+        long[] timestamps = new long[count];
+        double[][] columns = new double[2][count];
+        long time = START;
+        for (int i = 0; i < count; i++) {
+            // Mostly regular interval with occasional jitter and gaps
+            time += i % 50 == 0 ? 3_600_000L : 10_000L + random.nextInt(400) - 200;
+            timestamps[i] = time;
+            columns[0][i] = 30.0 + random.nextGaussian();
+            columns[1][i] = i % 7 == 0 ? -0.0 : random.nextDouble() * 1e12;
+        }
+
+        GorillaCodec.Block block = GorillaCodec.decode(GorillaCodec.encode(timestamps, columns, GorillaCodec.LOSSLESS));
+
+        assertArrayEquals(timestamps, block.timestamps());
+        for (int c = 0; c < columns.length; c++) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(Double.doubleToRawLongBits(columns[c][i]), Double.doubleToRawLongBits(block.columns()[c][i]));
+            }
+        }
+    }
+
+    @Test
+    void testFixedPrecisionRoundTrip() {
+        long[] timestamps = {START, START + 10_000, START + 20_000, START + 30_000};
+        double[][] columns = {{31.886, 28.314, 28.314, 0.0}, {349.70287, 1038.30453, 0.0, -12.5}};
+
+        GorillaCodec.Block block = GorillaCodec.decode(GorillaCodec.encode(timestamps, columns, 2));
+
+        assertArrayEquals(timestamps, block.timestamps());
+        assertArrayEquals(new double[]{31.89, 28.31, 28.31, 0.0}, block.columns()[0], 1e-9);
+        assertArrayEquals(new double[]{349.70, 1038.30, 0.0, -12.5}, block.columns()[1], 1e-9);
+    }
+
+    @Test
+    void testEmptyBlockAndInvalidInput() {
+        GorillaCodec.Block empty = GorillaCodec.decode(GorillaCodec.encode(new long[0], new double[3][0], 2));
+        assertEquals(0, empty.size());
+        assertEquals(3, empty.columns().length);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> GorillaCodec.encode(new long[]{2, 1}, new double[][]{{1, 2}}, 2));
+        assertThrows(IllegalArgumentException.class,
+            () -> GorillaCodec.encode(new long[]{1, 2}, new double[][]{{1}}, 2));
+        assertThrows(IllegalArgumentException.class,
+            () -> GorillaCodec.encode(new long[]{1}, new double[][]{{1}}, 255));
+        assertThrows(IllegalArgumentException.class,
+            () -> GorillaCodec.encode(new long[]{1}, new double[][]{{1}}, -2));
+    }
+
+    @Test
+    void testCompressionRatioOnSensorSeries() {
+        // One day of 10 second readings from a panel, with realistic drift and sensor noise
+        Random random = new Random(7);
+        int count = 8640;
+        long[] timestamps = new long[count];
+        double[][] columns = new double[5][count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = START + i * 10_000L;
+            double sun = Math.max(0, Math.sin(Math.PI * (i - 2160) / 4320.0));
+            double irradiance = sun * 950 + random.nextGaussian() * 2;
+            double current = sun * 8.2 + random.nextGaussian() * 0.02;
+            double voltage = sun > 0 ? 31.5 + random.nextGaussian() * 0.05 : 0;
+            columns[0][i] = voltage;
+            columns[1][i] = Math.max(0, current);
+            columns[2][i] = 18 + sun * 22 + random.nextGaussian() * 0.1;
+            columns[3][i] = Math.max(0, irradiance);
+            columns[4][i] = columns[0][i] * columns[1][i];
+        }
+
+        byte[] encoded = GorillaCodec.encode(timestamps, columns, 2);
+        double bytesPerPoint = (double) encoded.length / count;
+
+        // A sensor_data row costs 80+ bytes in MySQL with its indexes
+        assertTrue(bytesPerPoint * 10 <= 80, "Expected 10x reduction, got " + bytesPerPoint + " bytes per point");
+
+        GorillaCodec.Block block = GorillaCodec.decode(encoded);
+        assertArrayEquals(timestamps, block.timestamps());
+        for (int c = 0; c < columns.length; c++) {
+            assertArrayEquals(columns[c], block.columns()[c], 0.005 + 1e-9);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.solarpanel.faultdetection.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HoltWintersTest {
+
+    private static final long START = LocalDateTime.of(2024, 6, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) / 3600;
+
+    /**
+     * Clear-sky power curve of a 300 W panel, zero at night
+     */
+    private static double solar(long hour, double scale) {
+        int hourOfDay = (int) Math.floorMod(hour, 24);
+        return Math.max(0, Math.sin(Math.PI * (hourOfDay - 6) / 12)) * 300 * scale;
+    }
+
+    @Test
+    void testLearnsDailyShapeAndAdaptsToLowerOutput() {
+        HoltWinters model = new HoltWinters(0.3, 0.01, 0.2);
+        for (long hour = START; hour < START + 24; hour++) {
+            assertFalse(model.isReady());
+            model.observe(hour, solar(hour, 1));
+        }
+        assertTrue(model.isReady());
+        // A repeating day is forecast exactly
+        assertEquals(solar(START + 36, 1), model.forecastAt(START + 36), 1e-9);
+        assertEquals(0.0, model.forecastAt(START + 26), 1e-9);
+
+        // Output drops by a fifth and stays there
+        for (long hour = START + 24; hour < START + 24 * 15; hour++) {
+            model.observe(hour, solar(hour, 0.8));
+        }
+        long noon = START + 24 * 15 + 12;
+        assertEquals(240, model.forecastAt(noon), 240 * 0.1);
+        assertEquals(solar(START + 24 * 15 - 1, 0.8), model.actualAt(START + 24 * 15 - 1));
+        assertFalse(Double.isNaN(model.forecastAt(START + 24 * 15 - 5)));
+        assertTrue(model.meanAbsoluteError() > 0);
+    }
+
+    @Test
+    void testGapsLateHoursAndRoundTrip() {
+        HoltWinters model = new HoltWinters(0.3, 0.01, 0.2);
+        for (long hour = START; hour < START + 48; hour++) {
+            if (hour % 24 != 3 || hour < START + 24) {
+                model.observe(hour, solar(hour, 1));
+            }
+        }
+        // The missing hour is filled: it has a forecast but no actual, and still counts in the seasons
+        assertEquals(48, model.observations());
+        assertTrue(Double.isNaN(model.actualAt(START + 27)));
+        assertEquals(0.0, model.forecastAt(START + 27), 1e-9);
+
+        // Hours already seen are ignored
+        model.observe(START + 10, 1000);
+        assertEquals(START + 47, model.lastHour());
+
+        HoltWinters copy = HoltWinters.fromBytes(model.toBytes(), 0.3, 0.01, 0.2);
+        assertEquals(616, model.toBytes().length);
+        for (long hour = START + 24; hour < START + 72; hour++) {
+            assertEquals(model.forecastAt(hour), copy.forecastAt(hour), 0.0);
+            assertEquals(model.actualAt(hour), copy.actualAt(hour), 0.0);
+        }
+
+        // More than a week without data starts over
+        model.observe(START + 48 + 24 * 8, 100);
+        assertEquals(1, model.observations());
+        assertFalse(model.isReady());
+    }
+
+    @Test
+    void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new HoltWinters(1.5, 0.1, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new HoltWinters(0.3, 0.1, 0.1).observe(START, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> HoltWinters.fromBytes(new byte[10], 0.3, 0.1, 0.1));
+    }
+}
@@ -0,0 +1,53 @@
+package com.solarpanel.faultdetection.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunningRegressionTest {
+
+    @Test
+    void testRecoversLineWithStandardError() {
+        Random random = new Random(3);
+        RunningRegression regression = new RunningRegression();
+        for (int i = 0; i < 10_000; i++) {
+            double x = 4 + i / 1000.0;
+            regression.add(x, 0.9 - 0.005 * x + random.nextGaussian() * 0.02);
+        }
+
+        assertEquals(-0.005, regression.slope(), 3 * regression.slopeStandardError());
+        assertEquals(0.9, regression.intercept(), 0.01);
+        // sigma / sqrt(n * var(x)) for x uniform over 10 years
+        assertEquals(0.02 / Math.sqrt(10_000 * 100 / 12.0), regression.slopeStandardError(), 1e-4);
+    }
+
+    @Test
+    void testMergedSumsMatchSinglePass() {
+        RunningRegression all = new RunningRegression();
+        RunningRegression first = new RunningRegression();
+        RunningRegression second = new RunningRegression();
+        for (int i = 0; i < 100; i++) {
+            double x = i * 0.1;
+            double y = 2 * x + (i % 3);
+            all.add(x, y);
+            (i < 40 ? first : second).add(x, y);
+        }
+        first.add(second);
+
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.slope(), first.slope(), 1e-12);
+        assertEquals(all.slopeStandardError(), first.slopeStandardError(), 1e-12);
+    }
+
+    @Test
+    void testUndefinedWithoutSpread() {
+        RunningRegression regression = new RunningRegression();
+        regression.add(1, 1);
+        assertTrue(Double.isNaN(regression.slope()));
+        regression.add(1, 2);
+        regression.add(1, 3);
+        assertTrue(Double.isNaN(regression.slopeStandardError()));
+    }
+}
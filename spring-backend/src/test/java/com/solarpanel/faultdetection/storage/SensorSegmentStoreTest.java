@@ -0,0 +1,131 @@
+package com.solarpanel.faultdetection.storage;
+
+import com.solarpanel.faultdetection.dto.TelemetryAggregateResponse;
+import com.solarpanel.faultdetection.entity.SensorData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorSegmentStoreTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 1, 15, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAggregateAcrossPanelsAndWindows() {
+        SensorSegmentStore store = openStore(1024);
+        store.append(reading("P001", DAY.plusHours(10), 30.0, 100.0));
+        store.append(reading("P001", DAY.plusHours(11), 34.0, 300.0));
+        store.append(reading("P002", DAY.plusHours(12), 32.0, 200.0));
+        store.append(reading("P001", DAY.plusDays(1).plusHours(10), 36.0, 400.0));
+
+        TelemetryAggregateResponse all = store.aggregate(null, DAY, DAY.plusDays(2));
+        assertEquals(4, all.getCount());
+        assertEquals(100.0, all.getPower().getMin());
+        assertEquals(400.0, all.getPower().getMax());
+        assertEquals(250.0, all.getPower().getAverage(), 1e-9);
+
+        TelemetryAggregateResponse panel = store.aggregate("P001", DAY, DAY.plusHours(23));
+        assertEquals(2, panel.getCount());
+        assertEquals(32.0, panel.getVoltage().getAverage(), 1e-9);
+        assertEquals(1, panel.getSegmentsScanned());
+
+        assertEquals(0, store.aggregate("UNKNOWN", DAY, DAY.plusDays(2)).getCount());
+    }
+
+    @Test
+    void testFullSegmentRollsOverAndIsSealed() throws IOException {
+        SensorSegmentStore store = openStore(2);
+        for (int i = 0; i < 5; i++) {
+            store.append(reading("P001", DAY.plusMinutes(i), 30.0, i));
+        }
+
+        assertEquals(2, store.getSealedSegmentCount());
+        assertEquals(1, store.getActiveSegmentCount());
+        assertEquals(5, store.aggregate("P001", DAY, DAY.plusHours(1)).getCount());
+        assertEquals(2, countFiles(SensorSegment.SEALED_SUFFIX));
+    }
+
+    @Test
+    void testRecoveryReopensActiveSegmentsAndDiscardsPartialSeals() throws IOException {
+        SensorSegmentStore store = openStore(1024);
+        store.append(reading("P001", DAY.plusHours(1), 30.0, 100.0));
+        store.append(reading("P002", DAY.plusHours(2), 30.0, 200.0));
+        store.flush();
+        Files.writeString(directory.resolve("seg-0-0000.seg.tmp"), "half written");
+
+        SensorSegmentStore reopened = openStore(1024);
+        assertEquals(0, countFiles(SensorSegment.TEMP_SUFFIX));
+        assertEquals(2, reopened.getRowCount());
+
+        reopened.append(reading("P002", DAY.plusHours(3), 30.0, 400.0));
+        TelemetryAggregateResponse panel = reopened.aggregate("P002", DAY, DAY.plusHours(4));
+        assertEquals(2, panel.getCount());
+        assertEquals(300.0, panel.getPower().getAverage(), 1e-9);
+    }
+
+    @Test
+    void testSealedSegmentSurvivesRestartWithIndex() throws IOException {
+        SensorSegmentStore store = openStore(1024);
+        store.append(reading("P001", DAY.plusHours(1), 30.0, 100.0));
+        store.append(reading("P001", DAY.plusHours(2), 40.0, 500.0));
+        // Closed windows are sealed by the periodic check
+        store.sealExpiredSegments();
+        assertEquals(1, store.getSealedSegmentCount());
+        assertEquals(0, countFiles(SensorSegment.ACTIVE_SUFFIX));
+
+        SensorSegmentStore reopened = openStore(1024);
+        assertEquals(1, reopened.getSealedSegmentCount());
+        assertEquals(2, reopened.aggregate("P001", DAY, DAY.plusDays(1)).getCount());
+        assertEquals(0, reopened.aggregate(null, DAY.plusDays(1), DAY.plusDays(2)).getSegmentsScanned());
+
+        Path sealed = listFiles(SensorSegment.SEALED_SUFFIX).get(0);
+        SensorSegment segment = SensorSegment.open(sealed);
+        assertEquals(100.0, segment.getMetricMin(SensorSegment.POWER));
+        assertEquals(500.0, segment.getMetricMax(SensorSegment.POWER));
+    }
+
+    @Test
+    void testCorruptSealedSegmentIsRejected() throws IOException {
+        SensorSegmentStore store = openStore(1024);
+        store.append(reading("P001", DAY.plusHours(1), 30.0, 100.0));
+        store.sealExpiredSegments();
+
+        Path sealed = listFiles(SensorSegment.SEALED_SUFFIX).get(0);
+        byte[] bytes = Files.readAllBytes(sealed);
+        bytes[bytes.length - 1] ^= 0x7f;
+        Files.write(sealed, bytes);
+
+        assertThrows(IOException.class, () -> SensorSegment.open(sealed));
+    }
+
+    private SensorSegmentStore openStore(int capacity) {
+        SensorSegmentStore store = new SensorSegmentStore(true, directory.toString(), 24, capacity, 0);
+        store.initialize();
+        return store;
+    }
+
+    private SensorData reading(String panelId, LocalDateTime timestamp, double voltage, double power) {
+        return new SensorData(null, null, panelId, voltage, 8.0, 25.0, 800.0, power, timestamp);
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        return listFiles(suffix).size();
+    }
+
+    private List<Path> listFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).toList();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.solarpanel.faultdetection.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpaceSavingTest {
+
+    @Test
+    void testHeavyHittersFoundWithBoundedError() {
+        // 10 heavy panels among 20000 panels with a long tail, tracked in 200 slots
+        Random random = new Random(7);
+        SpaceSaving summary = new SpaceSaving(200);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            String key = random.nextInt(10) == 0 ? "HEAVY-" + random.nextInt(10) : "P" + random.nextInt(20_000);
+            summary.offer(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        assertEquals(200, summary.size());
+        assertEquals(200_000, summary.total());
+        List<SpaceSaving.Counter> top = summary.top(10);
+        assertEquals(10, top.size());
+        for (SpaceSaving.Counter counter : top) {
+            assertTrue(counter.key().startsWith("HEAVY-"), counter.key());
+            long actual = exact.get(counter.key());
+            assertTrue(counter.count() >= actual);
+            assertTrue(counter.count() - counter.error() <= actual);
+        }
+        assertTrue(top.get(0).count() >= top.get(9).count());
+    }
+
+    @Test
+    void testMergeAddsCountsAndTotals() {
+        SpaceSaving first = new SpaceSaving(3);
+        SpaceSaving second = new SpaceSaving(3);
+        for (int i = 0; i < 5; i++) {
+            first.offer("A");
+            second.offer("A");
+        }
+        first.offer("B");
+        second.offer("C");
+        second.offer("D");
+        second.offer("E");
+
+        SpaceSaving merged = new SpaceSaving(3);
+        merged.merge(first);
+        merged.merge(second);
+
+        assertEquals(14, merged.total());
+        SpaceSaving.Counter top = merged.top(1).get(0);
+        assertEquals("A", top.key());
+        assertEquals(10, top.count());
+        assertEquals(0, top.error());
+        assertEquals(3, merged.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.solarpanel.faultdetection.storage;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Accuracy against exact quantiles of the voltage, temperature and power columns of the sample data set
+ */
+public class TDigestTest {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+    // Allowed error in rank, as a fraction of the data set
+    private static final double[] RANK_TOLERANCE = {0.01, 0.005, 0.002};
+    private static final String[] METRICS = {"voltage", "temperature", "power"};
+    private static final int[] COLUMNS = {0, 2, 4};
+
+    private static double[][] data;
+
+    @BeforeAll
+    static void load() throws IOException {
+        List<String> lines = Files.readAllLines(Path.of("../data/improved_solar_data.csv"));
+        data = new double[COLUMNS.length][lines.size() - 1];
+        for (int row = 1; row < lines.size(); row++) {
+            String[] fields = lines.get(row).split(",");
+            for (int m = 0; m < COLUMNS.length; m++) {
+                data[m][row - 1] = Double.parseDouble(fields[COLUMNS[m]]);
+            }
+        }
+    }
+
+    @Test
+    void testSingleDigestMatchesExactQuantiles() {
+        for (int m = 0; m < METRICS.length; m++) {
+            TDigest digest = new TDigest();
+            for (double value : data[m]) {
+                digest.add(value);
+            }
+            assertAccurate(METRICS[m], data[m], digest);
+            assertTrue(digest.centroidCount() <= 2 * TDigest.DEFAULT_COMPRESSION);
+        }
+    }
+
+    @Test
+    void testMergedDigestsMatchExactQuantiles() {
+        // Like hourly per-panel digests of 100 readings merged into one plant-level answer
+        for (int m = 0; m < METRICS.length; m++) {
+            TDigest merged = new TDigest();
+            for (int from = 0; from < data[m].length; from += 100) {
+                TDigest part = new TDigest();
+                for (int i = from; i < Math.min(from + 100, data[m].length); i++) {
+                    part.add(data[m][i]);
+                }
+                // Through the persisted form, as the rollups are
+                merged.add(TDigest.fromBytes(part.toBytes()));
+            }
+            assertEquals(data[m].length, merged.size());
+            assertAccurate(METRICS[m], data[m], merged);
+            assertEquals(Arrays.stream(data[m]).average().orElseThrow(), merged.mean(),
+                1e-9 * Math.max(1, Math.abs(merged.mean())));
+        }
+    }
+
+    @Test
+    void testSmallAndEmptyDigests() {
+        TDigest digest = new TDigest();
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+        assertTrue(Double.isNaN(digest.mean()));
+
+        digest.add(3.0);
+        assertEquals(3.0, digest.quantile(0.99));
+        digest.add(1.0);
+        digest.add(2.0);
+        assertEquals(1.0, digest.min());
+        assertEquals(3.0, digest.max());
+        assertEquals(2.0, digest.quantile(0.5), 1e-9);
+        assertEquals(2.0, digest.mean(), 1e-12);
+
+        TDigest copy = TDigest.fromBytes(digest.toBytes());
+        assertEquals(3, copy.size());
+        assertEquals(digest.quantile(0.5), copy.quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> digest.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> digest.add(Double.NaN));
+    }
+
+    private static void assertAccurate(String metric, double[] values, TDigest digest) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            double estimate = digest.quantile(QUANTILES[i]);
+            double rank = rank(sorted, estimate);
+            assertEquals(QUANTILES[i], rank, RANK_TOLERANCE[i],
+                metric + " p" + Math.round(QUANTILES[i] * 100) + " estimate " + estimate + " has rank " + rank);
+        }
+        assertEquals(sorted[0], digest.min());
+        assertEquals(sorted[sorted.length - 1], digest.max());
+    }
+
+    /**
+     * Fraction of values below the estimate, counting ties as half
+     */
+    private static double rank(double[] sorted, double value) {
+        int below = 0;
+        int equal = 0;
+        for (double v : sorted) {
+            if (v < value) {
+                below++;
+            } else if (v == value) {
+                equal++;
+            }
+        }
+        return (below + equal / 2.0) / sorted.length;
+    }
+}
@@ -0,0 +1,162 @@
+package com.solarpanel.faultdetection.storage;
+
+import com.solarpanel.faultdetection.entity.Alert;
+import com.solarpanel.faultdetection.entity.PredictionResult;
+import com.solarpanel.faultdetection.repository.AlertRepository;
+import com.solarpanel.faultdetection.repository.PredictionResultRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WriteBehindWriterTest {
+
+    @Autowired
+    private PredictionResultRepository predictionRepository;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void cleanUp() {
+        alertRepository.deleteAll();
+        predictionRepository.deleteAll();
+    }
+
+    @Test
+    void testSubmitAssignsIdsAndBatches() throws Exception {
+        WriteBehindWriter writer = openWriter(true, 50, 20);
+        List<CompletableFuture<Alert>> futures = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            futures.add(writer.submit(alert("P00" + (i % 5 + 1))));
+        }
+
+        for (CompletableFuture<Alert> future : futures) {
+            assertNotNull(future.get(5, TimeUnit.SECONDS).getId());
+        }
+        assertEquals(120, alertRepository.count());
+        assertEquals(120, futures.stream().map(f -> f.join().getId()).distinct().count());
+
+        writer.shutdown();
+        assertTrue(meterRegistry.get("writebehind.batch.size").summary().max() > 1);
+        assertEquals(120.0, meterRegistry.get("writebehind.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void testShutdownFlushesQueuedAlerts() {
+        // Long delay so nothing flushes before shutdown
+        WriteBehindWriter writer = openWriter(true, 1000, 60_000);
+        for (int i = 0; i < 10; i++) {
+            writer.submit(alert("P00" + (i % 5 + 1)));
+        }
+
+        writer.shutdown();
+
+        assertEquals(10, alertRepository.count());
+        assertEquals(0, writer.getBacklog());
+        assertTrue(alertRepository.findAll().stream().allMatch(a -> a.getStatus() == Alert.AlertStatus.OPEN));
+    }
+
+    @Test
+    void testFailedAlertDoesNotSinkBatch() throws Exception {
+        WriteBehindWriter writer = openWriter(true, 50, 200);
+        CompletableFuture<Alert> good = writer.submit(alert("P001"));
+        Alert tooLong = alert("P002");
+        // message is limited to 1000 characters
+        tooLong.setMessage("X".repeat(2000));
+        CompletableFuture<Alert> bad = writer.submit(tooLong);
+
+        assertNotNull(good.get(5, TimeUnit.SECONDS).getId());
+        assertThrows(Exception.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals(1, alertRepository.count());
+
+        writer.shutdown();
+        assertEquals(1.0, meterRegistry.get("writebehind.failed").counter().count());
+    }
+
+    @Test
+    void testDisabledWriterSavesSynchronously() {
+        WriteBehindWriter writer = openWriter(false, 50, 20);
+
+        Alert saved = writer.submit(alert("P001")).join();
+
+        assertNotNull(saved.getId());
+        assertEquals(1, alertRepository.count());
+    }
+
+    @Test
+    void testSaveJoinsCallerTransaction() {
+        WriteBehindWriter writer = openWriter(true, 50, 20);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            assertNotNull(writer.save(prediction("NORMAL")).getId());
+            writer.submitAfterCommit(alert("P001"));
+            throw new IllegalStateException("ingest failed");
+        }));
+        assertEquals(0, predictionRepository.count());
+        assertTrue(events.isEmpty());
+
+        PredictionResult saved = transaction.execute(status -> {
+            writer.submitAfterCommit(alert("P001"));
+            return writer.save(prediction("NORMAL"));
+        });
+        writer.shutdown();
+
+        assertEquals(1, predictionRepository.count());
+        assertEquals(1, alertRepository.count());
+        assertEquals(saved, ((PredictionPersistedEvent) events.get(0)).prediction());
+    }
+
+    private WriteBehindWriter openWriter(boolean enabled, int batchSize, long maxDelayMs) {
+        WriteBehindWriter writer = new WriteBehindWriter(predictionRepository, alertRepository, jdbcTemplate,
+            transactionManager, events::add, meterRegistry, enabled, batchSize, maxDelayMs, 1000);
+        writer.start();
+        return writer;
+    }
+
+    private PredictionResult prediction(String fault) {
+        return new PredictionResult(30.0, 8.0, 25.0, 800.0, 240.0, fault, "High", 0.95,
+            "None", "No action required", "Test prediction");
+    }
+
+    private Alert alert(String panelId) {
+        Alert alert = new Alert();
+        alert.setPanelId(panelId);
+        alert.setFaultType("PARTIAL_SHADING");
+        alert.setSeverity("MEDIUM");
+        alert.setMessage("Test alert");
+        alert.setConfidence("High");
+        alert.setConfidenceScore(0.9);
+        alert.setAcknowledged(false);
+        return alert;
+    }
+}